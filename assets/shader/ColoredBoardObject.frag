@@ -12,12 +12,18 @@ uniform sampler2D u_background;
 uniform sampler2D u_foreground;
 uniform sampler2D u_blendin;
 uniform float u_blendin_priority;
+// offset (xy) and size (zw) of the atlas regions to repeat the coordinates in,
+// inset by half a texel so that linear filtering stays inside the regions
+uniform vec4 u_backgroundRegion;
+uniform vec4 u_blendinRegion;
 
 void main() {
 	vec4 mask = texture2D(u_mask, v_maskCoords);
-	vec4 background = texture2D(u_background, v_backgroundCoords);
+	vec2 backgroundCoords = u_backgroundRegion.xy + fract(v_backgroundCoords) * u_backgroundRegion.zw;
+	vec2 blendinCoords = u_blendinRegion.xy + fract(v_backgroundCoords) * u_blendinRegion.zw;
+	vec4 background = texture2D(u_background, backgroundCoords);
 	vec4 foreground = texture2D(u_foreground, v_foregroundCoords);
-	vec4 blendin = texture2D(u_blendin, v_backgroundCoords);
+	vec4 blendin = texture2D(u_blendin, blendinCoords);
 
 	if (u_blendin_priority != 1.) {
 		background = (u_blendin_priority * background + (1. - u_blendin_priority) * blendin);
@@ -18,6 +18,8 @@ import de.croggle.game.profile.ProfileController;
 import de.croggle.game.sound.SoundController;
 import de.croggle.game.sound.SoundHelper;
 import de.croggle.ui.StyleHelper;
+import de.croggle.ui.renderer.RenderProfiler;
+import de.croggle.ui.renderer.RenderProfilerOverlay;
 import de.croggle.ui.screens.AbstractScreen;
 import de.croggle.ui.screens.AchievementScreen;
 import de.croggle.ui.screens.CreditsScreen;
@@ -65,6 +67,11 @@ public class AlligatorApp extends Game {
 
 	public SpriteBatch batch;
 
+	/*
+	 * displays the renderer's performance figures. Only present in debug mode
+	 */
+	private RenderProfilerOverlay profilerOverlay;
+
 	/**
 	 * Creates the game using the given context and initializes all controllers
 	 * and screens.
@@ -165,6 +172,9 @@ public class AlligatorApp extends Game {
 
 		if (!HEADLESS) {
 			batch = new SpriteBatch();
+			if (DEBUG) {
+				profilerOverlay = new RenderProfilerOverlay();
+			}
 		}
 
 		// catch android back key
@@ -236,6 +246,10 @@ public class AlligatorApp extends Game {
 	@Override
 	public void render() {
 		super.render();
+		if (profilerOverlay != null) {
+			profilerOverlay.draw(batch);
+		}
+		RenderProfiler.endFrame();
 	}
 
 	/**
@@ -257,6 +271,10 @@ public class AlligatorApp extends Game {
 	 */
 	@Override
 	public void pause() {
+		if (persistenceManager != null && !persistenceManager.flush()) {
+			Gdx.app.error("AlligatorApp", "Some changes could not be saved "
+					+ "before pausing the game");
+		}
 	}
 
 	/**
@@ -276,7 +294,16 @@ public class AlligatorApp extends Game {
 	 */
 	@Override
 	public void dispose() {
-		batch.dispose();
+		// save the data first, disposing the graphics may fail
+		if (persistenceManager != null) {
+			persistenceManager.close();
+		}
+		if (profilerOverlay != null) {
+			profilerOverlay.dispose();
+		}
+		if (batch != null) {
+			batch.dispose();
+		}
 		StyleHelper.getInstance().dispose();
 
 		// release catching of back key (no idea if necessary)
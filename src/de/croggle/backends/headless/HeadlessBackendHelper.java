@@ -0,0 +1,61 @@
+package de.croggle.backends.headless;
+
+import de.croggle.backends.BackendHelper;
+import de.croggle.backends.sqlite.ContentValues;
+import de.croggle.backends.sqlite.DatabaseHelper;
+
+/**
+ * A backend for running the game logic on a plain JVM without any platform,
+ * e.g. in benchmarks. All database helpers open the same
+ * {@link MemoryDatabase}, which lives as long as this backend.
+ */
+public class HeadlessBackendHelper extends BackendHelper {
+
+	private final MemoryDatabase database;
+	private final String assetDirPath;
+
+	/**
+	 * Creates a new headless backend with an empty database.
+	 *
+	 * @param assetDirPath
+	 *            the path of the directory containing the game's assets
+	 */
+	public HeadlessBackendHelper(String assetDirPath) {
+		this.assetDirPath = assetDirPath;
+		database = new MemoryDatabase();
+	}
+
+	/**
+	 * Returns the database opened by the database helpers of this backend.
+	 *
+	 * @return the database
+	 */
+	public MemoryDatabase getDatabase() {
+		return database;
+	}
+
+	@Override
+	protected boolean wakelockAcquire() {
+		return false;
+	}
+
+	@Override
+	protected boolean wakelockRelease() {
+		return false;
+	}
+
+	@Override
+	protected DatabaseHelper instantiateDatabaseHelper() {
+		return new MemoryDatabaseHelper(database);
+	}
+
+	@Override
+	protected ContentValues instantiateContentValues() {
+		return new MemoryContentValues();
+	}
+
+	@Override
+	protected String assetDirPath() {
+		return assetDirPath;
+	}
+}
@@ -0,0 +1,44 @@
+package de.croggle.backends.headless;
+
+import java.util.Locale;
+
+import de.croggle.backends.LocalizationBackend;
+
+/**
+ * A localization backend without any localized strings, which returns the
+ * identifiers it is asked to translate.
+ */
+public class HeadlessLocalizationBackend implements LocalizationBackend {
+
+	private Locale applicationLocale = Locale.getDefault();
+
+	@Override
+	public String translate(String s) {
+		return s;
+	}
+
+	@Override
+	public String translate(String s, int multiplicity) {
+		return s;
+	}
+
+	@Override
+	public String[] getLocalizedStringList(String identifier) {
+		return new String[] { identifier };
+	}
+
+	@Override
+	public void setApplicationLocale(Locale locale) {
+		applicationLocale = locale;
+	}
+
+	@Override
+	public Locale getApplicationLocale() {
+		return applicationLocale;
+	}
+
+	@Override
+	public Locale getSystemLocale() {
+		return Locale.getDefault();
+	}
+}
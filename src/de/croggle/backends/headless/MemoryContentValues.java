@@ -0,0 +1,47 @@
+package de.croggle.backends.headless;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.croggle.backends.sqlite.ContentValues;
+
+/**
+ * Content values for a {@link MemoryDatabase}, storing the values the way
+ * sqlite stores them.
+ */
+public class MemoryContentValues implements ContentValues {
+
+	private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+	@Override
+	public void put(String key, float value) {
+		values.put(key, Double.valueOf(value));
+	}
+
+	@Override
+	public void put(String key, String value) {
+		values.put(key, value);
+	}
+
+	@Override
+	public void put(String key, int value) {
+		values.put(key, Long.valueOf(value));
+	}
+
+	@Override
+	public void put(String key, boolean value) {
+		values.put(key, Long.valueOf(value ? 1 : 0));
+	}
+
+	@Override
+	public void put(String key, byte[] value) {
+		values.put(key, value == null ? null : value.clone());
+	}
+
+	/**
+	 * Returns the values mapped to their columns, in the order they were put.
+	 */
+	Map<String, Object> values() {
+		return values;
+	}
+}
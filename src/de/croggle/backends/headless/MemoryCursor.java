@@ -0,0 +1,142 @@
+package de.croggle.backends.headless;
+
+import java.util.List;
+
+import de.croggle.backends.sqlite.Cursor;
+
+/**
+ * A cursor over the rows returned by a query of a {@link MemoryDatabase}. The
+ * rows are read completely when the query is executed, so later changes to
+ * the database do not affect the cursor. Values are converted like sqlite
+ * converts them when they are read as a different type.
+ *
+ * Cursors returned by {@link MemoryDatabase#rawQuery(String, String[])} are
+ * counted by the database until they are closed, so that leaked cursors can be
+ * noticed.
+ */
+public class MemoryCursor implements Cursor {
+
+	private final List<String> columns;
+	private List<Object[]> rows;
+	private int position;
+	private MemoryDatabase database;
+	private boolean closed;
+
+	MemoryCursor(List<String> columns, List<Object[]> rows) {
+		this.columns = columns;
+		this.rows = rows;
+		position = -1;
+	}
+
+	/*
+	 * has the given database count this cursor as open until it is closed
+	 */
+	void open(MemoryDatabase database) {
+		this.database = database;
+		database.cursorOpened();
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		rows = null;
+		if (database != null) {
+			database.cursorClosed();
+		}
+	}
+
+	@Override
+	public boolean moveToFirst() {
+		checkOpen();
+		position = 0;
+		return !rows.isEmpty();
+	}
+
+	@Override
+	public boolean moveToNext() {
+		checkOpen();
+		if (position < rows.size()) {
+			position++;
+		}
+		return position < rows.size();
+	}
+
+	@Override
+	public int getColumnIndex(String name) {
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String getString(int columnIndex) {
+		Object value = value(columnIndex);
+		return value == null ? null : MemoryTable.toText(value);
+	}
+
+	@Override
+	public int getInt(int columnIndex) {
+		return (int) getLong(columnIndex);
+	}
+
+	@Override
+	public long getLong(int columnIndex) {
+		Object value = number(columnIndex);
+		if (value instanceof Double) {
+			return (long) (double) (Double) value;
+		}
+		return value == null ? 0 : (Long) value;
+	}
+
+	@Override
+	public float getFloat(int columnIndex) {
+		Object value = number(columnIndex);
+		return value == null ? 0 : ((Number) value).floatValue();
+	}
+
+	@Override
+	public byte[] getBlob(int columnIndex) {
+		Object value = value(columnIndex);
+		if (value == null) {
+			return null;
+		} else if (value instanceof byte[]) {
+			return ((byte[]) value).clone();
+		}
+		return MemoryTable.toText(value).getBytes();
+	}
+
+	private Object number(int columnIndex) {
+		Object value = value(columnIndex);
+		if (value instanceof String) {
+			return MemoryTable.parseNumber((String) value);
+		} else if (value instanceof byte[]) {
+			return null;
+		}
+		return value;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The cursor has been closed");
+		}
+	}
+
+	private Object value(int columnIndex) {
+		checkOpen();
+		if (position < 0 || position >= rows.size()) {
+			throw new IllegalStateException("The cursor is not on a row");
+		}
+		Object[] row = rows.get(position);
+		if (columnIndex < 0 || columnIndex >= columns.size()) {
+			throw new IllegalArgumentException("No column with index "
+					+ columnIndex);
+		}
+		return row[columnIndex];
+	}
+}
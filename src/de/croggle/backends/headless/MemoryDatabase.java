@@ -0,0 +1,894 @@
+package de.croggle.backends.headless;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import de.croggle.backends.sqlite.ContentValues;
+import de.croggle.backends.sqlite.Cursor;
+import de.croggle.backends.sqlite.Database;
+import de.croggle.backends.sqlite.SQLException;
+import de.croggle.backends.sqlite.Statement;
+
+/**
+ * A database kept entirely in memory, which behaves like the sqlite databases
+ * of the platform backends for all statements issued by the table managers.
+ * It is meant for running the persistence layer on a plain JVM, e.g. in
+ * benchmarks, and not for storing data.
+ *
+ * Constraints are checked like sqlite does, including foreign keys once they
+ * have been enabled by <code>PRAGMA foreign_keys = ON</code>. Conditions
+ * comparing a column for equality are answered by an index on that column, if
+ * there is one, otherwise by scanning the table. Every statement is atomic,
+ * and transactions may be nested, with the same semantics as on Android.
+ *
+ * The database counts the statements it executes and the rows it examines,
+ * which allows comparing the work done by different implementations of the
+ * persistence layer independently of the speed of this database.
+ */
+public class MemoryDatabase implements Database {
+
+	/**
+	 * The number of parsed statements kept for reuse by
+	 * {@link #rawQuery(String, String[])} and {@link #execSQL(String)}, the
+	 * same as the statement cache of an Android database connection.
+	 */
+	private static final int PARSED_CACHE_SIZE = 25;
+
+	/**
+	 * The tables mapped to their lower case names. The map is replaced
+	 * whenever the schema changes, so that it can be restored on rollback.
+	 */
+	private Map<String, MemoryTable> tables;
+
+	/**
+	 * Restores the state before each change made during the current statement
+	 * or transaction, in the order the changes were made.
+	 */
+	private final List<Runnable> undo;
+
+	/**
+	 * Whether each of the nested transactions has been marked successful, the
+	 * innermost last.
+	 */
+	private final List<Boolean> transactions;
+	private boolean transactionFailed;
+
+	private final Map<String, SqlCommand> parsed;
+	private boolean foreignKeysEnabled;
+	private int version;
+
+	private long statementCount;
+	private long examinedRowCount;
+	private long commitCount;
+	private int openCursorCount;
+
+	/**
+	 * Creates a new, empty database.
+	 */
+	public MemoryDatabase() {
+		tables = new LinkedHashMap<String, MemoryTable>();
+		undo = new ArrayList<Runnable>();
+		transactions = new ArrayList<Boolean>();
+		parsed = new LinkedHashMap<String, SqlCommand>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, SqlCommand> eldest) {
+				return size() > PARSED_CACHE_SIZE;
+			}
+		};
+	}
+
+	@Override
+	public void execSQL(String sql) {
+		SqlCommand command = command(sql);
+		execute(command, new Object[command.parameterCount]);
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	@Override
+	public Cursor rawQuery(String selection, String[] args) {
+		SqlCommand command = command(selection);
+		Object result = execute(command, bind(command, args, 0, null));
+		MemoryCursor cursor;
+		if (result instanceof MemoryCursor) {
+			cursor = (MemoryCursor) result;
+		} else {
+			cursor = new MemoryCursor(Collections.<String> emptyList(),
+					Collections.<Object[]> emptyList());
+		}
+		cursor.open(this);
+		return cursor;
+	}
+
+	@Override
+	public int update(String table, ContentValues values, String whereClause,
+			String[] whereArgs) {
+		Map<String, Object> map = ((MemoryContentValues) values).values();
+		StringBuilder sql = new StringBuilder("update ").append(table)
+				.append(" set ");
+		Object[] assigned = new Object[map.size()];
+		int i = 0;
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			if (i > 0) {
+				sql.append(", ");
+			}
+			sql.append(entry.getKey()).append(" = ?");
+			assigned[i++] = entry.getValue();
+		}
+		if (whereClause != null) {
+			sql.append(" where ").append(whereClause);
+		}
+		SqlCommand command = command(sql.toString());
+		return (Integer) execute(command,
+				bind(command, whereArgs, assigned.length, assigned));
+	}
+
+	@Override
+	public int delete(String table, String whereClause, String[] whereArgs) {
+		String sql = "delete from " + table;
+		if (whereClause != null) {
+			sql += " where " + whereClause;
+		}
+		SqlCommand command = command(sql);
+		return (Integer) execute(command, bind(command, whereArgs, 0, null));
+	}
+
+	@Override
+	public long insert(String table, String nullColumnHack,
+			ContentValues values) {
+		SqlCommand.Insert insert = new SqlCommand.Insert();
+		insert.table = table;
+		insert.columns = new ArrayList<String>();
+		insert.values = new ArrayList<Object>();
+		for (Map.Entry<String, Object> entry : ((MemoryContentValues) values)
+				.values().entrySet()) {
+			insert.columns.add(entry.getKey());
+			insert.values.add(entry.getValue());
+		}
+		if (insert.columns.isEmpty() && nullColumnHack != null) {
+			insert.columns.add(nullColumnHack);
+			insert.values.add(null);
+		}
+		try {
+			return (Long) execute(insert, new Object[0]);
+		} catch (SQLException e) {
+			// like on Android, failing inserts are only reported by -1
+			return -1;
+		}
+	}
+
+	@Override
+	public long queryForLong(String selection, String[] args) {
+		SqlCommand command = command(selection);
+		return simpleQueryForLong(command, bind(command, args, 0, null));
+	}
+
+	@Override
+	public Statement compileStatement(String sql) {
+		return new MemoryStatement(this, SqlParser.parse(sql));
+	}
+
+	@Override
+	public synchronized void beginTransaction() {
+		transactions.add(Boolean.FALSE);
+	}
+
+	@Override
+	public synchronized void setTransactionSuccessful() {
+		if (transactions.isEmpty()) {
+			throw new IllegalStateException("There is no current transaction");
+		}
+		transactions.set(transactions.size() - 1, Boolean.TRUE);
+	}
+
+	@Override
+	public synchronized void endTransaction() {
+		if (transactions.isEmpty()) {
+			throw new IllegalStateException("There is no current transaction");
+		}
+		if (!transactions.remove(transactions.size() - 1)) {
+			transactionFailed = true;
+		}
+		if (transactions.isEmpty()) {
+			if (transactionFailed) {
+				rollback(0);
+			} else {
+				commitCount++;
+			}
+			undo.clear();
+			transactionFailed = false;
+		}
+	}
+
+	@Override
+	public synchronized boolean inTransaction() {
+		return !transactions.isEmpty();
+	}
+
+	/**
+	 * Returns the number of statements executed so far.
+	 *
+	 * @return the number of statements
+	 */
+	public synchronized long getStatementCount() {
+		return statementCount;
+	}
+
+	/**
+	 * Returns the number of rows examined so far for finding the rows
+	 * statements apply to, which is the number of rows scanned by sqlite when
+	 * executing the same statements with the same indices.
+	 *
+	 * @return the number of rows
+	 */
+	public synchronized long getExaminedRowCount() {
+		return examinedRowCount;
+	}
+
+	/**
+	 * Returns the number of transactions committed so far, counting each
+	 * change made outside of a transaction as a transaction of its own. On a
+	 * database file, every commit requires syncing the file to the disk.
+	 *
+	 * @return the number of transactions
+	 */
+	public synchronized long getCommitCount() {
+		return commitCount;
+	}
+
+	/**
+	 * Returns the number of cursors returned by queries which have not been
+	 * closed yet.
+	 *
+	 * @return the number of open cursors
+	 */
+	public synchronized int getOpenCursorCount() {
+		return openCursorCount;
+	}
+
+	synchronized void cursorOpened() {
+		openCursorCount++;
+	}
+
+	synchronized void cursorClosed() {
+		openCursorCount--;
+	}
+
+	synchronized int getVersion() {
+		return version;
+	}
+
+	synchronized void setVersion(int version) {
+		this.version = version;
+	}
+
+	/**
+	 * Executes the given command as a single atomic statement.
+	 */
+	synchronized Object execute(SqlCommand command, Object[] args) {
+		statementCount++;
+		int mark = undo.size();
+		try {
+			Object result = command.execute(this, args);
+			if (transactions.isEmpty()) {
+				// a change outside of a transaction is committed on its own
+				if (undo.size() > mark) {
+					commitCount++;
+				}
+				undo.clear();
+			}
+			return result;
+		} catch (RuntimeException e) {
+			rollback(mark);
+			if (transactions.isEmpty()) {
+				undo.clear();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Executes the given query and returns the first column of its first row.
+	 */
+	synchronized long simpleQueryForLong(SqlCommand command, Object[] args) {
+		Object result = execute(command, args);
+		if (!(result instanceof MemoryCursor)) {
+			throw new SQLException("Not a query");
+		}
+		MemoryCursor cursor = (MemoryCursor) result;
+		if (!cursor.moveToFirst()) {
+			throw new SQLException("The query returned no rows");
+		}
+		return cursor.getLong(0);
+	}
+
+	private SqlCommand command(String sql) {
+		synchronized (parsed) {
+			SqlCommand command = parsed.get(sql);
+			if (command == null) {
+				command = SqlParser.parse(sql);
+				parsed.put(sql, command);
+			}
+			return command;
+		}
+	}
+
+	/*
+	 * binds the given strings after the given values, the remaining
+	 * parameters are null
+	 */
+	private static Object[] bind(SqlCommand command, String[] args,
+			int offset, Object[] values) {
+		Object[] bound = new Object[command.parameterCount];
+		if (values != null) {
+			System.arraycopy(values, 0, bound, 0, offset);
+		}
+		if (args != null) {
+			if (offset + args.length > bound.length) {
+				throw new IllegalArgumentException("Too many bind arguments");
+			}
+			System.arraycopy(args, 0, bound, offset, args.length);
+		}
+		return bound;
+	}
+
+	private void rollback(int mark) {
+		for (int i = undo.size() - 1; i >= mark; i--) {
+			undo.remove(i).run();
+		}
+	}
+
+	void setForeignKeysEnabled(boolean enabled) {
+		foreignKeysEnabled = enabled;
+	}
+
+	MemoryTable table(String name) {
+		MemoryTable table = tables.get(name.toLowerCase(Locale.US));
+		if (table == null) {
+			throw new SQLException("no such table: " + name);
+		}
+		return table;
+	}
+
+	List<String> columnNames(String tableName) {
+		List<MemoryTable.Column> columns = table(tableName).columns;
+		List<String> names = new ArrayList<String>(columns.size());
+		for (MemoryTable.Column column : columns) {
+			names.add(column.name);
+		}
+		return names;
+	}
+
+	/*
+	 * schema changes
+	 */
+
+	void createTable(MemoryTable table, boolean ifNotExists) {
+		if (tables.containsKey(table.name.toLowerCase(Locale.US))) {
+			if (ifNotExists) {
+				return;
+			}
+			throw new SQLException("table " + table.name + " already exists");
+		}
+		Map<String, MemoryTable> changed = changeSchema();
+		changed.put(table.name.toLowerCase(Locale.US), table);
+	}
+
+	void createIndex(String name, String tableName, String column,
+			boolean unique, boolean ifNotExists) {
+		for (MemoryTable table : tables.values()) {
+			if (table.index(name) != null) {
+				if (ifNotExists) {
+					return;
+				}
+				throw new SQLException("index " + name + " already exists");
+			}
+		}
+		MemoryTable table = table(tableName);
+		int columnIndex = table.columnIndex(column);
+		if (columnIndex < 0) {
+			throw new SQLException("no such column: " + column);
+		}
+		MemoryTable copy = table.copy(table.name, table.columns,
+				table.foreignKeys);
+		MemoryTable.Index index = new MemoryTable.Index(name, columnIndex,
+				unique);
+		copy.addIndex(index);
+		if (unique) {
+			for (Collection<Long> rowids : index.rowids.values()) {
+				if (rowids.size() > 1) {
+					throw new SQLException("UNIQUE constraint failed: "
+							+ table.name + "." + column);
+				}
+			}
+		}
+		changeSchema().put(table.name.toLowerCase(Locale.US), copy);
+	}
+
+	void dropTable(String name, boolean ifExists) {
+		if (!tables.containsKey(name.toLowerCase(Locale.US))) {
+			if (ifExists) {
+				return;
+			}
+			throw new SQLException("no such table: " + name);
+		}
+		if (foreignKeysEnabled) {
+			// like sqlite, drop the rows first to apply the foreign keys
+			delete(name, Collections.<SqlCommand.Condition> emptyList(), null);
+		}
+		changeSchema().remove(name.toLowerCase(Locale.US));
+	}
+
+	void dropIndex(String name, boolean ifExists) {
+		for (MemoryTable table : tables.values()) {
+			if (table.index(name) != null) {
+				MemoryTable copy = table.copy(table.name, table.columns,
+						table.foreignKeys);
+				copy.indices.remove(copy.index(name));
+				changeSchema().put(table.name.toLowerCase(Locale.US), copy);
+				return;
+			}
+		}
+		if (!ifExists) {
+			throw new SQLException("no such index: " + name);
+		}
+	}
+
+	void addColumn(String tableName, MemoryTable.Column column) {
+		MemoryTable table = table(tableName);
+		if (column.primaryKey || column.unique) {
+			throw new SQLException("Cannot add a PRIMARY KEY or UNIQUE column");
+		} else if (table.columnIndex(column.name) >= 0) {
+			throw new SQLException("duplicate column name: " + column.name);
+		}
+		List<MemoryTable.Column> columns = new ArrayList<MemoryTable.Column>(
+				table.columns);
+		columns.add(column);
+		changeSchema().put(table.name.toLowerCase(Locale.US),
+				table.copy(table.name, columns, table.foreignKeys));
+	}
+
+	void renameTable(String tableName, String newName) {
+		MemoryTable table = table(tableName);
+		if (tables.containsKey(newName.toLowerCase(Locale.US))) {
+			throw new SQLException("there is already another table named "
+					+ newName);
+		}
+		Map<String, MemoryTable> changed = changeSchema();
+		changed.remove(table.name.toLowerCase(Locale.US));
+		changed.put(newName.toLowerCase(Locale.US),
+				table.copy(newName, table.columns, table.foreignKeys));
+		// foreign keys follow the table they refer to
+		for (MemoryTable other : new ArrayList<MemoryTable>(changed.values())) {
+			List<MemoryTable.ForeignKey> keys = new ArrayList<MemoryTable.ForeignKey>();
+			boolean renamed = false;
+			for (MemoryTable.ForeignKey key : other.foreignKeys) {
+				if (key.parentTable.equalsIgnoreCase(table.name)) {
+					MemoryTable.ForeignKey copy = new MemoryTable.ForeignKey();
+					copy.column = key.column;
+					copy.parentTable = newName;
+					copy.parentColumn = key.parentColumn;
+					copy.cascadeDelete = key.cascadeDelete;
+					copy.cascadeUpdate = key.cascadeUpdate;
+					key = copy;
+					renamed = true;
+				}
+				keys.add(key);
+			}
+			if (renamed) {
+				changed.put(other.name.toLowerCase(Locale.US),
+						other.copy(other.name, other.columns, keys));
+			}
+		}
+	}
+
+	/*
+	 * replaces the tables by a copy to be changed, the old tables are
+	 * restored on rollback
+	 */
+	private Map<String, MemoryTable> changeSchema() {
+		final Map<String, MemoryTable> old = tables;
+		tables = new LinkedHashMap<String, MemoryTable>(old);
+		undo.add(new Runnable() {
+			@Override
+			public void run() {
+				tables = old;
+			}
+		});
+		return tables;
+	}
+
+	/*
+	 * data changes
+	 */
+
+	long insert(String tableName, List<String> columns, Object[] values) {
+		MemoryTable table = table(tableName);
+		Object[] row = new Object[table.columns.size()];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = table.columns.get(i).defaultValue;
+		}
+		Object rowidValue = null;
+		for (int i = 0; i < values.length; i++) {
+			int column = columnIndex(table, columns.get(i));
+			Object value = copyBlob(values[i]);
+			if (column == MemoryTable.ROWID) {
+				rowidValue = MemoryTable.applyAffinity(
+						MemoryTable.AFFINITY_INTEGER, value);
+			} else {
+				row[column] = MemoryTable.applyAffinity(
+						table.columns.get(column).affinity, value);
+			}
+		}
+		if (table.rowidColumn >= 0) {
+			rowidValue = row[table.rowidColumn];
+		}
+		long rowid;
+		if (rowidValue == null) {
+			rowid = table.nextRowid();
+		} else if (rowidValue instanceof Long) {
+			rowid = (Long) rowidValue;
+			if (table.get(rowid) != null) {
+				throw new SQLException("UNIQUE constraint failed: "
+						+ table.name + ".rowid");
+			}
+		} else {
+			throw new SQLException("datatype mismatch");
+		}
+		if (table.rowidColumn >= 0) {
+			row[table.rowidColumn] = rowid;
+		}
+		checkConstraints(table, rowid, row);
+		put(table, rowid, row);
+		return rowid;
+	}
+
+	int update(String tableName, List<String> columns, Object[] values,
+			List<SqlCommand.Condition> where, Object[] args) {
+		MemoryTable table = table(tableName);
+		int[] indices = new int[columns.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = columnIndex(table, columns.get(i));
+			if (indices[i] == MemoryTable.ROWID
+					|| indices[i] == table.rowidColumn) {
+				throw new SQLException("Changing rowids is not supported");
+			}
+		}
+		int changed = 0;
+		for (long rowid : find(table, where, args)) {
+			Object[] old = table.get(rowid);
+			Object[] row = old.clone();
+			for (int i = 0; i < indices.length; i++) {
+				row[indices[i]] = MemoryTable.applyAffinity(
+						table.columns.get(indices[i]).affinity,
+						copyBlob(values[i]));
+			}
+			updateRow(table, rowid, old, row);
+			changed++;
+		}
+		return changed;
+	}
+
+	private void updateRow(MemoryTable table, long rowid, Object[] old,
+			Object[] row) {
+		checkConstraints(table, rowid, row);
+		put(table, rowid, row);
+		if (!foreignKeysEnabled) {
+			return;
+		}
+		for (MemoryTable child : tables.values()) {
+			for (MemoryTable.ForeignKey key : child.foreignKeys) {
+				if (!key.parentTable.equalsIgnoreCase(table.name)) {
+					continue;
+				}
+				int parentColumn = columnIndex(table, key.parentColumn);
+				Object oldValue = MemoryTable.value(rowid, old, parentColumn);
+				Object newValue = MemoryTable.value(rowid, row, parentColumn);
+				if (oldValue == null
+						|| MemoryTable.key(oldValue).equals(
+								MemoryTable.key(newValue))) {
+					continue;
+				}
+				int childColumn = columnIndex(child, key.column);
+				for (long childRowid : references(child, childColumn, oldValue)) {
+					if (!key.cascadeUpdate) {
+						throw new SQLException("FOREIGN KEY constraint failed");
+					}
+					Object[] childOld = child.get(childRowid);
+					Object[] childRow = childOld.clone();
+					childRow[childColumn] = MemoryTable.applyAffinity(
+							child.columns.get(childColumn).affinity, newValue);
+					updateRow(child, childRowid, childOld, childRow);
+				}
+			}
+		}
+	}
+
+	int delete(String tableName, List<SqlCommand.Condition> where,
+			Object[] args) {
+		MemoryTable table = table(tableName);
+		int deleted = 0;
+		for (long rowid : find(table, where, args)) {
+			if (deleteRow(table, rowid)) {
+				deleted++;
+			}
+		}
+		return deleted;
+	}
+
+	private boolean deleteRow(final MemoryTable table, final long rowid) {
+		final Object[] old = table.remove(rowid);
+		if (old == null) {
+			// already deleted by a foreign key
+			return false;
+		}
+		undo.add(new Runnable() {
+			@Override
+			public void run() {
+				table.put(rowid, old);
+			}
+		});
+		if (!foreignKeysEnabled) {
+			return true;
+		}
+		for (MemoryTable child : tables.values()) {
+			for (MemoryTable.ForeignKey key : child.foreignKeys) {
+				if (!key.parentTable.equalsIgnoreCase(table.name)) {
+					continue;
+				}
+				Object value = MemoryTable.value(rowid, old,
+						columnIndex(table, key.parentColumn));
+				if (value == null) {
+					continue;
+				}
+				for (long childRowid : references(child,
+						columnIndex(child, key.column), value)) {
+					if (!key.cascadeDelete) {
+						throw new SQLException("FOREIGN KEY constraint failed");
+					}
+					deleteRow(child, childRowid);
+				}
+			}
+		}
+		return true;
+	}
+
+	private void put(final MemoryTable table, final long rowid, Object[] row) {
+		final Object[] old = table.put(rowid, row);
+		undo.add(new Runnable() {
+			@Override
+			public void run() {
+				if (old == null) {
+					table.remove(rowid);
+				} else {
+					table.put(rowid, old);
+				}
+			}
+		});
+	}
+
+	private void checkConstraints(MemoryTable table, long rowid, Object[] row) {
+		for (int i = 0; i < row.length; i++) {
+			MemoryTable.Column column = table.columns.get(i);
+			if (column.notNull && row[i] == null) {
+				throw new SQLException("NOT NULL constraint failed: "
+						+ table.name + "." + column.name);
+			}
+		}
+		for (MemoryTable.Index index : table.indices) {
+			Object value = MemoryTable.value(rowid, row, index.column);
+			if (!index.unique || value == null) {
+				continue;
+			}
+			for (long other : table.lookup(index.column, value)) {
+				if (other != rowid) {
+					throw new SQLException("UNIQUE constraint failed: "
+							+ table.name + "."
+							+ table.columns.get(index.column).name);
+				}
+			}
+		}
+		if (!foreignKeysEnabled) {
+			return;
+		}
+		for (MemoryTable.ForeignKey key : table.foreignKeys) {
+			Object value = row[columnIndex(table, key.column)];
+			if (value == null) {
+				continue;
+			}
+			MemoryTable parent = tables.get(key.parentTable
+					.toLowerCase(Locale.US));
+			if (parent == null
+					|| references(parent,
+							columnIndex(parent, key.parentColumn), value)
+							.isEmpty()) {
+				throw new SQLException("FOREIGN KEY constraint failed");
+			}
+		}
+	}
+
+	/*
+	 * returns the rows whose value in the given column equals the given value
+	 */
+	private Collection<Long> references(MemoryTable table, int column,
+			Object value) {
+		int affinity = column == MemoryTable.ROWID
+				|| column == table.rowidColumn ? MemoryTable.AFFINITY_INTEGER
+				: table.columns.get(column).affinity;
+		Object key = MemoryTable.key(MemoryTable.applyAffinity(affinity,
+				value));
+		Collection<Long> found = table.lookup(column, key);
+		if (found != null) {
+			examinedRowCount += found.size();
+			return found;
+		}
+		List<Long> matching = new ArrayList<Long>();
+		for (long rowid : table.rowids()) {
+			examinedRowCount++;
+			Object candidate = MemoryTable.value(rowid, table.get(rowid),
+					column);
+			if (candidate != null && key.equals(MemoryTable.key(candidate))) {
+				matching.add(rowid);
+			}
+		}
+		return matching;
+	}
+
+	/*
+	 * queries
+	 */
+
+	List<Object[]> query(SqlCommand.Select select, Object[] args) {
+		final MemoryTable table = table(select.table);
+		List<Long> rowids = find(table, select.where, args);
+		if (select.orderBy != null) {
+			final int column = columnIndex(table, select.orderBy);
+			final int direction = select.descending ? -1 : 1;
+			Collections.sort(rowids, new Comparator<Long>() {
+				@Override
+				public int compare(Long a, Long b) {
+					Object valueA = MemoryTable.value(a, table.get(a), column);
+					Object valueB = MemoryTable.value(b, table.get(b), column);
+					if (valueA == null || valueB == null) {
+						return direction
+								* ((valueA == null ? 0 : 1) - (valueB == null ? 0
+										: 1));
+					}
+					return direction * MemoryTable.compare(valueA, valueB);
+				}
+			});
+		}
+		List<Object[]> rows = new ArrayList<Object[]>(rowids.size());
+		if (select.count) {
+			rows.add(new Object[] { Long.valueOf(rowids.size()) });
+			return rows;
+		}
+		// the number of rows counted is not limited
+		if (select.limit >= 0 && rowids.size() > select.limit) {
+			rowids = rowids.subList(0, select.limit);
+		}
+		if (select.all) {
+			for (long rowid : rowids) {
+				rows.add(table.get(rowid));
+			}
+			return rows;
+		}
+		int[] columns = new int[select.items.size()];
+		for (int i = 0; i < columns.length; i++) {
+			Object item = select.items.get(i);
+			columns[i] = item instanceof SqlCommand.ColumnRef ? columnIndex(
+					table, ((SqlCommand.ColumnRef) item).name) : -1;
+		}
+		for (long rowid : rowids) {
+			Object[] stored = table.get(rowid);
+			Object[] row = new Object[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				row[i] = columns[i] == -1 ? SqlCommand.resolve(
+						select.items.get(i), args) : MemoryTable.value(rowid,
+						stored, columns[i]);
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	/*
+	 * returns the rows matching all conditions, using the index answering one
+	 * of the equality conditions with the fewest rows, if there is one
+	 */
+	private List<Long> find(MemoryTable table,
+			List<SqlCommand.Condition> where, Object[] args) {
+		int[] columns = new int[where.size()];
+		Object[] operands = new Object[where.size()];
+		Collection<Long> candidates = null;
+		for (int i = 0; i < columns.length; i++) {
+			SqlCommand.Condition condition = where.get(i);
+			columns[i] = columnIndex(table, condition.column);
+			int affinity = columns[i] == MemoryTable.ROWID
+					|| columns[i] == table.rowidColumn ? MemoryTable.AFFINITY_INTEGER
+					: table.columns.get(columns[i]).affinity;
+			operands[i] = MemoryTable.applyAffinity(affinity,
+					SqlCommand.resolve(condition.value, args));
+			if (condition.operator == SqlCommand.EQUAL) {
+				if (operands[i] == null) {
+					return new ArrayList<Long>();
+				}
+				Collection<Long> found = table.lookup(columns[i], operands[i]);
+				if (found != null
+						&& (candidates == null || found.size() < candidates
+								.size())) {
+					candidates = found;
+				}
+			}
+		}
+		if (candidates == null) {
+			candidates = table.rowids();
+		}
+		List<Long> matching = new ArrayList<Long>(candidates.size());
+		for (long rowid : candidates) {
+			examinedRowCount++;
+			Object[] row = table.get(rowid);
+			boolean matches = true;
+			for (int i = 0; i < columns.length && matches; i++) {
+				matches = matches(MemoryTable.value(rowid, row, columns[i]),
+						where.get(i).operator, operands[i]);
+			}
+			if (matches) {
+				matching.add(rowid);
+			}
+		}
+		return matching;
+	}
+
+	private static boolean matches(Object value, int operator, Object operand) {
+		if (operator == SqlCommand.IS_NULL) {
+			return value == null;
+		} else if (operator == SqlCommand.IS_NOT_NULL) {
+			return value != null;
+		} else if (value == null || operand == null) {
+			return false;
+		}
+		int comparison = MemoryTable.compare(value, operand);
+		switch (operator) {
+		case SqlCommand.EQUAL:
+			return comparison == 0;
+		case SqlCommand.NOT_EQUAL:
+			return comparison != 0;
+		case SqlCommand.LESS:
+			return comparison < 0;
+		case SqlCommand.LESS_OR_EQUAL:
+			return comparison <= 0;
+		case SqlCommand.GREATER:
+			return comparison > 0;
+		default:
+			return comparison >= 0;
+		}
+	}
+
+	private static int columnIndex(MemoryTable table, String name) {
+		int index = table.columnIndex(name);
+		if (index == -1) {
+			throw new SQLException("no such column: " + name);
+		}
+		return index;
+	}
+
+	private static Object copyBlob(Object value) {
+		if (value instanceof byte[]) {
+			return ((byte[]) value).clone();
+		}
+		return value;
+	}
+}
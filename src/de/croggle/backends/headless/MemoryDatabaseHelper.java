@@ -0,0 +1,57 @@
+package de.croggle.backends.headless;
+
+import de.croggle.backends.sqlite.Database;
+import de.croggle.backends.sqlite.DatabaseHelper;
+import de.croggle.backends.sqlite.SQLException;
+
+/**
+ * Opens a {@link MemoryDatabase}, creating or upgrading its tables like the
+ * platform helpers do for their database files. Closing the helper does not
+ * discard the database, so it can be opened again by another helper, as if it
+ * was stored on the disk.
+ */
+public class MemoryDatabaseHelper extends DatabaseHelper {
+
+	private final MemoryDatabase database;
+
+	/**
+	 * Creates a new helper opening the given database.
+	 *
+	 * @param database
+	 *            the database, which may be shared with other helpers
+	 */
+	public MemoryDatabaseHelper(MemoryDatabase database) {
+		this.database = database;
+	}
+
+	@Override
+	public Database getWritableDatabase() {
+		synchronized (database) {
+			int version = database.getVersion();
+			if (version == DATABASE_Version) {
+				return database;
+			} else if (version > DATABASE_Version) {
+				throw new SQLException("Cannot downgrade the database from "
+						+ "version " + version + " to " + DATABASE_Version);
+			}
+			database.beginTransaction();
+			try {
+				if (version == 0) {
+					onCreate(database);
+				} else {
+					onUpgrade(database, version, DATABASE_Version);
+				}
+				database.setTransactionSuccessful();
+			} finally {
+				database.endTransaction();
+			}
+			database.setVersion(DATABASE_Version);
+			return database;
+		}
+	}
+
+	@Override
+	public void close() {
+		// there is no file to close
+	}
+}
@@ -0,0 +1,107 @@
+package de.croggle.backends.headless;
+
+import java.util.Arrays;
+
+import de.croggle.backends.sqlite.Statement;
+
+/**
+ * A statement of a {@link MemoryDatabase}, parsed once when it is compiled.
+ */
+public class MemoryStatement implements Statement {
+
+	private final MemoryDatabase database;
+	private final SqlCommand command;
+	private final Object[] bindings;
+	private boolean closed;
+
+	MemoryStatement(MemoryDatabase database, SqlCommand command) {
+		this.database = database;
+		this.command = command;
+		bindings = new Object[command.parameterCount];
+	}
+
+	@Override
+	public void bindString(int index, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("The bind value at index "
+					+ index + " is null");
+		}
+		bind(index, value);
+	}
+
+	@Override
+	public void bindLong(int index, long value) {
+		bind(index, value);
+	}
+
+	@Override
+	public void bindDouble(int index, double value) {
+		bind(index, value);
+	}
+
+	@Override
+	public void bindBlob(int index, byte[] value) {
+		if (value == null) {
+			throw new IllegalArgumentException("The bind value at index "
+					+ index + " is null");
+		}
+		bind(index, value.clone());
+	}
+
+	@Override
+	public void bindNull(int index) {
+		bind(index, null);
+	}
+
+	@Override
+	public void clearBindings() {
+		Arrays.fill(bindings, null);
+	}
+
+	@Override
+	public void execute() {
+		checkOpen();
+		database.execute(command, bindings.clone());
+	}
+
+	@Override
+	public long executeInsert() {
+		checkOpen();
+		Object result = database.execute(command, bindings.clone());
+		return command instanceof SqlCommand.Insert ? (Long) result : -1;
+	}
+
+	@Override
+	public int executeUpdateDelete() {
+		checkOpen();
+		Object result = database.execute(command, bindings.clone());
+		return result instanceof Integer ? (Integer) result : 0;
+	}
+
+	@Override
+	public long simpleQueryForLong() {
+		checkOpen();
+		return database.simpleQueryForLong(command, bindings.clone());
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	private void bind(int index, Object value) {
+		checkOpen();
+		if (index < 1 || index > bindings.length) {
+			throw new IllegalArgumentException("Cannot bind argument at index "
+					+ index + " because the index is out of range. "
+					+ "The statement has " + bindings.length + " parameters.");
+		}
+		bindings[index - 1] = value;
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("The statement has been closed");
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package de.croggle.backends.headless;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A table of a {@link MemoryDatabase}, consisting of its schema, its rows
+ * mapped to their rowids and the indices over its columns.
+ *
+ * Rows are arrays holding one value per column and are never changed once
+ * stored, so that they can be shared by copies of the table and kept for
+ * rolling back changes. Values are stored the way sqlite stores them, as
+ * Long, Double, String, byte[] or null.
+ */
+final class MemoryTable {
+
+	/**
+	 * The type affinities of sqlite, which decide how values stored in a
+	 * column are converted.
+	 */
+	static final int AFFINITY_INTEGER = 0;
+	static final int AFFINITY_REAL = 1;
+	static final int AFFINITY_NUMERIC = 2;
+	static final int AFFINITY_TEXT = 3;
+	static final int AFFINITY_NONE = 4;
+
+	/**
+	 * The index of the rowid, for columns referring to it without the table
+	 * having a column aliasing it.
+	 */
+	static final int ROWID = -2;
+
+	static final class Column {
+		final String name;
+		final String type;
+		final int affinity;
+		boolean notNull;
+		boolean primaryKey;
+		boolean autoincrement;
+		boolean unique;
+		Object defaultValue;
+
+		Column(String name, String type) {
+			this.name = name;
+			this.type = type;
+			this.affinity = affinity(type);
+		}
+	}
+
+	static final class ForeignKey {
+		String column;
+		String parentTable;
+		String parentColumn;
+		boolean cascadeDelete;
+		boolean cascadeUpdate;
+	}
+
+	static final class Index {
+		final String name;
+		final int column;
+		final boolean unique;
+		final Map<Object, Set<Long>> rowids;
+
+		Index(String name, int column, boolean unique) {
+			this.name = name;
+			this.column = column;
+			this.unique = unique;
+			rowids = new HashMap<Object, Set<Long>>();
+		}
+	}
+
+	final String name;
+	final List<Column> columns;
+	final List<ForeignKey> foreignKeys;
+	final List<Index> indices;
+
+	/**
+	 * The index of the column aliasing the rowid, -1 if there is none.
+	 */
+	final int rowidColumn;
+
+	private final TreeMap<Long, Object[]> rows;
+
+	/*
+	 * the largest rowid ever stored if the rowid column is declared
+	 * autoincrement, so rowids of deleted rows are not used again. Plays the
+	 * role of the table's entry in sqlite_sequence
+	 */
+	private final boolean autoincrement;
+	private long sequence;
+
+	MemoryTable(String name, List<Column> columns,
+			List<ForeignKey> foreignKeys) {
+		this.name = name;
+		this.columns = columns;
+		this.foreignKeys = foreignKeys;
+		indices = new ArrayList<Index>();
+		rows = new TreeMap<Long, Object[]>();
+		int alias = -1;
+		for (int i = 0; i < columns.size(); i++) {
+			Column column = columns.get(i);
+			if (column.primaryKey && column.type.equalsIgnoreCase("integer")) {
+				alias = i;
+			} else if (column.primaryKey || column.unique) {
+				// sqlite creates these indices automatically
+				indices.add(new Index("autoindex_" + name + "_" + (i + 1), i,
+						true));
+			}
+		}
+		rowidColumn = alias;
+		autoincrement = alias >= 0 && columns.get(alias).autoincrement;
+	}
+
+	/**
+	 * Creates a copy of this table with the given name and columns, sharing
+	 * the rows, which are extended by the default values of columns added at
+	 * the end.
+	 */
+	MemoryTable copy(String name, List<Column> columns,
+			List<ForeignKey> foreignKeys) {
+		MemoryTable copy = new MemoryTable(name, columns, foreignKeys);
+		for (Index index : indices) {
+			if (!index.name.startsWith("autoindex_")) {
+				copy.indices.add(new Index(index.name, index.column,
+						index.unique));
+			}
+		}
+		copy.sequence = sequence;
+		for (Map.Entry<Long, Object[]> entry : rows.entrySet()) {
+			Object[] row = entry.getValue();
+			if (row.length < columns.size()) {
+				Object[] extended = new Object[columns.size()];
+				System.arraycopy(row, 0, extended, 0, row.length);
+				for (int i = row.length; i < extended.length; i++) {
+					extended[i] = columns.get(i).defaultValue;
+				}
+				row = extended;
+			}
+			copy.put(entry.getKey(), row);
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the index of the column with the given name, {@link #ROWID} if
+	 * the name refers to the rowid, or -1 if there is no such column.
+	 */
+	int columnIndex(String columnName) {
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).name.equalsIgnoreCase(columnName)) {
+				return i;
+			}
+		}
+		if (columnName.equalsIgnoreCase("rowid")
+				|| columnName.equalsIgnoreCase("oid")
+				|| columnName.equalsIgnoreCase("_rowid_")) {
+			return rowidColumn == -1 ? ROWID : rowidColumn;
+		}
+		return -1;
+	}
+
+	int size() {
+		return rows.size();
+	}
+
+	Object[] get(long rowid) {
+		return rows.get(rowid);
+	}
+
+	/**
+	 * Returns the value of the given column, which may be {@link #ROWID}.
+	 */
+	static Object value(long rowid, Object[] row, int column) {
+		return column == ROWID ? Long.valueOf(rowid) : row[column];
+	}
+
+	/**
+	 * Returns the rowid the next inserted row gets, unless it specifies one.
+	 */
+	long nextRowid() {
+		long last = rows.isEmpty() ? 0 : rows.lastKey();
+		return Math.max(last, sequence) + 1;
+	}
+
+	/**
+	 * Returns the rowids of all rows, in the order sqlite scans them.
+	 */
+	List<Long> rowids() {
+		return new ArrayList<Long>(rows.keySet());
+	}
+
+	/**
+	 * Returns the index whose column is the given one, null if there is none.
+	 */
+	Index indexOn(int column) {
+		for (Index index : indices) {
+			if (index.column == column) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	Index index(String indexName) {
+		for (Index index : indices) {
+			if (index.name.equalsIgnoreCase(indexName)) {
+				return index;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the rowids of the rows whose value in the given column equals
+	 * the given value, using an index if possible. The result is null if the
+	 * column is not indexed.
+	 */
+	Collection<Long> lookup(int column, Object value) {
+		if (column == ROWID || column == rowidColumn) {
+			Object key = key(value);
+			if (key instanceof Long && rows.containsKey(key)) {
+				return Collections.singletonList((Long) key);
+			}
+			return Collections.emptyList();
+		}
+		Index index = indexOn(column);
+		if (index == null) {
+			return null;
+		}
+		Set<Long> found = index.rowids.get(key(value));
+		if (found == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<Long>(found);
+	}
+
+	/**
+	 * Adds an index on the given column, filled with all rows.
+	 */
+	void addIndex(Index index) {
+		for (Map.Entry<Long, Object[]> entry : rows.entrySet()) {
+			indexRow(index, entry.getKey(), entry.getValue());
+		}
+		indices.add(index);
+	}
+
+	/**
+	 * Stores the row with the given rowid, replacing the row stored with it
+	 * before, which is returned.
+	 */
+	Object[] put(long rowid, Object[] row) {
+		Object[] old = rows.put(rowid, row);
+		if (autoincrement) {
+			sequence = Math.max(sequence, rowid);
+		}
+		for (Index index : indices) {
+			if (old != null) {
+				unindexRow(index, rowid, old);
+			}
+			indexRow(index, rowid, row);
+		}
+		return old;
+	}
+
+	/**
+	 * Removes the row with the given rowid, which is returned.
+	 */
+	Object[] remove(long rowid) {
+		Object[] old = rows.remove(rowid);
+		if (old != null) {
+			for (Index index : indices) {
+				unindexRow(index, rowid, old);
+			}
+		}
+		return old;
+	}
+
+	private static void indexRow(Index index, long rowid, Object[] row) {
+		Object key = key(value(rowid, row, index.column));
+		if (key == null) {
+			return;
+		}
+		Set<Long> rowids = index.rowids.get(key);
+		if (rowids == null) {
+			rowids = new LinkedHashSet<Long>();
+			index.rowids.put(key, rowids);
+		}
+		rowids.add(rowid);
+	}
+
+	private static void unindexRow(Index index, long rowid, Object[] row) {
+		Object key = key(value(rowid, row, index.column));
+		Set<Long> rowids = index.rowids.get(key);
+		if (rowids != null) {
+			rowids.remove(rowid);
+			if (rowids.isEmpty()) {
+				index.rowids.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns the key a value is indexed by, so that values comparing equal
+	 * have equal keys. Null is never equal to anything and has no key.
+	 */
+	static Object key(Object value) {
+		if (value instanceof Double) {
+			double d = (Double) value;
+			if (d == Math.rint(d) && !Double.isInfinite(d)) {
+				return Long.valueOf((long) d);
+			}
+		} else if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		}
+		return value;
+	}
+
+	/**
+	 * Determines the affinity of a declared column type, following the rules
+	 * of sqlite.
+	 */
+	static int affinity(String type) {
+		String upper = type.toUpperCase();
+		if (upper.contains("INT")) {
+			return AFFINITY_INTEGER;
+		} else if (upper.contains("CHAR") || upper.contains("CLOB")
+				|| upper.contains("TEXT")) {
+			return AFFINITY_TEXT;
+		} else if (upper.contains("BLOB") || upper.length() == 0) {
+			return AFFINITY_NONE;
+		} else if (upper.contains("REAL") || upper.contains("FLOA")
+				|| upper.contains("DOUB")) {
+			return AFFINITY_REAL;
+		}
+		return AFFINITY_NUMERIC;
+	}
+
+	/**
+	 * Converts a value stored in a column of the given affinity the way
+	 * sqlite does.
+	 */
+	static Object applyAffinity(int affinity, Object value) {
+		switch (affinity) {
+		case AFFINITY_INTEGER:
+		case AFFINITY_NUMERIC:
+			if (value instanceof String) {
+				Object number = parseNumber((String) value);
+				if (number != null) {
+					value = number;
+				}
+			}
+			if (value instanceof Double) {
+				double d = (Double) value;
+				if (d == Math.rint(d) && Math.abs(d) < 9.2e18) {
+					return Long.valueOf((long) d);
+				}
+			}
+			return value;
+		case AFFINITY_REAL:
+			if (value instanceof String) {
+				Object number = parseNumber((String) value);
+				if (number != null) {
+					value = number;
+				}
+			}
+			if (value instanceof Long) {
+				return Double.valueOf((Long) value);
+			}
+			return value;
+		case AFFINITY_TEXT:
+			if (value instanceof Long || value instanceof Double) {
+				return toText(value);
+			}
+			return value;
+		default:
+			return value;
+		}
+	}
+
+	/**
+	 * Parses a number the way sqlite does when applying an affinity, returns
+	 * null if the text is not a number.
+	 */
+	static Object parseNumber(String text) {
+		String trimmed = text.trim();
+		if (trimmed.length() == 0) {
+			return null;
+		}
+		try {
+			return Long.valueOf(trimmed);
+		} catch (NumberFormatException e) {
+			// not an integer, maybe a real
+		}
+		try {
+			return Double.valueOf(trimmed);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	static String toText(Object value) {
+		if (value instanceof Double) {
+			double d = (Double) value;
+			if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+				return (long) d + ".0";
+			}
+		} else if (value instanceof byte[]) {
+			return new String((byte[]) value);
+		}
+		return String.valueOf(value);
+	}
+
+	/**
+	 * Compares two non-null values the way sqlite does: numbers before text
+	 * before blobs, numbers numerically, text by its characters and blobs by
+	 * their bytes.
+	 */
+	static int compare(Object a, Object b) {
+		int typeA = typeOrder(a);
+		int typeB = typeOrder(b);
+		if (typeA != typeB) {
+			return typeA - typeB;
+		}
+		if (a instanceof Long && b instanceof Long) {
+			return ((Long) a).compareTo((Long) b);
+		} else if (typeA == 0) {
+			return Double.compare(((Number) a).doubleValue(),
+					((Number) b).doubleValue());
+		} else if (typeA == 1) {
+			return ((String) a).compareTo((String) b);
+		}
+		return ByteBuffer.wrap((byte[]) a).compareTo(
+				ByteBuffer.wrap((byte[]) b));
+	}
+
+	private static int typeOrder(Object value) {
+		if (value instanceof Number) {
+			return 0;
+		} else if (value instanceof String) {
+			return 1;
+		}
+		return 2;
+	}
+}
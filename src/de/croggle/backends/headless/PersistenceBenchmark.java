@@ -0,0 +1,336 @@
+package de.croggle.backends.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import de.croggle.AlligatorApp;
+import de.croggle.data.LocalizationHelper;
+import de.croggle.data.persistence.LevelProgress;
+import de.croggle.data.persistence.Setting;
+import de.croggle.data.persistence.Statistic;
+import de.croggle.data.persistence.StatisticEvent;
+import de.croggle.data.persistence.manager.PersistenceManager;
+import de.croggle.game.achievement.Achievement;
+import de.croggle.game.achievement.AchievementController;
+import de.croggle.game.level.Level;
+import de.croggle.game.profile.Profile;
+
+/**
+ * Replays the persistence workload of a number of players on the headless
+ * backend and prints the time taken by each phase, along with the statements,
+ * examined rows and commits of the {@link MemoryDatabase}. The counters do not
+ * depend on the speed of the in-memory database and thus show how much work
+ * the persistence layer causes on a real sqlite database. A phase leaving
+ * cursors open fails the benchmark.
+ *
+ * Usage: <code>PersistenceBenchmark [profiles [levels [rounds]]]</code>, where
+ * levels is the number of levels each profile plays.
+ */
+public class PersistenceBenchmark {
+
+	/*
+	 * the number of levels in each package played
+	 */
+	private static final int PACKAGE_SIZE = 12;
+	private static final int BOARD_SIZE = 256;
+
+	private final HeadlessBackendHelper backend;
+	private final BenchmarkApp app;
+	private final int profileCount;
+	private final int levelCount;
+	private final Random random;
+
+	private long start;
+	private long statements;
+	private long examinedRows;
+	private long commits;
+
+	/**
+	 * The parts of the game needed by the persistence layer.
+	 */
+	private static class BenchmarkApp extends AlligatorApp {
+		private AchievementController achievementController;
+		private PersistenceManager persistenceManager;
+
+		@Override
+		public AchievementController getAchievementController() {
+			return achievementController;
+		}
+
+		@Override
+		public PersistenceManager getPersistenceManager() {
+			return persistenceManager;
+		}
+	}
+
+	private PersistenceBenchmark(int profileCount, int levelCount) {
+		this.profileCount = profileCount;
+		this.levelCount = levelCount;
+		random = new Random(42);
+
+		AlligatorApp.HEADLESS = true;
+		LocalizationHelper.setBackend(new HeadlessLocalizationBackend());
+		backend = new HeadlessBackendHelper("assets");
+		backend.set();
+
+		app = new BenchmarkApp();
+		app.achievementController = new AchievementController(app);
+		app.persistenceManager = new PersistenceManager(app);
+	}
+
+	public static void main(String[] args) {
+		int profiles = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int levels = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		PersistenceBenchmark benchmark = new PersistenceBenchmark(profiles,
+				levels);
+		for (int round = 1; round <= rounds; round++) {
+			// the first rounds warm up the JVM
+			System.out.println("Round " + round + " of " + rounds + " ("
+					+ profiles + " profiles, " + levels + " levels each)");
+			benchmark.run();
+			System.out.println();
+		}
+		benchmark.app.persistenceManager.close();
+	}
+
+	private void run() {
+		PersistenceManager pm = app.persistenceManager;
+		pm.clearTables();
+
+		begin();
+		for (int i = 0; i < profileCount; i++) {
+			pm.addProfile(new Profile(name(i), "picture" + i));
+		}
+		pm.flush();
+		end("create profiles", profileCount);
+
+		begin();
+		int writes = play();
+		pm.flush();
+		end("play levels", writes);
+
+		begin();
+		int reads = read();
+		end("warm reads", reads);
+
+		// a new persistence manager starts without cached data
+		pm.close();
+		pm = new PersistenceManager(app);
+		app.persistenceManager = pm;
+		begin();
+		reads = read();
+		end("cold reads", reads);
+
+		begin();
+		for (int i = 0; i < profileCount; i++) {
+			Profile profile = pm.getProfile(name(i));
+			profile.setName(name(i) + "'");
+			pm.editProfile(name(i), profile);
+		}
+		pm.flush();
+		end("rename profiles", profileCount);
+
+		begin();
+		for (int i = 0; i < profileCount; i++) {
+			pm.deleteProfile(name(i) + "'");
+		}
+		pm.flush();
+		end("delete profiles", profileCount);
+
+		upgrade();
+	}
+
+	/*
+	 * upgrades a database of the oldest migrated version, holding the data of
+	 * profileCount profiles and the rows of a profile that has been deleted
+	 * without them, to the current version
+	 */
+	private void upgrade() {
+		MemoryDatabase database = new MemoryDatabase();
+		database.execSQL("create table profileTable(profileName text not "
+				+ "null primary key, picturePath text not null)");
+		String references = ", FOREIGN KEY(profileName) REFERENCES "
+				+ "profileTable(profileName) ON UPDATE CASCADE ON DELETE "
+				+ "CASCADE )";
+		database.execSQL("create table SettingTable(profileName text not "
+				+ "null, volumeMusic float, volumeEffects float, zoomEnabled "
+				+ "boolean, colorblindEnabled boolean" + references);
+		database.execSQL("create table StatisticTable(profileName text not "
+				+ "null, playtime int, usedHints int, usedResets int, "
+				+ "recolorings int, alligatorsEaten int, alligatorsPlaced int, "
+				+ "eggsHatched int, eggsPlaced int" + references);
+		database.execSQL("create table levelProgressTable(profileName text "
+				+ "not null, levelId integer, solved boolean, currentBoard "
+				+ "text not null, usedTime int" + references);
+		database.execSQL("create table AchievementTable(profileName text not "
+				+ "null, achievementID integer, achievementIndex integer"
+				+ references);
+		database.setVersion(3);
+
+		String board = "{\"families\":[{\"type\":\"egg\",\"movable\":"
+				+ "true,\"removable\":true,\"color\":3,\"recolorable\":"
+				+ "true}]}";
+		// the last profile has been deleted, but its rows have been kept
+		for (int i = 0; i <= profileCount; i++) {
+			String name = "'" + name(i) + "'";
+			if (i < profileCount) {
+				database.execSQL("insert into profileTable(profileName, "
+						+ "picturePath) values(" + name + ", 'picture" + i
+						+ "')");
+			}
+			database.execSQL("insert into SettingTable(profileName, "
+					+ "volumeMusic, volumeEffects, zoomEnabled, "
+					+ "colorblindEnabled) values(" + name + ", 0.5, 0.5, 1, "
+					+ "0)");
+			database.execSQL("insert into StatisticTable(profileName, "
+					+ "playtime, usedHints, usedResets, recolorings, "
+					+ "alligatorsEaten, alligatorsPlaced, eggsHatched, "
+					+ "eggsPlaced) values(" + name + ", 90, 1, 2, 3, 4, 5, 6, "
+					+ "7)");
+			for (int level = 0; level < levelCount; level++) {
+				database.execSQL("insert into levelProgressTable("
+						+ "profileName, levelId, solved, currentBoard, "
+						+ "usedTime) values(" + name + ", " + level + ", 1, '"
+						+ board + "', 30)");
+				database.execSQL("insert into AchievementTable(profileName, "
+						+ "achievementID, achievementIndex) values(" + name
+						+ ", " + level + ", 1)");
+			}
+		}
+
+		begin(database);
+		new MemoryDatabaseHelper(database).getWritableDatabase();
+		end(database, "upgrade", profileCount);
+
+		check(database, "profileTable", profileCount);
+		check(database, "SettingTable", profileCount);
+		check(database, "StatisticTable", profileCount);
+		check(database, "levelProgressTable where boardData is not null",
+				profileCount * levelCount);
+		check(database, "AchievementTable", profileCount * levelCount);
+	}
+
+	private static void check(MemoryDatabase database, String rows,
+			int expected) {
+		long count = database.queryForLong("select count(*) from " + rows,
+				null);
+		if (count != expected) {
+			throw new IllegalStateException("The upgraded database has "
+					+ count + " rows in " + rows + " instead of " + expected);
+		}
+	}
+
+	/*
+	 * plays levelCount levels with every profile, changing the progress, the
+	 * statistic and the achievements after each level, like the game does
+	 */
+	private int play() {
+		PersistenceManager pm = app.persistenceManager;
+		List<Achievement> achievements = app.achievementController
+				.getAvailableAchievements();
+		int writes = 0;
+		for (int i = 0; i < profileCount; i++) {
+			String name = name(i);
+			for (int level = 0; level < levelCount; level++) {
+				int levelId = level / PACKAGE_SIZE * Level.LEVELS_PER_PACKAGE
+						+ level % PACKAGE_SIZE;
+				byte[] board = new byte[BOARD_SIZE];
+				random.nextBytes(board);
+				// a level is usually saved a few times before it is solved
+				for (int attempt = 0; attempt < 3; attempt++) {
+					pm.saveLevelProgress(name, new LevelProgress(levelId,
+							attempt == 2, board, attempt * 30));
+					writes++;
+				}
+
+				Statistic delta = new Statistic();
+				delta.setLevelsComplete(1);
+				delta.setPlaytime(90);
+				delta.setAlligatorsEaten(random.nextInt(10));
+				delta.setUsedHints(random.nextInt(2));
+				pm.addStatisticEvents(name, StatisticEvent.fromDelta(delta,
+						levelId, System.currentTimeMillis()));
+				writes++;
+
+				List<Achievement> unlocked = new ArrayList<Achievement>();
+				Achievement achievement = achievements.get(level
+						% achievements.size());
+				achievement.setIndex(Math.min(level / achievements.size() + 1,
+						achievement.getNumberOfStages() - 1));
+				unlocked.add(achievement);
+				pm.updateUnlockedAchievements(name, unlocked);
+				writes++;
+
+				if (level % 10 == 0) {
+					pm.editSetting(name, new Setting(random.nextFloat(),
+							random.nextFloat(), level % 20 == 0, false));
+					writes++;
+				}
+			}
+		}
+		return writes;
+	}
+
+	/*
+	 * reads everything the game shows about each profile when it is selected
+	 */
+	private int read() {
+		PersistenceManager pm = app.persistenceManager;
+		int packages = (levelCount + PACKAGE_SIZE - 1)
+				/ PACKAGE_SIZE;
+		int reads = 0;
+		pm.getAllProfiles();
+		for (int i = 0; i < profileCount; i++) {
+			String name = name(i);
+			pm.getProfile(name);
+			pm.getSetting(name);
+			pm.getAllUnlockedAchievements(name);
+			pm.getDailyStatistics(name);
+			pm.getLevelStatistics(name);
+			reads += 5;
+			for (int packageIndex = 0; packageIndex < packages; packageIndex++) {
+				pm.getLevelProgressForPackage(name, packageIndex);
+				reads++;
+			}
+		}
+		return reads;
+	}
+
+	private static String name(int i) {
+		return "Player" + i;
+	}
+
+	private void begin() {
+		begin(backend.getDatabase());
+	}
+
+	private void begin(MemoryDatabase database) {
+		statements = database.getStatementCount();
+		examinedRows = database.getExaminedRowCount();
+		commits = database.getCommitCount();
+		start = System.nanoTime();
+	}
+
+	private void end(String phase, int operations) {
+		end(backend.getDatabase(), phase, operations);
+	}
+
+	private void end(MemoryDatabase database, String phase, int operations) {
+		long nanos = System.nanoTime() - start;
+		// every cursor leaked on a device holds a window of rows
+		if (database.getOpenCursorCount() != 0) {
+			throw new IllegalStateException(database.getOpenCursorCount()
+					+ " cursors have not been closed after " + phase);
+		}
+		System.out.println(String.format(Locale.US,
+				"  %-16s %8.2f ms %9.2f us/op %7d statements %9d rows "
+						+ "%6d commits", phase, nanos / 1e6, nanos / 1e3
+						/ operations, database.getStatementCount()
+						- statements, database.getExaminedRowCount()
+						- examinedRows, database.getCommitCount() - commits));
+	}
+}
@@ -0,0 +1,233 @@
+package de.croggle.backends.headless;
+
+import java.util.List;
+
+/**
+ * A sql statement parsed by the {@link SqlParser}, which can be executed any
+ * number of times by a {@link MemoryDatabase} with different arguments.
+ */
+abstract class SqlCommand {
+
+	static final int EQUAL = 0;
+	static final int NOT_EQUAL = 1;
+	static final int LESS = 2;
+	static final int LESS_OR_EQUAL = 3;
+	static final int GREATER = 4;
+	static final int GREATER_OR_EQUAL = 5;
+	static final int IS_NULL = 6;
+	static final int IS_NOT_NULL = 7;
+
+	/**
+	 * The number of placeholders in the statement.
+	 */
+	int parameterCount;
+
+	/**
+	 * Executes the command.
+	 *
+	 * @param db
+	 *            the database to execute the command on
+	 * @param args
+	 *            the values of the placeholders
+	 * @return a {@link MemoryCursor} for queries, the rowid of the inserted
+	 *         row for inserts, the number of changed rows for updates and
+	 *         deletes, null otherwise
+	 */
+	abstract Object execute(MemoryDatabase db, Object[] args);
+
+	/**
+	 * Returns the value of a literal or placeholder.
+	 */
+	static Object resolve(Object value, Object[] args) {
+		if (value instanceof Parameter) {
+			return args[((Parameter) value).index];
+		}
+		return value;
+	}
+
+	static final class Parameter {
+		final int index;
+
+		Parameter(int index) {
+			this.index = index;
+		}
+	}
+
+	static final class ColumnRef {
+		final String name;
+
+		ColumnRef(String name) {
+			this.name = name;
+		}
+	}
+
+	static final class Condition {
+		String column;
+		int operator;
+		Object value;
+	}
+
+	static final class CreateTable extends SqlCommand {
+		String table;
+		boolean ifNotExists;
+		List<MemoryTable.Column> columns;
+		List<MemoryTable.ForeignKey> foreignKeys;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			db.createTable(new MemoryTable(table, columns, foreignKeys),
+					ifNotExists);
+			return null;
+		}
+	}
+
+	static final class CreateIndex extends SqlCommand {
+		String name;
+		String table;
+		String column;
+		boolean unique;
+		boolean ifNotExists;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			db.createIndex(name, table, column, unique, ifNotExists);
+			return null;
+		}
+	}
+
+	static final class Drop extends SqlCommand {
+		String name;
+		boolean table;
+		boolean ifExists;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			if (table) {
+				db.dropTable(name, ifExists);
+			} else {
+				db.dropIndex(name, ifExists);
+			}
+			return null;
+		}
+	}
+
+	static final class AddColumn extends SqlCommand {
+		String table;
+		MemoryTable.Column column;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			db.addColumn(table, column);
+			return null;
+		}
+	}
+
+	static final class RenameTable extends SqlCommand {
+		String table;
+		String newName;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			db.renameTable(table, newName);
+			return null;
+		}
+	}
+
+	static final class Pragma extends SqlCommand {
+		String name;
+		String value;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			if (name.equalsIgnoreCase("foreign_keys") && value != null) {
+				db.setForeignKeysEnabled(value.equalsIgnoreCase("on")
+						|| value.equalsIgnoreCase("true")
+						|| value.equals("1"));
+			}
+			return null;
+		}
+	}
+
+	static final class Insert extends SqlCommand {
+		String table;
+		List<String> columns;
+		List<Object> values;
+		Select select;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			if (select == null) {
+				Object[] resolved = new Object[values.size()];
+				for (int i = 0; i < resolved.length; i++) {
+					resolved[i] = resolve(values.get(i), args);
+				}
+				return db.insert(table, columns, resolved);
+			}
+			long rowid = -1;
+			for (Object[] row : db.query(select, args)) {
+				rowid = db.insert(table, columns, row);
+			}
+			return rowid;
+		}
+	}
+
+	static final class Update extends SqlCommand {
+		String table;
+		List<String> columns;
+		List<Object> values;
+		List<Condition> where;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			Object[] resolved = new Object[values.size()];
+			for (int i = 0; i < resolved.length; i++) {
+				resolved[i] = resolve(values.get(i), args);
+			}
+			return db.update(table, columns, resolved, where, args);
+		}
+	}
+
+	static final class Delete extends SqlCommand {
+		String table;
+		List<Condition> where;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			return db.delete(table, where, args);
+		}
+	}
+
+	static final class Select extends SqlCommand {
+		String table;
+
+		/**
+		 * The selected columns and values, empty if all columns or the number
+		 * of rows are selected.
+		 */
+		List<Object> items;
+
+		/**
+		 * The names of the columns of the result.
+		 */
+		List<String> names;
+		boolean all;
+		boolean count;
+		List<Condition> where;
+		String orderBy;
+		boolean descending;
+
+		/**
+		 * The maximum number of rows of the result, -1 if there is none.
+		 */
+		int limit = -1;
+
+		@Override
+		Object execute(MemoryDatabase db, Object[] args) {
+			List<Object[]> rows = db.query(this, args);
+			if (all) {
+				return new MemoryCursor(db.columnNames(table), rows);
+			}
+			return new MemoryCursor(names, rows);
+		}
+	}
+}
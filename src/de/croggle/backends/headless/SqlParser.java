@@ -0,0 +1,592 @@
+package de.croggle.backends.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.croggle.backends.sqlite.SQLException;
+
+/**
+ * Parses the subset of the sqlite dialect understood by the
+ * {@link MemoryDatabase} into {@link SqlCommand}s. The subset covers all
+ * statements issued by the table managers and the {@link MemoryDatabase}
+ * itself:
+ *
+ * <ul>
+ * <li><code>create table</code>, <code>create index</code>,
+ * <code>drop table</code>, <code>drop index</code>,
+ * <code>alter table ... add column</code> and
+ * <code>alter table ... rename to</code></li>
+ * <li><code>insert into t(columns) values (...)</code> and
+ * <code>insert into t(columns) select ...</code></li>
+ * <li><code>update</code>, <code>delete</code> and <code>select</code> with
+ * conditions on single columns combined by <code>and</code>, and an optional
+ * <code>order by</code> clause. Selects may also be limited by a
+ * <code>limit</code> clause</li>
+ * <li><code>pragma foreign_keys</code>, other pragmas are ignored</li>
+ * </ul>
+ */
+final class SqlParser {
+
+	private static final int IDENTIFIER = 0;
+	private static final int NUMBER = 1;
+	private static final int STRING = 2;
+	private static final int SYMBOL = 3;
+	private static final int END = 4;
+
+	private final String sql;
+	private final List<Integer> types;
+	private final List<Object> values;
+	private int position;
+	private int parameters;
+
+	private SqlParser(String sql) {
+		this.sql = sql;
+		types = new ArrayList<Integer>();
+		values = new ArrayList<Object>();
+		tokenize();
+	}
+
+	/**
+	 * Parses a single sql statement.
+	 *
+	 * @param sql
+	 *            the statement, optionally terminated by a semicolon
+	 * @return the parsed command
+	 * @throws SQLException
+	 *             if the statement is malformed or not supported
+	 */
+	static SqlCommand parse(String sql) {
+		SqlParser parser = new SqlParser(sql);
+		SqlCommand command = parser.parseStatement();
+		parser.accept(";");
+		if (parser.type() != END) {
+			throw parser.error("Unexpected " + parser.value());
+		}
+		command.parameterCount = parser.parameters;
+		return command;
+	}
+
+	private SqlCommand parseStatement() {
+		if (accept("create")) {
+			boolean unique = accept("unique");
+			if (!unique && accept("table")) {
+				return parseCreateTable();
+			}
+			expect("index");
+			return parseCreateIndex(unique);
+		} else if (accept("drop")) {
+			boolean table = accept("table");
+			if (!table) {
+				expect("index");
+			}
+			SqlCommand.Drop drop = new SqlCommand.Drop();
+			drop.table = table;
+			drop.ifExists = accept("if");
+			if (drop.ifExists) {
+				expect("exists");
+			}
+			drop.name = identifier();
+			return drop;
+		} else if (accept("alter")) {
+			expect("table");
+			String table = identifier();
+			if (accept("rename")) {
+				expect("to");
+				SqlCommand.RenameTable rename = new SqlCommand.RenameTable();
+				rename.table = table;
+				rename.newName = identifier();
+				return rename;
+			}
+			expect("add");
+			accept("column");
+			SqlCommand.AddColumn add = new SqlCommand.AddColumn();
+			add.table = table;
+			List<MemoryTable.ForeignKey> foreignKeys = new ArrayList<MemoryTable.ForeignKey>();
+			add.column = parseColumn(foreignKeys);
+			if (!foreignKeys.isEmpty()) {
+				throw error("Adding columns with foreign keys is not supported");
+			}
+			return add;
+		} else if (accept("pragma")) {
+			SqlCommand.Pragma pragma = new SqlCommand.Pragma();
+			pragma.name = identifier();
+			if (accept("=")) {
+				pragma.value = String.valueOf(advance());
+			}
+			return pragma;
+		} else if (accept("insert")) {
+			return parseInsert();
+		} else if (accept("update")) {
+			return parseUpdate();
+		} else if (accept("delete")) {
+			expect("from");
+			SqlCommand.Delete delete = new SqlCommand.Delete();
+			delete.table = identifier();
+			delete.where = parseWhere();
+			return delete;
+		} else if (accept("select")) {
+			return parseSelect();
+		}
+		throw error("Unsupported statement");
+	}
+
+	private SqlCommand parseCreateTable() {
+		SqlCommand.CreateTable create = new SqlCommand.CreateTable();
+		create.ifNotExists = parseIfNotExists();
+		create.table = identifier();
+		create.columns = new ArrayList<MemoryTable.Column>();
+		create.foreignKeys = new ArrayList<MemoryTable.ForeignKey>();
+		expect("(");
+		do {
+			if (accept("foreign")) {
+				expect("key");
+				expect("(");
+				MemoryTable.ForeignKey key = new MemoryTable.ForeignKey();
+				key.column = identifier();
+				expect(")");
+				parseReferences(key);
+				create.foreignKeys.add(key);
+			} else if (accept("primary")) {
+				expect("key");
+				column(create, parseSingleColumn()).primaryKey = true;
+			} else if (accept("unique")) {
+				column(create, parseSingleColumn()).unique = true;
+			} else {
+				create.columns.add(parseColumn(create.foreignKeys));
+			}
+		} while (accept(","));
+		expect(")");
+		return create;
+	}
+
+	private MemoryTable.Column column(SqlCommand.CreateTable create,
+			String name) {
+		for (MemoryTable.Column column : create.columns) {
+			if (column.name.equalsIgnoreCase(name)) {
+				return column;
+			}
+		}
+		throw error("No such column: " + name);
+	}
+
+	private String parseSingleColumn() {
+		expect("(");
+		String name = identifier();
+		if (!accept(")")) {
+			throw error("Constraints on multiple columns are not supported");
+		}
+		return name;
+	}
+
+	private MemoryTable.Column parseColumn(
+			List<MemoryTable.ForeignKey> foreignKeys) {
+		String name = identifier();
+		StringBuilder type = new StringBuilder();
+		while (type() == IDENTIFIER && !isConstraint(String.valueOf(value()))) {
+			if (type.length() > 0) {
+				type.append(' ');
+			}
+			type.append(identifier());
+		}
+		if (accept("(")) {
+			// sizes like in varchar(20) do not matter to sqlite
+			while (!accept(")")) {
+				advance();
+			}
+		}
+		MemoryTable.Column column = new MemoryTable.Column(name,
+				type.toString());
+		while (true) {
+			if (accept("not")) {
+				expect("null");
+				column.notNull = true;
+			} else if (accept("null")) {
+				column.notNull = false;
+			} else if (accept("primary")) {
+				expect("key");
+				if (!accept("asc")) {
+					accept("desc");
+				}
+				column.autoincrement = accept("autoincrement");
+				column.primaryKey = true;
+			} else if (accept("unique")) {
+				column.unique = true;
+			} else if (accept("default")) {
+				column.defaultValue = MemoryTable.applyAffinity(
+						column.affinity, parseLiteral());
+			} else if (accept("references")) {
+				MemoryTable.ForeignKey key = new MemoryTable.ForeignKey();
+				key.column = name;
+				position--;
+				parseReferences(key);
+				foreignKeys.add(key);
+			} else {
+				return column;
+			}
+		}
+	}
+
+	private static boolean isConstraint(String word) {
+		return word.equalsIgnoreCase("not") || word.equalsIgnoreCase("null")
+				|| word.equalsIgnoreCase("primary")
+				|| word.equalsIgnoreCase("unique")
+				|| word.equalsIgnoreCase("default")
+				|| word.equalsIgnoreCase("references")
+				|| word.equalsIgnoreCase("constraint")
+				|| word.equalsIgnoreCase("check")
+				|| word.equalsIgnoreCase("collate");
+	}
+
+	private void parseReferences(MemoryTable.ForeignKey key) {
+		expect("references");
+		key.parentTable = identifier();
+		expect("(");
+		key.parentColumn = identifier();
+		expect(")");
+		while (accept("on")) {
+			boolean delete = accept("delete");
+			if (!delete) {
+				expect("update");
+			}
+			boolean cascade;
+			if (accept("cascade")) {
+				cascade = true;
+			} else if (accept("restrict")) {
+				cascade = false;
+			} else if (accept("no")) {
+				expect("action");
+				cascade = false;
+			} else {
+				throw error("Unsupported foreign key action");
+			}
+			if (delete) {
+				key.cascadeDelete = cascade;
+			} else {
+				key.cascadeUpdate = cascade;
+			}
+		}
+	}
+
+	private SqlCommand parseCreateIndex(boolean unique) {
+		SqlCommand.CreateIndex create = new SqlCommand.CreateIndex();
+		create.unique = unique;
+		create.ifNotExists = parseIfNotExists();
+		create.name = identifier();
+		expect("on");
+		create.table = identifier();
+		expect("(");
+		create.column = identifier();
+		// only the first column is indexed, the others are just compared
+		boolean multiple = false;
+		while (accept(",")) {
+			identifier();
+			multiple = true;
+		}
+		expect(")");
+		if (unique && multiple) {
+			throw error("Unique indices on multiple columns are not supported");
+		}
+		return create;
+	}
+
+	private boolean parseIfNotExists() {
+		if (accept("if")) {
+			expect("not");
+			expect("exists");
+			return true;
+		}
+		return false;
+	}
+
+	private SqlCommand parseInsert() {
+		expect("into");
+		SqlCommand.Insert insert = new SqlCommand.Insert();
+		insert.table = identifier();
+		insert.columns = new ArrayList<String>();
+		expect("(");
+		do {
+			insert.columns.add(identifier());
+		} while (accept(","));
+		expect(")");
+		if (accept("select")) {
+			insert.select = (SqlCommand.Select) parseSelect();
+			if (insert.select.items.size() != insert.columns.size()) {
+				throw error("Wrong number of selected values");
+			}
+			return insert;
+		}
+		expect("values");
+		expect("(");
+		insert.values = new ArrayList<Object>();
+		do {
+			insert.values.add(parseValue());
+		} while (accept(","));
+		expect(")");
+		if (insert.values.size() != insert.columns.size()) {
+			throw error("Wrong number of values");
+		}
+		return insert;
+	}
+
+	private SqlCommand parseUpdate() {
+		SqlCommand.Update update = new SqlCommand.Update();
+		update.table = identifier();
+		expect("set");
+		update.columns = new ArrayList<String>();
+		update.values = new ArrayList<Object>();
+		do {
+			update.columns.add(identifier());
+			expect("=");
+			update.values.add(parseValue());
+		} while (accept(","));
+		update.where = parseWhere();
+		return update;
+	}
+
+	private SqlCommand parseSelect() {
+		SqlCommand.Select select = new SqlCommand.Select();
+		select.items = new ArrayList<Object>();
+		select.names = new ArrayList<String>();
+		if (accept("*")) {
+			select.all = true;
+		} else if (accept("count")) {
+			expect("(");
+			expect("*");
+			expect(")");
+			select.count = true;
+			select.names.add("count(*)");
+		} else {
+			do {
+				if (type() == IDENTIFIER && !is("null")) {
+					String name = identifier();
+					select.items.add(new SqlCommand.ColumnRef(name));
+					select.names.add(name);
+				} else {
+					select.names.add(String.valueOf(value()));
+					select.items.add(parseValue());
+				}
+			} while (accept(","));
+		}
+		expect("from");
+		select.table = identifier();
+		select.where = parseWhere();
+		if (accept("order")) {
+			expect("by");
+			select.orderBy = identifier();
+			if (accept("desc")) {
+				select.descending = true;
+			} else {
+				accept("asc");
+			}
+		}
+		if (accept("limit")) {
+			Object limit = parseLiteral();
+			if (!(limit instanceof Long) || (Long) limit < 0) {
+				throw error("Unsupported limit " + limit);
+			}
+			select.limit = ((Long) limit).intValue();
+		}
+		return select;
+	}
+
+	private List<SqlCommand.Condition> parseWhere() {
+		List<SqlCommand.Condition> where = new ArrayList<SqlCommand.Condition>();
+		if (!accept("where")) {
+			return where;
+		}
+		do {
+			SqlCommand.Condition condition = new SqlCommand.Condition();
+			condition.column = identifier();
+			if (accept("is")) {
+				condition.operator = accept("not") ? SqlCommand.IS_NOT_NULL
+						: SqlCommand.IS_NULL;
+				expect("null");
+			} else {
+				condition.operator = parseOperator();
+				condition.value = parseValue();
+			}
+			where.add(condition);
+		} while (accept("and"));
+		return where;
+	}
+
+	private int parseOperator() {
+		if (accept("=") || accept("==")) {
+			return SqlCommand.EQUAL;
+		} else if (accept("!=") || accept("<>")) {
+			return SqlCommand.NOT_EQUAL;
+		} else if (accept("<")) {
+			return SqlCommand.LESS;
+		} else if (accept("<=")) {
+			return SqlCommand.LESS_OR_EQUAL;
+		} else if (accept(">")) {
+			return SqlCommand.GREATER;
+		} else if (accept(">=")) {
+			return SqlCommand.GREATER_OR_EQUAL;
+		}
+		throw error("Unsupported operator " + value());
+	}
+
+	/*
+	 * a literal or a parameter
+	 */
+	private Object parseValue() {
+		if (accept("?")) {
+			return new SqlCommand.Parameter(parameters++);
+		}
+		return parseLiteral();
+	}
+
+	private Object parseLiteral() {
+		if (accept("null")) {
+			return null;
+		}
+		boolean negative = accept("-");
+		if (type() == NUMBER) {
+			Object number = advance();
+			if (!negative) {
+				return number;
+			} else if (number instanceof Long) {
+				return -(Long) number;
+			}
+			return -(Double) number;
+		} else if (!negative && type() == STRING) {
+			return advance();
+		}
+		throw error("Expected a value instead of " + value());
+	}
+
+	/*
+	 * table and column names, optionally qualified by the table's name
+	 */
+	private String identifier() {
+		if (type() != IDENTIFIER) {
+			throw error("Expected a name instead of " + value());
+		}
+		String name = (String) advance();
+		if (accept(".")) {
+			return identifier();
+		}
+		return name;
+	}
+
+	private int type() {
+		return types.get(position);
+	}
+
+	private Object value() {
+		return values.get(position);
+	}
+
+	private Object advance() {
+		if (type() == END) {
+			throw error("Unexpected end of statement");
+		}
+		return values.get(position++);
+	}
+
+	private boolean is(String word) {
+		int type = type();
+		return (type == IDENTIFIER || type == SYMBOL)
+				&& word.equalsIgnoreCase((String) value());
+	}
+
+	private boolean accept(String word) {
+		if (is(word)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(String word) {
+		if (!accept(word)) {
+			throw error("Expected " + word + " instead of " + value());
+		}
+	}
+
+	private SQLException error(String message) {
+		return new SQLException(message + " in: " + sql);
+	}
+
+	private void tokenize() {
+		int i = 0;
+		int length = sql.length();
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (Character.isLetter(c) || c == '_') {
+				int start = i;
+				while (i < length
+						&& (Character.isLetterOrDigit(sql.charAt(i)) || sql
+								.charAt(i) == '_')) {
+					i++;
+				}
+				add(IDENTIFIER, sql.substring(start, i));
+			} else if (Character.isDigit(c)
+					|| (c == '.' && i + 1 < length && Character.isDigit(sql
+							.charAt(i + 1)))) {
+				int start = i;
+				boolean real = false;
+				while (i < length
+						&& (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					real |= sql.charAt(i) == '.';
+					i++;
+				}
+				if (i < length
+						&& (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+					real = true;
+					i++;
+					if (i < length
+							&& (sql.charAt(i) == '+' || sql.charAt(i) == '-')) {
+						i++;
+					}
+					while (i < length && Character.isDigit(sql.charAt(i))) {
+						i++;
+					}
+				}
+				String number = sql.substring(start, i);
+				add(NUMBER, real ? (Object) Double.valueOf(number)
+						: (Object) Long.valueOf(number));
+			} else if (c == '\'' || c == '"' || c == '`') {
+				StringBuilder text = new StringBuilder();
+				i++;
+				while (true) {
+					if (i >= length) {
+						throw error("Unterminated quote");
+					}
+					char d = sql.charAt(i++);
+					if (d == c) {
+						if (i < length && sql.charAt(i) == c) {
+							i++;
+						} else {
+							break;
+						}
+					}
+					text.append(d);
+				}
+				// quoted names are names, single quotes make strings
+				add(c == '\'' ? STRING : IDENTIFIER, text.toString());
+			} else {
+				String two = i + 1 < length ? sql.substring(i, i + 2) : "";
+				if (two.equals("<=") || two.equals(">=") || two.equals("!=")
+						|| two.equals("<>") || two.equals("==")) {
+					add(SYMBOL, two);
+					i += 2;
+				} else if ("(),;*=<>?.-".indexOf(c) >= 0) {
+					add(SYMBOL, String.valueOf(c));
+					i++;
+				} else {
+					throw error("Unexpected character " + c);
+				}
+			}
+		}
+		add(END, "end of statement");
+	}
+
+	private void add(int type, Object value) {
+		types.add(type);
+		values.add(value);
+	}
+}
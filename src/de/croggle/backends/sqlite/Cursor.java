@@ -11,5 +11,16 @@ public interface Cursor {
 
 	int getInt(int columnIndex);
 
+	long getLong(int columnIndex);
+
 	float getFloat(int columnIndex);
+
+	byte[] getBlob(int columnIndex);
+
+	/**
+	 * Releases the resources held by the cursor, e.g. the window of rows
+	 * read by sqlite. Every cursor returned by a query has to be closed once
+	 * it has been read, as the database stays open while the game runs.
+	 */
+	void close();
 }
\ No newline at end of file
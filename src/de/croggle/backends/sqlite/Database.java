@@ -15,4 +15,14 @@ public interface Database {
 	long insert(String table, String nullColumnHack, ContentValues values);
 
 	long queryForLong(String selection, String[] args);
+
+	Statement compileStatement(String sql);
+
+	void beginTransaction();
+
+	void setTransactionSuccessful();
+
+	void endTransaction();
+
+	boolean inTransaction();
 }
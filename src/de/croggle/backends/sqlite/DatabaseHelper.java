@@ -1,9 +1,13 @@
 package de.croggle.backends.sqlite;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.croggle.data.persistence.manager.AchievementManager;
 import de.croggle.data.persistence.manager.LevelProgressManager;
 import de.croggle.data.persistence.manager.ProfileManager;
 import de.croggle.data.persistence.manager.SettingManager;
+import de.croggle.data.persistence.manager.StatisticEventManager;
 import de.croggle.data.persistence.manager.StatisticManager;
 
 /**
@@ -15,7 +19,7 @@ public abstract class DatabaseHelper {
 	/**
 	 * The version number of the database.
 	 */
-	public static final int DATABASE_Version = 3;
+	public static final int DATABASE_Version = 9;
 
 	/**
 	 * The name of the database.
@@ -26,20 +30,212 @@ public abstract class DatabaseHelper {
 
 	public abstract void close();
 
+	/**
+	 * The oldest version databases can be upgraded from without losing their
+	 * data. Older databases are dropped and created again.
+	 */
+	static final int OLDEST_MIGRATED_VERSION = 3;
+
+	/**
+	 * The migrations upgrading a database to the next version, starting at
+	 * {@link #OLDEST_MIGRATED_VERSION}. A new version of the database requires
+	 * a new migration at the end of this list.
+	 */
+	private static final Migration[] MIGRATIONS = new Migration[] {
+			new Migration(3) {
+				@Override
+				public void migrate(Database db) {
+					// the boards are converted by the migration to version 6
+					db.execSQL(LevelProgressManager.ADD_BOARD_DATA);
+				}
+			}, new Migration(4) {
+				@Override
+				public void migrate(Database db) {
+					db.execSQL("create index if not exists "
+							+ "levelProgressTableProfileLevel on "
+							+ "levelProgressTable(profileName, levelId)");
+				}
+			}, new Migration(5) {
+				@Override
+				public void migrate(Database db) {
+					// drops the index of the level progresses
+					LevelProgressManager.migrateJsonBoards(db);
+					db.execSQL("create index if not exists "
+							+ "levelProgressTableProfileLevel on "
+							+ "levelProgressTable(profileName, levelId)");
+					db.execSQL("create index if not exists "
+							+ "SettingTableProfile on "
+							+ "SettingTable(profileName)");
+					db.execSQL("create index if not exists "
+							+ "StatisticTableProfile on "
+							+ "StatisticTable(profileName)");
+					db.execSQL("create index if not exists "
+							+ "AchievementTableProfileAchievement on "
+							+ "AchievementTable(profileName, achievementID)");
+				}
+			}, new Migration(6) {
+				@Override
+				public void migrate(Database db) {
+					// the profiles keep their rowids as their ids
+					rebuildTable(db, "profileTable", "profileId integer "
+							+ "primary key autoincrement, profileName text not "
+							+ "null unique, picturePath text not null",
+							"profileId, profileName, picturePath", "rowid, "
+									+ "profileName, picturePath");
+					// the rows are copied profile by profile, together with
+					// the profile's id. Rows of profiles that do not exist any
+					// more are dropped, as they have no id to refer to
+					List<String[]> profiles = new ArrayList<String[]>();
+					Cursor cursor = db.rawQuery("select profileId, "
+							+ "profileName from profileTable", null);
+					try {
+						if (cursor.moveToFirst()) {
+							do {
+								profiles.add(new String[] {
+										cursor.getString(0),
+										cursor.getString(1) });
+							} while (cursor.moveToNext());
+						}
+					} finally {
+						cursor.close();
+					}
+					String ofProfile = "profileName = ?";
+					String references = ", FOREIGN KEY(profileId) REFERENCES "
+							+ "profileTable(profileId) ON DELETE CASCADE";
+					rebuildTable(db, "SettingTable", "profileId integer not "
+							+ "null, volumeMusic float, volumeEffects float, "
+							+ "zoomEnabled boolean, colorblindEnabled boolean"
+							+ references, "profileId, volumeMusic, "
+							+ "volumeEffects, zoomEnabled, colorblindEnabled",
+							"?, volumeMusic, volumeEffects, zoomEnabled, "
+									+ "colorblindEnabled", ofProfile, profiles);
+					String statistics = "playtime, usedHints, usedResets, "
+							+ "recolorings, alligatorsEaten, alligatorsPlaced, "
+							+ "eggsHatched, eggsPlaced";
+					rebuildTable(db, "StatisticTable", "profileId integer not "
+							+ "null, playtime int, usedHints int, usedResets "
+							+ "int, recolorings int, alligatorsEaten int, "
+							+ "alligatorsPlaced int, eggsHatched int, "
+							+ "eggsPlaced int" + references, "profileId, "
+							+ statistics, "?, " + statistics, ofProfile,
+							profiles);
+					rebuildTable(db, "levelProgressTable", "profileId integer "
+							+ "not null, levelId integer, solved boolean, "
+							+ "usedTime int, boardData blob" + references,
+							"profileId, levelId, solved, usedTime, boardData",
+							"?, levelId, solved, usedTime, boardData",
+							ofProfile, profiles);
+					rebuildTable(db, "AchievementTable", "profileId integer "
+							+ "not null, achievementID integer, "
+							+ "achievementIndex integer" + references,
+							"profileId, achievementID, achievementIndex",
+							"?, achievementID, achievementIndex", ofProfile,
+							profiles);
+					db.execSQL("create index if not exists "
+							+ "SettingTableProfile on "
+							+ "SettingTable(profileId)");
+					db.execSQL("create index if not exists "
+							+ "StatisticTableProfile on "
+							+ "StatisticTable(profileId)");
+					db.execSQL("create index if not exists "
+							+ "levelProgressTableProfileLevel on "
+							+ "levelProgressTable(profileId, levelId)");
+					db.execSQL("create index if not exists "
+							+ "AchievementTableProfileAchievement on "
+							+ "AchievementTable(profileId, achievementID)");
+				}
+			}, new Migration(7) {
+				@Override
+				public void migrate(Database db) {
+					// the existing statistics become snapshots of empty logs
+					db.execSQL("alter table StatisticTable add column "
+							+ "lastEventId integer");
+					db.execSQL("update StatisticTable set lastEventId = 0");
+					db.execSQL("create table StatisticEventTable(eventId "
+							+ "integer primary key, profileId integer not "
+							+ "null, time integer, levelId integer, type "
+							+ "integer, amount integer, FOREIGN KEY(profileId) "
+							+ "REFERENCES profileTable(profileId) ON DELETE "
+							+ "CASCADE )");
+					db.execSQL("create index if not exists "
+							+ "StatisticEventTableProfile on "
+							+ "StatisticEventTable(profileId)");
+				}
+			}, new Migration(8) {
+				@Override
+				public void migrate(Database db) {
+					// the ids of deleted profiles must not be used again.
+					// Databases upgraded from older versions got this already
+					rebuildTable(db, "profileTable", "profileId integer "
+							+ "primary key autoincrement, profileName text not "
+							+ "null unique, picturePath text not null",
+							"profileId, profileName, picturePath",
+							"profileId, profileName, picturePath");
+				}
+			} };
+
 	public final void onCreate(Database db) {
 		db.execSQL(AchievementManager.CREATE_TABLE);
+		db.execSQL(AchievementManager.CREATE_INDEX);
 		db.execSQL(LevelProgressManager.CREATE_TABLE);
+		db.execSQL(LevelProgressManager.CREATE_INDEX);
 		db.execSQL(ProfileManager.CREATE_TABLE);
 		db.execSQL(SettingManager.CREATE_TABLE);
+		db.execSQL(SettingManager.CREATE_INDEX);
 		db.execSQL(StatisticManager.CREATE_TABLE);
+		db.execSQL(StatisticManager.CREATE_INDEX);
+		db.execSQL(StatisticEventManager.CREATE_TABLE);
+		db.execSQL(StatisticEventManager.CREATE_INDEX);
 	}
 
+	/**
+	 * Upgrades the database by applying the migrations from its version to
+	 * the new version in order, all inside a single transaction, so that a
+	 * failing migration leaves the database at its old version. Databases too
+	 * old to be migrated are dropped and created again.
+	 *
+	 * @param db
+	 *            the database to upgrade
+	 * @param oldVersion
+	 *            the version of the database
+	 * @param newVersion
+	 *            the version to upgrade to
+	 */
 	public final void onUpgrade(Database db, int oldVersion, int newVersion) {
+		if (oldVersion < OLDEST_MIGRATED_VERSION
+				|| newVersion > OLDEST_MIGRATED_VERSION + MIGRATIONS.length) {
+			recreate(db);
+			return;
+		}
+		db.beginTransaction();
+		try {
+			for (int version = oldVersion; version < newVersion; version++) {
+				Migration migration = MIGRATIONS[version
+						- OLDEST_MIGRATED_VERSION];
+				if (migration.getFromVersion() != version) {
+					throw new IllegalStateException("Migration from version "
+							+ migration.getFromVersion() + " is listed for "
+							+ "version " + version);
+				}
+				migration.migrate(db);
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+	}
+
+	/*
+	 * drops all tables together with their indices and creates them again
+	 */
+	private void recreate(Database db) {
 		db.execSQL("DROP TABLE IF EXISTS " + AchievementManager.TABLE_NAME);
 		db.execSQL("DROP TABLE IF EXISTS " + LevelProgressManager.TABLE_NAME);
 		db.execSQL("DROP TABLE IF EXISTS " + ProfileManager.TABLE_NAME);
 		db.execSQL("DROP TABLE IF EXISTS " + SettingManager.TABLE_NAME);
 		db.execSQL("DROP TABLE IF EXISTS " + StatisticManager.TABLE_NAME);
+		db.execSQL("DROP TABLE IF EXISTS "
+				+ StatisticEventManager.TABLE_NAME);
 
 		onCreate(db);
 	}
@@ -0,0 +1,154 @@
+package de.croggle.backends.sqlite;
+
+import java.util.List;
+
+/**
+ * A single step of upgrading the database, which changes the schema and data
+ * of a database of a certain version into those of the next version.
+ *
+ * Every step must only rely on the schema of the version it starts from, so a
+ * step changing a table has to state the table's columns at that version
+ * instead of using the current <code>CREATE_TABLE</code> strings of the table
+ * managers, which may have changed since.
+ */
+public abstract class Migration {
+
+	private final int fromVersion;
+
+	/**
+	 * Creates a new migration upgrading a database of the given version to the
+	 * next version.
+	 *
+	 * @param fromVersion
+	 *            the version of the databases the migration is applied to
+	 */
+	protected Migration(int fromVersion) {
+		this.fromVersion = fromVersion;
+	}
+
+	/**
+	 * Returns the version of the databases this migration is applied to.
+	 *
+	 * @return the version before the migration
+	 */
+	public int getFromVersion() {
+		return fromVersion;
+	}
+
+	/**
+	 * Returns the version of the databases after this migration was applied.
+	 *
+	 * @return the version after the migration
+	 */
+	public int getToVersion() {
+		return fromVersion + 1;
+	}
+
+	/**
+	 * Applies the migration to the given database. The migration is run inside
+	 * the transaction of the whole upgrade, so it must not end the transaction
+	 * itself.
+	 *
+	 * @param db
+	 *            the database, which is of the version returned by
+	 *            {@link #getFromVersion()}
+	 */
+	public abstract void migrate(Database db);
+
+	/**
+	 * Replaces a table by a new table with the given column definitions,
+	 * copying all rows of the old table. As sqlite cannot change the type of a
+	 * column or drop a column, this is the only way of doing so.
+	 *
+	 * The rows are copied by an <code>insert into ... select</code> statement,
+	 * so the selection may convert or backfill values, e.g. select
+	 * <code>cast(score as integer)</code> or <code>0</code> for a column that
+	 * did not exist before. The indices of the old table are dropped together
+	 * with it and have to be created again afterwards.
+	 *
+	 * Foreign keys must not be enforced while a table other rows refer to is
+	 * replaced, which is the case during upgrades, as they are only enabled
+	 * once the database has been opened.
+	 *
+	 * @param db
+	 *            the database containing the table
+	 * @param table
+	 *            the name of the table
+	 * @param definitions
+	 *            the column definitions and constraints of the new table, as
+	 *            they appear between the brackets of a create table statement
+	 * @param columns
+	 *            the comma separated columns of the new table the rows are
+	 *            copied into
+	 * @param selection
+	 *            the comma separated values selected from the old table, one
+	 *            for every column in <code>columns</code>
+	 */
+	public static void rebuildTable(Database db, String table,
+			String definitions, String columns, String selection) {
+		String rebuilt = table + "Rebuilt";
+		db.execSQL("drop table if exists " + rebuilt);
+		db.execSQL("create table " + rebuilt + "(" + definitions + ")");
+		db.execSQL("insert into " + rebuilt + "(" + columns + ") select "
+				+ selection + " from " + table);
+		replaceTable(db, table, rebuilt);
+	}
+
+	/**
+	 * Replaces a table like
+	 * {@link #rebuildTable(Database, String, String, String, String)}, but
+	 * only copies the rows matching the given condition, once for each of the
+	 * given sets of arguments. Rows matching none of them are dropped.
+	 *
+	 * The arguments are bound to the parameters of the selection and the
+	 * condition, in this order, which allows e.g. copying the rows of each
+	 * profile together with the id of the profile, without relying on
+	 * subqueries.
+	 *
+	 * @param db
+	 *            the database containing the table
+	 * @param table
+	 *            the name of the table
+	 * @param definitions
+	 *            the column definitions and constraints of the new table
+	 * @param columns
+	 *            the comma separated columns of the new table the rows are
+	 *            copied into
+	 * @param selection
+	 *            the comma separated values selected from the old table, one
+	 *            for every column in <code>columns</code>
+	 * @param condition
+	 *            the condition the rows copied with each set of arguments
+	 *            match
+	 * @param arguments
+	 *            the values bound to the parameters, one array for every
+	 *            copy
+	 */
+	public static void rebuildTable(Database db, String table,
+			String definitions, String columns, String selection,
+			String condition, List<String[]> arguments) {
+		String rebuilt = table + "Rebuilt";
+		db.execSQL("drop table if exists " + rebuilt);
+		db.execSQL("create table " + rebuilt + "(" + definitions + ")");
+		Statement copy = db.compileStatement("insert into " + rebuilt + "("
+				+ columns + ") select " + selection + " from " + table
+				+ " where " + condition);
+		try {
+			for (String[] values : arguments) {
+				copy.clearBindings();
+				for (int i = 0; i < values.length; i++) {
+					copy.bindString(i + 1, values[i]);
+				}
+				copy.execute();
+			}
+		} finally {
+			copy.close();
+		}
+		replaceTable(db, table, rebuilt);
+	}
+
+	private static void replaceTable(Database db, String table, String rebuilt) {
+		db.execSQL("drop table " + table);
+		db.execSQL("alter table " + rebuilt + " rename to " + table);
+	}
+}
@@ -0,0 +1,67 @@
+package de.croggle.backends.sqlite;
+
+/**
+ * The columns selected by a query, in the order the query returns them. As
+ * the index of each column is known once the projection has been created, the
+ * rows of the query's cursor can be read without looking up any column by its
+ * name.
+ */
+public class Projection {
+
+	private final String[] columns;
+	private final String columnList;
+
+	/**
+	 * Creates a new projection selecting the given columns.
+	 *
+	 * @param columns
+	 *            the names of the columns, in the order they are selected
+	 */
+	public Projection(String... columns) {
+		if (columns.length == 0) {
+			throw new IllegalArgumentException("No columns selected");
+		}
+		this.columns = columns.clone();
+		StringBuilder list = new StringBuilder();
+		for (String column : columns) {
+			if (list.length() > 0) {
+				list.append(", ");
+			}
+			list.append(column);
+		}
+		columnList = list.toString();
+	}
+
+	/**
+	 * Returns the index at which the given column is returned by a query
+	 * using this projection.
+	 *
+	 * @param column
+	 *            the name of the column
+	 * @return the index of the column in the cursor's rows
+	 * @throws IllegalArgumentException
+	 *             if the column is not selected
+	 */
+	public int indexOf(String column) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].equalsIgnoreCase(column)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("The column " + column
+				+ " is not selected");
+	}
+
+	/**
+	 * Returns the beginning of a query selecting the columns of this
+	 * projection from the given table, to which the conditions of the query
+	 * can be appended.
+	 *
+	 * @param table
+	 *            the name of the table
+	 * @return the sql selecting the columns from the table
+	 */
+	public String select(String table) {
+		return "select " + columnList + " from " + table;
+	}
+}
@@ -2,4 +2,10 @@ package de.croggle.backends.sqlite;
 
 public class SQLException extends RuntimeException {
 
+	public SQLException() {
+	}
+
+	public SQLException(String message) {
+		super(message);
+	}
 }
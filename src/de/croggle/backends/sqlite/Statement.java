@@ -0,0 +1,31 @@
+package de.croggle.backends.sqlite;
+
+/**
+ * A sql statement compiled once by {@link Database#compileStatement(String)},
+ * to be executed any number of times with different arguments. Arguments are
+ * bound to the statement's placeholders by their indices, starting at 1, and
+ * stay bound until they are replaced or cleared.
+ */
+public interface Statement {
+	void bindString(int index, String value);
+
+	void bindLong(int index, long value);
+
+	void bindDouble(int index, double value);
+
+	void bindBlob(int index, byte[] value);
+
+	void bindNull(int index);
+
+	void clearBindings();
+
+	void execute();
+
+	long executeInsert();
+
+	int executeUpdateDelete();
+
+	long simpleQueryForLong();
+
+	void close();
+}
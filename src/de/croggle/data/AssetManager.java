@@ -2,14 +2,12 @@ package de.croggle.data;
 
 import static de.croggle.backends.BackendHelper.getAssetDirPath;
 
-import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.Texture.TextureFilter;
-import com.badlogic.gdx.graphics.Texture.TextureWrap;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 import de.croggle.game.Color;
-import de.croggle.util.PatternBuilder;
 
 /**
  * Proxy class to enforce singleton pattern on libgdx' AssetManager. Needs to be
@@ -24,32 +22,35 @@ public class AssetManager extends com.badlogic.gdx.assets.AssetManager {
 	 */
 	private static AssetManager assetManager;
 	private Pixmap uncoloredColor;
-	private Pixmap uncoloredPattern;
+	private Texture uncoloredPattern;
 	private final Pixmap[] colors;
-	private final Pixmap[] patterns;
-	private final Texture[] patternTextures;
-	private final static String[] patternAssets = new String[] {
-			"pattern_maze.png", "pattern_turbulence.png", "pattern_noise.png",
-			"pattern_bagel.png", "pattern_donut.png",
-			"pattern_left_top_right_bottom.png",
-			"pattern_left_bottom_right_top.png", "pattern_lambda.png",
-			"pattern_lambda_inv.png", "pattern_left_top_right_bottom_inv.png",
-			"pattern_left_bottom_right_top_inv.png", "pattern_triangle.png",
-			"pattern_zebra.png", "pattern_triangle_inverted.png",
-			"pattern_zebra_inverted.png", "pattern_sierpinski.png",
-			"pattern_sierpinski_inv.png", "pattern_dice.png",
-			"pattern_dice_inverted.png", "pattern_oval.png",
-			"pattern_oval_inverted.png" };
-	private final static String patternAssetBase = getAssetDirPath()
-			+ "textures/";
-	private int nGeneratedAssets;
+	private final TextureRegion[] patternRegions;
+	/*
+	 * The names of the regions inside the pattern atlas, indexed by color id.
+	 * The atlas is baked from the images in textures/patterns by the
+	 * pack-patterns target of textures/build.xml
+	 */
+	private final static String[] patternNames = new String[] {
+			"pattern_horizontal_lines", "pattern_vertical_lines",
+			"pattern_checkerboard", "pattern_circle", "pattern_rhombus",
+			"pattern_circle_inverted", "pattern_rhombus_inverted",
+			"pattern_filled", "pattern_triangle_strip", "pattern_maze",
+			"pattern_turbulence", "pattern_noise", "pattern_bagel",
+			"pattern_donut", "pattern_left_top_right_bottom",
+			"pattern_left_bottom_right_top", "pattern_lambda",
+			"pattern_lambda_inv", "pattern_left_top_right_bottom_inv",
+			"pattern_left_bottom_right_top_inv", "pattern_triangle",
+			"pattern_zebra", "pattern_triangle_inverted",
+			"pattern_zebra_inverted", "pattern_sierpinski",
+			"pattern_sierpinski_inv", "pattern_dice",
+			"pattern_dice_inverted", "pattern_oval", "pattern_oval_inverted" };
+	private final static String patternAtlas = getAssetDirPath()
+			+ "textures/patterns.atlas";
 
 	private AssetManager() {
 		colors = new Pixmap[Color.MAX_COLORS];
-		patterns = new Pixmap[Color.MAX_COLORS];
-		patternTextures = new Texture[Color.MAX_COLORS];
+		patternRegions = new TextureRegion[Color.MAX_COLORS];
 		buildColors();
-		buildPatterns();
 	}
 
 	private void buildColors() {
@@ -65,20 +66,6 @@ public class AssetManager extends com.badlogic.gdx.assets.AssetManager {
 		}
 	}
 
-	private void buildPatterns() {
-		int n = 0;
-		patterns[n++] = PatternBuilder.generateHorizontalLines(8, 4);
-		patterns[n++] = PatternBuilder.generateVerticalLines(8, 4);
-		patterns[n++] = PatternBuilder.generateCheckerboard(16, 8);
-		patterns[n++] = PatternBuilder.generateCircle(256, false);
-		patterns[n++] = PatternBuilder.generateRhombus(256, 160, 200, false);
-		patterns[n++] = PatternBuilder.generateCircle(256, true);
-		patterns[n++] = PatternBuilder.generateRhombus(256, 160, 200, true);
-		patterns[n++] = PatternBuilder.generateFilled(1);
-		patterns[n++] = PatternBuilder.generateTriangleStrip(256, 1);
-		nGeneratedAssets = n;
-	}
-
 	public Texture getColorTexture(Color c) {
 		if (c.equals(Color.uncolored())) {
 			return new Texture(uncoloredColor);
@@ -86,60 +73,46 @@ public class AssetManager extends com.badlogic.gdx.assets.AssetManager {
 		return new Texture(colors[c.getId()]);
 	}
 
-	public Texture getPatternTexture(Color c) {
+	/**
+	 * Returns the region of the pattern atlas that represents the given color
+	 * in color blind mode. The pattern atlas is not set to repeat, so users
+	 * wanting to tile the pattern have to wrap the texture coordinates into
+	 * the region themselves.
+	 * 
+	 * @param c
+	 *            the color to get the pattern for
+	 * @return the pattern region of the given color
+	 */
+	public TextureRegion getPatternRegion(Color c) {
 		if (c.equals(Color.uncolored())) {
-			return new Texture(uncoloredColor, true);
+			if (uncoloredPattern == null) {
+				uncoloredPattern = new Texture(uncoloredColor);
+			}
+			return new TextureRegion(uncoloredPattern);
 		}
-		Texture texture;
 
-		if (patternTextures[c.getId()] != null) {
-			texture = patternTextures[c.getId()];
-		} else {
-			int i = c.getId() - nGeneratedAssets;
-			if (i < 0) {
-				texture = new Texture(patterns[c.getId()], true);
-				patterns[c.getId()].dispose();
-				patterns[c.getId()] = null;
-			} else if (i < patternAssets.length) {
-				texture = assetManager.get(patternAssetBase + patternAssets[i],
-						Texture.class);
-			} else {
-				if (patternTextures[0] != null) {
-					texture = patternTextures[0];
-				} else {
-					texture = new Texture(patterns[0], true);
-					patterns[0].dispose();
-					patterns[0] = null;
-					patternTextures[0] = texture;
-				}
-			}
-			patternTextures[c.getId()] = texture;
+		int id = c.getId();
+		if (id >= patternNames.length) {
+			id = 0;
+		}
+		if (patternRegions[id] == null) {
+			TextureAtlas atlas = assetManager.get(patternAtlas,
+					TextureAtlas.class);
+			patternRegions[id] = atlas.findRegion(patternNames[id]);
 		}
-		// apparently texture size has to be a power of two for this to work
-		texture.setWrap(TextureWrap.Repeat, TextureWrap.Repeat);
-		texture.setFilter(TextureFilter.MipMapLinearLinear,
-				TextureFilter.Linear);
-		return texture;
+		return patternRegions[id];
 	}
 
 	@Override
 	public synchronized void dispose() {
 		super.dispose();
 		uncoloredColor.dispose();
-		uncoloredPattern.dispose();
+		if (uncoloredPattern != null) {
+			uncoloredPattern.dispose();
+		}
 		for (Pixmap c : colors) {
 			c.dispose();
 		}
-		for (Pixmap p : patterns) {
-			if (p != null) {
-				p.dispose();
-			}
-		}
-		for (Texture t : patternTextures) {
-			if (t != null) {
-				t.dispose();
-			}
-		}
 	}
 
 	/**
@@ -154,10 +127,6 @@ public class AssetManager extends com.badlogic.gdx.assets.AssetManager {
 
 	public static void initialize() {
 		AssetManager.assetManager = new AssetManager();
-		final TextureParameter param = new TextureParameter();
-		param.genMipMaps = true;
-		for (String name : patternAssets) {
-			assetManager.load(patternAssetBase + name, Texture.class, param);
-		}
+		assetManager.load(patternAtlas, TextureAtlas.class);
 	}
 }
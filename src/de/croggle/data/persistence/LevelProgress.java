@@ -1,5 +1,7 @@
 package de.croggle.data.persistence;
 
+import java.util.Arrays;
+
 /**
  * Represents the progress saved by a user during one level in the database.
  */
@@ -7,7 +9,7 @@ public class LevelProgress {
 
 	private int levelId;
 	private boolean solved;
-	private String currentBoard;
+	private byte[] currentBoard;
 	private int usedTime;
 
 	/**
@@ -18,11 +20,13 @@ public class LevelProgress {
 	 * @param solved
 	 *            whether the level has been solved
 	 * @param currentBoard
-	 *            the serialized representation of the current board
+	 *            the current board, encoded by
+	 *            {@link de.croggle.util.convert.AlligatorToBinary}, or null if
+	 *            there is none
 	 * @param usedTime
 	 *            the time spent in the level by the user
 	 */
-	public LevelProgress(int levelId, boolean solved, String currentBoard,
+	public LevelProgress(int levelId, boolean solved, byte[] currentBoard,
 			int usedTime) {
 		this.levelId = levelId;
 		this.solved = solved;
@@ -69,21 +73,25 @@ public class LevelProgress {
 	}
 
 	/**
-	 * Gets the serialized version of the current board.
+	 * Gets the encoded version of the current board.
 	 * 
-	 * @return the currently used board
+	 * @return the currently used board, encoded by
+	 *         {@link de.croggle.util.convert.AlligatorToBinary}, or null if
+	 *         there is none
 	 */
-	public String getCurrentBoard() {
+	public byte[] getCurrentBoard() {
 		return currentBoard;
 	}
 
 	/**
-	 * Sets the serialized version of the current board.
+	 * Sets the encoded version of the current board.
 	 * 
 	 * @param currentBoard
-	 *            the currently used board
+	 *            the currently used board, encoded by
+	 *            {@link de.croggle.util.convert.AlligatorToBinary}, or null if
+	 *            there is none
 	 */
-	public void setCurrentBoard(String currentBoard) {
+	public void setCurrentBoard(byte[] currentBoard) {
 		this.currentBoard = currentBoard;
 	}
 
@@ -115,10 +123,7 @@ public class LevelProgress {
 		if (getClass() != obj.getClass())
 			return false;
 		LevelProgress other = (LevelProgress) obj;
-		if (currentBoard == null) {
-			if (other.currentBoard != null)
-				return false;
-		} else if (!currentBoard.equals(other.currentBoard))
+		if (!Arrays.equals(currentBoard, other.currentBoard))
 			return false;
 		if (levelId != other.levelId)
 			return false;
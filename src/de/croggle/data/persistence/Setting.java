@@ -55,7 +55,9 @@ public class Setting {
 	 * Creates a new default setting.
 	 */
 	public Setting() {
-		if (Gdx.input.isPeripheralAvailable(Peripheral.MultitouchScreen)) {
+		// there is no input when running headless
+		if (Gdx.input != null
+				&& Gdx.input.isPeripheralAvailable(Peripheral.MultitouchScreen)) {
 			zoomEnabled = false;
 		} else {
 			zoomEnabled = true;
@@ -1,6 +1,10 @@
 package de.croggle.data.persistence;
 
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
 import de.croggle.AlligatorApp;
+import de.croggle.data.persistence.manager.PersistenceManager;
 
 /**
  * Controller that holds and controls the active Statistic. The active Statistic
@@ -91,38 +95,50 @@ public class StatisticController implements StatisticsDeltaProcessor {
 	}
 
 	/**
-	 * Adds the delta to the values of the active statistic. There needs to be
-	 * an active statistic that is not null.
+	 * Logs the delta as statistic events of the active profile, which are
+	 * added to the values of the active statistic. There needs to be an active
+	 * statistic that is not null.
 	 */
 	@Override
-	public void processDelta(Statistic statisticsDelta) {
-
-		currentStatistic = game.getPersistenceManager().getStatistic(
-				game.getProfileController().getCurrentProfileName());
-
-		currentStatistic.setAlligatorsEaten(currentStatistic
-				.getAlligatorsEaten() + statisticsDelta.getAlligatorsEaten());
-		currentStatistic.setAlligatorsPlaced(currentStatistic
-				.getAlligatorsPlaced() + statisticsDelta.getAlligatorsPlaced());
-		currentStatistic.setEggsHatched(currentStatistic.getEggsHatched()
-				+ statisticsDelta.getEggsHatched());
-		currentStatistic.setEggsPlaced(currentStatistic.getEggsPlaced()
-				+ statisticsDelta.getEggsPlaced());
-		currentStatistic.setRecolorings(currentStatistic.getRecolorings()
-				+ statisticsDelta.getRecolorings());
-		currentStatistic.setResetsUsed(currentStatistic.getResetsUsed()
-				+ statisticsDelta.getResetsUsed());
-		currentStatistic.setUsedHints(currentStatistic.getUsedHints()
-				+ statisticsDelta.getUsedHints());
-		currentStatistic.setPlaytime(currentStatistic.getPlaytime()
-				+ statisticsDelta.getPlaytime());
-
+	public void processDelta(Statistic statisticsDelta, int levelId) {
+		String profileName = game.getProfileController()
+				.getCurrentProfileName();
+		PersistenceManager pm = game.getPersistenceManager();
+		pm.addStatisticEvents(profileName,
+				StatisticEvent.fromDelta(statisticsDelta, levelId,
+						TimeUtils.millis()));
+		currentStatistic = pm.getStatistic(profileName);
 
 		game.getAchievementController().processStatisticChange(statisticsDelta,
 				currentStatistic);
-		game.getPersistenceManager().editStatistic(
-				game.getProfileController().getCurrentProfileName(),
-				currentStatistic);
+	}
+
+	/**
+	 * Returns the statistics of the profile that is identified by the given
+	 * string for each day on which it played.
+	 * 
+	 * @param profileName
+	 *            the identifier of the profile whose statistics should be
+	 *            loaded
+	 * @return the statistics of the specified profile, mapped to their days,
+	 *         encoded as <code>yyyymmdd</code>
+	 */
+	public IntMap<Statistic> getDailyStatistics(String profileName) {
+		return game.getPersistenceManager().getDailyStatistics(profileName);
+	}
+
+	/**
+	 * Returns the statistics of the profile that is identified by the given
+	 * string for each level it played.
+	 * 
+	 * @param profileName
+	 *            the identifier of the profile whose statistics should be
+	 *            loaded
+	 * @return the statistics of the specified profile, mapped to the ids of
+	 *         their levels
+	 */
+	public IntMap<Statistic> getLevelStatistics(String profileName) {
+		return game.getPersistenceManager().getLevelStatistics(profileName);
 	}
 
 }
@@ -0,0 +1,218 @@
+package de.croggle.data.persistence;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * A single change of a statistic value, e.g. a number of alligators eaten in a
+ * level, as it is appended to the log of a profile's statistic. The statistic
+ * of a profile is the sum of all events logged for it.
+ */
+public class StatisticEvent {
+
+	/*
+	 * the types are stored in the database and must never change
+	 */
+
+	/**
+	 * The type of events counting completed levels.
+	 */
+	public static final int LEVEL_COMPLETED = 0;
+
+	/**
+	 * The type of events adding to the playtime, in seconds.
+	 */
+	public static final int PLAYTIME = 1;
+
+	/**
+	 * The type of events counting used hints.
+	 */
+	public static final int USED_HINTS = 2;
+
+	/**
+	 * The type of events counting used resets.
+	 */
+	public static final int RESETS_USED = 3;
+
+	/**
+	 * The type of events counting recoloring actions.
+	 */
+	public static final int RECOLORINGS = 4;
+
+	/**
+	 * The type of events counting eaten alligators.
+	 */
+	public static final int ALLIGATORS_EATEN = 5;
+
+	/**
+	 * The type of events counting placed alligators.
+	 */
+	public static final int ALLIGATORS_PLACED = 6;
+
+	/**
+	 * The type of events counting hatched eggs.
+	 */
+	public static final int EGGS_HATCHED = 7;
+
+	/**
+	 * The type of events counting placed eggs.
+	 */
+	public static final int EGGS_PLACED = 8;
+
+	private final long time;
+	private final int levelId;
+	private final int type;
+	private final int amount;
+
+	/**
+	 * Creates a new event.
+	 *
+	 * @param time
+	 *            the time the event occurred at, in milliseconds since the
+	 *            epoch
+	 * @param levelId
+	 *            the id of the level the event occurred in
+	 * @param type
+	 *            the type of the event, i.e. the statistic value it changes
+	 * @param amount
+	 *            the amount the statistic value changes by
+	 * @throws IllegalArgumentException
+	 *             if the type is not one of the types defined by this class
+	 */
+	public StatisticEvent(long time, int levelId, int type, int amount) {
+		if (type < LEVEL_COMPLETED || type > EGGS_PLACED) {
+			throw new IllegalArgumentException("Unknown event type " + type);
+		}
+		this.time = time;
+		this.levelId = levelId;
+		this.type = type;
+		this.amount = amount;
+	}
+
+	/**
+	 * Returns one event for each value of the given statistic delta that is
+	 * not zero, all of them occurring at the same time in the same level.
+	 *
+	 * @param delta
+	 *            the changes of the statistic values
+	 * @param levelId
+	 *            the id of the level the changes occurred in
+	 * @param time
+	 *            the time the changes occurred at, in milliseconds since the
+	 *            epoch
+	 * @return the events, empty if nothing changed
+	 */
+	public static List<StatisticEvent> fromDelta(Statistic delta, int levelId,
+			long time) {
+		int[] amounts = new int[EGGS_PLACED + 1];
+		amounts[LEVEL_COMPLETED] = delta.getLevelsComplete();
+		amounts[PLAYTIME] = delta.getPlaytime();
+		amounts[USED_HINTS] = delta.getUsedHints();
+		amounts[RESETS_USED] = delta.getResetsUsed();
+		amounts[RECOLORINGS] = delta.getRecolorings();
+		amounts[ALLIGATORS_EATEN] = delta.getAlligatorsEaten();
+		amounts[ALLIGATORS_PLACED] = delta.getAlligatorsPlaced();
+		amounts[EGGS_HATCHED] = delta.getEggsHatched();
+		amounts[EGGS_PLACED] = delta.getEggsPlaced();
+
+		List<StatisticEvent> events = new ArrayList<StatisticEvent>();
+		for (int type = 0; type < amounts.length; type++) {
+			if (amounts[type] != 0) {
+				events.add(new StatisticEvent(time, levelId, type,
+						amounts[type]));
+			}
+		}
+		return events;
+	}
+
+	/**
+	 * Adds the amount of this event to the value of the given statistic it
+	 * changes.
+	 *
+	 * @param statistic
+	 *            the statistic to change
+	 */
+	public void applyTo(Statistic statistic) {
+		switch (type) {
+		case LEVEL_COMPLETED:
+			statistic.setLevelsComplete(statistic.getLevelsComplete() + amount);
+			break;
+		case PLAYTIME:
+			statistic.setPlaytime(statistic.getPlaytime() + amount);
+			break;
+		case USED_HINTS:
+			statistic.setUsedHints(statistic.getUsedHints() + amount);
+			break;
+		case RESETS_USED:
+			statistic.setResetsUsed(statistic.getResetsUsed() + amount);
+			break;
+		case RECOLORINGS:
+			statistic.setRecolorings(statistic.getRecolorings() + amount);
+			break;
+		case ALLIGATORS_EATEN:
+			statistic.setAlligatorsEaten(statistic.getAlligatorsEaten()
+					+ amount);
+			break;
+		case ALLIGATORS_PLACED:
+			statistic.setAlligatorsPlaced(statistic.getAlligatorsPlaced()
+					+ amount);
+			break;
+		case EGGS_HATCHED:
+			statistic.setEggsHatched(statistic.getEggsHatched() + amount);
+			break;
+		default:
+			statistic.setEggsPlaced(statistic.getEggsPlaced() + amount);
+			break;
+		}
+	}
+
+	/**
+	 * Returns the time the event occurred at.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the day the event occurred on, in the default time zone.
+	 *
+	 * @return the day, encoded as <code>yyyymmdd</code>, e.g. 20131224
+	 */
+	public int getDay() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		return calendar.get(Calendar.YEAR) * 10000
+				+ (calendar.get(Calendar.MONTH) + 1) * 100
+				+ calendar.get(Calendar.DAY_OF_MONTH);
+	}
+
+	/**
+	 * Returns the id of the level the event occurred in.
+	 *
+	 * @return the level id
+	 */
+	public int getLevelId() {
+		return levelId;
+	}
+
+	/**
+	 * Returns the type of the event.
+	 *
+	 * @return one of the types defined by this class
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the amount the event changes the statistic value by.
+	 *
+	 * @return the amount
+	 */
+	public int getAmount() {
+		return amount;
+	}
+}
@@ -13,6 +13,8 @@ public interface StatisticsDeltaProcessor {
 	 * 
 	 * @param statisticsDelta
 	 *            the packed statistic changes
+	 * @param levelId
+	 *            the id of the level in which the changes occurred
 	 */
-	public void processDelta(Statistic statisticsDelta);
+	public void processDelta(Statistic statisticsDelta, int levelId);
 }
@@ -0,0 +1,220 @@
+package de.croggle.data.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Writes data to the database on a background thread, so that the thread
+ * submitting the writes never waits for the disk.
+ *
+ * Every write is submitted together with a key identifying the data it writes,
+ * e.g. the statistic of a certain profile, and the value written. A write
+ * replaces any write with the same key that has not been applied yet, so that
+ * only the latest value is written. Until a write has been applied, its value
+ * can be looked up by its key, which allows readers to see their own writes
+ * before they reach the database.
+ *
+ * All writes pending at the same time are applied together, as one
+ * {@link Batch}, which is expected to apply them inside a single transaction.
+ * If the batch fails, its writes are applied again one by one, so that only the
+ * writes failing on their own are lost.
+ */
+public class WriteBehindQueue {
+
+	/**
+	 * Applies a batch of writes to the database.
+	 */
+	public interface Batch {
+		/**
+		 * Called on the background thread to apply the given writes, in the
+		 * order they were submitted.
+		 *
+		 * @param writes
+		 *            the writes to apply
+		 */
+		void apply(List<Runnable> writes);
+	}
+
+	private static class Entry {
+		private final Object value;
+		private final Runnable write;
+
+		public Entry(Object value, Runnable write) {
+			this.value = value;
+			this.write = write;
+		}
+	}
+
+	private final Batch batch;
+	private final ExecutorService executor;
+	private final Runnable drain;
+
+	// guarded by this
+	private final Map<Object, Entry> pending;
+	private boolean scheduled;
+	private boolean shutdown;
+	private int lost;
+
+	/**
+	 * Creates a new queue applying its writes using the given batch.
+	 *
+	 * @param batch
+	 *            the batch applying the writes, usually inside a transaction
+	 */
+	public WriteBehindQueue(Batch batch) {
+		this.batch = batch;
+		pending = new LinkedHashMap<Object, Entry>();
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "PersistenceWriter");
+				// flushing on pause and dispose is what keeps the data safe
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		drain = new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		};
+	}
+
+	/**
+	 * Submits a write, replacing the pending write with the same key, if any.
+	 * The write is applied in the position it was submitted in, not in that of
+	 * the write it replaces.
+	 *
+	 * @param key
+	 *            identifies the data written, must implement equals and
+	 *            hashCode
+	 * @param value
+	 *            the value written, which must not be changed afterwards
+	 * @param write
+	 *            writes the value to the database when run
+	 * @throws IllegalStateException
+	 *             if the queue has been shut down
+	 */
+	public synchronized void submit(Object key, Object value, Runnable write) {
+		if (shutdown) {
+			throw new IllegalStateException(
+					"The write-behind queue has been shut down");
+		}
+		// re-inserting moves the key to the end of the order
+		pending.remove(key);
+		pending.put(key, new Entry(value, write));
+		if (!scheduled) {
+			scheduled = true;
+			executor.execute(drain);
+		}
+	}
+
+	/**
+	 * Returns the value of the pending write with the given key.
+	 *
+	 * @param key
+	 *            the key the write was submitted with
+	 * @return the value written, or null if there is no pending write with the
+	 *         given key
+	 */
+	public synchronized Object getPending(Object key) {
+		Entry entry = pending.get(key);
+		return entry == null ? null : entry.value;
+	}
+
+	/**
+	 * Blocks until all writes submitted so far have been applied or have
+	 * failed.
+	 *
+	 * @return the number of writes that failed and were discarded since the
+	 *         last time this method was called, 0 if all writes were applied
+	 */
+	public synchronized int flush() {
+		boolean interrupted = false;
+		while (!pending.isEmpty()) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		int result = lost;
+		lost = 0;
+		return result;
+	}
+
+	/**
+	 * Applies all pending writes and stops the background thread. No more
+	 * writes may be submitted afterwards.
+	 */
+	public void shutdown() {
+		synchronized (this) {
+			shutdown = true;
+		}
+		flush();
+		executor.shutdown();
+	}
+
+	/*
+	 * runs on the background thread until there are no more pending writes
+	 */
+	private void drain() {
+		while (true) {
+			Map<Object, Entry> applied;
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					scheduled = false;
+					notifyAll();
+					return;
+				}
+				applied = new LinkedHashMap<Object, Entry>(pending);
+			}
+
+			List<Runnable> writes = new ArrayList<Runnable>(applied.size());
+			for (Entry entry : applied.values()) {
+				writes.add(entry.write);
+			}
+			int failed = 0;
+			try {
+				batch.apply(writes);
+			} catch (RuntimeException e) {
+				// the batch has been rolled back, so retry each write on its
+				// own to only lose the ones that fail by themselves
+				for (Runnable write : writes) {
+					try {
+						batch.apply(Collections.singletonList(write));
+					} catch (RuntimeException writeFailure) {
+						failed++;
+						if (Gdx.app != null) {
+							Gdx.app.error("WriteBehindQueue",
+									"Could not apply write", writeFailure);
+						}
+					}
+				}
+			}
+
+			synchronized (this) {
+				lost += failed;
+				// writes replaced in the meantime still have to be applied
+				for (Map.Entry<Object, Entry> entry : applied.entrySet()) {
+					if (pending.get(entry.getKey()) == entry.getValue()) {
+						pending.remove(entry.getKey());
+					}
+				}
+				notifyAll();
+			}
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package de.croggle.data.persistence.manager;
 
-import de.croggle.backends.BackendHelper;
-import de.croggle.backends.sqlite.ContentValues;
+import java.util.List;
+
 import de.croggle.backends.sqlite.Cursor;
 import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
 import de.croggle.game.achievement.Achievement;
 import de.croggle.util.SparseArray;
 
@@ -14,10 +16,10 @@ import de.croggle.util.SparseArray;
 public class AchievementManager extends TableManager {
 
 	/**
-	 * Name of the column that stores the profile names. Those names are used as
-	 * the primary key.
+	 * Name of the column that stores the ids of the profiles the rows belong
+	 * to.
 	 */
-	static final String KEY_PROFILE_NAME = "profileName";
+	static final String KEY_PROFILE_ID = "profileId";
 
 	/**
 	 * Name of the column that stores the achievement IDs.
@@ -38,92 +40,164 @@ public class AchievementManager extends TableManager {
 	 * The string used for creating the achievement table via a sql query.
 	 */
 	public static final String CREATE_TABLE = "create table " + TABLE_NAME
-			+ "(" + KEY_PROFILE_NAME + " text not null, " + KEY_ACHIEVEMENT_ID
+			+ "(" + KEY_PROFILE_ID + " integer not null, " + KEY_ACHIEVEMENT_ID
 			+ " integer, " + KEY_ACHIEVEMENT_INDEX + " integer, "
-			+ "FOREIGN KEY(" + KEY_PROFILE_NAME + ") REFERENCES "
-			+ ProfileManager.TABLE_NAME + "(" + ProfileManager.KEY_PROFILE_NAME
-			+ ") ON UPDATE CASCADE ON DELETE CASCADE )";;
+			+ "FOREIGN KEY(" + KEY_PROFILE_ID + ") REFERENCES "
+			+ ProfileManager.TABLE_NAME + "(" + ProfileManager.KEY_PROFILE_ID
+			+ ") ON DELETE CASCADE )";
+
+	/**
+	 * The string used for creating the index on the profile ids and
+	 * achievement ids, which all queries of the table are restricted by.
+	 */
+	public static final String CREATE_INDEX = "create index if not exists "
+			+ TABLE_NAME + "ProfileAchievement on " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ", " + KEY_ACHIEVEMENT_ID + ")";
+
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ", " + KEY_ACHIEVEMENT_ID + ", "
+			+ KEY_ACHIEVEMENT_INDEX + ") values (?, ?, ?)";
+
+	private static final String UPDATE = "update " + TABLE_NAME + " set "
+			+ KEY_ACHIEVEMENT_INDEX + " = ? where " + KEY_PROFILE_ID
+			+ " = ? and " + KEY_ACHIEVEMENT_ID + " = ?";
+
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(
+			KEY_ACHIEVEMENT_ID, KEY_ACHIEVEMENT_INDEX);
+	private static final int ACHIEVEMENT_ID = COLUMNS
+			.indexOf(KEY_ACHIEVEMENT_ID);
+	private static final int ACHIEVEMENT_INDEX = COLUMNS
+			.indexOf(KEY_ACHIEVEMENT_INDEX);
+
+	/**
+	 * Creates a new AchievementManager accessing the database through the
+	 * given connection.
+	 * 
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	AchievementManager(DatabaseConnection connection) {
+		super(connection);
+	}
 
 	/**
 	 * Searches the table for a unlocked achievement that belongs to the profile
-	 * identified by the profile name and whose achievement ID matches the
+	 * identified by the profile id and whose achievement ID matches the
 	 * achievement ID stored in achievement. The values of the found achievement
 	 * are overwritten by the new achievement.
 	 * 
-	 * @param profileName
-	 *            the name of the profile to which the achievement belongs
+	 * @param profileId
+	 *            the id of the profile to which the achievement belongs
 	 * @param achievement
 	 *            the achievement whose values are used for overwriting the old
 	 *            achievement
 	 */
-	void updateUnlockedAchievement(String profileName, Achievement achievement) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_ACHIEVEMENT_INDEX, achievement.getIndex());
-
-		database.update(TABLE_NAME, values, KEY_PROFILE_NAME + " = ? and "
-				+ KEY_ACHIEVEMENT_ID + " = " + achievement.getId(),
-				new String[] { profileName });
+	void updateUnlockedAchievement(long profileId, Achievement achievement) {
+		Statement update = statement(UPDATE);
+		update.bindLong(1, achievement.getIndex());
+		update.bindLong(2, profileId);
+		update.bindLong(3, achievement.getId());
+		update.executeUpdateDelete();
 	}
 
 	/**
 	 * Adds a new unlocked achievement to the table.
 	 * 
-	 * @param profileName
-	 *            the name of the profile to which the unlocked achievement
+	 * @param profileId
+	 *            the id of the profile to which the unlocked achievement
 	 *            belongs
 	 * @param achievement
 	 *            contains the values to be stored in the table
 	 */
-	void addUnlockedAchievement(String profileName, Achievement achievement) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
+	void addUnlockedAchievement(long profileId, Achievement achievement) {
+		Statement insert = statement(INSERT);
+		insert.bindLong(1, profileId);
+		insert.bindLong(2, achievement.getId());
+		insert.bindLong(3, achievement.getIndex());
+		insert.executeInsert();
+	}
 
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_ACHIEVEMENT_ID, achievement.getId());
-		values.put(KEY_ACHIEVEMENT_INDEX, achievement.getIndex());
+	/**
+	 * Updates the states of multiple unlocked achievements of the same
+	 * profile, reusing the same statement for all of them.
+	 * 
+	 * @param profileId
+	 *            the id of the profile that unlocked the achievements
+	 * @param indices
+	 *            the new states of the achievements, mapped to their ids
+	 */
+	void updateUnlockedAchievements(long profileId,
+			SparseArray<Integer> indices) {
+		Statement update = statement(UPDATE);
+		update.bindLong(2, profileId);
+		for (int i = 0; i < indices.size(); i++) {
+			update.bindLong(1, indices.valueAt(i));
+			update.bindLong(3, indices.keyAt(i));
+			update.executeUpdateDelete();
+		}
+	}
 
-		database.insert(TABLE_NAME, null, values);
+	/**
+	 * Adds multiple unlocked achievements of the same profile to the table,
+	 * reusing the same statement for all of them.
+	 * 
+	 * @param profileId
+	 *            the id of the profile that unlocked the achievements
+	 * @param achievements
+	 *            the achievements to be stored
+	 */
+	void addUnlockedAchievements(long profileId,
+			List<Achievement> achievements) {
+		Statement insert = statement(INSERT);
+		insert.bindLong(1, profileId);
+		for (Achievement achievement : achievements) {
+			insert.bindLong(2, achievement.getId());
+			insert.bindLong(3, achievement.getIndex());
+			insert.executeInsert();
+		}
 	}
 
 	/**
 	 * Returns all achievements stored in the table that were unlocked by the
-	 * user with the given profile name.
+	 * profile with the given id.
 	 * 
-	 * @param profileName
-	 *            the name of the user whose unlocked achievements are searched
+	 * @param profileId
+	 *            the id of the profile whose unlocked achievements are searched
 	 *            for
 	 * @return a sparseIntArray containing the ids and states of all
 	 *         achievements unlocked by the user
 	 */
-	SparseArray<Integer> getUnlockedAchievements(String profileName) {
-
-		String selectQuery = "SELECT  * FROM " + TABLE_NAME + " WHERE "
-				+ KEY_PROFILE_NAME + " = ?";
-		Cursor cursor = database.rawQuery(selectQuery,
-				new String[] { profileName });
-		if (cursor.moveToFirst()) {
-			SparseArray<Integer> unlockedAchievements = new SparseArray<Integer>();
-			Integer unlockedFound;
-			int achievementId;
-			int index;
-			do {
-				achievementId = cursor.getInt(cursor
-						.getColumnIndex(KEY_ACHIEVEMENT_ID));
-				index = cursor.getInt(cursor
-						.getColumnIndex(KEY_ACHIEVEMENT_INDEX));
-				unlockedFound = unlockedAchievements.put(achievementId, index);
-				if (unlockedFound != null) {
-					throw new IllegalStateException(
-							"Database contains multiple lines with same achievement id: "
-									+ unlockedFound);
-				}
-			} while (cursor.moveToNext());
-			return unlockedAchievements;
+	SparseArray<Integer> getUnlockedAchievements(long profileId) {
+
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				SparseArray<Integer> unlockedAchievements = new SparseArray<Integer>();
+				Integer unlockedFound;
+				int achievementId;
+				int index;
+				do {
+					achievementId = cursor.getInt(ACHIEVEMENT_ID);
+					index = cursor.getInt(ACHIEVEMENT_INDEX);
+					unlockedFound = unlockedAchievements.put(achievementId,
+							index);
+					if (unlockedFound != null) {
+						throw new IllegalStateException(
+								"Database contains multiple lines with same achievement id: "
+										+ unlockedFound);
+					}
+				} while (cursor.moveToNext());
+				return unlockedAchievements;
+			}
+			return null;
+		} finally {
+			cursor.close();
 		}
-		return null;
 	}
 
 	@Override
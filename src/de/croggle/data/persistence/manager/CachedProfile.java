@@ -0,0 +1,74 @@
+package de.croggle.data.persistence.manager;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+import de.croggle.data.persistence.LevelProgress;
+import de.croggle.data.persistence.Setting;
+import de.croggle.data.persistence.Statistic;
+import de.croggle.game.profile.Profile;
+import de.croggle.util.SparseArray;
+
+/**
+ * All data stored for a single profile, as read from the database and changed
+ * since. Used by the {@link PersistenceManager} to answer queries without
+ * accessing the database.
+ */
+final class CachedProfile {
+
+	/**
+	 * The id the profile's rows are stored with.
+	 */
+	long id;
+
+	Profile profile;
+
+	/**
+	 * The profile's setting, null if there is none.
+	 */
+	Setting setting;
+
+	/**
+	 * The profile's statistic, without the number of completed levels and
+	 * packages, which are derived from the level progresses. Null if there is
+	 * none.
+	 */
+	Statistic statistic;
+
+	/**
+	 * The number of statistic events included in the statistic which have
+	 * been logged after the latest snapshot of the statistic.
+	 */
+	int eventsSinceSnapshot;
+
+	/**
+	 * The sums of the profile's statistic events for each day, mapped to the
+	 * days. Only summed up when they are requested for the first time, null
+	 * until then.
+	 */
+	IntMap<Statistic> dailyStatistics;
+
+	/**
+	 * The sums of the profile's statistic events for each level, mapped to the
+	 * level ids. Summed up together with the daily statistics.
+	 */
+	IntMap<Statistic> levelStatistics;
+
+	/**
+	 * The states of the profile's achievements, mapped to their ids. Null if
+	 * there are none.
+	 */
+	SparseArray<Integer> achievements;
+
+	/**
+	 * The ids of the levels the profile has solved.
+	 */
+	IntArray solvedLevels;
+
+	/**
+	 * The profile's level progresses, mapped to their level ids, mapped to the
+	 * index of the package the levels belong to. The progresses of a package
+	 * are only read when they are requested for the first time.
+	 */
+	IntMap<IntMap<LevelProgress>> packages;
+}
@@ -0,0 +1,136 @@
+package de.croggle.data.persistence.manager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.croggle.backends.BackendHelper;
+import de.croggle.backends.sqlite.Database;
+import de.croggle.backends.sqlite.DatabaseHelper;
+import de.croggle.backends.sqlite.SQLException;
+import de.croggle.backends.sqlite.Statement;
+
+/**
+ * The connection to the database shared by all table managers. It is opened
+ * once when the game starts and kept open until the game is shut down, so that
+ * accessing a table does not require opening the database again.
+ *
+ * Statements are compiled the first time they are requested and reused
+ * afterwards.
+ */
+class DatabaseConnection {
+
+	/**
+	 * The DatabaseHelper is used for opening and, if needed, creating the
+	 * database.
+	 */
+	private final DatabaseHelper databaseHelper;
+
+	/**
+	 * The open database, null if the connection is closed.
+	 */
+	private Database database;
+
+	/**
+	 * The statements compiled so far, mapped to their sql.
+	 */
+	private final Map<String, Statement> statements;
+
+	/**
+	 * Creates a new, not yet opened connection.
+	 */
+	DatabaseConnection() {
+		databaseHelper = BackendHelper.getNewDatabaseHelper();
+		statements = new HashMap<String, Statement>();
+	}
+
+	/**
+	 * Opens the database, unless it is already open.
+	 *
+	 * @throws SQLException
+	 *             the exception is thrown if the database could not be accessed
+	 */
+	void open() throws SQLException {
+		if (database != null) {
+			return;
+		}
+		database = databaseHelper.getWritableDatabase();
+		if (!database.isReadOnly()) {
+			database.execSQL("PRAGMA foreign_keys = ON;");
+		}
+	}
+
+	/**
+	 * Returns the open database.
+	 *
+	 * @return the database
+	 * @throws IllegalStateException
+	 *             if the connection is not open
+	 */
+	Database getDatabase() {
+		if (database == null) {
+			throw new IllegalStateException("The database is not open");
+		}
+		return database;
+	}
+
+	/**
+	 * Returns the compiled statement for the given sql, compiling it if it has
+	 * not been requested before. The arguments bound by previous uses of the
+	 * statement are cleared.
+	 *
+	 * @param sql
+	 *            the sql of the statement
+	 * @return the compiled statement
+	 */
+	Statement getStatement(String sql) {
+		Statement statement = statements.get(sql);
+		if (statement == null) {
+			statement = getDatabase().compileStatement(sql);
+			statements.put(sql, statement);
+		} else {
+			statement.clearBindings();
+		}
+		return statement;
+	}
+
+	/**
+	 * Begins a transaction, which has to be ended by
+	 * {@link #endTransaction()} in a finally block. Transactions may be
+	 * nested, in which case the changes are only committed when the outermost
+	 * transaction ends, and only if all nested transactions were successful.
+	 */
+	void beginTransaction() {
+		getDatabase().beginTransaction();
+	}
+
+	/**
+	 * Marks the current transaction as successful, so that its changes are
+	 * committed when it ends. No further changes may be made until then.
+	 */
+	void setTransactionSuccessful() {
+		getDatabase().setTransactionSuccessful();
+	}
+
+	/**
+	 * Ends the current transaction, rolling back all changes made during it
+	 * unless it has been marked as successful.
+	 */
+	void endTransaction() {
+		getDatabase().endTransaction();
+	}
+
+	/**
+	 * Closes all compiled statements and the database.
+	 *
+	 * @throws SQLException
+	 *             the exception is thrown if the database could not be accessed
+	 */
+	void close() throws SQLException {
+		for (Statement statement : statements.values()) {
+			statement.close();
+		}
+		statements.clear();
+		database = null;
+		databaseHelper.close();
+	}
+}
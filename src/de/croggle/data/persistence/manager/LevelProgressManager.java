@@ -3,11 +3,18 @@ package de.croggle.data.persistence.manager;
 import java.util.ArrayList;
 import java.util.List;
 
-import de.croggle.backends.BackendHelper;
-import de.croggle.backends.sqlite.ContentValues;
+import com.badlogic.gdx.utils.IntMap;
+
 import de.croggle.backends.sqlite.Cursor;
+import de.croggle.backends.sqlite.Database;
 import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Migration;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
 import de.croggle.data.persistence.LevelProgress;
+import de.croggle.game.level.Level;
+import de.croggle.util.convert.AlligatorToBinary;
+import de.croggle.util.convert.JsonToAlligator;
 
 /**
  * A concrete table manager which is responsible for managing the SQLite table
@@ -17,10 +24,10 @@ import de.croggle.data.persistence.LevelProgress;
 public class LevelProgressManager extends TableManager {
 
 	/**
-	 * Name of the column that stores the profile names. The names are used as
-	 * the primary key.
+	 * Name of the column that stores the ids of the profiles the rows belong
+	 * to.
 	 */
-	static final String KEY_PROFILE_NAME = "profileName";
+	static final String KEY_PROFILE_ID = "profileId";
 
 	/**
 	 * Name of the column that stores the level id. The IDs are used as the
@@ -34,9 +41,10 @@ public class LevelProgressManager extends TableManager {
 	static final String KEY_SOLVED = "solved";
 
 	/**
-	 * Name of the column that stores the current board.
+	 * Name of the column that stores the current board, encoded by
+	 * {@link AlligatorToBinary}.
 	 */
-	static final String KEY_CURRENT_BOARD = "currentBoard";
+	static final String KEY_BOARD_DATA = "boardData";
 
 	/**
 	 * Name of the column that stores the amount of used time.
@@ -52,115 +60,253 @@ public class LevelProgressManager extends TableManager {
 	 * The string used for creating the level progress table via a sql query.
 	 */
 	public static final String CREATE_TABLE = "create table " + TABLE_NAME
-			+ "(" + KEY_PROFILE_NAME + " text not null, " + KEY_LEVEL_ID
-			+ " integer, " + KEY_SOLVED + " boolean, " + KEY_CURRENT_BOARD
-			+ " text not null, " + KEY_USED_TIME + " int, " + "FOREIGN KEY("
-			+ KEY_PROFILE_NAME + ") REFERENCES " + ProfileManager.TABLE_NAME
-			+ "(" + ProfileManager.KEY_PROFILE_NAME
-			+ ") ON UPDATE CASCADE ON DELETE CASCADE )";
+			+ "(" + KEY_PROFILE_ID + " integer not null, " + KEY_LEVEL_ID
+			+ " integer, " + KEY_SOLVED + " boolean, " + KEY_USED_TIME
+			+ " int, " + KEY_BOARD_DATA + " blob, " + "FOREIGN KEY("
+			+ KEY_PROFILE_ID + ") REFERENCES " + ProfileManager.TABLE_NAME
+			+ "(" + ProfileManager.KEY_PROFILE_ID
+			+ ") ON DELETE CASCADE )";
+
+	/**
+	 * The string used for creating the index on the profile ids and level
+	 * ids, which all queries of the table are restricted by.
+	 */
+	public static final String CREATE_INDEX = "create index if not exists "
+			+ TABLE_NAME + "ProfileLevel on " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ", " + KEY_LEVEL_ID + ")";
+
+	/**
+	 * The string used for adding the column of the encoded boards to level
+	 * progress tables created before it existed.
+	 */
+	public static final String ADD_BOARD_DATA = "alter table " + TABLE_NAME
+			+ " add column " + KEY_BOARD_DATA + " blob";
+
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_SOLVED + ", " + KEY_BOARD_DATA + ", " + KEY_USED_TIME + ", "
+			+ KEY_PROFILE_ID + ", " + KEY_LEVEL_ID
+			+ ") values (?, ?, ?, ?, ?)";
+
+	private static final String UPDATE = "update " + TABLE_NAME + " set "
+			+ KEY_SOLVED + " = ?, " + KEY_BOARD_DATA + " = ?, "
+			+ KEY_USED_TIME + " = ? where " + KEY_PROFILE_ID + " = ? and "
+			+ KEY_LEVEL_ID + " = ?";
+
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(KEY_LEVEL_ID,
+			KEY_SOLVED, KEY_BOARD_DATA, KEY_USED_TIME);
+	private static final int LEVEL_ID = COLUMNS.indexOf(KEY_LEVEL_ID);
+	private static final int SOLVED = COLUMNS.indexOf(KEY_SOLVED);
+	private static final int BOARD_DATA = COLUMNS.indexOf(KEY_BOARD_DATA);
+	private static final int USED_TIME = COLUMNS.indexOf(KEY_USED_TIME);
+
+	/**
+	 * Creates a new LevelProgressManager accessing the database through the
+	 * given connection.
+	 * 
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	LevelProgressManager(DatabaseConnection connection) {
+		super(connection);
+	}
 
 	/**
 	 * Adds a new level progress to the table.
 	 * 
-	 * @param profileName
-	 *            the name of the profile to which the level progress belongs
+	 * @param profileId
+	 *            the id of the profile to which the level progress belongs
 	 * @param levelProgress
 	 *            the level progress contains the values to be stored in the
 	 *            table
 	 */
-	void addLevelProgress(String profileName, LevelProgress levelProgress) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_LEVEL_ID, levelProgress.getLevelId());
-		values.put(KEY_SOLVED, levelProgress.isSolved());
-		values.put(KEY_CURRENT_BOARD, levelProgress.getCurrentBoard());
-		values.put(KEY_USED_TIME, levelProgress.getUsedTime());
-
-		database.insert(TABLE_NAME, null, values);
+	void addLevelProgress(long profileId, LevelProgress levelProgress) {
+		Statement insert = statement(INSERT);
+		bindLevelProgress(insert, profileId, levelProgress);
+		insert.executeInsert();
 	}
 
 	/**
 	 * Searches the table for a level progress that belongs to the profile
-	 * identified by the profile name and whose level ID matches the level ID
+	 * identified by the profile id and whose level ID matches the level ID
 	 * stored in level progress.
 	 * 
-	 * @param profileName
-	 *            the name of the profile to which the level progresses belong
+	 * @param profileId
+	 *            the id of the profile to which the level progresses belong
 	 * @param levelId
 	 *            the level ID of the searched-for level progress
 	 * @return the found level progress, null if no level progress is found
 	 */
-	LevelProgress getLevelProgress(String profileName, long levelId) {
+	LevelProgress getLevelProgress(long profileId, long levelId) {
+
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId + " and " + KEY_LEVEL_ID
+				+ " = " + levelId;
 
-		String selectQuery = "select * from " + TABLE_NAME + " where "
-				+ KEY_PROFILE_NAME + " = ?  and " + KEY_LEVEL_ID + " = "
-				+ levelId;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				return readLevelProgress(cursor);
+			}
 
-		Cursor cursor = database.rawQuery(selectQuery,
-				new String[] { profileName });
+			return null;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Returns all level progresses that belong to the profile identified by
+	 * the profile id and to levels of the package with the given index.
+	 * 
+	 * @param profileId
+	 *            the id of the profile to which the level progresses belong
+	 * @param packageIndex
+	 *            the index of the package the levels belong to
+	 * @return the found level progresses, mapped to their level IDs
+	 */
+	IntMap<LevelProgress> getLevelProgressForPackage(long profileId,
+			int packageIndex) {
+		IntMap<LevelProgress> progresses = new IntMap<LevelProgress>();
+		// a range of the index on profile id and level id
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId + " and " + KEY_LEVEL_ID
+				+ " >= " + packageIndex * Level.LEVELS_PER_PACKAGE + " and "
+				+ KEY_LEVEL_ID + " < " + (packageIndex + 1)
+				* Level.LEVELS_PER_PACKAGE;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				do {
+					LevelProgress progress = readLevelProgress(cursor);
+					progresses.put(progress.getLevelId(), progress);
+				} while (cursor.moveToNext());
+			}
+			return progresses;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/*
+	 * reads the level progress at the cursor's current row
+	 */
+	private LevelProgress readLevelProgress(Cursor cursor) {
+		int levelID = cursor.getInt(LEVEL_ID);
+		boolean solved = cursor.getInt(SOLVED) == 1;
+		byte[] currentBoard = cursor.getBlob(BOARD_DATA);
+		int usedTime = cursor.getInt(USED_TIME);
+		return new LevelProgress(levelID, solved, currentBoard, usedTime);
+	}
 
-		if (cursor.moveToFirst()) {
-			int levelID = cursor.getInt(cursor.getColumnIndex(KEY_LEVEL_ID));
-			boolean solved = (cursor.getInt(cursor.getColumnIndex(KEY_SOLVED)) == 1) ? true
-					: false;
-			String currentBoard = cursor.getString(cursor
-					.getColumnIndex(KEY_CURRENT_BOARD));
-			int usedTime = cursor.getInt(cursor.getColumnIndex(KEY_USED_TIME));
-			return new LevelProgress(levelID, solved, currentBoard, usedTime);
+	/**
+	 * Converts the boards stored as json by databases of version 5 and older
+	 * into their binary encoding and replaces the table by one without the
+	 * json column. Boards that cannot be converted are dropped, the rest of
+	 * their level progress is kept.
+	 * 
+	 * @param db
+	 *            the database being upgraded from version 5
+	 */
+	public static void migrateJsonBoards(Database db) {
+		Cursor cursor = db.rawQuery("select rowid, currentBoard from "
+				+ TABLE_NAME + " where boardData is null and currentBoard != ''",
+				null);
+		// read all rows before changing any of them
+		IntMap<String> boards = new IntMap<String>();
+		try {
+			if (cursor.moveToFirst()) {
+				do {
+					boards.put(cursor.getInt(0), cursor.getString(1));
+				} while (cursor.moveToNext());
+			}
+		} finally {
+			cursor.close();
+		}
+		Statement update = db.compileStatement("update " + TABLE_NAME
+				+ " set boardData = ? where rowid = ?");
+		for (IntMap.Entry<String> board : boards.entries()) {
+			byte[] encoded;
+			try {
+				encoded = AlligatorToBinary.convert(JsonToAlligator
+						.convertBoard(board.value));
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+			update.clearBindings();
+			update.bindBlob(1, encoded);
+			update.bindLong(2, board.key);
+			update.executeUpdateDelete();
 		}
+		update.close();
 
-		return null;
+		// the columns as of version 6
+		Migration.rebuildTable(db, TABLE_NAME, "profileName text not null, "
+				+ "levelId integer, solved boolean, usedTime int, "
+				+ "boardData blob, FOREIGN KEY(profileName) REFERENCES "
+				+ "profileTable(profileName) ON UPDATE CASCADE "
+				+ "ON DELETE CASCADE", "profileName, levelId, solved, "
+				+ "usedTime, boardData", "profileName, levelId, solved, "
+				+ "usedTime, boardData");
 	}
 
 	/**
-	 * Returns the ids of levels that were solved by the user identified with
-	 * the name profileName.
+	 * Returns the ids of levels that were solved by the profile with the id
+	 * profileId.
 	 * 
-	 * @param profileName
-	 *            the name of the profile
+	 * @param profileId
+	 *            the id of the profile
 	 * @return the ids of the solved levels
 	 */
-	List<Integer> getSolvedLevels(String profileName) {
+	List<Integer> getSolvedLevels(long profileId) {
 		List<Integer> levelsSolved = new ArrayList<Integer>();
-		String selectQuery = "select * from " + TABLE_NAME + " where "
-				+ KEY_PROFILE_NAME + " = ? and " + KEY_SOLVED + " = " + 1;
-		Cursor cursor = database.rawQuery(selectQuery,
-				new String[] { profileName });
-		if (cursor.moveToFirst()) {
-			do {
-				levelsSolved.add(cursor.getInt(cursor
-						.getColumnIndex(KEY_LEVEL_ID)));
-			} while (cursor.moveToNext());
+		String selectQuery = "select " + KEY_LEVEL_ID + " from " + TABLE_NAME
+				+ " where " + KEY_PROFILE_ID + " = " + profileId + " and "
+				+ KEY_SOLVED + " = " + 1;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				do {
+					levelsSolved.add(cursor.getInt(0));
+				} while (cursor.moveToNext());
+			}
+			return levelsSolved;
+		} finally {
+			cursor.close();
 		}
-		return levelsSolved;
 	}
 
 	/**
 	 * Searches the table for a level progress that belongs to the profile
-	 * identified by the profile name and whose level ID matches the level ID
+	 * identified by the profile id and whose level ID matches the level ID
 	 * stored in levelProgress. The values of the found level progress are
 	 * overwritten by the new level progress.
 	 * 
-	 * @param profileName
-	 *            the name of the profile to which the level progresses belong
+	 * @param profileId
+	 *            the id of the profile to which the level progresses belong
 	 * @param levelProgress
 	 *            the level progress whose values are used for overwriting the
 	 *            old level progress
+	 * @return true if there was a level progress to overwrite, false otherwise
 	 */
-	void updateLevelProgress(String profileName, LevelProgress levelProgress) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_SOLVED, levelProgress.isSolved());
-		values.put(KEY_CURRENT_BOARD, levelProgress.getCurrentBoard());
-		values.put(KEY_USED_TIME, levelProgress.getUsedTime());
-
-		database.update(TABLE_NAME, values, KEY_PROFILE_NAME + " = ? and "
-				+ KEY_LEVEL_ID + " = " + levelProgress.getLevelId(),
-				new String[] { profileName });
+	boolean updateLevelProgress(long profileId, LevelProgress levelProgress) {
+		Statement update = statement(UPDATE);
+		bindLevelProgress(update, profileId, levelProgress);
+		return update.executeUpdateDelete() > 0;
+	}
 
+	/*
+	 * binds the values in the order shared by the insert and update statements
+	 */
+	private static void bindLevelProgress(Statement statement,
+			long profileId, LevelProgress levelProgress) {
+		bindBoolean(statement, 1, levelProgress.isSolved());
+		bindBlobOrNull(statement, 2, levelProgress.getCurrentBoard());
+		statement.bindLong(3, levelProgress.getUsedTime());
+		statement.bindLong(4, profileId);
+		statement.bindLong(5, levelProgress.getLevelId());
 	}
 
 	@Override
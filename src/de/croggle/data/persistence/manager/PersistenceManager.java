@@ -1,13 +1,23 @@
 package de.croggle.data.persistence.manager;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
 
 import de.croggle.AlligatorApp;
 import de.croggle.data.persistence.LevelProgress;
 import de.croggle.data.persistence.Setting;
 import de.croggle.data.persistence.Statistic;
+import de.croggle.data.persistence.StatisticEvent;
+import de.croggle.data.persistence.WriteBehindQueue;
 import de.croggle.game.achievement.Achievement;
+import de.croggle.game.level.Level;
 import de.croggle.game.level.LevelPackagesController;
 import de.croggle.game.profile.Profile;
 import de.croggle.util.SparseArray;
@@ -16,9 +26,42 @@ import de.croggle.util.SparseArray;
  * 
  * This class provides methods for storing and loading profile-specific data.
  * 
+ * All data of a profile is read at once, the first time any of it is
+ * requested, except for the level progresses, which are read one package at a
+ * time. The data is kept in memory afterwards, so that it is read from the
+ * database only once. Changes are applied to the data in memory as well as to
+ * the database.
+ * 
+ * Settings, statistics, level progresses and achievement states, which are
+ * written while playing, are written behind by a {@link WriteBehindQueue}, so
+ * the methods changing them return without waiting for the database. All
+ * other changes are written right away, after all pending writes.
+ * 
+ * Statistics change by appending {@link StatisticEvent}s to a log. The sum of
+ * a profile's events is written as a snapshot every {@link #SNAPSHOT_INTERVAL}
+ * events, so that only the events logged after the latest snapshot are read
+ * along with it.
+ * 
  */
 public class PersistenceManager {
 
+	private static final int WRITE_SETTING = 0;
+	private static final int WRITE_STATISTIC = 1;
+	private static final int WRITE_LEVEL_PROGRESS = 2;
+	private static final int WRITE_ACHIEVEMENTS = 3;
+	private static final int WRITE_STATISTIC_EVENTS = 4;
+
+	/**
+	 * The number of statistic events appended to the log of a profile after
+	 * which the profile's statistic is written as a new snapshot.
+	 */
+	static final int SNAPSHOT_INTERVAL = 64;
+
+	/**
+	 * The connection to the database shared by all managers.
+	 */
+	private final DatabaseConnection connection;
+
 	/**
 	 * The profileManager is used to save and load Profiles.
 	 */
@@ -34,6 +77,11 @@ public class PersistenceManager {
 	 */
 	private final StatisticManager statisticManager;
 
+	/**
+	 * The statisticEventManager is used to log and load StatisticEvents.
+	 */
+	private final StatisticEventManager statisticEventManager;
+
 	/**
 	 * The levelProgressManager is used to save and load LevelProgresses.
 	 */
@@ -44,24 +92,74 @@ public class PersistenceManager {
 	 */
 	private final AchievementManager achievementManager;
 
+	/**
+	 * The data of the profiles read so far, mapped to their names. Also used
+	 * to synchronize access to the data.
+	 */
+	private final Map<String, CachedProfile> cache;
+
+	/**
+	 * All stored profiles, null if they have not been read yet.
+	 */
+	private List<Profile> profiles;
+
+	/**
+	 * Numbers the writes of statistics, which are never replaced by later
+	 * writes, so that events and snapshots are written in the order they were
+	 * made. Guarded by the cache.
+	 */
+	private int statisticWrites;
+
+	/**
+	 * The queue writing the data changed while playing.
+	 */
+	private final WriteBehindQueue writes;
+
+	/**
+	 * The number of writes lost since the last {@link #flush()}, including
+	 * those reported to the flushes waiting for the queue internally.
+	 */
+	private final AtomicInteger lostWrites = new AtomicInteger();
+
 	/**
 	 * The reference to the central game object.
 	 */
 	private final AlligatorApp game;
 
-
 	/**
-	 * Creates a new PersistenceManager and initializes the different managers.
+	 * Creates a new PersistenceManager, opens the connection to the database
+	 * and initializes the different managers. The connection stays open until
+	 * {@link #close()} is called.
 	 * 
 	 * @param game
 	 *            the backwards reference to the central game object
 	 */
 	public PersistenceManager(AlligatorApp game) {
-		profileManager = new ProfileManager();
-		settingManager = new SettingManager();
-		statisticManager = new StatisticManager();
-		levelProgressManager = new LevelProgressManager();
-		achievementManager = new AchievementManager();
+		connection = new DatabaseConnection();
+		connection.open();
+		profileManager = new ProfileManager(connection);
+		settingManager = new SettingManager(connection);
+		statisticManager = new StatisticManager(connection);
+		statisticEventManager = new StatisticEventManager(connection);
+		levelProgressManager = new LevelProgressManager(connection);
+		achievementManager = new AchievementManager(connection);
+		cache = new HashMap<String, CachedProfile>();
+		writes = new WriteBehindQueue(new WriteBehindQueue.Batch() {
+			@Override
+			public void apply(List<Runnable> batch) {
+				synchronized (connection) {
+					connection.beginTransaction();
+					try {
+						for (Runnable write : batch) {
+							write.run();
+						}
+						connection.setTransactionSuccessful();
+					} finally {
+						connection.endTransaction();
+					}
+				}
+			}
+		});
 
 		this.game = game;
 	}
@@ -84,29 +182,46 @@ public class PersistenceManager {
 					"There is already a profile with the name "
 							+ profile.getName() + ".");
 		} else {
-			profileManager.open();
-			profileManager.addProfile(profile);
-			profileManager.close();
-
-			settingManager.open();
-			settingManager.addSetting(profile.getName(), profile.getSetting());
-			settingManager.close();
-
-			statisticManager.open();
-			statisticManager.addStatistic(profile.getName(),
-					profile.getStatistic());
-			statisticManager.close();
-
-			achievementManager.open();
 			List<Achievement> achievements = game.getAchievementController()
 					.getAvailableAchievements();
 			for (Achievement achievement : achievements) {
 				achievement.setIndex(0);
-				achievementManager.addUnlockedAchievement(profile.getName(),
-						achievement);
 			}
-			achievementManager.close();
 
+			long id;
+			synchronized (connection) {
+				// either all or none of the profile's rows are stored
+				connection.beginTransaction();
+				try {
+					id = profileManager.addProfile(profile);
+					settingManager.addSetting(id, profile.getSetting());
+					statisticManager.addStatistic(id, profile.getStatistic());
+					achievementManager.addUnlockedAchievements(id,
+							achievements);
+					connection.setTransactionSuccessful();
+				} finally {
+					connection.endTransaction();
+				}
+			}
+
+			// everything there is to know about the profile
+			CachedProfile data = new CachedProfile();
+			data.id = id;
+			data.profile = copy(profile);
+			data.setting = copy(profile.getSetting());
+			data.statistic = copy(profile.getStatistic());
+			data.achievements = new SparseArray<Integer>();
+			for (Achievement achievement : achievements) {
+				data.achievements.put(achievement.getId(), 0);
+			}
+			data.solvedLevels = new IntArray();
+			data.packages = new IntMap<IntMap<LevelProgress>>();
+			synchronized (cache) {
+				cache.put(profile.getName(), data);
+				if (profiles != null) {
+					profiles.add(copy(profile));
+				}
+			}
 		}
 	}
 
@@ -119,15 +234,16 @@ public class PersistenceManager {
 	 *         with this name
 	 */
 	public Profile getProfile(String profileName) {
-		profileManager.open();
-		Profile profile = profileManager.getProfile(profileName);
-		profileManager.close();
-		return profile;
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			return data == null ? null : copy(data.profile);
+		}
 	}
 
 	/**
 	 * Overwrites the profile identified by the given name with the values of
-	 * the new profile. Every reference to the profile name is updated.
+	 * the new profile. As the profile's data refers to the profile by its id,
+	 * only the profile itself is changed.
 	 * 
 	 * @param profileName
 	 *            the string to identify the profile which is to be edited
@@ -137,11 +253,19 @@ public class PersistenceManager {
 	 */
 
 	public void editProfile(String profileName, Profile profile) {
-
-		profileManager.open();
-		profileManager.editProfile(profileName, profile);
-		profileManager.close();
-
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return;
+			}
+			synchronized (connection) {
+				profileManager.editProfile(data.id, profile);
+			}
+			cache.remove(profileName);
+			data.profile = copy(profile);
+			cache.put(profile.getName(), data);
+			profiles = null;
+		}
 	}
 
 	/**
@@ -150,10 +274,14 @@ public class PersistenceManager {
 	 * @return a list of all stored profiles
 	 */
 	public List<Profile> getAllProfiles() {
-		profileManager.open();
-		List<Profile> profiles = profileManager.getAllProfiles();
-		profileManager.close();
-		return profiles;
+		synchronized (cache) {
+			List<Profile> result = new ArrayList<Profile>(getProfiles()
+					.size());
+			for (Profile profile : getProfiles()) {
+				result.add(copy(profile));
+			}
+			return result;
+		}
 	}
 
 	/**
@@ -164,9 +292,17 @@ public class PersistenceManager {
 	 *            the name of the profile to be deleted
 	 */
 	public void deleteProfile(String profileName) {
-		profileManager.open();
-		profileManager.deleteProfile(profileName);
-		profileManager.close();
+		awaitWrites();
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data != null) {
+				synchronized (connection) {
+					profileManager.deleteProfile(data.id);
+				}
+			}
+			cache.remove(profileName);
+			profiles = null;
+		}
 	}
 
 	/**
@@ -177,10 +313,13 @@ public class PersistenceManager {
 	 * @return the found setting, null if no setting is found
 	 */
 	public Setting getSetting(String profileName) {
-		settingManager.open();
-		Setting setting = settingManager.getSetting(profileName);
-		settingManager.close();
-		return setting;
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null || data.setting == null) {
+				return null;
+			}
+			return copy(data.setting);
+		}
 	}
 
 	/**
@@ -193,9 +332,23 @@ public class PersistenceManager {
 	 *            contains the new values used for overwriting the old setting
 	 */
 	public void editSetting(String profileName, Setting newSetting) {
-		settingManager.open();
-		settingManager.editSetting(profileName, newSetting);
-		settingManager.close();
+		final Setting setting = copy(newSetting);
+		final long profileId;
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return;
+			}
+			data.setting = copy(setting);
+			profileId = data.id;
+		}
+		writes.submit(new WriteKey(WRITE_SETTING, profileId, 0), setting,
+				new Runnable() {
+					@Override
+					public void run() {
+						settingManager.editSetting(profileId, setting);
+					}
+				});
 	}
 
 	/**
@@ -206,17 +359,19 @@ public class PersistenceManager {
 	 * @return the found statistic, null if no statistic is found
 	 */
 	public Statistic getStatistic(String profileName) {
-		statisticManager.open();
-		Statistic statistic = statisticManager.getStatistic(profileName);
-		statisticManager.close();
+		Statistic statistic = null;
+		List<Integer> levelsSolved = new ArrayList<Integer>();
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data != null && data.statistic != null) {
+				statistic = copy(data.statistic);
+				for (int i = 0; i < data.solvedLevels.size; i++) {
+					levelsSolved.add(data.solvedLevels.get(i));
+				}
+			}
+		}
 
 		if (statistic != null) {
-
-			levelProgressManager.open();
-			List<Integer> levelsSolved = levelProgressManager
-					.getSolvedLevels(profileName);
-			levelProgressManager.close();
-
 			statistic.setLevelsComplete(levelsSolved.size());
 
 			int packageIndex = -1;
@@ -227,13 +382,13 @@ public class PersistenceManager {
 			Collections.sort(levelsSolved);
 
 			for (Integer levelId : levelsSolved) {
-				int temp = levelId / 100;
+				int temp = levelId / Level.LEVELS_PER_PACKAGE;
 				if (packageIndex != temp) {
 					packageIndex = temp;
 					packageSize = LevelPackagesController
 							.getPackageSize(packageIndex);
 				}
-				levelIndex = levelId % 100;
+				levelIndex = levelId % Level.LEVELS_PER_PACKAGE;
 				if (packageSize - 1 == levelIndex) {
 					packagesCompleted++;
 				}
@@ -245,7 +400,8 @@ public class PersistenceManager {
 
 	/**
 	 * Overwrites the statistic of a specific profile identified by the given
-	 * profile name with the new statistic.
+	 * profile name with the new statistic, which replaces the sum of all
+	 * statistic events logged so far.
 	 * 
 	 * @param profileName
 	 *            the name of the profile to which the statistic belongs
@@ -253,9 +409,122 @@ public class PersistenceManager {
 	 *            contains the new values used for overwriting the old statistic
 	 */
 	public void editStatistic(String profileName, Statistic newStatistic) {
-		statisticManager.open();
-		statisticManager.editStatistic(profileName, newStatistic);
-		statisticManager.close();
+		final Statistic statistic = copy(newStatistic);
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return;
+			}
+			data.statistic = copy(statistic);
+			data.eventsSinceSnapshot = 0;
+			final long profileId = data.id;
+			// the new snapshot replaces all events logged so far
+			writes.submit(new WriteKey(WRITE_STATISTIC, profileId,
+					++statisticWrites), statistic, new Runnable() {
+				@Override
+				public void run() {
+					statisticManager.editStatistic(profileId, statistic,
+							statisticEventManager.getLastEventId(profileId));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Appends the given statistic events to the log of the profile with the
+	 * given name and adds them to the profile's statistic.
+	 * 
+	 * @param profileName
+	 *            the name of the profile to which the events belong
+	 * @param events
+	 *            the events to be logged, in the order they occurred
+	 */
+	public void addStatisticEvents(String profileName,
+			List<StatisticEvent> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		final List<StatisticEvent> logged = new ArrayList<StatisticEvent>(
+				events);
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null || data.statistic == null) {
+				return;
+			}
+			for (StatisticEvent event : logged) {
+				event.applyTo(data.statistic);
+				if (data.dailyStatistics != null) {
+					addToBreakdowns(data, event);
+				}
+			}
+			data.eventsSinceSnapshot += logged.size();
+			final Statistic snapshot;
+			if (data.eventsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+				snapshot = copy(data.statistic);
+				data.eventsSinceSnapshot = 0;
+			} else {
+				snapshot = null;
+			}
+			final long profileId = data.id;
+			// submitted while holding the lock, so that the writes of a
+			// profile's statistic are queued in the order they were made
+			writes.submit(new WriteKey(WRITE_STATISTIC_EVENTS, profileId,
+					++statisticWrites), logged, new Runnable() {
+				@Override
+				public void run() {
+					long lastEventId = statisticEventManager.addEvents(
+							profileId, logged);
+					if (snapshot != null) {
+						statisticManager.editStatistic(profileId, snapshot,
+								lastEventId);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the statistics of the profile with the given name for each day
+	 * on which it played, summed up from the logged statistic events.
+	 * 
+	 * The first call for a profile waits for the pending writes and reads the
+	 * profile's whole log, see {@link #getLevelStatistics(String)}.
+	 * 
+	 * @param profileName
+	 *            the name of the profile to which the statistics belong
+	 * @return the statistics, mapped to their days as returned by
+	 *         {@link StatisticEvent#getDay()}, or null if there is no profile
+	 *         with the given name
+	 */
+	public IntMap<Statistic> getDailyStatistics(String profileName) {
+		synchronized (cache) {
+			CachedProfile data = getCachedBreakdowns(profileName);
+			return data == null ? null : copy(data.dailyStatistics);
+		}
+	}
+
+	/**
+	 * Returns the statistics of the profile with the given name for each
+	 * level it played, summed up from the logged statistic events.
+	 * 
+	 * The breakdowns cannot be taken from the snapshots, which only hold the
+	 * sum of all events. Hence the first call for a profile waits for the
+	 * pending writes and reads the profile's whole log, which grows with the
+	 * number of levels played. This is only done once per profile, as the
+	 * breakdowns are kept up to date with the events logged afterwards, and
+	 * should be done while a screen showing the statistics is being opened,
+	 * not while a level is played.
+	 * 
+	 * @param profileName
+	 *            the name of the profile to which the statistics belong
+	 * @return the statistics, mapped to the ids of their levels, or null if
+	 *         there is no profile with the given name
+	 */
+	public IntMap<Statistic> getLevelStatistics(String profileName) {
+		synchronized (cache) {
+			CachedProfile data = getCachedBreakdowns(profileName);
+			return data == null ? null : copy(data.levelStatistics);
+		}
 	}
 
 	/**
@@ -272,15 +541,32 @@ public class PersistenceManager {
 	 */
 	public void saveLevelProgress(String profileName,
 			LevelProgress levelProgress) {
-		levelProgressManager.open();
-		LevelProgress lp = levelProgressManager.getLevelProgress(profileName, levelProgress.getLevelId());
-		if (lp == null) {
-			levelProgressManager.addLevelProgress(profileName, levelProgress);
-		} else {
-			levelProgressManager
-					.updateLevelProgress(profileName, levelProgress);
+		final LevelProgress progress = copy(levelProgress);
+		final long profileId;
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return;
+			}
+			int levelId = progress.getLevelId();
+			getPackageProgresses(data, levelId / Level.LEVELS_PER_PACKAGE)
+					.put(levelId, copy(progress));
+			data.solvedLevels.removeValue(levelId);
+			if (progress.isSolved()) {
+				data.solvedLevels.add(levelId);
+			}
+			profileId = data.id;
 		}
-		levelProgressManager.close();
+		writes.submit(new WriteKey(WRITE_LEVEL_PROGRESS, profileId,
+				progress.getLevelId()), progress, new Runnable() {
+			@Override
+			public void run() {
+				if (!levelProgressManager.updateLevelProgress(profileId,
+						progress)) {
+					levelProgressManager.addLevelProgress(profileId, progress);
+				}
+			}
+		});
 	}
 
 	/**
@@ -294,13 +580,44 @@ public class PersistenceManager {
 	 * @return the found level progress, null if no level progress is found
 	 */
 	public LevelProgress getLevelProgress(String profileName, int levelID) {
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return null;
+			}
+			LevelProgress progress = getPackageProgresses(data,
+					levelID / Level.LEVELS_PER_PACKAGE).get(levelID);
+			return progress == null ? null : copy(progress);
+		}
+	}
 
-		levelProgressManager.open();
-		LevelProgress progress = levelProgressManager.getLevelProgress(
-				profileName, levelID);
-		levelProgressManager.close();
-
-		return progress;
+	/**
+	 * Returns all level progresses of levels of the given package which belong
+	 * to the profile with the given profile name.
+	 * 
+	 * @param profileName
+	 *            the name of the profile to which the level progresses belong
+	 * @param packageIndex
+	 *            the index of the package
+	 * @return the found level progresses, mapped to their level IDs, or null
+	 *         if there is no profile with the given name
+	 */
+	public IntMap<LevelProgress> getLevelProgressForPackage(
+			String profileName, int packageIndex) {
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return null;
+			}
+			IntMap<LevelProgress> progresses = getPackageProgresses(data,
+					packageIndex);
+			IntMap<LevelProgress> result = new IntMap<LevelProgress>(
+					progresses.size);
+			for (IntMap.Entry<LevelProgress> entry : progresses.entries()) {
+				result.put(entry.key, copy(entry.value));
+			}
+			return result;
+		}
 	}
 
 	/**
@@ -314,12 +631,34 @@ public class PersistenceManager {
 	 */
 	public void updateUnlockedAchievements(String profileName,
 			List<Achievement> achievements) {
-		achievementManager.open();
-		for (Achievement achievement : achievements) {
-			achievementManager.updateUnlockedAchievement(profileName,
-					achievement);
+		if (achievements.isEmpty()) {
+			return;
+		}
+		final long profileId = cacheAchievements(profileName, achievements);
+		if (profileId == -1) {
+			return;
+		}
+		WriteKey key = new WriteKey(WRITE_ACHIEVEMENTS, profileId, 0);
+		synchronized (writes) {
+			// merged with the states still waiting to be written
+			final SparseArray<Integer> indices = new SparseArray<Integer>();
+			SparseArray<?> pending = (SparseArray<?>) writes.getPending(key);
+			if (pending != null) {
+				for (int i = 0; i < pending.size(); i++) {
+					indices.put(pending.keyAt(i), (Integer) pending.valueAt(i));
+				}
+			}
+			for (Achievement achievement : achievements) {
+				indices.put(achievement.getId(), achievement.getIndex());
+			}
+			writes.submit(key, indices, new Runnable() {
+				@Override
+				public void run() {
+					achievementManager.updateUnlockedAchievements(profileId,
+							indices);
+				}
+			});
 		}
-		achievementManager.close();
 	}
 
 	/**
@@ -333,12 +672,20 @@ public class PersistenceManager {
 	 */
 	public void saveUnlockedAchievements(String profileName,
 			List<Achievement> achievements) {
-		achievementManager.open();
-		for (Achievement achievement : achievements) {
-			achievementManager.addUnlockedAchievement(profileName, achievement);
+		long profileId = cacheAchievements(profileName, achievements);
+		if (profileId == -1) {
+			return;
+		}
+		synchronized (connection) {
+			connection.beginTransaction();
+			try {
+				achievementManager.addUnlockedAchievements(profileId,
+						achievements);
+				connection.setTransactionSuccessful();
+			} finally {
+				connection.endTransaction();
+			}
 		}
-		achievementManager.close();
-
 	}
 
 	/**
@@ -353,20 +700,27 @@ public class PersistenceManager {
 	 */
 
 	public SparseArray<Integer> getAllUnlockedAchievements(String profileName) {
-		achievementManager.open();
-		SparseArray<Integer> unlockedAchievements = achievementManager
-				.getUnlockedAchievements(profileName);
-		achievementManager.close();
-		return unlockedAchievements;
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null || data.achievements == null) {
+				return null;
+			}
+			return copy(data.achievements);
+		}
 	}
 
 	/**
 	 * Removes all entries form the tables.
 	 */
 	public void clearTables() {
-		profileManager.open();
-		profileManager.clearTable();
-		profileManager.close();
+		awaitWrites();
+		synchronized (connection) {
+			profileManager.clearTable();
+		}
+		synchronized (cache) {
+			cache.clear();
+			profiles = null;
+		}
 	}
 
 	/**
@@ -378,10 +732,257 @@ public class PersistenceManager {
 	 *         else false is returned
 	 */
 	public boolean isNameUsed(String profileName) {
-		profileManager.open();
-		boolean isValid = profileManager.isNameUsed(profileName);
-		profileManager.close();
-		return isValid;
+		synchronized (cache) {
+			for (Profile profile : getProfiles()) {
+				if (profile.getName().equals(profileName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Blocks until all changes made so far have been written to the database,
+	 * e.g. before the game is paused and might be shut down.
+	 * 
+	 * @return true if all changes were written, false if some of them could
+	 *         not be written since the last flush and are lost
+	 */
+	public boolean flush() {
+		awaitWrites();
+		return lostWrites.getAndSet(0) == 0;
+	}
+
+	/*
+	 * blocks until the write-behind queue is empty, remembering the writes
+	 * lost meanwhile for the next flush
+	 */
+	private void awaitWrites() {
+		lostWrites.addAndGet(writes.flush());
+	}
+
+	/**
+	 * Writes all pending changes and closes the connection to the database.
+	 * Must be called when the game is shut down, after which the
+	 * PersistenceManager must not be used anymore.
+	 */
+	public void close() {
+		writes.shutdown();
+		synchronized (connection) {
+			connection.close();
+		}
+	}
+
+	/*
+	 * returns the data of the profile with the given name, reading all of it
+	 * if it has not been read yet. Must be called while holding the lock on
+	 * the cache
+	 */
+	private CachedProfile getCachedProfile(String profileName) {
+		CachedProfile data = cache.get(profileName);
+		if (data != null) {
+			return data;
+		}
+		synchronized (connection) {
+			long id = profileManager.getProfileId(profileName);
+			if (id == -1) {
+				return null;
+			}
+			data = new CachedProfile();
+			data.id = id;
+			data.profile = profileManager.getProfile(profileName);
+			data.setting = settingManager.getSetting(id);
+			data.statistic = statisticManager.getStatistic(id);
+			if (data.statistic != null) {
+				List<StatisticEvent> events = statisticEventManager
+						.getEvents(id, statisticManager.getLastEventId(id));
+				for (StatisticEvent event : events) {
+					event.applyTo(data.statistic);
+				}
+				data.eventsSinceSnapshot = events.size();
+			}
+			data.achievements = achievementManager.getUnlockedAchievements(id);
+			data.solvedLevels = new IntArray();
+			for (int levelId : levelProgressManager.getSolvedLevels(id)) {
+				data.solvedLevels.add(levelId);
+			}
+			data.packages = new IntMap<IntMap<LevelProgress>>();
+		}
+		cache.put(profileName, data);
+		return data;
+	}
+
+	/*
+	 * applies the achievement states to the data of the profile in memory and
+	 * returns the profile's id, -1 if there is no such profile
+	 */
+	private long cacheAchievements(String profileName,
+			List<Achievement> achievements) {
+		synchronized (cache) {
+			CachedProfile data = getCachedProfile(profileName);
+			if (data == null) {
+				return -1;
+			}
+			if (data.achievements == null) {
+				data.achievements = new SparseArray<Integer>();
+			}
+			for (Achievement achievement : achievements) {
+				data.achievements.put(achievement.getId(),
+						achievement.getIndex());
+			}
+			return data.id;
+		}
+	}
+
+	/*
+	 * returns the level progresses of the given package, reading them if they
+	 * have not been read yet. Must be called while holding the lock on the
+	 * cache
+	 */
+	private IntMap<LevelProgress> getPackageProgresses(CachedProfile data,
+			int packageIndex) {
+		IntMap<LevelProgress> progresses = data.packages.get(packageIndex);
+		if (progresses == null) {
+			synchronized (connection) {
+				progresses = levelProgressManager.getLevelProgressForPackage(
+						data.id, packageIndex);
+			}
+			data.packages.put(packageIndex, progresses);
+		}
+		return progresses;
+	}
+
+	/*
+	 * returns the data of the profile with the given name, summing up the
+	 * statistics of each day and level from the whole log if they have not
+	 * been summed up yet. Must be called while holding the lock on the cache.
+	 * The snapshots do not help here, as they lose the days and levels of
+	 * the events they sum up
+	 */
+	private CachedProfile getCachedBreakdowns(String profileName) {
+		CachedProfile data = getCachedProfile(profileName);
+		if (data == null || data.dailyStatistics != null) {
+			return data;
+		}
+		// the log has to be complete before it is read. Writes never lock the
+		// cache, so they can be waited for while holding the lock, which keeps
+		// events from being logged in the meantime
+		awaitWrites();
+		List<StatisticEvent> events;
+		synchronized (connection) {
+			events = statisticEventManager.getEvents(data.id, 0);
+		}
+		data.dailyStatistics = new IntMap<Statistic>();
+		data.levelStatistics = new IntMap<Statistic>();
+		for (StatisticEvent event : events) {
+			addToBreakdowns(data, event);
+		}
+		return data;
 	}
 
+	private static void addToBreakdowns(CachedProfile data,
+			StatisticEvent event) {
+		Statistic day = data.dailyStatistics.get(event.getDay());
+		if (day == null) {
+			day = new Statistic();
+			data.dailyStatistics.put(event.getDay(), day);
+		}
+		event.applyTo(day);
+		Statistic level = data.levelStatistics.get(event.getLevelId());
+		if (level == null) {
+			level = new Statistic();
+			data.levelStatistics.put(event.getLevelId(), level);
+		}
+		event.applyTo(level);
+	}
+
+	/*
+	 * returns all stored profiles, reading them if they have not been read
+	 * yet. Must be called while holding the lock on the cache
+	 */
+	private List<Profile> getProfiles() {
+		if (profiles == null) {
+			synchronized (connection) {
+				profiles = profileManager.getAllProfiles();
+			}
+		}
+		return profiles;
+	}
+
+	/*
+	 * the values are copied when they are written and when they are read, as
+	 * the callers keep changing them
+	 */
+	private static Profile copy(Profile profile) {
+		return new Profile(profile.getName(), profile.getPicturePath());
+	}
+
+	private static Setting copy(Setting setting) {
+		return new Setting(setting.getVolumeMusic(),
+				setting.getVolumeEffects(), setting.isZoomEnabled(),
+				setting.isColorblindEnabled());
+	}
+
+	private static Statistic copy(Statistic statistic) {
+		return new Statistic(statistic.getPlaytime(),
+				statistic.getUsedHints(), statistic.getResetsUsed(),
+				statistic.getRecolorings(), statistic.getLevelsComplete(),
+				statistic.getPackagesComplete(),
+				statistic.getAlligatorsEaten(),
+				statistic.getAlligatorsPlaced(), statistic.getEggsHatched(),
+				statistic.getEggsPlaced());
+	}
+
+	private static LevelProgress copy(LevelProgress progress) {
+		return new LevelProgress(progress.getLevelId(), progress.isSolved(),
+				progress.getCurrentBoard(), progress.getUsedTime());
+	}
+
+	private static IntMap<Statistic> copy(IntMap<Statistic> statistics) {
+		IntMap<Statistic> copy = new IntMap<Statistic>(statistics.size);
+		for (IntMap.Entry<Statistic> entry : statistics.entries()) {
+			copy.put(entry.key, copy(entry.value));
+		}
+		return copy;
+	}
+
+	private static SparseArray<Integer> copy(SparseArray<Integer> array) {
+		SparseArray<Integer> copy = new SparseArray<Integer>();
+		for (int i = 0; i < array.size(); i++) {
+			copy.put(array.keyAt(i), array.valueAt(i));
+		}
+		return copy;
+	}
+
+	/**
+	 * Identifies the data written by a write-behind write.
+	 */
+	private static final class WriteKey {
+		private final int type;
+		private final long profileId;
+		private final int id;
+
+		public WriteKey(int type, long profileId, int id) {
+			this.type = type;
+			this.profileId = profileId;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof WriteKey)) {
+				return false;
+			}
+			WriteKey other = (WriteKey) obj;
+			return type == other.type && id == other.id
+					&& profileId == other.profileId;
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * type + id) * 31
+					+ (int) (profileId ^ (profileId >>> 32));
+		}
+	}
 }
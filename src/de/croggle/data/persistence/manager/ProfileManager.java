@@ -3,10 +3,10 @@ package de.croggle.data.persistence.manager;
 import java.util.ArrayList;
 import java.util.List;
 
-import de.croggle.backends.BackendHelper;
-import de.croggle.backends.sqlite.ContentValues;
 import de.croggle.backends.sqlite.Cursor;
 import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
 import de.croggle.game.profile.Profile;
 
 /**
@@ -16,8 +16,16 @@ import de.croggle.game.profile.Profile;
 public class ProfileManager extends TableManager {
 
 	/**
-	 * Name of the column that stores the profile names. The names are used as
-	 * the primary key.
+	 * Name of the column that stores the profile ids, which are used as the
+	 * primary key and referenced by the tables of the other managers. The ids
+	 * of deleted profiles are never used again, so writes still pending for a
+	 * deleted profile cannot end up in a new one.
+	 */
+	static final String KEY_PROFILE_ID = "profileId";
+
+	/**
+	 * Name of the column that stores the profile names. Every name is used by
+	 * at most one profile.
 	 */
 	static final String KEY_PROFILE_NAME = "profileName";
 
@@ -35,22 +43,80 @@ public class ProfileManager extends TableManager {
 	 * The string used for creating the profile table via a sql query.
 	 */
 	public static final String CREATE_TABLE = "create table " + TABLE_NAME
-			+ "(" + KEY_PROFILE_NAME + " text not null primary key, "
-			+ KEY_PICTUREPATH + " text not null" + ")";
+			+ "(" + KEY_PROFILE_ID + " integer primary key autoincrement, "
+			+ KEY_PROFILE_NAME + " text not null unique, " + KEY_PICTUREPATH
+			+ " text not null" + ")";
+
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_PROFILE_NAME + ", " + KEY_PICTUREPATH + ") values (?, ?)";
+
+	private static final String UPDATE = "update " + TABLE_NAME + " set "
+			+ KEY_PROFILE_NAME + " = ?, " + KEY_PICTUREPATH + " = ? where "
+			+ KEY_PROFILE_ID + " = ?";
+
+	private static final String DELETE = "delete from " + TABLE_NAME
+			+ " where " + KEY_PROFILE_ID + " = ?";
+
+	private static final String COUNT_NAME = "select count(*) from "
+			+ TABLE_NAME + " where " + KEY_PROFILE_NAME + " = ?";
+
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(KEY_PROFILE_NAME,
+			KEY_PICTUREPATH);
+	private static final int PROFILE_NAME = COLUMNS.indexOf(KEY_PROFILE_NAME);
+	private static final int PICTUREPATH = COLUMNS.indexOf(KEY_PICTUREPATH);
+
+	/**
+	 * Creates a new ProfileManager accessing the database through the given
+	 * connection.
+	 * 
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	ProfileManager(DatabaseConnection connection) {
+		super(connection);
+	}
 
 	/**
 	 * Adds a new profile to the table.
 	 * 
 	 * @param profile
 	 *            contains the values to be stored in the table
+	 * @return the id of the new profile
 	 */
-	void addProfile(Profile profile) {
-		ContentValues values = BackendHelper.getNewContentValues();
+	long addProfile(Profile profile) {
+		Statement insert = statement(INSERT);
+		insert.bindString(1, profile.getName());
+		insert.bindString(2, profile.getPicturePath());
+		return insert.executeInsert();
+	}
 
-		values.put(KEY_PROFILE_NAME, profile.getName());
-		values.put(KEY_PICTUREPATH, profile.getPicturePath());
+	/**
+	 * Searches the table for the id of the profile whose name matches the
+	 * given profile name.
+	 * 
+	 * @param profileName
+	 *            the name of the searched profile
+	 * @return the id of the found profile, -1 if no profile is found
+	 */
+	long getProfileId(String profileName) {
 
-		database.insert(TABLE_NAME, null, values);
+		String selectQuery = "select " + KEY_PROFILE_ID + " from "
+				+ TABLE_NAME + " where " + KEY_PROFILE_NAME + " = ?";
+
+		Cursor cursor = database.rawQuery(selectQuery,
+				new String[] { profileName });
+		try {
+			if (cursor.moveToFirst()) {
+				return cursor.getInt(0);
+			}
+
+			return -1;
+		} finally {
+			cursor.close();
+		}
 	}
 
 	/**
@@ -63,55 +129,51 @@ public class ProfileManager extends TableManager {
 	 */
 	Profile getProfile(String profileName) {
 
-		String selectQuery = "select * from " + TABLE_NAME + " where "
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
 				+ KEY_PROFILE_NAME + " = ?";
 
 		Cursor cursor = database.rawQuery(selectQuery,
 				new String[] { profileName });
-
-		if (cursor.moveToFirst()) {
-			String name = cursor.getString(cursor
-					.getColumnIndex(KEY_PROFILE_NAME));
-			String path = cursor.getString(cursor
-					.getColumnIndex(KEY_PICTUREPATH));
-			return new Profile(name, path);
+		try {
+			if (cursor.moveToFirst()) {
+				return readProfile(cursor);
+			}
+
+			return null;
+		} finally {
+			cursor.close();
 		}
-
-		return null;
-
 	}
 
 	/**
-	 * Searches the table for a profile whose name matches the given profile
-	 * name and overwrites its values with the values of the new profile.
+	 * Overwrites the values of the profile with the given id with the values
+	 * of the new profile. As the other tables refer to the profile by its id,
+	 * renaming the profile only changes this row.
 	 * 
-	 * @param profileName
-	 *            the name of the profile which is edited.
+	 * @param profileId
+	 *            the id of the profile which is edited.
 	 * @param profile
 	 *            contains the values used for overwriting the old entry
 	 */
-	void editProfile(String profileName, Profile profile) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-		values.put(KEY_PROFILE_NAME, profile.getName());
-		values.put(KEY_PICTUREPATH, profile.getPicturePath());
-
-		database.update(TABLE_NAME, values, KEY_PROFILE_NAME + " = ?",
-				new String[] { profileName });
-
+	void editProfile(long profileId, Profile profile) {
+		Statement update = statement(UPDATE);
+		update.bindString(1, profile.getName());
+		update.bindString(2, profile.getPicturePath());
+		update.bindLong(3, profileId);
+		update.executeUpdateDelete();
 	}
 
 	/**
-	 * Deletes the profile whose name matches the given profile name from the
-	 * table.
+	 * Deletes the profile with the given id from the table, together with all
+	 * rows of the other tables referring to it.
 	 * 
-	 * @param profileName
-	 *            the name of the user whose profile is to be deleted
+	 * @param profileId
+	 *            the id of the profile which is to be deleted
 	 */
-	void deleteProfile(String profileName) {
-		database.delete(TABLE_NAME, KEY_PROFILE_NAME + " = ?",
-				new String[] { profileName });
-
+	void deleteProfile(long profileId) {
+		Statement delete = statement(DELETE);
+		delete.bindLong(1, profileId);
+		delete.executeUpdateDelete();
 	}
 
 	/**
@@ -123,19 +185,27 @@ public class ProfileManager extends TableManager {
 
 		List<Profile> profileList = new ArrayList<Profile>();
 
-		String selectQuery = "select * from " + TABLE_NAME;
+		String selectQuery = COLUMNS.select(TABLE_NAME);
 		Cursor cursor = database.rawQuery(selectQuery, null);
-		if (cursor.moveToFirst()) {
-			String name;
-			String path;
-			do {
-				name = cursor
-						.getString(cursor.getColumnIndex(KEY_PROFILE_NAME));
-				path = cursor.getString(cursor.getColumnIndex(KEY_PICTUREPATH));
-				profileList.add(new Profile(name, path));
-			} while (cursor.moveToNext());
+		try {
+			if (cursor.moveToFirst()) {
+				do {
+					profileList.add(readProfile(cursor));
+				} while (cursor.moveToNext());
+			}
+			return profileList;
+		} finally {
+			cursor.close();
 		}
-		return profileList;
+	}
+
+	/*
+	 * reads the profile at the cursor's current row
+	 */
+	private static Profile readProfile(Cursor cursor) {
+		String name = cursor.getString(PROFILE_NAME);
+		String path = cursor.getString(PICTUREPATH);
+		return new Profile(name, path);
 	}
 
 	/**
@@ -147,15 +217,9 @@ public class ProfileManager extends TableManager {
 	 *         else false
 	 */
 	boolean isNameUsed(String profileName) {
-		String selectQuery = "select * from " + TABLE_NAME + " where "
-				+ KEY_PROFILE_NAME + " = ?";
-
-		Cursor cursor = database.rawQuery(selectQuery,
-				new String[] { profileName });
-		if (cursor.moveToFirst()) {
-			return true;
-		}
-		return false;
+		Statement count = statement(COUNT_NAME);
+		count.bindString(1, profileName);
+		return count.simpleQueryForLong() > 0;
 	}
 
 	@Override
@@ -1,9 +1,9 @@
 package de.croggle.data.persistence.manager;
 
-import de.croggle.backends.BackendHelper;
-import de.croggle.backends.sqlite.ContentValues;
 import de.croggle.backends.sqlite.Cursor;
 import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
 import de.croggle.data.persistence.Setting;
 
 /**
@@ -13,10 +13,10 @@ import de.croggle.data.persistence.Setting;
 public class SettingManager extends TableManager {
 
 	/**
-	 * Name of the column that stores the profile names. The names are used as
-	 * the primary key.
+	 * Name of the column that stores the ids of the profiles the rows belong
+	 * to.
 	 */
-	static final String KEY_PROFILE_NAME = "profileName";
+	static final String KEY_PROFILE_ID = "profileId";
 
 	/**
 	 * Name of the column that stores the volume of the music.
@@ -49,87 +49,122 @@ public class SettingManager extends TableManager {
 	 * The string used for creating the setting table via a sql query.
 	 */
 	public static final String CREATE_TABLE = "create table " + TABLE_NAME
-			+ "(" + KEY_PROFILE_NAME + " text not null, " + KEY_VOLUME_MUSIC
+			+ "(" + KEY_PROFILE_ID + " integer not null, " + KEY_VOLUME_MUSIC
 			+ " float, " + KEY_VOLUME_EFFECTS + " float, " + KEY_ZOOM_ENABLED
 			+ " boolean, " + KEY_COLORBLIND_ENABLED + " boolean, "
-			+ "FOREIGN KEY(" + KEY_PROFILE_NAME + ") REFERENCES "
-			+ ProfileManager.TABLE_NAME + "(" + ProfileManager.KEY_PROFILE_NAME
-			+ ") ON UPDATE CASCADE ON DELETE CASCADE )";
+			+ "FOREIGN KEY(" + KEY_PROFILE_ID + ") REFERENCES "
+			+ ProfileManager.TABLE_NAME + "(" + ProfileManager.KEY_PROFILE_ID
+			+ ") ON DELETE CASCADE )";
+
+	/**
+	 * The string used for creating the index on the profile ids, which all
+	 * queries of the table are restricted by.
+	 */
+	public static final String CREATE_INDEX = "create index if not exists "
+			+ TABLE_NAME + "Profile on " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ")";
+
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ", " + KEY_VOLUME_MUSIC + ", "
+			+ KEY_VOLUME_EFFECTS + ", " + KEY_ZOOM_ENABLED + ", "
+			+ KEY_COLORBLIND_ENABLED + ") values (?, ?, ?, ?, ?)";
+
+	private static final String UPDATE = "update " + TABLE_NAME + " set "
+			+ KEY_VOLUME_MUSIC + " = ?, " + KEY_VOLUME_EFFECTS + " = ?, "
+			+ KEY_ZOOM_ENABLED + " = ?, " + KEY_COLORBLIND_ENABLED
+			+ " = ? where " + KEY_PROFILE_ID + " = ?";
+
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(KEY_VOLUME_MUSIC,
+			KEY_VOLUME_EFFECTS, KEY_ZOOM_ENABLED, KEY_COLORBLIND_ENABLED);
+	private static final int VOLUME_MUSIC = COLUMNS.indexOf(KEY_VOLUME_MUSIC);
+	private static final int VOLUME_EFFECTS = COLUMNS
+			.indexOf(KEY_VOLUME_EFFECTS);
+	private static final int ZOOM_ENABLED = COLUMNS.indexOf(KEY_ZOOM_ENABLED);
+	private static final int COLORBLIND_ENABLED = COLUMNS
+			.indexOf(KEY_COLORBLIND_ENABLED);
+
+	/**
+	 * Creates a new SettingManager accessing the database through the given
+	 * connection.
+	 * 
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	SettingManager(DatabaseConnection connection) {
+		super(connection);
+	}
 
 	/**
 	 * Adds a new setting to the table.
 	 * 
-	 * @param profileName
-	 *            the name of the profile whose setting is added to the table
+	 * @param profileId
+	 *            the id of the profile whose setting is added to the table
 	 * @param setting
 	 *            contains the values to be stored in the table
 	 */
-	void addSetting(String profileName, Setting setting) {
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_VOLUME_MUSIC, setting.getVolumeMusic());
-		values.put(KEY_VOLUME_EFFECTS, setting.getVolumeEffects());
-		values.put(KEY_ZOOM_ENABLED, setting.isZoomEnabled());
-		values.put(KEY_COLORBLIND_ENABLED, setting.isColorblindEnabled());
-
-		database.insert(TABLE_NAME, null, values);
+	void addSetting(long profileId, Setting setting) {
+		Statement insert = statement(INSERT);
+		insert.bindLong(1, profileId);
+		insert.bindDouble(2, setting.getVolumeMusic());
+		insert.bindDouble(3, setting.getVolumeEffects());
+		bindBoolean(insert, 4, setting.isZoomEnabled());
+		bindBoolean(insert, 5, setting.isColorblindEnabled());
+		insert.executeInsert();
 	}
 
 	/**
 	 * Searches the table for a setting which belongs to the profile identified
-	 * by the given profile name.
+	 * by the given profile id.
 	 * 
-	 * @param profileName
-	 *            the name of the profile whose setting is searched for
+	 * @param profileId
+	 *            the id of the profile whose setting is searched for
 	 * @return the found setting, null if no setting is found
 	 */
-	Setting getSetting(String profileName) {
-
-		String selectQuery = "select * from " + TABLE_NAME + " where "
-				+ KEY_PROFILE_NAME + " = ?";
-
-		Cursor cursor = database.rawQuery(selectQuery, new String[] { profileName });
-
-		if (cursor.moveToFirst()) {
-			float volumeMusic = cursor.getFloat(cursor
-					.getColumnIndex(KEY_VOLUME_MUSIC));
-			float volumeEffects = cursor.getFloat(cursor
-					.getColumnIndex(KEY_VOLUME_EFFECTS));
-			boolean zoomEnabled = (cursor.getInt(cursor
-					.getColumnIndex(KEY_ZOOM_ENABLED)) == 1) ? true : false;
-			boolean colorblindEnabled = (cursor.getInt(cursor
-					.getColumnIndex(KEY_COLORBLIND_ENABLED)) == 1) ? true
-					: false;
-			return new Setting(volumeMusic, volumeEffects, zoomEnabled,
-					colorblindEnabled);
+	Setting getSetting(long profileId) {
+
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId;
+
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				float volumeMusic = cursor.getFloat(VOLUME_MUSIC);
+				float volumeEffects = cursor.getFloat(VOLUME_EFFECTS);
+				boolean zoomEnabled = cursor.getInt(ZOOM_ENABLED) == 1;
+				boolean colorblindEnabled = cursor
+						.getInt(COLORBLIND_ENABLED) == 1;
+				return new Setting(volumeMusic, volumeEffects, zoomEnabled,
+						colorblindEnabled);
+			}
+
+			return null;
+		} finally {
+			cursor.close();
 		}
-
-		return null;
 	}
 
 	/**
 	 * Searches the table for a setting which belongs to the profile identified
-	 * by the given profile name and overwrites its values with the values of
+	 * by the given profile id and overwrites its values with the values of
 	 * the new setting.
 	 * 
-	 * @param profileName
-	 *            the name of the profile whose setting is edited
+	 * @param profileId
+	 *            the id of the profile whose setting is edited
 	 * @param setting
 	 *            the setting whose values are used for overwriting the old
 	 *            setting
 	 */
-	void editSetting(String profileName, Setting setting) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_VOLUME_MUSIC, setting.getVolumeMusic());
-		values.put(KEY_VOLUME_EFFECTS, setting.getVolumeEffects());
-		values.put(KEY_ZOOM_ENABLED, setting.isZoomEnabled());
-		values.put(KEY_COLORBLIND_ENABLED, setting.isColorblindEnabled());
-
-		database.update(TABLE_NAME, values, KEY_PROFILE_NAME + " = ?",
-				new String[] { profileName });
+	void editSetting(long profileId, Setting setting) {
+		Statement update = statement(UPDATE);
+		update.bindDouble(1, setting.getVolumeMusic());
+		update.bindDouble(2, setting.getVolumeEffects());
+		bindBoolean(update, 3, setting.isZoomEnabled());
+		bindBoolean(update, 4, setting.isColorblindEnabled());
+		update.bindLong(5, profileId);
+		update.executeUpdateDelete();
 	}
 
 	@Override
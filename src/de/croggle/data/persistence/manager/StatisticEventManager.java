@@ -0,0 +1,192 @@
+package de.croggle.data.persistence.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.croggle.backends.sqlite.Cursor;
+import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
+import de.croggle.data.persistence.StatisticEvent;
+
+/**
+ * A concrete table manager which is responsible for managing the SQLite table
+ * that logs the statistic events of the different profiles. Events are only
+ * ever appended, the statistic table stores snapshots of their sums.
+ */
+public class StatisticEventManager extends TableManager {
+
+	/**
+	 * Name of the column that stores the ids of the events, which increase in
+	 * the order the events are appended.
+	 */
+	static final String KEY_EVENT_ID = "eventId";
+
+	/**
+	 * Name of the column that stores the ids of the profiles the rows belong
+	 * to.
+	 */
+	static final String KEY_PROFILE_ID = "profileId";
+
+	/**
+	 * Name of the column that stores the times the events occurred at.
+	 */
+	static final String KEY_TIME = "time";
+
+	/**
+	 * Name of the column that stores the ids of the levels the events occurred
+	 * in.
+	 */
+	static final String KEY_LEVEL_ID = "levelId";
+
+	/**
+	 * Name of the column that stores the types of the events.
+	 */
+	static final String KEY_TYPE = "type";
+
+	/**
+	 * Name of the column that stores the amounts the events change the
+	 * statistic values by.
+	 */
+	static final String KEY_AMOUNT = "amount";
+
+	/**
+	 * The name of the table.
+	 */
+	public static final String TABLE_NAME = "StatisticEventTable";
+
+	/**
+	 * The string used for creating the statistic event table via a sql query.
+	 */
+	public static final String CREATE_TABLE = "create table " + TABLE_NAME
+			+ "(" + KEY_EVENT_ID + " integer primary key, " + KEY_PROFILE_ID
+			+ " integer not null, " + KEY_TIME + " integer, " + KEY_LEVEL_ID
+			+ " integer, " + KEY_TYPE + " integer, " + KEY_AMOUNT
+			+ " integer, " + "FOREIGN KEY(" + KEY_PROFILE_ID + ") REFERENCES "
+			+ ProfileManager.TABLE_NAME + "(" + ProfileManager.KEY_PROFILE_ID
+			+ ") ON DELETE CASCADE )";
+
+	/**
+	 * The string used for creating the index on the profile ids, which all
+	 * queries of the table are restricted by. As the index contains the event
+	 * ids, it also serves ranges and the order of the events of a profile.
+	 */
+	public static final String CREATE_INDEX = "create index if not exists "
+			+ TABLE_NAME + "Profile on " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ")";
+
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ", " + KEY_TIME + ", " + KEY_LEVEL_ID + ", "
+			+ KEY_TYPE + ", " + KEY_AMOUNT + ") values (?, ?, ?, ?, ?)";
+
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(KEY_TIME,
+			KEY_LEVEL_ID, KEY_TYPE, KEY_AMOUNT);
+	private static final int TIME = COLUMNS.indexOf(KEY_TIME);
+	private static final int LEVEL_ID = COLUMNS.indexOf(KEY_LEVEL_ID);
+	private static final int TYPE = COLUMNS.indexOf(KEY_TYPE);
+	private static final int AMOUNT = COLUMNS.indexOf(KEY_AMOUNT);
+
+	/**
+	 * Creates a new StatisticEventManager accessing the database through the
+	 * given connection.
+	 *
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	StatisticEventManager(DatabaseConnection connection) {
+		super(connection);
+	}
+
+	/**
+	 * Appends the given events of the same profile to the log, reusing the
+	 * same statement for all of them.
+	 *
+	 * @param profileId
+	 *            the id of the profile the events belong to
+	 * @param events
+	 *            the events to be appended, in the order they occurred
+	 * @return the id of the last event appended, -1 if there are no events
+	 */
+	long addEvents(long profileId, List<StatisticEvent> events) {
+		Statement insert = statement(INSERT);
+		insert.bindLong(1, profileId);
+		long eventId = -1;
+		for (StatisticEvent event : events) {
+			insert.bindLong(2, event.getTime());
+			insert.bindLong(3, event.getLevelId());
+			insert.bindLong(4, event.getType());
+			insert.bindLong(5, event.getAmount());
+			eventId = insert.executeInsert();
+		}
+		return eventId;
+	}
+
+	/**
+	 * Returns the events of the profile with the given id which were appended
+	 * after the event with the given id.
+	 *
+	 * @param profileId
+	 *            the id of the profile the events belong to
+	 * @param afterEventId
+	 *            the id of the last event not to be returned, 0 for returning
+	 *            all events
+	 * @return the found events, in the order they were appended
+	 */
+	List<StatisticEvent> getEvents(long profileId, long afterEventId) {
+		List<StatisticEvent> events = new ArrayList<StatisticEvent>();
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId + " and " + KEY_EVENT_ID
+				+ " > " + afterEventId + " order by " + KEY_EVENT_ID;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				do {
+					events.add(new StatisticEvent(cursor.getLong(TIME), cursor
+							.getInt(LEVEL_ID), cursor.getInt(TYPE), cursor
+							.getInt(AMOUNT)));
+				} while (cursor.moveToNext());
+			}
+			return events;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Returns the id of the event of the profile with the given id that was
+	 * appended last.
+	 *
+	 * @param profileId
+	 *            the id of the profile the events belong to
+	 * @return the id of the last event, 0 if there are no events
+	 */
+	long getLastEventId(long profileId) {
+		String selectQuery = "select " + KEY_EVENT_ID + " from " + TABLE_NAME
+				+ " where " + KEY_PROFILE_ID + " = " + profileId
+				+ " order by " + KEY_EVENT_ID + " desc limit 1";
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				return cursor.getLong(0);
+			}
+			return 0;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	@Override
+	void clearTable() {
+		database.execSQL("delete from " + TABLE_NAME);
+	}
+
+	@Override
+	long getRowCount() {
+		return DatabaseUtils.queryNumEntries(database, TABLE_NAME);
+
+	}
+
+}
@@ -1,22 +1,24 @@
 package de.croggle.data.persistence.manager;
 
-import de.croggle.backends.BackendHelper;
-import de.croggle.backends.sqlite.ContentValues;
 import de.croggle.backends.sqlite.Cursor;
 import de.croggle.backends.sqlite.DatabaseUtils;
+import de.croggle.backends.sqlite.Projection;
+import de.croggle.backends.sqlite.Statement;
 import de.croggle.data.persistence.Statistic;
 
 /**
  * A concrete table manager is responsible for managing the SQLite table that
- * stores the statistics of the different profiles.
+ * stores the statistics of the different profiles. Each row is a snapshot of
+ * the sum of the profile's statistic events up to a certain event, the
+ * statistic of the profile also includes the events logged after it.
  */
 public class StatisticManager extends TableManager {
 
 	/**
-	 * Name of the column that stores the profile names. The names are used as
-	 * the primary key.
+	 * Name of the column that stores the ids of the profiles the rows belong
+	 * to.
 	 */
-	static final String KEY_PROFILE_NAME = "profileName";
+	static final String KEY_PROFILE_ID = "profileId";
 
 	/**
 	 * Name of the column that stores the playtime.
@@ -58,6 +60,12 @@ public class StatisticManager extends TableManager {
 	 */
 	static final String KEY_EGGS_PLACED = "eggsPlaced";
 
+	/**
+	 * Name of the column that stores the ids of the last events included in
+	 * the snapshots.
+	 */
+	static final String KEY_LAST_EVENT_ID = "lastEventId";
+
 	/**
 	 * The name of the table.
 	 */
@@ -67,107 +75,182 @@ public class StatisticManager extends TableManager {
 	 * The string used for creating the statistic table via a sql query.
 	 */
 	public static final String CREATE_TABLE = "create table " + TABLE_NAME
-			+ "(" + KEY_PROFILE_NAME + " text not null, " + KEY_PLAYTIME
+			+ "(" + KEY_PROFILE_ID + " integer not null, " + KEY_PLAYTIME
 			+ " int, " + KEY_USED_HINTS + " int, " + KEY_USED_RESETS + " int, "
 			+ KEY_RECOLORINGS + " int, " + KEY_ALLIGATORS_EATEN + " int, "
 			+ KEY_ALLIGATORS_PLACED + " int, " + KEY_EGGS_HATCHED + " int, "
-			+ KEY_EGGS_PLACED + " int, " + "FOREIGN KEY(" + KEY_PROFILE_NAME
+			+ KEY_EGGS_PLACED + " int, " + KEY_LAST_EVENT_ID + " integer, "
+			+ "FOREIGN KEY(" + KEY_PROFILE_ID
 			+ ") REFERENCES " + ProfileManager.TABLE_NAME + "("
-			+ ProfileManager.KEY_PROFILE_NAME
-			+ ") ON UPDATE CASCADE ON DELETE CASCADE )";
+			+ ProfileManager.KEY_PROFILE_ID
+			+ ") ON DELETE CASCADE )";
 
 	/**
-	 * Adds a new statistic to the table.
-	 * 
-	 * @param profileName
-	 *            the name of the profile whose statistic is added to the table
-	 * @param statistic
-	 *            contains the values to be stored in the table
+	 * The string used for creating the index on the profile ids, which all
+	 * queries of the table are restricted by.
 	 */
-	void addStatistic(String profileName, Statistic statistic) {
+	public static final String CREATE_INDEX = "create index if not exists "
+			+ TABLE_NAME + "Profile on " + TABLE_NAME + "("
+			+ KEY_PROFILE_ID + ")";
 
-		ContentValues values = BackendHelper.getNewContentValues();
+	/*
+	 * both statements take the values in the same order, followed by the
+	 * profile id
+	 */
+	private static final String INSERT = "insert into " + TABLE_NAME + "("
+			+ KEY_PLAYTIME + ", " + KEY_USED_HINTS + ", " + KEY_USED_RESETS
+			+ ", " + KEY_RECOLORINGS + ", " + KEY_ALLIGATORS_EATEN + ", "
+			+ KEY_ALLIGATORS_PLACED + ", " + KEY_EGGS_HATCHED + ", "
+			+ KEY_EGGS_PLACED + ", " + KEY_LAST_EVENT_ID + ", "
+			+ KEY_PROFILE_ID + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_PLAYTIME, statistic.getPlaytime());
-		values.put(KEY_USED_HINTS, statistic.getUsedHints());
-		values.put(KEY_USED_RESETS, statistic.getResetsUsed());
-		values.put(KEY_RECOLORINGS, statistic.getRecolorings());
-		values.put(KEY_ALLIGATORS_EATEN, statistic.getAlligatorsEaten());
-		values.put(KEY_ALLIGATORS_PLACED, statistic.getAlligatorsPlaced());
-		values.put(KEY_EGGS_HATCHED, statistic.getEggsHatched());
-		values.put(KEY_EGGS_PLACED, statistic.getEggsPlaced());
+	private static final String UPDATE = "update " + TABLE_NAME + " set "
+			+ KEY_PLAYTIME + " = ?, " + KEY_USED_HINTS + " = ?, "
+			+ KEY_USED_RESETS + " = ?, " + KEY_RECOLORINGS + " = ?, "
+			+ KEY_ALLIGATORS_EATEN + " = ?, " + KEY_ALLIGATORS_PLACED
+			+ " = ?, " + KEY_EGGS_HATCHED + " = ?, " + KEY_EGGS_PLACED
+			+ " = ?, " + KEY_LAST_EVENT_ID + " = ? where " + KEY_PROFILE_ID
+			+ " = ?";
 
-		database.insert(TABLE_NAME, null, values);
+	/*
+	 * the columns read from the table, with their indices in the rows read
+	 */
+	private static final Projection COLUMNS = new Projection(KEY_PLAYTIME,
+			KEY_USED_HINTS, KEY_USED_RESETS, KEY_RECOLORINGS,
+			KEY_ALLIGATORS_EATEN, KEY_ALLIGATORS_PLACED, KEY_EGGS_HATCHED,
+			KEY_EGGS_PLACED);
+	private static final int PLAYTIME = COLUMNS.indexOf(KEY_PLAYTIME);
+	private static final int USED_HINTS = COLUMNS.indexOf(KEY_USED_HINTS);
+	private static final int USED_RESETS = COLUMNS.indexOf(KEY_USED_RESETS);
+	private static final int RECOLORINGS = COLUMNS.indexOf(KEY_RECOLORINGS);
+	private static final int ALLIGATORS_EATEN = COLUMNS
+			.indexOf(KEY_ALLIGATORS_EATEN);
+	private static final int ALLIGATORS_PLACED = COLUMNS
+			.indexOf(KEY_ALLIGATORS_PLACED);
+	private static final int EGGS_HATCHED = COLUMNS.indexOf(KEY_EGGS_HATCHED);
+	private static final int EGGS_PLACED = COLUMNS.indexOf(KEY_EGGS_PLACED);
 
+	/**
+	 * Creates a new StatisticManager accessing the database through the given
+	 * connection.
+	 * 
+	 * @param connection
+	 *            the open connection to the database
+	 */
+	StatisticManager(DatabaseConnection connection) {
+		super(connection);
 	}
 
 	/**
-	 * Searches the table for a statistic which belongs to the profile
-	 * identified by the given profile name.
+	 * Adds a new statistic to the table, for a profile without any statistic
+	 * events.
 	 * 
-	 * @param profileName
-	 *            the name of the profile whose statistic is loaded
-	 * @return the found statistic, null if no statistic is found
-	 */
-	Statistic getStatistic(String profileName) {
-
-		String selectQuery = "select * from " + TABLE_NAME + " where "
-				+ KEY_PROFILE_NAME + " = ?";
-
-		Cursor cursor = database.rawQuery(selectQuery,
-				new String[] { profileName });
-
-		if (cursor.moveToFirst()) {
-			int playtime = cursor.getInt(cursor.getColumnIndex(KEY_PLAYTIME));
-			int usedHints = cursor
-					.getInt(cursor.getColumnIndex(KEY_USED_HINTS));
-			int resetsUsed = cursor.getInt(cursor
-					.getColumnIndex(KEY_USED_RESETS));
-			int recolorings = cursor.getInt(cursor
-					.getColumnIndex(KEY_RECOLORINGS));
-			int alligatorsEaten = cursor.getInt(cursor
-					.getColumnIndex(KEY_ALLIGATORS_EATEN));
-			int alligatorsPlaced = cursor.getInt(cursor
-					.getColumnIndex(KEY_ALLIGATORS_PLACED));
-			int eggsHatched = cursor.getInt(cursor
-					.getColumnIndex(KEY_EGGS_HATCHED));
-			int eggsPlaced = cursor.getInt(cursor
-					.getColumnIndex(KEY_EGGS_PLACED));
-			return new Statistic(playtime, usedHints, resetsUsed, recolorings,
-					alligatorsEaten, alligatorsPlaced, eggsHatched, eggsPlaced);
-		}
+	 * @param profileId
+	 *            the id of the profile whose statistic is added to the table
+	 * @param statistic
+	 *            contains the values to be stored in the table
+	 */
+	void addStatistic(long profileId, Statistic statistic) {
+		Statement statement = statement(INSERT);
+		statement.bindLong(1, statistic.getPlaytime());
+		statement.bindLong(2, statistic.getUsedHints());
+		statement.bindLong(3, statistic.getResetsUsed());
+		statement.bindLong(4, statistic.getRecolorings());
+		statement.bindLong(5, statistic.getAlligatorsEaten());
+		statement.bindLong(6, statistic.getAlligatorsPlaced());
+		statement.bindLong(7, statistic.getEggsHatched());
+		statement.bindLong(8, statistic.getEggsPlaced());
+		statement.bindLong(9, 0);
+		statement.bindLong(10, profileId);
+		statement.executeInsert();
+	}
+
+	/**
+	 * Searches the table for the snapshot of the statistic which belongs to
+	 * the profile identified by the given profile id.
+	 * 
+	 * @param profileId
+	 *            the id of the profile whose statistic is loaded
+	 * @return the found statistic, without the events logged after the
+	 *         snapshot, null if no statistic is found
+	 */
+	Statistic getStatistic(long profileId) {
+
+		String selectQuery = COLUMNS.select(TABLE_NAME) + " where "
+				+ KEY_PROFILE_ID + " = " + profileId;
 
-		return null;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				int playtime = cursor.getInt(PLAYTIME);
+				int usedHints = cursor.getInt(USED_HINTS);
+				int resetsUsed = cursor.getInt(USED_RESETS);
+				int recolorings = cursor.getInt(RECOLORINGS);
+				int alligatorsEaten = cursor.getInt(ALLIGATORS_EATEN);
+				int alligatorsPlaced = cursor.getInt(ALLIGATORS_PLACED);
+				int eggsHatched = cursor.getInt(EGGS_HATCHED);
+				int eggsPlaced = cursor.getInt(EGGS_PLACED);
+				return new Statistic(playtime, usedHints, resetsUsed,
+						recolorings, alligatorsEaten, alligatorsPlaced,
+						eggsHatched, eggsPlaced);
+			}
+
+			return null;
+		} finally {
+			cursor.close();
+		}
 	}
 
 	/**
 	 * Searches the table for a statistic which belongs to the profile
-	 * identified by the given profile name and overwrites its values with the
-	 * values of the new statistic.
+	 * identified by the given profile id and overwrites its values with the
+	 * values of the new statistic, which becomes the snapshot of the events up
+	 * to the given one.
 	 * 
-	 * @param profileName
-	 *            the name of the profile whose statistic is edited
+	 * @param profileId
+	 *            the id of the profile whose statistic is edited
 	 * @param statistic
 	 *            the statistic whose values are used for overwriting the old
 	 *            statistic
+	 * @param lastEventId
+	 *            the id of the last event included in the statistic
 	 */
-	void editStatistic(String profileName, Statistic statistic) {
-
-		ContentValues values = BackendHelper.getNewContentValues();
-
-		values.put(KEY_PROFILE_NAME, profileName);
-		values.put(KEY_PLAYTIME, statistic.getPlaytime());
-		values.put(KEY_USED_HINTS, statistic.getUsedHints());
-		values.put(KEY_USED_RESETS, statistic.getResetsUsed());
-		values.put(KEY_RECOLORINGS, statistic.getRecolorings());
-		values.put(KEY_ALLIGATORS_EATEN, statistic.getAlligatorsEaten());
-		values.put(KEY_ALLIGATORS_PLACED, statistic.getAlligatorsPlaced());
-		values.put(KEY_EGGS_HATCHED, statistic.getEggsHatched());
-		values.put(KEY_EGGS_PLACED, statistic.getEggsPlaced());
+	void editStatistic(long profileId, Statistic statistic, long lastEventId) {
+		Statement statement = statement(UPDATE);
+		statement.bindLong(1, statistic.getPlaytime());
+		statement.bindLong(2, statistic.getUsedHints());
+		statement.bindLong(3, statistic.getResetsUsed());
+		statement.bindLong(4, statistic.getRecolorings());
+		statement.bindLong(5, statistic.getAlligatorsEaten());
+		statement.bindLong(6, statistic.getAlligatorsPlaced());
+		statement.bindLong(7, statistic.getEggsHatched());
+		statement.bindLong(8, statistic.getEggsPlaced());
+		statement.bindLong(9, lastEventId);
+		statement.bindLong(10, profileId);
+		statement.executeUpdateDelete();
+	}
 
-		database.update(TABLE_NAME, values, KEY_PROFILE_NAME + " = ?",
-				new String[] { profileName });
+	/**
+	 * Returns the id of the last event included in the snapshot of the
+	 * statistic which belongs to the profile identified by the given profile
+	 * id.
+	 * 
+	 * @param profileId
+	 *            the id of the profile whose statistic is loaded
+	 * @return the id of the last event, 0 if the snapshot includes no events
+	 */
+	long getLastEventId(long profileId) {
+		String selectQuery = "select " + KEY_LAST_EVENT_ID + " from "
+				+ TABLE_NAME + " where " + KEY_PROFILE_ID + " = " + profileId;
+		Cursor cursor = database.rawQuery(selectQuery, null);
+		try {
+			if (cursor.moveToFirst()) {
+				return cursor.getLong(0);
+			}
+			return 0;
+		} finally {
+			cursor.close();
+		}
 	}
 
 	@Override
@@ -1,62 +1,65 @@
 package de.croggle.data.persistence.manager;
 
-import de.croggle.backends.BackendHelper;
 import de.croggle.backends.sqlite.Database;
-import de.croggle.backends.sqlite.DatabaseHelper;
-import de.croggle.backends.sqlite.SQLException;
+import de.croggle.backends.sqlite.Statement;
 
 /**
  * An abstract superclass for all classes which manage tables.
- * 
+ *
  */
 public abstract class TableManager {
 
 	/**
-	 * The DatabaseHelper is used for accessing the database in which the table
-	 * is stored.
+	 * The connection shared by all table managers, which is used for accessing
+	 * the database in which the table is stored.
 	 */
-	protected DatabaseHelper databaseHelper;
+	protected final DatabaseConnection connection;
 
 	/**
 	 * The database in which the table is stored.
 	 */
-	protected Database database;
+	protected final Database database;
 
 	/**
 	 * Creates a new TableManager, which manages a specific table from the
-	 * database that belongs to the given context.
-	 * 
-	 * @param context
-	 *            the context that is used for opening or, if needed, creating
-	 *            the database
+	 * database the given connection is opened to.
+	 *
+	 * @param connection
+	 *            the open connection to the database
 	 */
-	TableManager() {
-		databaseHelper = BackendHelper.getNewDatabaseHelper();
+	TableManager(DatabaseConnection connection) {
+		this.connection = connection;
+		this.database = connection.getDatabase();
 	}
 
 	/**
-	 * Prepares the table for read and write operations. Must be called before
-	 * every access to the table.
-	 * 
-	 * @throws SQLException
-	 *             the exception is thrown if the database could not be accessed
+	 * Returns the compiled statement for the given sql, which is compiled only
+	 * once for all table managers.
+	 *
+	 * @param sql
+	 *            the sql of the statement
+	 * @return the compiled statement, without any arguments bound
 	 */
-	void open() throws SQLException {
-		database = databaseHelper.getWritableDatabase();
-		if (!database.isReadOnly()) {
-			database.execSQL("PRAGMA foreign_keys = ON;");
-		}
+	Statement statement(String sql) {
+		return connection.getStatement(sql);
+	}
+
+	/**
+	 * Binds the given boolean the same way a content value would store it.
+	 */
+	static void bindBoolean(Statement statement, int index, boolean value) {
+		statement.bindLong(index, value ? 1 : 0);
 	}
 
 	/**
-	 * Closes the open table. Must be called at the end of reading and writing
-	 * operations.
-	 * 
-	 * @throws SQLException
-	 *             the exception is thrown if the database could not be accessed
+	 * Binds the given blob, or null if there is none.
 	 */
-	void close() throws SQLException {
-		databaseHelper.close();
+	static void bindBlobOrNull(Statement statement, int index, byte[] value) {
+		if (value == null) {
+			statement.bindNull(index);
+		} else {
+			statement.bindBlob(index, value);
+		}
 	}
 
 	/**
@@ -4,8 +4,8 @@ import de.croggle.AlligatorApp;
 import de.croggle.data.persistence.LevelProgress;
 import de.croggle.game.board.Board;
 import de.croggle.game.level.EditLevel;
-import de.croggle.util.convert.AlligatorToJson;
-import de.croggle.util.convert.JsonToAlligator;
+import de.croggle.util.convert.AlligatorToBinary;
+import de.croggle.util.convert.BinaryToAlligator;
 
 public class EditLevelGameController extends GameController {
 	private final EditLevel level;
@@ -18,16 +18,16 @@ public class EditLevelGameController extends GameController {
 
 	@Override
 	protected void loadBoard(LevelProgress progress) {
-		final String serializedBoard = progress.getCurrentBoard();
+		final byte[] serializedBoard = progress.getCurrentBoard();
 		if (serializedBoard == null) {
 			return;
 		}
 		try {
-			final Board previousBoard = JsonToAlligator
+			final Board previousBoard = BinaryToAlligator
 					.convertBoard(serializedBoard);
 			setUserBoard(previousBoard);
 		} catch (IllegalArgumentException e) {
-			progress.setCurrentBoard("");
+			progress.setCurrentBoard(null);
 			app.getPersistenceManager().saveLevelProgress(
 					app.getProfileController().getCurrentProfileName(),
 					progress);
@@ -36,16 +36,11 @@ public class EditLevelGameController extends GameController {
 
 	@Override
 	protected void convertBoard(final LevelProgress progress) {
-		final Board boardCopy = getUserBoard().copy();
-		Thread jsonConverter = new Thread() {
-			@Override
-			public void run() {
-				synchronized (progress) {
-					progress.setCurrentBoard(AlligatorToJson.convert(boardCopy));
-				}
-			}
-		};
-		jsonConverter.start();
+		// cheap enough to not need a copy and a thread of its own
+		final byte[] encoded = AlligatorToBinary.convert(getUserBoard());
+		synchronized (progress) {
+			progress.setCurrentBoard(encoded);
+		}
 	}
 
 	@Override
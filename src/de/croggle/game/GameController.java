@@ -147,7 +147,7 @@ public class GameController implements BoardEventListener {
 		boolean saveProgress = false;
 		if (won) {
 			statisticsDelta.setLevelsComplete(1);
-			progress.setCurrentBoard(" ");
+			progress.setCurrentBoard(null);
 			saveProgress = true;
 		}
 		if (!progress.isSolved()) {
@@ -165,7 +165,7 @@ public class GameController implements BoardEventListener {
 		// in
 		// millisec.
 		for (StatisticsDeltaProcessor processor : statisticsDeltaProcessors) {
-			processor.processDelta(statisticsDelta);
+			processor.processDelta(statisticsDelta, level.getLevelId());
 		}
 		resetStatistics();
 		app.showLevelTerminatedScreen(this, won);
@@ -449,7 +449,7 @@ public class GameController implements BoardEventListener {
 		final LevelProgress previousProgress = app.getPersistenceManager()
 				.getLevelProgress(profileName, level.getLevelId());
 		if (previousProgress == null) {
-			progress = new LevelProgress(level.getLevelId(), false, "", 0);
+			progress = new LevelProgress(level.getLevelId(), false, null, 0);
 			return;
 		}
 		loadBoard(previousProgress);
@@ -17,6 +17,16 @@ public interface BoardObject {
 	 */
 	void accept(BoardObjectVisitor visitor);
 
+	/**
+	 * Returns the id of this board object. Ids are non-negative, unique among
+	 * all board objects and do not change during the object's lifetime, which
+	 * makes them suitable as keys for array based lookup tables. Copies of a
+	 * board object are assigned ids of their own.
+	 * 
+	 * @return the id of this board object
+	 */
+	int getId();
+
 	/**
 	 * Creates and returns a deep copy of the board object.
 	 * 
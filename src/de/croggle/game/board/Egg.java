@@ -15,6 +15,7 @@ public class Egg implements InternalBoardObject, ColoredBoardObject {
 	private boolean movable;
 	private boolean removable;
 	private Parent parent = null;
+	private final int id = NodeIds.next();
 
 	/**
 	 * Creates a new egg with the specified color and the permission value if
@@ -67,6 +68,11 @@ public class Egg implements InternalBoardObject, ColoredBoardObject {
 		this(egg.parent, egg.movable, egg.removable, egg.color, egg.recolorable);
 	}
 
+	@Override
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Accepts a visitor, which is then used for traversing the subtree of the
 	 * object.
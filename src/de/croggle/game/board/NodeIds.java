@@ -0,0 +1,23 @@
+package de.croggle.game.board;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the ids of {@link BoardObject}s. Ids are never reused during the
+ * lifetime of the application, so that an id identifies exactly one object,
+ * even if it is compared against ids of objects that were already discarded.
+ */
+final class NodeIds {
+	private static final AtomicInteger next = new AtomicInteger();
+
+	private NodeIds() {
+	}
+
+	/**
+	 * 
+	 * @return a new, previously unused, non-negative id
+	 */
+	static int next() {
+		return next.getAndIncrement();
+	}
+}
@@ -18,6 +18,7 @@ public abstract class Parent implements Iterable<InternalBoardObject>,
 		BoardObject {
 
 	private final List<InternalBoardObject> children;
+	private final int id = NodeIds.next();
 
 	/**
 	 * Superconstructor of all parents. Creates a parent with no children.
@@ -35,6 +36,11 @@ public abstract class Parent implements Iterable<InternalBoardObject>,
 		}
 	}
 
+	@Override
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Adds a child to the family of the parent.
 	 * 
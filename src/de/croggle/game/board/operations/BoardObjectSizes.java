@@ -0,0 +1,32 @@
+package de.croggle.game.board.operations;
+
+import de.croggle.game.board.BoardObject;
+
+/**
+ * A target for the sizes calculated by {@link CreateWidthMap} and
+ * {@link CreateHeightMap}. Allows to store the results in structures more
+ * suitable than a map, e.g. in tables indexed by the
+ * {@link BoardObject#getId() ids} of the board objects.
+ */
+public interface BoardObjectSizes {
+	/**
+	 * Returns the size previously {@link #put(BoardObject, float) put} for the
+	 * given board object.
+	 * 
+	 * @param o
+	 *            the board object to look up
+	 * @return the size of the board object
+	 */
+	float get(BoardObject o);
+
+	/**
+	 * Stores the size of the given board object, replacing any size stored
+	 * before.
+	 * 
+	 * @param o
+	 *            the board object whose size is stored
+	 * @param size
+	 *            the size of the board object
+	 */
+	void put(BoardObject o, float size);
+}
@@ -1,6 +1,5 @@
 package de.croggle.game.board.operations;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
 
@@ -30,7 +29,7 @@ import de.croggle.game.board.Parent;
  */
 public class CreateHeightMap implements BoardObjectVisitor {
 
-	private final Map<BoardObject, Float> heightMap;
+	private final BoardObjectSizes heightMap;
 
 	private final float depthScaleFactor;
 	private final float padding;
@@ -39,13 +38,13 @@ public class CreateHeightMap implements BoardObjectVisitor {
 
 	private float scale = 1;
 
-	private CreateHeightMap(Parent p, float objectHeight,
-			float depthScaleFactor, float padding) {
+	private CreateHeightMap(Parent p, BoardObjectSizes target,
+			float objectHeight, float depthScaleFactor, float padding) {
 		this.objectHeight = objectHeight;
 		this.depthScaleFactor = depthScaleFactor;
 		this.padding = padding;
 		parents = new Stack<CreateHeightMap.ParentState>();
-		heightMap = new HashMap<BoardObject, Float>();
+		heightMap = target;
 
 		p.accept(this);
 		while (!parents.isEmpty()) {
@@ -104,14 +103,38 @@ public class CreateHeightMap implements BoardObjectVisitor {
 	 */
 	public static Map<BoardObject, Float> create(BoardObject b,
 			float objectHeight, float depthScaleFactor, float padding) {
+		MapBoardObjectSizes sizes = new MapBoardObjectSizes();
+		fill(b, sizes, objectHeight, depthScaleFactor, padding);
+		return sizes.getMap();
+	}
+
+	/**
+	 * Calculates the heights of the given {@link BoardObject} and all
+	 * BoardObjects beneath it like
+	 * {@link #create(BoardObject, float, float, float)}, but stores them in the
+	 * given target instead of a new map.
+	 * 
+	 * @param b
+	 *            the {@link BoardObject} to calculate the heights for
+	 * @param target
+	 *            where to store the calculated heights
+	 * @param objectHeight
+	 *            the standard height that (unscaled)
+	 *            {@link InternalBoardObject}s add to the child hierarchy's
+	 *            height
+	 * @param depthScaleFactor
+	 *            a factor multiplied by objectHeight each time the hierarchy is
+	 *            traversed down one level
+	 * @param padding
+	 *            the vertical space between a parent and its children
+	 */
+	public static void fill(BoardObject b, BoardObjectSizes target,
+			float objectHeight, float depthScaleFactor, float padding) {
 		if (!(b instanceof Parent)) {
-			Map<BoardObject, Float> map = new HashMap<BoardObject, Float>();
-			map.put(b, objectHeight);
-			return map;
+			target.put(b, objectHeight);
 		} else {
-			CreateHeightMap creator = new CreateHeightMap((Parent) b,
-					objectHeight, depthScaleFactor, padding);
-			return creator.heightMap;
+			new CreateHeightMap((Parent) b, target, objectHeight,
+					depthScaleFactor, padding);
 		}
 	}
 
@@ -1,6 +1,5 @@
 package de.croggle.game.board.operations;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Stack;
@@ -15,7 +14,7 @@ import de.croggle.game.board.Parent;
 
 public class CreateWidthMap implements BoardObjectVisitor {
 
-	private final Map<BoardObject, Float> widthMap;
+	private final BoardObjectSizes widthMap;
 
 	private final float objectWidth;
 	private final float scaleFactor;
@@ -24,9 +23,9 @@ public class CreateWidthMap implements BoardObjectVisitor {
 	private final Stack<ParentState> parents;
 	private float scaling = 1;
 
-	private CreateWidthMap(Parent p, float objectWidth, float depthScaleFactor,
-			float padding) {
-		widthMap = new HashMap<BoardObject, Float>();
+	private CreateWidthMap(Parent p, BoardObjectSizes target,
+			float objectWidth, float depthScaleFactor, float padding) {
+		widthMap = target;
 		this.objectWidth = objectWidth;
 		scaleFactor = depthScaleFactor;
 		this.padding = padding;
@@ -72,14 +71,35 @@ public class CreateWidthMap implements BoardObjectVisitor {
 	 */
 	public static Map<BoardObject, Float> create(BoardObject b,
 			float objectWidth, float depthScaleFactor, float padding) {
+		MapBoardObjectSizes sizes = new MapBoardObjectSizes();
+		fill(b, sizes, objectWidth, depthScaleFactor, padding);
+		return sizes.getMap();
+	}
+
+	/**
+	 * Calculates the widths of the given BoardObject and all BoardObjects
+	 * beneath it like {@link #create(BoardObject, float, float, float)}, but
+	 * stores them in the given target instead of a new map.
+	 * 
+	 * @param b
+	 *            the BoardObject to calculate the widths for
+	 * @param target
+	 *            where to store the calculated widths
+	 * @param objectWidth
+	 *            the width of a single child
+	 * @param depthScaleFactor
+	 *            the relative size of a child compared to its parent
+	 * @param padding
+	 *            the number of units between two children to separate them
+	 *            visually
+	 */
+	public static void fill(BoardObject b, BoardObjectSizes target,
+			float objectWidth, float depthScaleFactor, float padding) {
 		if (!(b instanceof Parent)) {
-			Map<BoardObject, Float> map = new HashMap<BoardObject, Float>();
-			map.put(b, objectWidth);
-			return map;
+			target.put(b, objectWidth);
 		} else {
-			CreateWidthMap creator = new CreateWidthMap((Parent) b,
-					objectWidth, depthScaleFactor, padding);
-			return creator.widthMap;
+			new CreateWidthMap((Parent) b, target, objectWidth,
+					depthScaleFactor, padding);
 		}
 	}
 
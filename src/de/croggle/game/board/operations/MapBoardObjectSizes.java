@@ -0,0 +1,32 @@
+package de.croggle.game.board.operations;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.croggle.game.board.BoardObject;
+
+/**
+ * {@link BoardObjectSizes} backed by a map, used by the operations still
+ * returning their results as maps.
+ */
+class MapBoardObjectSizes implements BoardObjectSizes {
+	private final Map<BoardObject, Float> map;
+
+	MapBoardObjectSizes() {
+		map = new HashMap<BoardObject, Float>();
+	}
+
+	@Override
+	public float get(BoardObject o) {
+		return map.get(o);
+	}
+
+	@Override
+	public void put(BoardObject o, float size) {
+		map.put(o, size);
+	}
+
+	Map<BoardObject, Float> getMap() {
+		return map;
+	}
+}
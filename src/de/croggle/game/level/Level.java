@@ -10,6 +10,14 @@ import de.croggle.game.board.Board;
  * This class represents the concept of a level within the game.
  */
 public abstract class Level {
+	/**
+	 * The number of level ids reserved for every level package, i.e. the level
+	 * ids of a package range from <code>packageIndex * LEVELS_PER_PACKAGE</code>
+	 * to <code>(packageIndex + 1) * LEVELS_PER_PACKAGE - 1</code>. A package
+	 * cannot hold more levels.
+	 */
+	public static final int LEVELS_PER_PACKAGE = 100;
+
 	private final int levelIndex;
 	private final int packageIndex;
 
@@ -219,10 +227,20 @@ public abstract class Level {
 	 * @return A unique value to identify this level, e.g. in the database
 	 */
 	public int getLevelId() {
-		final int index = getLevelIndex();
-		final int pack = getPackageIndex();
-		// TODO 100 level / package limit
-		return pack * 100 + index;
+		return getLevelId(getPackageIndex(), getLevelIndex());
+	}
+
+	/**
+	 * Get the unique identifier of the level with the given indices.
+	 * 
+	 * @param packageIndex
+	 *            the index of the level's package
+	 * @param levelIndex
+	 *            the index of the level inside its package
+	 * @return A unique value to identify the level, e.g. in the database
+	 */
+	static int getLevelId(int packageIndex, int levelIndex) {
+		return packageIndex * LEVELS_PER_PACKAGE + levelIndex;
 	}
 
 	public boolean getShowObjectBar() {
@@ -2,29 +2,60 @@ package de.croggle.game.level;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Callable;
 
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.IntMap;
 
 import de.croggle.AlligatorApp;
 import de.croggle.backends.BackendHelper;
+import de.croggle.data.persistence.LevelProgress;
 
 /**
  * Controls the content of a level package.
+ *
+ * Creating a controller only lists the package's level files and looks up the
+ * player's progress, which is enough to provide a {@link LevelStub} for every
+ * level. Once {@link #loadLevelsInBackground()} has been called, e.g. by the
+ * screen showing the package's levels, the levels themselves are parsed on a
+ * background thread, in the order of their indices, except for the first level
+ * still to be solved, which is loaded first. Requesting a level that is not
+ * loaded yet moves it to the front of the queue, or loads it right away on the
+ * requesting thread.
  */
 public class LevelController {
+	private static final int PRIORITY_DEFAULT = 0;
+	private static final int PRIORITY_NEXT = 1;
+	private static final int PRIORITY_REQUESTED = 2;
+
+	/*
+	 * shared by all controllers. Only the levels of the controller that most
+	 * recently started loading are loaded in the background
+	 */
+	private static ThreadPoolExecutor loader;
+	private static volatile LevelController current;
+
 	// The index of the package the controller controls
 	private final int packageIndex;
-	private List<Level> levels;
+	private final List<LevelStub> stubs;
+	private final List<LoadTask> tasks;
 	private final AlligatorApp game;
+	private boolean loading;
 
 	/**
 	 * Creates the controller with the given package index. It will manage the
 	 * levels from the level package defined by <code>packageIndex</code>.
-	 * 
+	 *
 	 * @param packageIndex
 	 *            the index of the package whose levels should be controlled
 	 * @param game
@@ -34,26 +65,102 @@ public class LevelController {
 	public LevelController(int packageIndex, AlligatorApp game) {
 		this.packageIndex = packageIndex;
 		this.game = game;
-		this.getLevelFromPackage();
-		levels.get(0).setUnlocked(true);
+		stubs = new ArrayList<LevelStub>();
+		tasks = new ArrayList<LoadTask>();
+		this.getLevelStubsFromPackage();
+		stubs.get(0).setUnlocked(true);
 	}
 
 	/**
 	 * Returns the level specified by the given index. The index must be between
-	 * 0 and <code>getPackageSize()</code> - 1.
-	 * 
+	 * 0 and <code>getPackageSize()</code> - 1. If the level has not been
+	 * loaded yet, it is loaded before this method returns.
+	 *
 	 * @param levelIndex
 	 *            the index of the level that should be returned
 	 * @return the desired level
 	 */
 	public Level getLevel(int levelIndex) {
-		return levels.get(levelIndex);
+		LoadTask task = tasks.get(levelIndex);
+		// no-op if the loader is already working on it
+		task.runNow();
+		Level level;
+		try {
+			level = task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading level "
+					+ levelIndex, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Could not load level "
+					+ levelIndex, e.getCause());
+		}
+		if (level != null) {
+			LevelStub stub = stubs.get(levelIndex);
+			level.setUnlocked(stub.getUnlocked());
+			if (stub.isSolved()) {
+				level.setSolvedTrue();
+			}
+		}
+		return level;
+	}
+
+	/**
+	 * Returns the metadata of the level specified by the given index, which is
+	 * available without waiting for the level to be loaded. The index must be
+	 * between 0 and <code>getPackageSize()</code> - 1.
+	 *
+	 * @param levelIndex
+	 *            the index of the level whose metadata should be returned
+	 * @return the desired level's metadata
+	 */
+	public LevelStub getLevelStub(int levelIndex) {
+		return stubs.get(levelIndex);
+	}
+
+	/**
+	 * Checks whether the level specified by the given index is completely
+	 * loaded, i.e. whether {@link #getLevel(int)} returns without delay.
+	 *
+	 * @param levelIndex
+	 *            the index of the level
+	 * @return true if the level is loaded, false otherwise
+	 */
+	public boolean isLevelLoaded(int levelIndex) {
+		return tasks.get(levelIndex).isDone();
+	}
+
+	/**
+	 * Has the level specified by the given index loaded before all other
+	 * levels still waiting to be loaded in the background, e.g. because the
+	 * player is about to select it.
+	 *
+	 * @param levelIndex
+	 *            the index of the level to load next
+	 */
+	public void prioritize(int levelIndex) {
+		LoadTask task = tasks.get(levelIndex);
+		synchronized (LevelController.class) {
+			if (!loading) {
+				return;
+			}
+			current = this;
+			// re-inserting is necessary for the queue to notice the change
+			if (task.isDone() || !loader.remove(task)) {
+				return;
+			}
+			task.priority = PRIORITY_REQUESTED;
+			loader.execute(task);
+		}
 	}
 
 	/**
 	 * Returns the package index of the package of the level the controller
 	 * currently holds.
-	 * 
+	 *
 	 * @return the package index
 	 */
 	public int getPackageIndex() {
@@ -63,29 +170,63 @@ public class LevelController {
 	/**
 	 * Returns the size of the package, i.e. how many levels the controller
 	 * holds.
-	 * 
+	 *
 	 * @return the package size
 	 */
 	public int getPackageSize() {
-		return levels.size();
+		return stubs.size();
 	}
 
 	/**
-	 * Method to load the level of the package the LevelController manages.
+	 * Method to create the stubs of the levels of the package the
+	 * LevelController manages.
 	 */
-	private void getLevelFromPackage() {
+	private void getLevelStubsFromPackage() {
+		List<Integer> indices = new ArrayList<Integer>();
+		LevelPack pack = LevelPack.getInstance();
+		if (pack != null) {
+			for (int index : pack.getLevelIndices(packageIndex)) {
+				indices.add(index);
+			}
+		} else {
+			listLevelFiles(indices);
+		}
+
+		String profileName = game.getProfileController()
+				.getCurrentProfileName();
+		for (int i = 0; i < indices.size(); i++) {
+			LevelStub stub = new LevelStub(indices.get(i), packageIndex);
+			stubs.add(stub);
+			tasks.add(new LoadTask(this, stub.getLevelIndex()));
+		}
+		IntMap<LevelProgress> progresses = game.getPersistenceManager()
+				.getLevelProgressForPackage(profileName, packageIndex);
+		for (int i = 0; i < stubs.size(); i++) {
+			LevelProgress progress = progresses == null ? null : progresses
+					.get(stubs.get(i).getLevelId());
+			if (progress != null && progress.isSolved()) {
+				stubs.get(i).setSolved(true);
+				if (i + 1 < stubs.size()) {
+					stubs.get(i + 1).setUnlocked(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lists the indices of the json files of the levels of the package, for
+	 * when there is no compiled {@link LevelPack}.
+	 */
+	private void listLevelFiles(List<Integer> indices) {
 		FileHandle dirHandle;
 		dirHandle = Gdx.files.internal(BackendHelper.getAssetDirPath()
 				+ "json/levels/" + String.format("%02d", packageIndex));
 		FileHandle[] files = dirHandle.list();
-		levels = new ArrayList<Level>();
 
 		if (Gdx.app.getType() == ApplicationType.Android) {
 			for (FileHandle file : files) {
 				if (file.name().charAt(0) != 'p') {
-					levels.add(LevelLoadHelper
-							.instantiate(packageIndex, Integer.parseInt(file
-									.name().substring(0, 2)), game));
+					indices.add(Integer.parseInt(file.name().substring(0, 2)));
 				}
 			}
 		} else {
@@ -98,35 +239,111 @@ public class LevelController {
 					continue;
 				}
 				if (name.matches("[0-9][0-9]\\.json")) {
-					levels.add(LevelLoadHelper.instantiate(packageIndex,
-							Integer.parseInt(name.substring(0, 2)), game));
+					indices.add(Integer.parseInt(name.substring(0, 2)));
 				}
 			}
 		}
-		Collections.sort(levels, new Comparator<Level>() {
-			@Override
-			public int compare(Level o1, Level o2) {
-				return (int) Math.signum(o1.getLevelId() - o2.getLevelId());
+		Collections.sort(indices);
+	}
+
+	/**
+	 * Starts loading the package's levels in the background, taking over the
+	 * loader thread from any other controller. Only the screen showing the
+	 * package's levels should do so, as other screens merely need a single
+	 * level, which {@link #getLevel(int)} loads on request. Calling this method
+	 * again has no effect.
+	 */
+	public void loadLevelsInBackground() {
+		boolean next = true;
+		synchronized (LevelController.class) {
+			if (loading) {
+				return;
 			}
-		});
-
-		for (int i = 0; i < levels.size(); i++) {
-			if (!(game.getPersistenceManager().getLevelProgress(
-					game.getProfileController().getCurrentProfileName(),
-					levels.get(i).getLevelId()) == null)) {
-				if (game.getPersistenceManager()
-						.getLevelProgress(
-								game.getProfileController()
-										.getCurrentProfileName(),
-								levels.get(i).getLevelId()).isSolved()) {
-					levels.get(i).setSolvedTrue();
-					if (i + 1 < levels.size()) {
-						levels.get(i + 1).setUnlocked(true);
-					}
+			loading = true;
+			current = this;
+			if (loader == null) {
+				loader = createLoader();
+			}
+			for (int i = 0; i < tasks.size(); i++) {
+				LoadTask task = tasks.get(i);
+				// the first level still to be solved is the most likely one to
+				// be selected
+				if (next && stubs.get(i).getUnlocked() && !stubs.get(i).isSolved()) {
+					task.priority = PRIORITY_NEXT;
+					next = false;
 				}
+				loader.execute(task);
 			}
 		}
-		return;
 	}
 
+	private static ThreadPoolExecutor createLoader() {
+		return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "LevelLoader");
+						// never keep the application from exiting
+						t.setDaemon(true);
+						t.setPriority(Thread.NORM_PRIORITY - 1);
+						return t;
+					}
+				});
+	}
+
+	/**
+	 * Loads a single level, either on the loader thread or on the thread
+	 * requesting the level, whichever comes first.
+	 */
+	private static class LoadTask extends FutureTask<Level> implements
+			Comparable<LoadTask> {
+		private final LevelController controller;
+		private final int levelIndex;
+		private final AtomicBoolean started;
+		private volatile int priority;
+
+		public LoadTask(final LevelController controller, final int levelIndex) {
+			super(new Callable<Level>() {
+				@Override
+				public Level call() {
+					return LevelLoadHelper.instantiate(controller.packageIndex,
+							levelIndex, controller.game);
+				}
+			});
+			this.controller = controller;
+			this.levelIndex = levelIndex;
+			started = new AtomicBoolean(false);
+			priority = PRIORITY_DEFAULT;
+		}
+
+		/**
+		 * Called by the loader. Skips levels of controllers no longer in use,
+		 * which are loaded on request instead.
+		 */
+		@Override
+		public void run() {
+			if (controller == current) {
+				runNow();
+			}
+		}
+
+		/**
+		 * Loads the level on the calling thread, unless it is already being
+		 * loaded.
+		 */
+		public void runNow() {
+			if (started.compareAndSet(false, true)) {
+				super.run();
+			}
+		}
+
+		@Override
+		public int compareTo(LoadTask other) {
+			if (priority != other.priority) {
+				return priority > other.priority ? -1 : 1;
+			}
+			return levelIndex < other.levelIndex ? -1
+					: (levelIndex == other.levelIndex ? 0 : 1);
+		}
+	}
 }
@@ -35,7 +35,8 @@ class LevelLoadHelper {
 
 	/**
 	 * Called to load a new level. With both the package index and the level
-	 * index it is possible to distinctively identify the required level.
+	 * index it is possible to distinctively identify the required level. The
+	 * level is taken from the compiled {@link LevelPack} if there is one.
 	 * 
 	 * @param packageIndex
 	 *            specifies the level package from which the level is supposed
@@ -45,9 +46,13 @@ class LevelLoadHelper {
 	 * @return the level denoted by the given indices/identifiers
 	 */
 	static Level instantiate(int packageIndex, int levelIndex, AlligatorApp game) {
-		JsonValue json = getJson(packageIndex, levelIndex);
+		LevelPack pack = LevelPack.getInstance();
 		Level level = null;
 		try {
+			if (pack != null) {
+				return pack.readLevel(packageIndex, levelIndex);
+			}
+			JsonValue json = getJson(packageIndex, levelIndex);
 			level = fillGeneric(json, levelIndex, packageIndex, game);
 		} catch (InvalidJsonException e) {
 			// TODO Auto-generated catch block
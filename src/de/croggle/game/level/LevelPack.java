@@ -0,0 +1,303 @@
+package de.croggle.game.level;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.croggle.backends.BackendHelper;
+import de.croggle.game.Color;
+import de.croggle.game.board.Board;
+import de.croggle.util.convert.BinaryToAlligator;
+
+/**
+ * Reads the compiled level pack created by {@link LevelPackCompiler}, which
+ * contains the metadata and levels of all level packages in a single file.
+ *
+ * The whole file is read with one request, after which only the index of
+ * packages and levels is decoded. Levels are decoded from the file's bytes
+ * when they are requested, without building a json tree and with their boards
+ * already encoded by {@link de.croggle.util.convert.AlligatorToBinary}.
+ *
+ * If no pack is present in the assets, the levels are loaded from their json
+ * files instead. If one is present, it is the only source of levels, unless
+ * any of the json files is known to be newer than the pack, which happens
+ * while levels are edited on the desktop without compiling the pack again.
+ *
+ * The class is only visible inside the de.croggle.game.level package
+ */
+final class LevelPack {
+	/**
+	 * The path of the pack, relative to the asset directory.
+	 */
+	static final String FILE_NAME = "levels.pack";
+
+	static final int MAGIC = 0x43524C50; // "CRLP"
+	static final int VERSION = 2;
+
+	static final int TYPE_COLOR_EDIT = 0;
+	static final int TYPE_TERM_EDIT = 1;
+	static final int TYPE_MULTIPLE_CHOICE = 2;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String TAG = "LevelPack";
+
+	private static LevelPack instance;
+	private static boolean loaded = false;
+
+	private final ByteBuffer data;
+	private final PackageEntry[] packages;
+
+	private LevelPack(ByteBuffer data) {
+		this.data = data;
+		if (data.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not a level pack");
+		}
+		int version = data.getShort();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported level pack version "
+					+ version);
+		}
+		packages = new PackageEntry[data.getShort()];
+		for (int i = 0; i < packages.length; i++) {
+			PackageEntry p = new PackageEntry();
+			p.packageIndex = data.getShort();
+			p.name = readString(data);
+			p.description = readString(data);
+			p.banner = readString(data);
+			p.design = readString(data);
+			p.animation = readString(data);
+			int levels = data.getShort();
+			p.levelIndices = new int[levels];
+			p.levelOffsets = new int[levels];
+			for (int k = 0; k < levels; k++) {
+				p.levelIndices[k] = data.getShort();
+				p.levelOffsets[k] = data.getInt();
+			}
+			packages[i] = p;
+		}
+	}
+
+	/**
+	 * Returns the level pack of the game's assets, reading it on first access.
+	 *
+	 * @return the level pack, or null if there is no valid pack in the assets
+	 */
+	static synchronized LevelPack getInstance() {
+		if (!loaded) {
+			loaded = true;
+			instance = load();
+		}
+		return instance;
+	}
+
+	private static LevelPack load() {
+		FileHandle handle = Gdx.files.internal(BackendHelper.getAssetDirPath()
+				+ FILE_NAME);
+		try {
+			if (!handle.exists()) {
+				return null;
+			}
+			if (isOutdated(handle)) {
+				Gdx.app.log(TAG, "Level pack is older than the json files, "
+						+ "using json files");
+				return null;
+			}
+			return new LevelPack(ByteBuffer.wrap(handle.readBytes()));
+		} catch (GdxRuntimeException e) {
+			Gdx.app.log(TAG, "Could not read level pack, using json files", e);
+		} catch (IllegalArgumentException e) {
+			Gdx.app.log(TAG, "Invalid level pack, using json files", e);
+		} catch (BufferUnderflowException e) {
+			Gdx.app.log(TAG, "Truncated level pack, using json files", e);
+		}
+		return null;
+	}
+
+	/*
+	 * checks whether a json file of a level package was modified after the
+	 * pack. Levels are only edited on the desktop, so other platforms do not
+	 * list the level files on every start. Where the modification times are
+	 * unknown, the pack is assumed to be up to date as well
+	 */
+	private static boolean isOutdated(FileHandle pack) {
+		if (Gdx.app.getType() != ApplicationType.Desktop) {
+			return false;
+		}
+		long packModified = pack.lastModified();
+		if (packModified == 0) {
+			return false;
+		}
+		FileHandle levelsDir = Gdx.files.internal(BackendHelper
+				.getAssetDirPath() + "json/levels");
+		for (FileHandle packageDir : levelsDir.list()) {
+			for (FileHandle json : packageDir.list(".json")) {
+				if (json.lastModified() > packModified) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the descriptions of all packages in the pack, sorted by their
+	 * indices.
+	 *
+	 * @return the level packages
+	 */
+	List<LevelPackage> getLevelPackages() {
+		List<LevelPackage> result = new ArrayList<LevelPackage>(
+				packages.length);
+		String assetDir = BackendHelper.getAssetDirPath();
+		for (PackageEntry p : packages) {
+			boolean hasAnimation = !p.animation.equals("");
+			result.add(new LevelPackage(p.packageIndex, p.name, p.description,
+					assetDir + p.banner, hasAnimation, hasAnimation ? assetDir
+							+ p.animation : null, assetDir + p.design));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the indices of the levels of the given package, in ascending
+	 * order.
+	 *
+	 * @param packageIndex
+	 * @return the level indices, or an empty array if the package is unknown
+	 */
+	int[] getLevelIndices(int packageIndex) {
+		PackageEntry p = getPackage(packageIndex);
+		return p == null ? new int[0] : p.levelIndices.clone();
+	}
+
+	/**
+	 * Decodes the level with the given indices.
+	 *
+	 * @param packageIndex
+	 * @param levelIndex
+	 * @return the level, or null if it is not part of the pack
+	 * @throws InvalidJsonException
+	 *             if the level's record is malformed
+	 */
+	Level readLevel(int packageIndex, int levelIndex)
+			throws InvalidJsonException {
+		PackageEntry p = getPackage(packageIndex);
+		if (p == null) {
+			return null;
+		}
+		for (int i = 0; i < p.levelIndices.length; i++) {
+			if (p.levelIndices[i] == levelIndex) {
+				// every reader needs its own position
+				ByteBuffer record = data.duplicate();
+				record.position(p.levelOffsets[i]);
+				try {
+					return readLevel(record, packageIndex, levelIndex);
+				} catch (BufferUnderflowException e) {
+					throw new InvalidJsonException("Level " + levelIndex
+							+ " of package " + packageIndex + " is truncated");
+				} catch (IllegalArgumentException e) {
+					throw new InvalidJsonException("Level " + levelIndex
+							+ " of package " + packageIndex + " is invalid: "
+							+ e.getMessage());
+				}
+			}
+		}
+		return null;
+	}
+
+	private Level readLevel(ByteBuffer record, int packageIndex, int levelIndex)
+			throws InvalidJsonException {
+		int type = record.get();
+		String description = readString(record);
+		String hint = readString(record);
+		int abortSimulationAfter = record.getInt();
+		List<String> animation = new LinkedList<String>();
+		int animations = record.getShort() & 0xFFFF;
+		for (int i = 0; i < animations; i++) {
+			animation.add(BackendHelper.getAssetDirPath() + readString(record));
+		}
+		Board initialBoard = BinaryToAlligator.convertBoard(record);
+
+		switch (type) {
+		case TYPE_MULTIPLE_CHOICE: {
+			// counts and indices are stored as unsigned bytes
+			int correctAnswer = record.get() & 0xFF;
+			Board[] answers = new Board[record.get() & 0xFF];
+			if (correctAnswer >= answers.length) {
+				throw new InvalidJsonException(
+						"The correct answer is not one of the answers!");
+			}
+			for (int i = 0; i < answers.length; i++) {
+				answers[i] = BinaryToAlligator.convertBoard(record);
+			}
+			return new MultipleChoiceLevel(levelIndex, packageIndex,
+					initialBoard, answers[correctAnswer], animation, hint,
+					description, abortSimulationAfter, answers, correctAnswer);
+		}
+		case TYPE_COLOR_EDIT:
+		case TYPE_TERM_EDIT: {
+			Board goalBoard = BinaryToAlligator.convertBoard(record);
+			Color[] userColors = readColors(record);
+			Color[] blockedColors = readColors(record);
+			if (type == TYPE_COLOR_EDIT) {
+				return new ColorEditLevel(levelIndex, packageIndex,
+						initialBoard, goalBoard, animation, userColors,
+						blockedColors, hint, description, abortSimulationAfter);
+			}
+			return new TermEditLevel(levelIndex, packageIndex, initialBoard,
+					goalBoard, animation, userColors, blockedColors, hint,
+					description, abortSimulationAfter);
+		}
+		default:
+			throw new InvalidJsonException("Unspecified leveltype!");
+		}
+	}
+
+	private PackageEntry getPackage(int packageIndex) {
+		for (PackageEntry p : packages) {
+			if (p.packageIndex == packageIndex) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	private static Color[] readColors(ByteBuffer record) {
+		Color[] colors = new Color[record.get() & 0xFF];
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = new Color(record.get() & 0xFF);
+		}
+		return colors;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		if (length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String s = new String(buffer.array(), buffer.arrayOffset()
+				+ buffer.position(), length, UTF8);
+		buffer.position(buffer.position() + length);
+		return s;
+	}
+
+	private static class PackageEntry {
+		int packageIndex;
+		String name;
+		String description;
+		String banner;
+		String design;
+		String animation;
+		int[] levelIndices;
+		int[] levelOffsets;
+	}
+}
@@ -0,0 +1,264 @@
+package de.croggle.game.level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+import de.croggle.util.convert.AlligatorToBinary;
+import de.croggle.util.convert.JsonToAlligator;
+
+/**
+ * Build time tool compiling the json files of all level packages into a single
+ * level pack, to be read by the game instead of the json files.
+ *
+ * Usage: <code>LevelPackCompiler &lt;asset dir&gt;</code>, reading the packages
+ * from <code>&lt;asset dir&gt;/json/levels</code> and writing the pack to
+ * <code>&lt;asset dir&gt;/levels.pack</code>. The ant build in the levels
+ * directory runs the tool whenever a json file is newer than the pack. A pack
+ * that has not been compiled again after a level was changed is ignored by
+ * the game where it can tell, and fails the build's check target.
+ *
+ * The tool only uses absolute file handles, so it runs without a libGdx
+ * application.
+ */
+public class LevelPackCompiler {
+
+	private LevelPackCompiler() {
+	}
+
+	/**
+	 * Compiles the level pack.
+	 *
+	 * @param args
+	 *            the asset directory
+	 */
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err.println("Usage: LevelPackCompiler <asset dir>");
+			System.exit(1);
+		}
+		File assetDir = new File(args[0]);
+		try {
+			compile(new File(assetDir, "json/levels"), new File(assetDir,
+					LevelPack.FILE_NAME));
+		} catch (IOException e) {
+			System.err.println("Could not write level pack: " + e.getMessage());
+			System.exit(1);
+		} catch (InvalidJsonException e) {
+			System.err.println("Invalid level: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compiles all packages inside the given directory into a level pack.
+	 *
+	 * @param levelsDir
+	 *            the directory containing one directory per level package
+	 * @param output
+	 *            the file to write the pack to
+	 * @throws IOException
+	 *             if reading a json file or writing the pack fails
+	 * @throws InvalidJsonException
+	 *             if a package or level is invalid
+	 */
+	public static void compile(File levelsDir, File output) throws IOException,
+			InvalidJsonException {
+		List<File> packageDirs = new ArrayList<File>();
+		File[] files = levelsDir.listFiles();
+		if (files == null) {
+			throw new IOException("Not a directory: " + levelsDir);
+		}
+		for (File dir : files) {
+			if (dir.isDirectory() && dir.getName().matches("[0-9][0-9]")
+					&& new File(dir, "package.json").isFile()) {
+				packageDirs.add(dir);
+			}
+		}
+		File[] sortedDirs = packageDirs.toArray(new File[packageDirs.size()]);
+		Arrays.sort(sortedDirs);
+
+		// the levels are written after the index, so their offsets are only
+		// known once the index's size is
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream indexOut = new DataOutputStream(index);
+		ByteArrayOutputStream levels = new ByteArrayOutputStream();
+		DataOutputStream levelsOut = new DataOutputStream(levels);
+		List<Integer> offsetPositions = new ArrayList<Integer>();
+		List<Integer> levelOffsets = new ArrayList<Integer>();
+
+		indexOut.writeInt(LevelPack.MAGIC);
+		indexOut.writeShort(LevelPack.VERSION);
+		indexOut.writeShort(sortedDirs.length);
+		JsonReader reader = new JsonReader();
+		for (File dir : sortedDirs) {
+			JsonValue json = reader
+					.parse(new FileHandle(new File(dir, "package.json")))
+					.child().getChild("packages");
+			indexOut.writeShort(Integer.parseInt(dir.getName()));
+			writeString(indexOut, json.getString("name"));
+			writeString(indexOut, json.getString("description"));
+			writeString(indexOut, json.getString("banner"));
+			writeString(indexOut, json.getString("design"));
+			writeString(indexOut, json.getString("animation"));
+
+			File[] levelFiles = dir.listFiles();
+			List<File> levelList = new ArrayList<File>();
+			for (File f : levelFiles) {
+				if (f.isFile() && f.getName().matches("[0-9][0-9]\\.json")) {
+					levelList.add(f);
+				}
+			}
+			File[] sortedLevels = levelList.toArray(new File[levelList.size()]);
+			Arrays.sort(sortedLevels);
+			indexOut.writeShort(sortedLevels.length);
+			for (File f : sortedLevels) {
+				indexOut.writeShort(Integer
+						.parseInt(f.getName().substring(0, 2)));
+				offsetPositions.add(indexOut.size());
+				levelOffsets.add(levelsOut.size());
+				indexOut.writeInt(0);
+				try {
+					writeLevel(levelsOut, reader.parse(new FileHandle(f))
+							.child().child().child());
+				} catch (InvalidJsonException e) {
+					throw new InvalidJsonException(f.getPath() + ": "
+							+ e.getMessage());
+				} catch (IllegalArgumentException e) {
+					throw new InvalidJsonException(f.getPath() + ": "
+							+ e.getMessage());
+				}
+			}
+		}
+		indexOut.flush();
+		levelsOut.flush();
+
+		byte[] indexBytes = index.toByteArray();
+		for (int i = 0; i < offsetPositions.size(); i++) {
+			int pos = offsetPositions.get(i);
+			int offset = indexBytes.length + levelOffsets.get(i);
+			indexBytes[pos] = (byte) (offset >>> 24);
+			indexBytes[pos + 1] = (byte) (offset >>> 16);
+			indexBytes[pos + 2] = (byte) (offset >>> 8);
+			indexBytes[pos + 3] = (byte) offset;
+		}
+
+		OutputStream out = new FileOutputStream(output);
+		try {
+			out.write(indexBytes);
+			levels.writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeLevel(DataOutputStream out, JsonValue json)
+			throws IOException, InvalidJsonException {
+		String leveltype = json.getString("type");
+		JsonValue data = json.get("data");
+		int type;
+		if (leveltype.equals("multiple choice")) {
+			type = LevelPack.TYPE_MULTIPLE_CHOICE;
+		} else if (leveltype.equals("color edit")) {
+			type = LevelPack.TYPE_COLOR_EDIT;
+		} else if (leveltype.equals("term edit")) {
+			type = LevelPack.TYPE_TERM_EDIT;
+		} else {
+			throw new InvalidJsonException("Unspecified leveltype!");
+		}
+		out.writeByte(type);
+		writeString(out, json.getString("description"));
+		writeString(out, json.get("hints").getString(0));
+		out.writeInt(json.getInt("abort simulation after"));
+
+		JsonValue animationPaths = json.get("animation");
+		List<String> animations = new ArrayList<String>();
+		for (int i = 0; i < animationPaths.size; i++) {
+			// empty paths are skipped the same way the json loader does
+			if (!animationPaths.getString(i).equals("")) {
+				animations.add(animationPaths.getString(i));
+			}
+		}
+		out.writeShort(animations.size());
+		for (String animation : animations) {
+			writeString(out, animation);
+		}
+
+		if (type == LevelPack.TYPE_MULTIPLE_CHOICE) {
+			writeBoard(out, data.get("initial"));
+			JsonValue answers = data.get("answers");
+			if (!answers.isArray()) {
+				throw new InvalidJsonException(
+						"There seems to be no answer array in this json file.");
+			} else if (answers.size != 3) {
+				throw new InvalidJsonException(
+						"The number of answers should be three!");
+			}
+			int correctAnswer = data.getInt("correct answer");
+			if (correctAnswer < 0 || correctAnswer >= answers.size) {
+				throw new InvalidJsonException(
+						"The correct answer is not one of the answers!");
+			}
+			out.writeByte(correctAnswer);
+			out.writeByte(answers.size);
+			for (int i = 0; i < answers.size; i++) {
+				writeBoard(out, answers.get(i));
+			}
+		} else {
+			writeBoard(out, data.get("initial constellation"));
+			writeBoard(out, data.get("objective"));
+			JsonValue userColors = data.get("user colors");
+			if (userColors.size != 6) {
+				throw new InvalidJsonException(
+						"The user color Array in this json file has to contain six items!");
+			}
+			writeColors(out, userColors);
+			writeColors(out, data.get("blocked colors"));
+		}
+	}
+
+	private static void writeBoard(DataOutputStream out, JsonValue board)
+			throws IOException {
+		out.write(AlligatorToBinary.convert(JsonToAlligator.convertBoard(board)));
+	}
+
+	private static void writeColors(DataOutputStream out, JsonValue colors)
+			throws IOException, InvalidJsonException {
+		if (!colors.isArray()) {
+			throw new InvalidJsonException(
+					"There seems to be no Color array in this json file.");
+		}
+		out.writeByte(colors.size);
+		for (int i = 0; i < colors.size; i++) {
+			int id = colors.getInt(i);
+			for (int k = 0; k < i; k++) {
+				if (id == colors.getInt(k)) {
+					throw new InvalidJsonException(
+							"There is two times the same color.");
+				}
+			}
+			out.writeByte(id);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] bytes = s.getBytes(LevelPack.UTF8);
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("String too long for a pack: "
+					+ s);
+		}
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -35,7 +35,9 @@ public class LevelPackagesController {
 
 	/**
 	 * Gets the level controller which is responsible for handling the levels
-	 * within the level package.
+	 * within the level package. The controller only loads levels on request,
+	 * unless its {@link LevelController#loadLevelsInBackground() background
+	 * loading} is started.
 	 * 
 	 * @param packageId
 	 *            the Id of the chosen LevelPackage
@@ -56,10 +58,17 @@ public class LevelPackagesController {
 	}
 
 	/**
-	 * Method to initialize the levelPackages from the assets.
+	 * Method to initialize the levelPackages from the assets, i.e. from the
+	 * compiled {@link LevelPack} or, if there is none, the packages' json
+	 * files.
 	 * 
 	 */
 	private void initialiseLevelPackages() {
+		LevelPack pack = LevelPack.getInstance();
+		if (pack != null) {
+			levelPackages = pack.getLevelPackages();
+			return;
+		}
 		levelPackages = new ArrayList<LevelPackage>();
 
 		FileHandle handle = Gdx.files.internal(BackendHelper.getAssetDirPath()
@@ -106,6 +115,10 @@ public class LevelPackagesController {
 	 * @return the number of levels contained in the package.
 	 */
 	public static int getPackageSize(int packageIndex) {
+		LevelPack pack = LevelPack.getInstance();
+		if (pack != null) {
+			return pack.getLevelIndices(packageIndex).length;
+		}
 		FileHandle dirHandle = Gdx.files.internal(BackendHelper
 				.getAssetDirPath()
 				+ "json/levels/"
@@ -0,0 +1,80 @@
+package de.croggle.game.level;
+
+/**
+ * The metadata of a {@link Level} that is known without parsing the level's
+ * file, i.e. its position inside its package and the player's progress on it.
+ * Used to display a package's levels before they are completely loaded.
+ */
+public class LevelStub {
+	private final int levelIndex;
+	private final int packageIndex;
+	private boolean unlocked;
+	private boolean solved;
+
+	/**
+	 * Creates a new stub for the level with the given indices, which is
+	 * neither unlocked nor solved.
+	 * 
+	 * @param levelIndex
+	 *            the level index of the level in the package
+	 * @param packageIndex
+	 *            the index of the levels package
+	 */
+	LevelStub(int levelIndex, int packageIndex) {
+		this.levelIndex = levelIndex;
+		this.packageIndex = packageIndex;
+	}
+
+	/**
+	 * Gets the index of the level package this level belongs to.
+	 * 
+	 * @return the index of the level package
+	 */
+	public int getPackageIndex() {
+		return packageIndex;
+	}
+
+	/**
+	 * Gets the index of the level in the level package.
+	 * 
+	 * @return the index of the level
+	 */
+	public int getLevelIndex() {
+		return levelIndex;
+	}
+
+	/**
+	 * Get a unique identifier for this level.
+	 * 
+	 * @return the same value as {@link Level#getLevelId()} of the full level
+	 */
+	public int getLevelId() {
+		return Level.getLevelId(packageIndex, levelIndex);
+	}
+
+	/**
+	 * Gets whether this level is unlocked or not.
+	 * 
+	 * @return whether this level is unlocked or not
+	 */
+	public boolean getUnlocked() {
+		return unlocked;
+	}
+
+	void setUnlocked(boolean unlocked) {
+		this.unlocked = unlocked;
+	}
+
+	/**
+	 * Gets whether the player has already solved this level.
+	 * 
+	 * @return if the Level is solved.
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	void setSolved(boolean solved) {
+		this.solved = solved;
+	}
+}
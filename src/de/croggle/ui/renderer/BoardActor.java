@@ -2,6 +2,7 @@ package de.croggle.ui.renderer;
 
 import java.util.List;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
@@ -18,8 +19,10 @@ import de.croggle.data.persistence.Setting;
 import de.croggle.data.persistence.SettingChangeListener;
 import de.croggle.game.ColorController;
 import de.croggle.game.board.Board;
+import de.croggle.game.board.BoardObject;
 import de.croggle.game.event.BoardEventListener;
 import de.croggle.game.event.BoardEventMessenger;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 import de.croggle.ui.renderer.layout.ActorLayout;
 import de.croggle.ui.renderer.layout.ActorLayoutConfiguration;
 import de.croggle.ui.renderer.layout.ActorLayoutStatistics;
@@ -123,6 +126,9 @@ public class BoardActor extends Group implements SettingChangeListener {
 			background = AssetManager.getInstance().getColorTexture(
 					de.croggle.game.Color.uncolored());
 			setBackgroundColor(new Color(1.f, 1.f, 1.f, 0.f));
+			// frame buffers require OpenGL ES 2.0
+			world.getSubtreeCache().setEnabled(
+					Gdx.graphics.isGL20Available());
 		}
 
 		initializePosition();
@@ -144,6 +150,7 @@ public class BoardActor extends Group implements SettingChangeListener {
 
 	@Override
 	public void draw(SpriteBatch batch, float parentAlpha) {
+		long start = RenderProfiler.start();
 		if (clipBegin()) {
 			if (batch != null) {
 				Color c = batch.getColor();
@@ -154,6 +161,9 @@ public class BoardActor extends Group implements SettingChangeListener {
 				batch.setColor(c);
 			}
 			super.draw(batch, parentAlpha);
+			RenderProfiler.stop(Metric.BOARD_DRAW, start);
+			RenderProfiler.set(Metric.ANIMATION_QUEUE,
+					boardAnimator.getQueueSize());
 			clipEnd();
 		}
 	}
@@ -166,8 +176,7 @@ public class BoardActor extends Group implements SettingChangeListener {
 		// offsetTop pixels below (negative = above) the screen mid
 		ActorLayoutStatistics stats = layout.getLayoutStatistics();
 		Vector2 orig = config.getTreeOrigin();
-		float treeMidX = orig.x + stats.getWidthMap().get(layout.getBoard())
-				/ 2;
+		float treeMidX = orig.x + stats.getWidth(layout.getBoard()) / 2;
 		float treeTop = orig.y;
 
 		zoomAndPan.centerOntoWorldPoint(treeMidX + offsetLeft, treeTop
@@ -281,6 +290,7 @@ public class BoardActor extends Group implements SettingChangeListener {
 		} else {
 			config.setColorBlindEnabled(enabled);
 			colorBlind = enabled;
+			world.getSubtreeCache().invalidateAll();
 			for (Actor actor : world.getChildren()) {
 				if (actor instanceof ColoredBoardObjectActor) {
 					((ColoredBoardObjectActor) actor)
@@ -315,6 +325,9 @@ public class BoardActor extends Group implements SettingChangeListener {
 		if (zoomAndPanEnabled) {
 			super.addListener(zoomAndPan);
 		}
+		if (layoutEditingEnabled) {
+			layoutEditing.registerLayoutListeners();
+		}
 	}
 
 	public boolean isZoomAndPanEnabled() {
@@ -385,6 +398,7 @@ public class BoardActor extends Group implements SettingChangeListener {
 		layoutEditing.unregisterLayoutListeners();
 		layoutEditing = null;
 		layoutEditingEnabled = false;
+		invalidateCaches();
 	}
 
 	/**
@@ -509,14 +523,9 @@ public class BoardActor extends Group implements SettingChangeListener {
 		return super.removeActor(actor);
 	}
 
-	void updateListeners() {
-		if (layoutEditingEnabled) {
-			layoutEditing.unregisterLayoutListeners();
-			layoutEditing.registerLayoutListeners();
-		}
-	}
-
 	void fixLayout() {
+		// actors are moved without running any actions
+		world.getSubtreeCache().invalidateAll();
 		List<BoardObjectActor> added = layout.fix();
 		for (BoardObjectActor actor : added) {
 			world.addActor(actor);
@@ -536,6 +545,23 @@ public class BoardActor extends Group implements SettingChangeListener {
 		return config;
 	}
 
+	/**
+	 * Discards the cached appearance of all families containing the given
+	 * object.
+	 * 
+	 * @param object
+	 */
+	void invalidateCache(BoardObject object) {
+		world.getSubtreeCache().invalidate(object);
+	}
+
+	/**
+	 * Discards the cached appearance of all families.
+	 */
+	void invalidateCaches() {
+		world.getSubtreeCache().invalidateAll();
+	}
+
 	float getWorldX() {
 		return posX;
 	}
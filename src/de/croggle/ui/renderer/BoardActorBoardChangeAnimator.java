@@ -14,6 +14,7 @@ import com.badlogic.gdx.scenes.scene2d.actions.SizeToAction;
 import com.badlogic.gdx.scenes.scene2d.actions.TemporalAction;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Pool.Poolable;
 import com.badlogic.gdx.utils.ReflectionPool;
 
 import de.croggle.data.AssetManager;
@@ -26,6 +27,7 @@ import de.croggle.game.board.Egg;
 import de.croggle.game.board.InternalBoardObject;
 import de.croggle.game.board.operations.FlattenTree;
 import de.croggle.game.event.BoardEventListener;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 import de.croggle.ui.renderer.layout.ActorDelta;
 import de.croggle.ui.renderer.layout.ActorLayout;
 import de.croggle.ui.renderer.objectactors.AgedAlligatorActor;
@@ -35,6 +37,16 @@ import de.croggle.ui.renderer.objectactors.ColoredAlligatorActor;
 import de.croggle.ui.renderer.objectactors.ColoredBoardObjectActor;
 import de.croggle.ui.renderer.objectactors.EggActor;
 
+/**
+ * Listens to board events and animates them on a {@link BoardActor}.
+ * 
+ * All events belonging to one simulation step (i.e. everything happening from
+ * one eat event on until the next frame is rendered) are coalesced into a
+ * fixed number of animation frames, independent of the number of events: the
+ * eating, then all agings, recolorings and hatchings in parallel, and then all
+ * vanishing aged alligators. After a frame removed actors from the layout, the
+ * layout is fixed once using a single merged set of deltas.
+ */
 class BoardActorBoardChangeAnimator implements BoardEventListener {
 	private final BoardActor b;
 
@@ -44,6 +56,17 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	private final LinkedList<Animation> animationQueue;
 	private final Pool<Animation> animationPool;
 	private final PopAnimationAction popAction;
+	/*
+	 * the animation currently played, to remove its actors once it has ended
+	 */
+	private Animation current;
+
+	/*
+	 * the step currently collecting events. Flushed into the animation queue
+	 * in the next frame, or as soon as the next step begins
+	 */
+	private Step pending;
+	private final FlushStepAction flushAction;
 
 	private final Pool<RecolorAction> recolorPool;
 
@@ -70,6 +93,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		animationPool = new ReflectionPool<Animation>(Animation.class);
 		recolorPool = new ReflectionPool<RecolorAction>(RecolorAction.class);
 		popAction = new PopAnimationAction();
+		flushAction = new FlushStepAction();
 		animationQueue = new LinkedList<Animation>();
 	}
 
@@ -81,6 +105,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	 */
 	@Override
 	public void onObjectRecolored(ColoredBoardObject recoloredObject) {
+		b.invalidateCache(recoloredObject);
 		BoardObjectActor actor = b.getLayout().getActor(recoloredObject);
 		if (actor != null) {
 			/*
@@ -95,7 +120,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 			RecolorAction action = recolorPool.obtain();
 			action.set(duration);
 			action.setActor(cboa);
-			registerAnimationActions(duration, action);
+			getStep().changes.add(duration, action);
 		}
 	}
 
@@ -111,6 +136,9 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	@Override
 	public void onEat(final ColoredAlligator eater,
 			final InternalBoardObject eatenFamily, int eatenParentPosition) {
+		b.invalidateCache(eater);
+		// removed families still know their former parent
+		b.invalidateCache(eatenFamily);
 		ColoredAlligatorActor eaterActor = ((ColoredAlligatorActor) b
 				.getLayout().getActor(eater));
 		final float eaterX = eaterActor.getX();
@@ -121,6 +149,9 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		final float eaterScaleY = eaterActor.getScaleY();
 		final float moveDuration = moveToEaterAnimationDuration * speedFactor;
 		final float openJawDuration = openJawAnimationDuration * speedFactor;
+		// an eat event always starts a new simulation step
+		flush();
+		final Step step = getStep();
 		eaterActor.setOrigin(eaterWidth / 2, eaterHeight / 2);
 		// don't forget this animation when summing up durations later
 		Action eat = eaterActor.enterEatingStateAction(openJawDuration);
@@ -140,21 +171,17 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 			ScaleToAction scale = Actions.scaleTo(0, 0, moveDuration);
 			// scale.setActor(actor);
 
-			RemoveObjectAction remove = new RemoveObjectAction();
-			remove.set(this);
-			// remove.setActor(actor);
-
-			Action scaleThenRemove = Actions.sequence(scale, remove);
-
-			Action all = Actions.parallel(move, scaleThenRemove);
+			Action all = Actions.parallel(move, scale);
 
 			Action delayedAll = Actions.delay(openJawDuration, all);
 			delayedAll.setActor(actor);
 
 			actions.add(delayedAll);
+			step.eat.remove(actor);
 		}
-		registerAnimationActions(openJawDuration, eat);
-		registerAnimationActions(moveDuration, actions.toArray(new Action[0]));
+		step.eat.add(openJawDuration, eat);
+		step.eat.add(openJawDuration + moveDuration,
+				actions.toArray(new Action[0]));
 		// not used since eating alligators age before they die
 		// Action eaterDies = Actions.rotateBy(180, rotationDuration);
 		// eaterDies.setActor(eaterActor);
@@ -163,7 +190,8 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 
 	/**
 	 * Creates an Action that animates the removal of the given
-	 * {@link InternalBoardObject} by fading it out. <br />
+	 * {@link InternalBoardObject} by fading it out. The object's actor is
+	 * removed from the layout once the given frame has ended. <br />
 	 * Careful: Don't rely on this method to add newly created objects to the
 	 * layout, since this would only occur after the animation time. During that
 	 * time, the layout would be in an inconsistent state.
@@ -172,15 +200,15 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	 * @param fadingtime
 	 *            Number of seconds the object's Actor representation is to be
 	 *            faded out
+	 * @param frame
+	 *            the frame at whose end the actor is to be removed
 	 */
 	private Action removeObjectAction(final InternalBoardObject object,
-			final float fadingtime) {
+			final float fadingtime, Animation frame) {
 		BoardObjectActor ba = b.getLayout().getActor(object);
-		Action fadeout = Actions.fadeOut(fadingtime);
-		RemoveObjectAction remove = new RemoveObjectAction();
-		remove.set(this);
-		Action result = Actions.sequence(fadeout, remove);
+		Action result = Actions.fadeOut(fadingtime);
 		result.setActor(ba);
+		frame.remove(ba);
 		return result;
 	}
 
@@ -193,17 +221,19 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	@Override
 	public void onAgedAlligatorVanishes(AgedAlligator alligator,
 			int positionInParent) {
+		b.invalidateCache(alligator);
 		BoardObjectActor gator = b.getLayout().getActor(alligator);
 		gator.setOrigin(gator.getWidth() / 2, gator.getHeight() / 2);
 
 		final float rotationDuration = this.rotationDuration * speedFactor;
 		final float fadeOutDuration = this.fadeOutDuration * speedFactor;
 
+		Animation vanish = getStep().vanish;
 		Action rotate = Actions.rotateBy(180, rotationDuration);
-		Action remove = removeObjectAction(alligator, fadeOutDuration);
+		Action remove = removeObjectAction(alligator, fadeOutDuration, vanish);
 		Action sequence = Actions.sequence(rotate, remove);
 		sequence.setActor(gator);
-		registerAnimationActions(rotationDuration + fadeOutDuration, sequence);
+		vanish.add(rotationDuration + fadeOutDuration, sequence);
 	}
 
 	/**
@@ -220,13 +250,25 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		} else {
 			flash();
 		}
+		b.invalidateCaches();
+		// events collected so far refer to the old layout
+		if (pending != null) {
+			pending.free();
+			pending = null;
+		}
 
+		ActorLayout old = b.getLayout();
 		b.clearWorld();
+		// recycle the old actors, unless queued animations still refer to them
+		if (old != null && animationQueue.isEmpty() && current == null) {
+			for (BoardObjectActor actor : old) {
+				BoardObjectActorFactory.free(actor);
+			}
+		}
 		b.setLayout(ActorLayout.create(board, b.getLayoutConfiguration()));
 		for (BoardObjectActor actor : b.getLayout()) {
 			b.addToWorld(actor);
 		}
-		b.updateListeners();
 	}
 
 	private void flash() {
@@ -250,14 +292,38 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	 */
 	@Override
 	public void onHatched(Egg replacedEgg, InternalBoardObject bornFamily) {
+		b.invalidateCache(replacedEgg);
+		b.invalidateCache(bornFamily);
 		final float hatchDuration = hatchAnimationDuration * speedFactor;
 		final float fadeDuration = fadeOutDuration * speedFactor;
 
+		Step step = getStep();
 		EggActor eggActor = (EggActor) b.getLayout().getActor(replacedEgg);
 		Action hatch = eggActor.enterHatchingStateAction(hatchDuration);
+		// the born families' actors are created once for all hatchings when
+		// the step is flushed
+		step.hatched = true;
+
+		Action remove = removeObjectAction(replacedEgg, fadeDuration,
+				step.changes);
+		Action hatchThenRemove = Actions.sequence(hatch, remove);
+		hatchThenRemove.setActor(eggActor);
+
+		step.changes.add(hatchDuration + fadeDuration, hatchThenRemove);
+	}
+
+	/**
+	 * Creates the actors of all families born during the given step using a
+	 * single layout pass and lets them grow during the step's changes.
+	 * 
+	 * @param step
+	 */
+	private void createBornFamilies(Step step) {
 		List<ActorDelta> deltas = b.getLayout().getDeltasToFix();
 		List<ActorDelta> creation = filterCreated(deltas, true);
+		long start = RenderProfiler.start();
 		List<Action> creations = applyCreationDeltas(creation);
+		RenderProfiler.stop(Metric.DELTA_APPLICATION, start);
 		float creationTime = creations.isEmpty() ? 0
 				: ((TemporalAction) creations.get(0)).getDuration();
 		Pool<ActorDelta> deltaPool = b.getLayout().getDeltaPool();
@@ -267,20 +333,12 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		for (ActorDelta delta : creation) {
 			deltaPool.free(delta);
 		}
-
-		Action remove = removeObjectAction(replacedEgg, fadeDuration);
-		Action hatchThenRemove = Actions.sequence(hatch, remove);
-		hatchThenRemove.setActor(eggActor);
-
-		creations.add(hatchThenRemove);
-
-		registerAnimationActions(
-				Math.max(hatchDuration + fadeDuration, creationTime),
-				creations.toArray(new Action[0]));
+		step.changes.add(creationTime, creations.toArray(new Action[0]));
 		b.layoutSizeChanged();
 	}
 
-	private void applyDeltasAnimated(List<ActorDelta> deltas) {
+	private Animation applyDeltasAnimated(List<ActorDelta> deltas) {
+		long start = RenderProfiler.start();
 		final float repositionDuration = repositionAnimationDuration
 				* speedFactor;
 		final float resizeDuration = resizeAnimationDuration * speedFactor;
@@ -297,10 +355,14 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		final float duration = Math.max(creationDuration,
 				Math.max(repositionDuration, resizeDuration));
 
-		registerAnimationActions(duration, actions.toArray(new Action[0]));
+		Animation anim = animationPool.obtain();
+		anim.set(duration, actions.toArray(new Action[0]));
+		RenderProfiler.stop(Metric.DELTA_APPLICATION, start);
+		return anim;
 	}
 
 	private void applyDeltasAnimatedImmediately(List<ActorDelta> deltas) {
+		long start = RenderProfiler.start();
 		final List<ActorDelta> created = filterCreated(deltas, true);
 		Action action;
 		for (ActorDelta delta : deltas) {
@@ -311,6 +373,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		for (Action creation : creations) {
 			creation.getActor().addAction(creation);
 		}
+		RenderProfiler.stop(Metric.DELTA_APPLICATION, start);
 	}
 
 	private Action applyDeltaAnimated(ActorDelta delta) {
@@ -412,6 +475,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 
 	@Override
 	public void onAge(ColoredAlligator colored, AgedAlligator aged) {
+		b.invalidateCache(aged);
 		BoardObjectActor coloredActor = b.getLayout().getActor(colored);
 		AgedAlligatorActor agedActor = BoardObjectActorFactory
 				.instantiateAgedAlligatorActor(aged);
@@ -422,20 +486,23 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 
 		final float duration = ageAnimationDuration * speedFactor;
 
+		Animation changes = getStep().changes;
 		Action add = Actions.alpha(1.f, duration);
 		add.setActor(agedActor);
-		Action remove = removeObjectAction(colored, duration);
+		Action remove = removeObjectAction(colored, duration, changes);
 		remove.setActor(coloredActor);
-		registerAnimationActions(duration, add, remove);
+		changes.add(duration, add, remove);
 	}
 
 	@Override
 	public void onObjectPlaced(InternalBoardObject placed) {
+		b.invalidateCaches();
 		fixLayout();
 	}
 
 	@Override
 	public void onObjectRemoved(InternalBoardObject removed) {
+		b.invalidateCaches();
 		BoardObjectActor removedActor = b.getLayout().getActor(removed);
 		if (removedActor != null) {
 			b.removeLayoutActor(removedActor);
@@ -445,6 +512,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 
 	@Override
 	public void onObjectMoved(InternalBoardObject moved) {
+		b.invalidateCaches();
 		fixLayout();
 	}
 
@@ -459,30 +527,98 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	}
 
 	/**
-	 * Registers a set of given {@link Action}s to the animator's Action queue.
-	 * To be able to register the actions at the {@link BoardObjectActor} they
-	 * belong to it is necessary that the Actions have their respective Actor
-	 * set via setActor.
+	 * Returns the step currently collecting events, starting a new one if
+	 * necessary. A new step is flushed automatically with the next frame.
 	 * 
-	 * @param actions
-	 *            The actions to be enqueued to this animator's animation queue.
-	 *            Must have their {@link Actor}s set for proper registering.
-	 * @param duration
-	 *            The time needed to pass so that a new animation can be
-	 *            started, in seconds
+	 * @return the pending step
 	 */
-	private void registerAnimationActions(float duration, Action... actions) {
-		Animation anim = animationPool.obtain();
-		anim.set(duration, actions);
+	private Step getStep() {
+		if (pending == null) {
+			pending = new Step();
+			// may still be scheduled if the last step was flushed early
+			if (flushAction.getActor() == null) {
+				b.addAction(flushAction);
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * Enqueues the animation frames of the pending step, if there is any.
+	 */
+	private void flush() {
+		if (pending == null) {
+			return;
+		}
+		Step step = pending;
+		pending = null;
+		if (step.hatched) {
+			createBornFamilies(step);
+		}
+		enqueue(step.eat);
+		enqueue(step.changes);
+		enqueue(step.vanish);
+	}
+
+	/**
+	 * Adds the given animation frame to the animator's animation queue. Empty
+	 * frames are discarded. To be able to register the actions at the
+	 * {@link BoardObjectActor} they belong to it is necessary that the Actions
+	 * have their respective Actor set via setActor.
+	 * 
+	 * @param anim
+	 *            The frame to be enqueued to this animator's animation queue.
+	 */
+	private void enqueue(Animation anim) {
+		if (anim.isEmpty()) {
+			animationPool.free(anim);
+			return;
+		}
 		animationQueue.add(anim);
 
 		// if there are no ongoing actions, we have to trigger the first one
 		// manually
-		if (animationQueue.size() == 1) {
+		if (animationQueue.size() == 1 && current == null) {
 			popAnimationActions();
 		}
 	}
 
+	/**
+	 * Removes the actors scheduled for removal by the frame that just ended
+	 * and, if there were any, prepends a frame applying the resulting layout
+	 * changes to the animation queue.
+	 */
+	private void finishCurrent() {
+		Animation anim = current;
+		current = null;
+		if (anim == null) {
+			return;
+		}
+		if (!anim.removals.isEmpty()) {
+			ActorLayout layout = b.getLayout();
+			for (BoardObjectActor actor : anim.removals) {
+				// free each actor only once, and only if it was still in use
+				if (layout.hasActor(actor)) {
+					b.removeLayoutActor(actor);
+					BoardObjectActorFactory.free(actor);
+				}
+			}
+			List<ActorDelta> deltas = layout.getDeltasToFix();
+			Animation fix = applyDeltasAnimated(deltas);
+			Pool<ActorDelta> deltaPool = layout.getDeltaPool();
+			for (ActorDelta delta : deltas) {
+				deltaPool.free(delta);
+			}
+			if (fix.isEmpty()) {
+				animationPool.free(fix);
+			} else {
+				animationQueue.add(0, fix);
+			}
+			b.layoutSizeChanged();
+		}
+		animationPool.free(anim);
+	}
+
 	/**
 	 * Pops the topmost set of Actions from the animation queue and registers
 	 * all actions in it to their respective Actors. Also sets a timer to
@@ -491,6 +627,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 	 */
 	private void popAnimationActions() {
 		if (popAction.ended) {
+			finishCurrent();
 			if (!animationQueue.isEmpty()) {
 				Animation anim = animationQueue.remove(0);
 				for (Action a : anim.actions) {
@@ -501,7 +638,7 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 				popAction.setDuration(anim.duration);
 				this.b.removeAction(popAction);
 				this.b.addAction(popAction);
-				animationPool.free(anim);
+				current = anim;
 			} else {
 				if (finishedListener != null) {
 					finishedListener.finished();
@@ -510,6 +647,15 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		}
 	}
 
+	/**
+	 * 
+	 * @return the number of animation frames waiting to be played, including
+	 *         the one currently played
+	 */
+	int getQueueSize() {
+		return animationQueue.size() + (current == null ? 0 : 1);
+	}
+
 	public void setAnimationsFinishedLitener(AnimationsFinishedListener listener) {
 		this.finishedListener = listener;
 	}
@@ -580,47 +726,68 @@ class BoardActorBoardChangeAnimator implements BoardEventListener {
 		}
 	}
 
-	private static class Animation {
-		public Action[] actions;
-		public float duration;
+	/**
+	 * A set of actions played in parallel, together with the actors to be
+	 * removed from the layout as soon as all of them are finished.
+	 */
+	private static class Animation implements Poolable {
+		private final List<Action> actions = new ArrayList<Action>();
+		private final List<BoardObjectActor> removals = new ArrayList<BoardObjectActor>();
+		private float duration;
 
 		public void set(float duration, Action[] actions) {
-			this.actions = actions;
-			this.duration = duration;
+			reset();
+			add(duration, actions);
 		}
-	}
 
-	private static class RemoveObjectAction extends Action {
+		public void add(float duration, Action... actions) {
+			for (Action a : actions) {
+				this.actions.add(a);
+			}
+			this.duration = Math.max(this.duration, duration);
+		}
 
-		private boolean done = false;
+		public void remove(BoardObjectActor actor) {
+			removals.add(actor);
+		}
 
-		private BoardActorBoardChangeAnimator animator;
+		public boolean isEmpty() {
+			return actions.isEmpty() && removals.isEmpty();
+		}
 
-		public void set(BoardActorBoardChangeAnimator animator) {
-			super.reset();
-			this.animator = animator;
-			done = false;
+		@Override
+		public void reset() {
+			actions.clear();
+			removals.clear();
+			duration = 0;
 		}
+	}
 
+	/**
+	 * The animation frames of a single simulation step.
+	 */
+	private class Step {
+		private final Animation eat = animationPool.obtain();
+		private final Animation changes = animationPool.obtain();
+		private final Animation vanish = animationPool.obtain();
+		private boolean hatched = false;
+
+		public void free() {
+			animationPool.free(eat);
+			animationPool.free(changes);
+			animationPool.free(vanish);
+		}
+	}
+
+	/**
+	 * Flushes the pending step in the frame after its first event occurred.
+	 */
+	private class FlushStepAction extends Action {
 		@Override
-		public boolean act(float timDelta) {
-			if (!done) {
-				done = true;
-				BoardActor board = animator.b;
-				ActorLayout layout = board.getLayout();
-				BoardObjectActor actor = layout
-						.getActor(((BoardObjectActor) getActor())
-								.getBoardObject());
-				board.removeLayoutActor(actor);
-				List<ActorDelta> deltas = layout.getDeltasToFix();
-				animator.applyDeltasAnimated(deltas);
-				Pool<ActorDelta> deltaPool = layout.getDeltaPool();
-				for (ActorDelta delta : deltas) {
-					deltaPool.free(delta);
-				}
-			}
+		public boolean act(float delta) {
+			// don't remove this action from the board here, it is being acted
+			flush();
 			return true;
 		}
-
 	}
 }
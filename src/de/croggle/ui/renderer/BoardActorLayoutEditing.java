@@ -1,10 +1,8 @@
 package de.croggle.ui.renderer;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.Actor;
@@ -12,11 +10,11 @@ import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.InputEvent.Type;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.utils.ActorGestureListener;
-import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.DragAndDrop;
 import com.badlogic.gdx.scenes.scene2d.utils.DragAndDrop.Payload;
 import com.badlogic.gdx.scenes.scene2d.utils.DragAndDrop.Source;
 import com.badlogic.gdx.scenes.scene2d.utils.DragAndDrop.Target;
+import com.badlogic.gdx.utils.Array;
 
 import de.croggle.game.board.AgedAlligator;
 import de.croggle.game.board.ColoredBoardObject;
@@ -24,6 +22,7 @@ import de.croggle.game.board.InternalBoardObject;
 import de.croggle.game.board.Parent;
 import de.croggle.game.event.BoardEventMessenger;
 import de.croggle.ui.renderer.layout.ActorLayout;
+import de.croggle.ui.renderer.layout.ActorSpatialIndex;
 import de.croggle.ui.renderer.objectactors.BoardObjectActor;
 
 /**
@@ -39,17 +38,12 @@ class BoardActorLayoutEditing {
 	private final DragAndDrop dnd;
 	private final ObjectBar obar;
 	private final BoardObjectActorDragging dragging;
-	private final List<Target> temporaryTargets;
 	private Source temporarySource;
 	PlaceholderTarget placeholderTarget;
 
 	private final PlaceHolderActor placeHolderActor;
 
-	/*
-	 * TODO fix libgdx' DragAndDrop so it uses the highest target instead of the
-	 * first
-	 */
-	private BoardActorTarget boardActorTarget;
+	private final LayoutInputListener inputListener;
 
 	private boolean permanentRegistered = false;
 
@@ -60,7 +54,6 @@ class BoardActorLayoutEditing {
 		this.b = b;
 		dragging = new BoardObjectActorDragging(this);
 		this.messenger = messenger;
-		temporaryTargets = new ArrayList<Target>();
 
 		dnd = new DragAndDrop();
 
@@ -75,6 +68,7 @@ class BoardActorLayoutEditing {
 		// make it invisible
 		placeHolderActor.setColor(0.f, 0.f, 0.f, 0.f);
 		placeholderTarget = new PlaceholderTarget(placeHolderActor);
+		inputListener = new LayoutInputListener();
 		addPermanentSourcesAndTargets();
 	}
 
@@ -107,72 +101,95 @@ class BoardActorLayoutEditing {
 		}
 
 		dnd.addTarget(placeholderTarget);
-		boardActorTarget = new BoardActorTarget(b);
-		dnd.addTarget(boardActorTarget);
 		if (obar != null) {
 			dnd.addTarget(obar.new RemoveObjectTarget());
 			dnd.addSource(obar.new BarAgedAlligatorSource());
 			dnd.addSource(obar.new BarColoredAlligatorSource());
 			dnd.addSource(obar.new BarEggSource());
 		}
+		/*
+		 * the single target for drops onto the board and its objects. It has
+		 * to come after the targets of the actors it contains, such as the
+		 * placeholder, as DragAndDrop uses the first target containing the
+		 * actor hit. TODO fix libgdx' DragAndDrop so it uses the highest
+		 * target instead of the first
+		 */
+		dnd.addTarget(new BoardActorTarget(b));
 	}
 
-	private void addTemporaryTargets(BoardObjectActor dragged) {
-		CancelTarget cancel = new CancelTarget(dragged);
-		temporaryTargets.add(cancel);
-		dnd.addTarget(cancel);
-		for (BoardObjectActor actor : b.getLayout()) {
-			if (actor == dragged) {
-				continue;
-			}
-			Target target = new ObjectTarget(actor);
-			temporaryTargets.add(target);
-			dnd.addTarget(target);
-		}
+	/**
+	 * Adds the listener dispatching user input on the layout's actors to the
+	 * {@link BoardActor}.
+	 */
+	void registerLayoutListeners() {
+		b.addListener(inputListener);
 	}
 
-	private void removeTemporaryTargets() {
-		for (Target t : temporaryTargets) {
-			dnd.removeTarget(t);
-		}
-		temporaryTargets.clear();
+	void unregisterLayoutListeners() {
+		b.removeListener(inputListener);
 	}
 
-	void registerLayoutListeners() {
-		for (BoardObjectActor child : b.getLayout()) {
-			registerLayoutListeners(child);
-		}
-	}
+	/**
+	 * Listens to touches on the board and dispatches them to the behaviour
+	 * the touched {@link BoardObjectActor}'s board object supports: Tapping
+	 * recolorable objects opens a color picker popup, long presses on movable
+	 * objects start a drag process. The touched actor is the target found by
+	 * the board's hit testing, so a single listener serves the whole layout,
+	 * regardless of its size.
+	 */
+	private class LayoutInputListener extends ActorGestureListener {
+		/*
+		 * the layout actor the current touch started on, null if none
+		 */
+		private BoardObjectActor touched;
 
-	private void registerLayoutListeners(BoardObjectActor actor) {
-		if (actor.getBoardObject() instanceof ColoredBoardObject) {
-			ColoredBoardObject o = (ColoredBoardObject) actor.getBoardObject();
-			if (o.isRecolorable()) {
-				actor.addListener(new RecolorPopupListener(o));
-			}
+		public LayoutInputListener() {
+			getGestureDetector().setLongPressSeconds(0.8f);
 		}
 
-		if (actor.getBoardObject().isMovable()) {
-			actor.addListener(new EnableDraggingListener());
+		@Override
+		public void touchDown(InputEvent event, float x, float y, int pointer,
+				int button) {
+			touched = getLayoutActor(event.getTarget());
 		}
-	}
 
-	void unregisterLayoutListeners() {
-		// TODO make this more elegant
-		for (BoardObjectActor actor : b.getLayout()) {
-			actor.clearListeners();
+		@Override
+		public void tap(InputEvent event, float x, float y, int count,
+				int button) {
+			BoardObjectActor actor = getLayoutActor(event.getTarget());
+			if (actor == null || actor != touched) {
+				return;
+			}
+			InternalBoardObject object = actor.getBoardObject();
+			if (object instanceof ColoredBoardObject
+					&& ((ColoredBoardObject) object).isRecolorable()) {
+				openRecolorPopup((ColoredBoardObject) object);
+			}
 		}
-	}
 
-	private class RecolorPopupListener extends ClickListener {
-		private final ColoredBoardObject o;
+		@Override
+		public boolean longPress(Actor listenerActor, float x, float y) {
+			BoardObjectActor actor = touched;
+			if (actor == null || !actor.getBoardObject().isMovable()) {
+				return false;
+			}
+			// coordinates are given relative to the board actor
+			Vector2 point = new Vector2(x, y);
+			listenerActor.localToStageCoordinates(point);
+			startDragging(actor, point);
+			return true;
+		}
 
-		public RecolorPopupListener(ColoredBoardObject o) {
-			this.o = o;
+		private BoardObjectActor getLayoutActor(Actor target) {
+			if (target instanceof BoardObjectActor
+					&& target != placeHolderActor
+					&& b.getLayout().hasActor((BoardObjectActor) target)) {
+				return (BoardObjectActor) target;
+			}
+			return null;
 		}
 
-		@Override
-		public void clicked(InputEvent event, float x, float y) {
+		private void openRecolorPopup(ColoredBoardObject o) {
 			ColorSelectorPopup popup = new ColorSelectorPopup(
 					BoardActorLayoutEditing.this, o);
 			popup.setX((b.getWidth() - popup.getWidth()) / 2);
@@ -182,32 +199,19 @@ class BoardActorLayoutEditing {
 
 			b.addToActor(popup);
 		}
-	}
-
-	/**
-	 * Listens to long presses on (movable) BoardObjectActors to start a drag
-	 * process.
-	 * 
-	 */
-	private class EnableDraggingListener extends ActorGestureListener {
-		public EnableDraggingListener() {
-			getGestureDetector().setLongPressSeconds(0.8f);
-		}
-
-		@Override
-		public boolean longPress(Actor actor, float x, float y) {
-			if (!(actor instanceof BoardObjectActor)) {
-				throw new IllegalArgumentException(
-						"Cannot drag actors other than BoardObjectActors");
-			}
 
+		/**
+		 * Starts dragging the given actor, as if the user had touched it at
+		 * the given stage coordinates and started to move.
+		 */
+		private void startDragging(BoardObjectActor actor, Vector2 stagePoint) {
 			Gdx.input.vibrate(100);
 
 			// in order for the ExistingActorSource to respond to the faked drag
 			// events we have to tell it not to have a threshold the finger must
 			// move before a drag is initiiated
 			dnd.setTapSquareSize(-1);
-			dnd.addSource(new ExistingActorSource((BoardObjectActor) actor));
+			dnd.addSource(new ExistingActorSource(actor));
 			dnd.setTapSquareSize(8);
 			shakeBoardActor();
 			actor.addAction(Actions.alpha(0.5f, fadeDuration));
@@ -219,10 +223,8 @@ class BoardActorLayoutEditing {
 				InputEvent ev = new InputEvent();
 				ev.setListenerActor(actor);
 				ev.setStage(actor.getStage());
-				Vector2 point = new Vector2(x, y);
-				actor.localToStageCoordinates(point);
-				ev.setStageX(point.x);
-				ev.setStageY(point.y);
+				ev.setStageX(stagePoint.x);
+				ev.setStageY(stagePoint.y);
 				ev.setTarget(actor);
 				ev.setButton(0);
 
@@ -232,8 +234,6 @@ class BoardActorLayoutEditing {
 				ev.setType(Type.touchDragged);
 				actor.notify(ev, true);
 			}
-
-			return false;
 		}
 
 		/**
@@ -284,13 +284,6 @@ class BoardActorLayoutEditing {
 				int pointer) {
 			reenableZoom = layoutEditing.b.isZoomAndPanEnabled();
 			layoutEditing.b.setZoomAndPanEnabled(false);
-			layoutEditing.addTemporaryTargets((BoardObjectActor) getActor());
-
-			/*
-			 * TODO same problem with BoardActorTarget as above
-			 */
-			layoutEditing.dnd.removeTarget(layoutEditing.boardActorTarget);
-			layoutEditing.dnd.addTarget(layoutEditing.boardActorTarget);
 
 			Payload p = onDragStart(event, x, y, pointer);
 			Actor dragActor = p.getDragActor();
@@ -310,7 +303,6 @@ class BoardActorLayoutEditing {
 			if (reenableZoom) {
 				layoutEditing.b.setZoomAndPanEnabled(true);
 			}
-			layoutEditing.removeTemporaryTargets();
 			onDragStop(event, x, y, pointer, target);
 		}
 
@@ -361,25 +353,6 @@ class BoardActorLayoutEditing {
 		}
 	}
 
-	private class CancelTarget extends Target {
-
-		public CancelTarget(BoardObjectActor actor) {
-			super(actor);
-		}
-
-		@Override
-		public boolean drag(Source source, Payload payload, float x, float y,
-				int pointer) {
-			return true;
-		}
-
-		@Override
-		public void drop(Source source, Payload payload, float x, float y,
-				int pointer) {
-		}
-
-	}
-
 	private class PlaceholderTarget extends Target {
 		private boolean isDragging = false;
 
@@ -421,10 +394,6 @@ class BoardActorLayoutEditing {
 			BoardObjectActor payloadActor = (BoardObjectActor) payload
 					.getObject();
 			InternalBoardObject payloadObject = payloadActor.getBoardObject();
-			if (payloadObject.getParent() == null) {
-				// fresh from the object bar
-				registerLayoutListeners(payloadActor);
-			}
 			extractBoardObject(payloadObject);
 			parent.replaceChild(placeholder, payloadObject);
 			placeholder.setParent(null);
@@ -433,19 +402,177 @@ class BoardActorLayoutEditing {
 
 	}
 
-	private class ObjectTarget extends Target {
-		private Vector2 point = new Vector2();
+	/**
+	 * The kinds of positions a drag over the board can be resolved to.
+	 */
+	private static enum DropPosition {
+		/**
+		 * Over the board, but not over any of its objects
+		 */
+		BOARD,
+		/**
+		 * Over the dragged object itself, i.e. dropping cancels the drag
+		 */
+		SELF,
+		/**
+		 * Over an object on the board
+		 */
+		OBJECT,
+		/**
+		 * Between two neighbouring siblings
+		 */
+		GAP
+	}
+
+	/**
+	 * The single drop target of the board. Resolves the position of a drag
+	 * using the layout's {@link ActorSpatialIndex} instead of having a target
+	 * registered for every actor, so starting a drag does not depend on the
+	 * board's size.
+	 */
+	private class BoardActorTarget extends Target {
+		private final Vector2 point = new Vector2();
+		private final Rectangle area = new Rectangle();
+		private final Array<BoardObjectActor> found = new Array<BoardObjectActor>();
+
+		/*
+		 * what the last drag event was resolved to. The actor is null if over
+		 * the board itself
+		 */
+		private DropPosition position;
+		private BoardObjectActor current;
+
 		private boolean placeholderIsLeft;
 		private boolean placeholderAlreadyVisible;
 
-		public ObjectTarget(BoardObjectActor actor) {
+		public BoardActorTarget(BoardActor actor) {
 			super(actor);
 		}
 
 		@Override
-		public boolean drag(Source dragSource, Payload payload, float x,
-				float y, int pointer) {
-			BoardObjectActor targetActor = ((BoardObjectActor) getActor());
+		public boolean drag(Source source, Payload payload, float x, float y,
+				int pointer) {
+			BoardObjectActor dragged = (BoardObjectActor) payload.getObject();
+			DropPosition oldPosition = position;
+			BoardObjectActor oldActor = current;
+			resolve(x, y, dragged);
+			if (position != oldPosition || current != oldActor) {
+				leave(oldPosition);
+			}
+
+			switch (position) {
+			case BOARD:
+				b.setBackgroundColor(new Color(0.f, 1.f, 0.f, .5f));
+				return true;
+			case SELF:
+				return true;
+			case OBJECT:
+				return dragOverObject(current, point.x - current.getX(),
+						payload);
+			case GAP:
+				// push aside the left neighbour's right side
+				dragOverObject(current, current.getWidth() + 1, payload);
+				return false;
+			default:
+				return false;
+			}
+		}
+
+		/**
+		 * Finds the actor under the given point, or the gap between two
+		 * siblings the point lies in. Sets position and current accordingly
+		 * and leaves the point's world coordinates in point.
+		 */
+		private void resolve(float x, float y, BoardObjectActor dragged) {
+			ActorSpatialIndex index = b.getLayout().getSpatialIndex();
+			point.set(x, y);
+			b.boardActorToWorldCoordinates(point);
+
+			found.clear();
+			index.query(point.x, point.y, found);
+			BoardObjectActor over = null;
+			for (BoardObjectActor actor : found) {
+				if (actor == placeHolderActor) {
+					continue;
+				}
+				if (over == null || actor.getZIndex() > over.getZIndex()) {
+					over = actor;
+				}
+			}
+			if (over != null) {
+				position = over == dragged ? DropPosition.SELF
+						: DropPosition.OBJECT;
+				current = over;
+				return;
+			}
+
+			// look for neighbouring siblings within the padding around point
+			final float padding = b.getLayoutConfiguration()
+					.getHorizontalPadding();
+			area.set(point.x - padding, point.y, 2 * padding, 0);
+			found.clear();
+			index.query(area, found);
+			BoardObjectActor left = null;
+			BoardObjectActor right = null;
+			for (BoardObjectActor actor : found) {
+				if (actor == placeHolderActor || actor == dragged) {
+					continue;
+				}
+				if (actor.getX() + actor.getWidth() <= point.x) {
+					if (left == null
+							|| actor.getX() + actor.getWidth() > left.getX()
+									+ left.getWidth()) {
+						left = actor;
+					}
+				} else if (actor.getX() >= point.x) {
+					if (right == null || actor.getX() < right.getX()) {
+						right = actor;
+					}
+				}
+			}
+			if (left != null && right != null && areNeighbours(left, right)) {
+				position = DropPosition.GAP;
+				current = left;
+			} else {
+				position = DropPosition.BOARD;
+				current = null;
+			}
+		}
+
+		/*
+		 * whether the given actors' objects are siblings with nothing but the
+		 * placeholder between them
+		 */
+		private boolean areNeighbours(BoardObjectActor left,
+				BoardObjectActor right) {
+			Parent parent = left.getBoardObject().getParent();
+			if (parent == null || right.getBoardObject().getParent() != parent) {
+				return false;
+			}
+			InternalBoardObject placeholder = placeHolderActor.getBoardObject();
+			int leftPos = parent.getChildPosition(left.getBoardObject());
+			int rightPos = parent.getChildPosition(right.getBoardObject());
+			for (int i = leftPos + 1; i < rightPos; i++) {
+				if (parent.getChildAtPosition(i) != placeholder) {
+					return false;
+				}
+			}
+			return leftPos < rightPos;
+		}
+
+		/**
+		 * Simulates the dragged object to be moved before or after the given
+		 * target, if dragged over the target's left or right part.
+		 * 
+		 * @param targetActor
+		 *            the actor dragged over
+		 * @param x
+		 *            the drag position relative to the target's left edge
+		 * @param payload
+		 * @return whether dropping onto the target is possible
+		 */
+		private boolean dragOverObject(BoardObjectActor targetActor, float x,
+				Payload payload) {
 			InternalBoardObject target = targetActor.getBoardObject();
 			boolean isParent = target instanceof Parent;
 
@@ -457,14 +584,6 @@ class BoardActorLayoutEditing {
 			final float left = targetActor.getWidth() / pushSpace;
 			final float right = targetActor.getWidth() - left;
 
-			/*
-			 * calculate if the drag actually occurred on those areas
-			 */
-			point.set(x, y);
-			point = targetActor.localToStageCoordinates(point);
-			point = b.stageToLocalCoordinates(point);
-			point = b.boardActorToWorldCoordinates(point);
-
 			Parent parent = target.getParent();
 			int targetChildPos = parent.getChildPosition(target);
 
@@ -515,17 +634,16 @@ class BoardActorLayoutEditing {
 						placeholderAlreadyVisible = true;
 					}
 				} else {
-					reset(dragSource, payload);
+					removePlaceholder();
 				}
 			} else {
-				reset(dragSource, payload);
+				removePlaceholder();
 			}
 
 			return isParent;
 		}
 
-		@Override
-		public void reset(Source source, Payload payload) {
+		private void removePlaceholder() {
 			if (!placeholderTarget.isDraggedOver()) {
 				InternalBoardObject placeholder = placeHolderActor
 						.getBoardObject();
@@ -536,67 +654,56 @@ class BoardActorLayoutEditing {
 			}
 		}
 
-		@Override
-		public void drop(Source source, Payload payload, float x, float y,
-				int pointer) {
-			// this method is only called if we have a parent actor as target
-			Parent p = ((Parent) ((BoardObjectActor) getActor())
-					.getBoardObject());
-			BoardObjectActor payloadActor = (BoardObjectActor) payload
-					.getObject();
-			InternalBoardObject payloadObject = payloadActor.getBoardObject();
-			extractBoardObject(payloadObject);
-			p.addChild(payloadObject);
-			if (!b.getLayout().hasActor(payloadActor)) {
-				b.addLayoutActor(payloadActor);
-				registerLayoutListeners(payloadActor);
-
-				messenger.notifyObjectPlaced(payloadObject);
-			} else {
-				messenger.notifyObjectMoved(payloadObject);
+		/*
+		 * undoes the visual effects of having dragged over the given position
+		 */
+		private void leave(DropPosition left) {
+			if (left == DropPosition.BOARD) {
+				b.setBackgroundColor(new Color(1.f, 1.f, 1.f, 0.f));
+			} else if (left == DropPosition.OBJECT || left == DropPosition.GAP) {
+				removePlaceholder();
 			}
 		}
-	}
-
-	private class BoardActorTarget extends Target {
-
-		public BoardActorTarget(BoardActor actor) {
-			super(actor);
-		}
-
-		@Override
-		public boolean drag(Source source, Payload payload, float x, float y,
-				int pointer) {
-			b.setBackgroundColor(new Color(0.f, 1.f, 0.f, .5f));
-			return true;
-		}
 
 		@Override
 		public void reset(Source source, Payload payload) {
-			b.setBackgroundColor(new Color(1.f, 1.f, 1.f, 0.f));
+			leave(position);
+			position = null;
+			current = null;
 		}
 
 		@Override
 		public void drop(Source source, Payload payload, float x, float y,
 				int pointer) {
-			Parent p = (((BoardActor) getActor()).getLayout().getBoard());
+			if (position == DropPosition.OBJECT) {
+				// only valid if we have a parent actor as target
+				dropInto((Parent) current.getBoardObject(), payload, x, y);
+			} else if (position == DropPosition.BOARD) {
+				dropInto(b.getLayout().getBoard(), payload, x, y);
+			}
+		}
+
+		private void dropInto(Parent p, Payload payload, float x, float y) {
 			BoardObjectActor payloadActor = (BoardObjectActor) payload
 					.getObject();
 			InternalBoardObject payloadObject = payloadActor.getBoardObject();
 			extractBoardObject(payloadObject);
 
-			Vector2 point = new Vector2(x, y);
-			if (b.boardActorToWorldCoordinates(point).x < b
-					.getLayoutConfiguration().getTreeOrigin().x
-					+ b.getLayout().getLayoutStatistics().getWidthMap()
-							.get(b.getLayout().getBoard()) / 2) {
-				p.insertChild(payloadObject, 0);
+			if (p == b.getLayout().getBoard()) {
+				Vector2 point = new Vector2(x, y);
+				if (b.boardActorToWorldCoordinates(point).x < b
+						.getLayoutConfiguration().getTreeOrigin().x
+						+ b.getLayout().getLayoutStatistics()
+								.getWidth(b.getLayout().getBoard()) / 2) {
+					p.insertChild(payloadObject, 0);
+				} else {
+					p.addChild(payloadObject);
+				}
 			} else {
 				p.addChild(payloadObject);
 			}
 			if (!b.getLayout().hasActor(payloadActor)) {
 				b.addLayoutActor(payloadActor);
-				registerLayoutListeners(payloadActor);
 
 				messenger.notifyObjectPlaced(payloadObject);
 			} else {
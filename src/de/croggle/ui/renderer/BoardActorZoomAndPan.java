@@ -1,16 +1,14 @@
 package de.croggle.ui.renderer;
 
-import java.util.Map;
-
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.utils.ActorGestureListener;
 
 import de.croggle.game.board.Board;
-import de.croggle.game.board.BoardObject;
 import de.croggle.ui.renderer.layout.ActorLayout;
 import de.croggle.ui.renderer.layout.ActorLayoutConfiguration;
+import de.croggle.ui.renderer.layout.ActorLayoutStatistics;
 
 class BoardActorZoomAndPan extends ActorGestureListener {
 	private final BoardActor b;
@@ -118,9 +116,7 @@ class BoardActorZoomAndPan extends ActorGestureListener {
 		ActorLayoutConfiguration config = layout.getLayoutConfiguration();
 
 		Board b = layout.getBoard();
-		Map<BoardObject, Float> heightMap = layout.getLayoutStatistics()
-				.getHeightMap();
-		float boardHeight = heightMap.get(b);
+		float boardHeight = layout.getLayoutStatistics().getHeight(b);
 
 		// zoom limits
 		float lowestScale = layout.getMinimumScale();
@@ -137,15 +133,12 @@ class BoardActorZoomAndPan extends ActorGestureListener {
 		ActorLayoutConfiguration config = layout.getLayoutConfiguration();
 
 		Board b = layout.getBoard();
-		Map<BoardObject, Float> heightMap = layout.getLayoutStatistics()
-				.getHeightMap();
-		Map<BoardObject, Float> widthMap = layout.getLayoutStatistics()
-				.getWidthMap();
+		ActorLayoutStatistics statistics = layout.getLayoutStatistics();
 
 		Vector2 origin = config.getTreeOrigin();
 
-		float boardHeight = heightMap.get(b);
-		float boardWidth = widthMap.get(b);
+		float boardHeight = statistics.getHeight(b);
+		float boardWidth = statistics.getWidth(b);
 
 		// pan limits
 		maxX = this.b.getWidth() - origin.x * zoom;
@@ -126,8 +126,7 @@ public class ColorSelectorPopup extends Table {
 			AssetManager assets = AssetManager.getInstance();
 			Drawable up;
 			if (colorBlindEnabled) {
-				up = new TextureRegionDrawable(new TextureRegion(
-						assets.getPatternTexture(c)));
+				up = new TextureRegionDrawable(assets.getPatternRegion(c));
 			} else {
 				up = new TextureRegionDrawable(new TextureRegion(
 						assets.getColorTexture(c)));
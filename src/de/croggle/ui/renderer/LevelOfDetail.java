@@ -0,0 +1,167 @@
+package de.croggle.ui.renderer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import de.croggle.data.AssetManager;
+import de.croggle.game.ColorController;
+import de.croggle.game.board.Board;
+import de.croggle.game.board.ColoredBoardObject;
+import de.croggle.game.board.InternalBoardObject;
+import de.croggle.game.board.Parent;
+import de.croggle.ui.renderer.layout.ActorLayout;
+import de.croggle.ui.renderer.layout.ActorLayoutConfiguration;
+import de.croggle.ui.renderer.layout.ActorLayoutStatistics;
+import de.croggle.ui.renderer.layout.TreeGrowth;
+import de.croggle.ui.renderer.objectactors.BoardObjectActor;
+
+/**
+ * Level of detail rendering for the {@link WorldPane}. Families whose width on
+ * the screen falls below the
+ * {@link ActorLayoutConfiguration#getLevelOfDetailThreshold() threshold} are
+ * collapsed into a single block in the color of the family's topmost
+ * {@link BoardObjectActor}, so the number of actors drawn with the full shader
+ * is bounded by the screen size rather than by the size of the term.
+ *
+ * Since a family is never wider than its parent family, the collapsed families
+ * are always complete subtrees, and it suffices to look at the ancestors of an
+ * actor to find the family it is collapsed into.
+ */
+class LevelOfDetail {
+	private static final Color agedColor = new Color(.8f, .8f, .8f, 1.f);
+
+	private final BoardActor b;
+	/*
+	 * the roots of the families already drawn as a block in the current frame
+	 */
+	private final Set<BoardObjectActor> drawn;
+	private final Color tmp = new Color();
+	private Texture block;
+	private boolean enabled;
+	private float minWidth;
+
+	LevelOfDetail(BoardActor b) {
+		this.b = b;
+		drawn = new HashSet<BoardObjectActor>();
+	}
+
+	/**
+	 * Prepares drawing a new frame.
+	 *
+	 * @param scale
+	 *            the number of screen units a unit in the world takes up
+	 */
+	void begin(float scale) {
+		drawn.clear();
+		ActorLayoutConfiguration config = b.getLayoutConfiguration();
+		enabled = config.isLevelOfDetailEnabled() && scale > 0;
+		if (enabled) {
+			minWidth = config.getLevelOfDetailThreshold() / scale;
+		}
+	}
+
+	/**
+	 * Checks whether the given actor is part of a family being too small to be
+	 * drawn in detail. If so, the family is drawn as a single block, unless
+	 * this already happened during the current frame.
+	 *
+	 * @param batch
+	 *            the batch to draw the block with
+	 * @param actor
+	 *            the actor to check
+	 * @param parentAlpha
+	 *            the alpha of the actor's parent
+	 * @return true if the actor must not be drawn itself, false otherwise
+	 */
+	boolean drawCollapsed(SpriteBatch batch, BoardObjectActor actor,
+			float parentAlpha) {
+		if (!enabled) {
+			return false;
+		}
+		ActorLayout layout = b.getLayout();
+		ActorLayoutStatistics statistics = layout.getLayoutStatistics();
+		InternalBoardObject object = actor.getBoardObject();
+		// the width is NaN for objects not layouted yet
+		float width = statistics.getWidth(object);
+		if (!(width < minWidth)) {
+			return false;
+		}
+
+		// find the topmost ancestor that is still too small
+		Parent parent = object.getParent();
+		while (parent != null && !(parent instanceof Board)) {
+			float parentWidth = statistics.getWidth(parent);
+			if (!(parentWidth < minWidth)) {
+				break;
+			}
+			object = (InternalBoardObject) parent;
+			width = parentWidth;
+			parent = object.getParent();
+		}
+
+		BoardObjectActor root = layout.getActor(object);
+		if (root == null) {
+			root = actor;
+			object = actor.getBoardObject();
+			width = statistics.getWidth(object);
+		}
+		// families about to be created are added with a scale of zero
+		if (drawn.add(root) && root.getScaleX() != 0
+				&& root.getScaleY() != 0) {
+			float height = statistics.getHeight(object);
+			drawBlock(batch, root, width,
+					Float.isNaN(height) ? root.getHeight() : height, parentAlpha);
+		}
+		return true;
+	}
+
+	private void drawBlock(SpriteBatch batch, BoardObjectActor root,
+			float width, float height, float parentAlpha) {
+		if (block == null) {
+			block = AssetManager.getInstance().getColorTexture(
+					de.croggle.game.Color.uncolored());
+		}
+		// families are centered below their topmost actor
+		float x = root.getX() + root.getWidth() / 2 - width / 2;
+		float top = Math.max(root.getY(), root.getY() + root.getHeight());
+		float bottom = Math.min(root.getY(), root.getY() + root.getHeight());
+		float y;
+		if (b.getLayoutConfiguration().getVerticalGrowth() == TreeGrowth.POS_NEG) {
+			y = top - height;
+		} else {
+			y = bottom;
+		}
+
+		Color old = batch.getColor();
+		float r = old.r;
+		float g = old.g;
+		float bl = old.b;
+		float a = old.a;
+		Color c = getBlockColor(root);
+		batch.setColor(c.r, c.g, c.b, c.a * root.getColor().a * parentAlpha);
+		batch.draw(block, x, y, width, height);
+		batch.setColor(r, g, bl, a);
+	}
+
+	private Color getBlockColor(BoardObjectActor root) {
+		InternalBoardObject object = root.getBoardObject();
+		if (object instanceof ColoredBoardObject) {
+			de.croggle.game.Color color = ((ColoredBoardObject) object)
+					.getColor();
+			ColorController controller = b.getLayoutConfiguration()
+					.getColorController();
+			if (controller != null) {
+				return tmp.set(controller.getRepresentation(color));
+			} else if (color.equals(de.croggle.game.Color.uncolored())) {
+				return tmp.set(Color.WHITE);
+			} else {
+				return tmp.set(de.croggle.game.Color.getRepresentation(color));
+			}
+		}
+		return tmp.set(agedColor);
+	}
+}
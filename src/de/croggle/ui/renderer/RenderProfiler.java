@@ -0,0 +1,348 @@
+package de.croggle.ui.renderer;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.Gdx;
+
+import de.croggle.AlligatorApp;
+
+/**
+ * Collects per-frame timings and counts of the board renderer, e.g. the time
+ * spent fixing {@link de.croggle.ui.renderer.layout.ActorLayout layouts}, the
+ * number of draw calls or texture binds, and keeps them for a rolling window
+ * of frames to calculate percentiles from.
+ *
+ * Measuring is enabled if {@link AlligatorApp#DEBUG} is set, but can be turned
+ * on and off at runtime. While disabled, all recording methods return
+ * immediately.
+ *
+ * A frame is completed by calling {@link #endFrame()}, which the
+ * {@link AlligatorApp} does once per rendered frame, so the values of all
+ * boards shown on a screen are added up in the same frame.
+ */
+public final class RenderProfiler {
+
+	/**
+	 * The quantities measured by the profiler.
+	 */
+	public static enum Metric {
+		/**
+		 * Milliseconds between the last two completed frames
+		 */
+		FRAME("frame", true),
+		/**
+		 * Milliseconds spent drawing boards
+		 */
+		BOARD_DRAW("board draw", true),
+		/**
+		 * Milliseconds spent in ActorLayout.fix
+		 */
+		LAYOUT_FIX("layout fix", true),
+		/**
+		 * Milliseconds spent calculating the deltas to fix a layout
+		 */
+		LAYOUT_DELTAS("layout deltas", true),
+		/**
+		 * Milliseconds spent calculating the widths and heights of layouts and
+		 * rebuilding their statistics
+		 */
+		SIZE_MAPS("size maps", true),
+		/**
+		 * Milliseconds spent applying layout deltas to actors
+		 */
+		DELTA_APPLICATION("delta application", true),
+		/**
+		 * Milliseconds spent drawing colored board objects
+		 */
+		OBJECT_DRAW("object draw", true),
+		/**
+		 * Number of colored board objects drawn, i.e. of draw calls issued
+		 * besides the sprite batch
+		 */
+		OBJECT_DRAWS("object draws", false),
+		/**
+		 * Number of textures bound by board objects
+		 */
+		TEXTURE_BINDS("texture binds", false),
+		/**
+		 * Number of actors drawn by the world pane
+		 */
+		ACTORS_DRAWN("actors drawn", false),
+		/**
+		 * Number of actors in the displayed layout
+		 */
+		ACTORS_TOTAL("actors total", false),
+		/**
+		 * Number of families rendered into a cache texture
+		 */
+		CACHE_RENDERS("cache renders", false),
+		/**
+		 * Number of families currently held in cache textures
+		 */
+		CACHED_FAMILIES("cached families", false),
+		/**
+		 * Number of animations waiting to be played
+		 */
+		ANIMATION_QUEUE("animation queue", false);
+
+		private final String label;
+		private final boolean timing;
+
+		private Metric(String label, boolean timing) {
+			this.label = label;
+			this.timing = timing;
+		}
+
+		/**
+		 *
+		 * @return a short human readable name of this metric
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 *
+		 * @return true if this metric is measured in milliseconds, false if it
+		 *         is a count
+		 */
+		public boolean isTiming() {
+			return timing;
+		}
+	}
+
+	private static final String TAG = "RenderProfiler";
+	private static final int windowSize = 240;
+	private static final Metric[] metrics = Metric.values();
+
+	private static boolean enabled = AlligatorApp.DEBUG;
+	/*
+	 * number of frames after which the percentiles are logged automatically. 0
+	 * for never
+	 */
+	private static int logInterval = AlligatorApp.DEBUG ? 600 : 0;
+
+	private static final float[] current = new float[metrics.length];
+	private static final float[] last = new float[metrics.length];
+	private static final float[][] window = new float[metrics.length][windowSize];
+	private static final float[] sortBuffer = new float[windowSize];
+	/*
+	 * total number of frames recorded since the last reset
+	 */
+	private static int frames = 0;
+	private static long lastFrameEnd = 0;
+
+	private RenderProfiler() {
+	}
+
+	/**
+	 *
+	 * @return whether the profiler is currently recording
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns recording on or off. Turning it on discards all values recorded
+	 * before.
+	 *
+	 * @param enabled
+	 */
+	public static void setEnabled(boolean enabled) {
+		if (enabled && !RenderProfiler.enabled) {
+			reset();
+		}
+		RenderProfiler.enabled = enabled;
+	}
+
+	/**
+	 * Sets the number of frames after which the rolling percentiles are
+	 * written to the log.
+	 *
+	 * @param frames
+	 *            the number of frames between two log entries, 0 to disable
+	 *            automatic logging
+	 */
+	public static void setLogInterval(int frames) {
+		if (frames < 0) {
+			throw new IllegalArgumentException(
+					"Log interval must not be negative");
+		}
+		logInterval = frames;
+	}
+
+	/**
+	 * Starts a time measurement, to be finished using
+	 * {@link #stop(Metric, long)}.
+	 *
+	 * @return the start time to pass on to stop
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : -1;
+	}
+
+	/**
+	 * Adds the time passed since the given start time to the current frame's
+	 * value of the given metric.
+	 *
+	 * @param metric
+	 *            the timing metric to add to
+	 * @param start
+	 *            the value returned by {@link #start()}
+	 */
+	public static void stop(Metric metric, long start) {
+		if (enabled && start >= 0) {
+			current[metric.ordinal()] += (System.nanoTime() - start) / 1000000.f;
+		}
+	}
+
+	/**
+	 * Adds the given number to the current frame's value of the given metric.
+	 *
+	 * @param metric
+	 * @param n
+	 */
+	public static void count(Metric metric, int n) {
+		if (enabled) {
+			current[metric.ordinal()] += n;
+		}
+	}
+
+	/**
+	 * Sets the current frame's value of the given metric, e.g. for sizes that
+	 * are not accumulated during a frame.
+	 *
+	 * @param metric
+	 * @param value
+	 */
+	public static void set(Metric metric, float value) {
+		if (enabled) {
+			current[metric.ordinal()] = value;
+		}
+	}
+
+	/**
+	 * Completes the current frame, moving its values into the rolling window.
+	 */
+	public static void endFrame() {
+		if (!enabled) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (lastFrameEnd != 0) {
+			current[Metric.FRAME.ordinal()] = (now - lastFrameEnd) / 1000000.f;
+		}
+		lastFrameEnd = now;
+
+		int slot = frames % windowSize;
+		for (int i = 0; i < metrics.length; i++) {
+			window[i][slot] = current[i];
+			last[i] = current[i];
+			current[i] = 0;
+		}
+		frames++;
+
+		if (logInterval > 0 && frames % logInterval == 0) {
+			log();
+		}
+	}
+
+	/**
+	 * Discards all recorded values.
+	 */
+	public static void reset() {
+		for (int i = 0; i < metrics.length; i++) {
+			current[i] = 0;
+			last[i] = 0;
+		}
+		frames = 0;
+		lastFrameEnd = 0;
+	}
+
+	/**
+	 *
+	 * @return the number of frames currently inside the rolling window
+	 */
+	public static int getWindowFrames() {
+		return Math.min(frames, windowSize);
+	}
+
+	/**
+	 * Returns the value the given metric had in the last completed frame.
+	 *
+	 * @param metric
+	 * @return the metric's last value
+	 */
+	public static float getLast(Metric metric) {
+		return last[metric.ordinal()];
+	}
+
+	/**
+	 * Calculates the given percentile of the given metric over the rolling
+	 * window of completed frames.
+	 *
+	 * @param metric
+	 *            the metric to evaluate
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 * @return the value of the metric not exceeded in the given percentage of
+	 *         frames, or 0 if no frame was recorded yet
+	 */
+	public static float getPercentile(Metric metric, float percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(
+					"Percentile must be between 0 and 100");
+		}
+		int n = getWindowFrames();
+		if (n == 0) {
+			return 0;
+		}
+		System.arraycopy(window[metric.ordinal()], 0, sortBuffer, 0, n);
+		Arrays.sort(sortBuffer, 0, n);
+		int i = (int) Math.ceil(percentile / 100 * n) - 1;
+		return sortBuffer[Math.max(0, Math.min(n - 1, i))];
+	}
+
+	/**
+	 * Creates a table of the last value and the 50th, 90th and 99th
+	 * percentile of every metric.
+	 *
+	 * @return a multi line summary of the recorded values
+	 */
+	public static String summarize() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("metric: last / p50 / p90 / p99 over ")
+				.append(getWindowFrames()).append(" frames");
+		for (Metric m : metrics) {
+			sb.append('\n').append(m.getLabel()).append(": ");
+			append(sb, m, getLast(m));
+			sb.append(" / ");
+			append(sb, m, getPercentile(m, 50));
+			sb.append(" / ");
+			append(sb, m, getPercentile(m, 90));
+			sb.append(" / ");
+			append(sb, m, getPercentile(m, 99));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the {@link #summarize() summary} of the recorded values to the
+	 * application's log.
+	 */
+	public static void log() {
+		if (Gdx.app != null) {
+			Gdx.app.log(TAG, summarize());
+		}
+	}
+
+	private static void append(StringBuilder sb, Metric m, float value) {
+		if (m.isTiming()) {
+			// two decimal places are enough for milliseconds
+			sb.append(Math.round(value * 100) / 100.f);
+		} else {
+			sb.append(Math.round(value));
+		}
+	}
+}
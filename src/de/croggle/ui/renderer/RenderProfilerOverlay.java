@@ -0,0 +1,65 @@
+package de.croggle.ui.renderer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+/**
+ * Displays the values recorded by the {@link RenderProfiler} in the upper left
+ * corner of the screen. Only used if debugging is enabled, in which case the
+ * {@link de.croggle.AlligatorApp AlligatorApp} owns a single overlay drawn on
+ * top of every screen.
+ */
+public class RenderProfilerOverlay {
+	/*
+	 * number of frames to keep the displayed text, so that the overlay itself
+	 * does not spend too much time creating strings
+	 */
+	private static final int refreshInterval = 30;
+	private static final float margin = 8;
+
+	private final BitmapFont font;
+	private String text = "";
+	private int framesSinceRefresh = refreshInterval;
+
+	/**
+	 * Creates a new overlay, which has to be disposed when it is not needed
+	 * anymore.
+	 */
+	public RenderProfilerOverlay() {
+		// the default font shipped with libgdx, independent of the skin
+		font = new BitmapFont();
+		font.setColor(Color.BLACK);
+	}
+
+	/**
+	 * Draws the profiler's summary in the upper left corner of the screen.
+	 * Must be called outside of {@link SpriteBatch#begin()} and
+	 * {@link SpriteBatch#end()}, as the batch's projection is replaced.
+	 *
+	 * @param batch
+	 */
+	public void draw(SpriteBatch batch) {
+		if (!RenderProfiler.isEnabled()) {
+			return;
+		}
+		if (++framesSinceRefresh >= refreshInterval) {
+			framesSinceRefresh = 0;
+			text = RenderProfiler.summarize();
+		}
+		float height = Gdx.graphics.getHeight();
+		batch.getProjectionMatrix().setToOrtho2D(0, 0,
+				Gdx.graphics.getWidth(), height);
+		batch.begin();
+		font.drawMultiLine(batch, text, margin, height - margin);
+		batch.end();
+	}
+
+	/**
+	 * Releases the font of the overlay.
+	 */
+	public void dispose() {
+		font.dispose();
+	}
+}
@@ -0,0 +1,436 @@
+package de.croggle.ui.renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+
+import de.croggle.game.board.Board;
+import de.croggle.game.board.BoardObject;
+import de.croggle.game.board.InternalBoardObject;
+import de.croggle.game.board.Parent;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
+import de.croggle.ui.renderer.layout.ActorLayout;
+import de.croggle.ui.renderer.layout.ActorLayoutStatistics;
+import de.croggle.ui.renderer.objectactors.BoardObjectActor;
+
+/**
+ * Caches the appearance of families that did not change for a while in
+ * {@link FrameBuffer} textures, so that the {@link WorldPane} can draw them
+ * with a single textured quad instead of drawing every single actor with the
+ * board object shader. During a simulation, only the families involved in the
+ * current step need to be drawn actor by actor.
+ *
+ * Families are invalidated by the events the {@link BoardActor} receives, and
+ * by actors starting to run actions. Invalidating an object also invalidates
+ * all of its ancestors, so if an object has not been invalidated recently, its
+ * whole subtree is unchanged. As with the {@link LevelOfDetail}, it therefore
+ * suffices to look at the ancestors of an actor to find the family it is
+ * drawn with.
+ *
+ * Caching is suspended while the user is able to edit the board.
+ */
+class SubtreeCache {
+	/*
+	 * number of frames an object must stay unchanged before its family may be
+	 * cached
+	 */
+	private static final int settleFrames = 30;
+	/*
+	 * number of frames a cache may stay unused before it is disposed
+	 */
+	private static final int unusedFrames = 120;
+	private static final int maxCaches = 32;
+	private static final int maxRendersPerFrame = 1;
+	/*
+	 * the maximum width and height of a cache texture, in pixels
+	 */
+	private static final int maxSize = 1024;
+	/*
+	 * families smaller than this (in square pixels) are cheaper to draw
+	 * directly
+	 */
+	private static final float minArea = 96 * 96;
+	/*
+	 * caches are rendered again if the zoom changed by more than this factor
+	 */
+	private static final float maxScaleDeviation = 1.25f;
+
+	private final BoardActor b;
+	/*
+	 * the frame in which a board object was last invalidated, by object id
+	 */
+	private final IntIntMap changed;
+	/*
+	 * the caches, by id of the family's root
+	 */
+	private final IntMap<Entry> entries;
+	private final List<InternalBoardObject> traversal;
+	private final List<BoardObjectActor> family;
+	private final Matrix4 projection = new Matrix4();
+	private final Matrix4 transform = new Matrix4();
+	private final Matrix4 cacheProjection = new Matrix4();
+	private final Matrix4 identity = new Matrix4();
+
+	private boolean enabled;
+	private int frame;
+	/*
+	 * the frame in which all objects were last invalidated
+	 */
+	private int allChanged;
+	private float scale;
+	private int rendersLeft;
+
+	SubtreeCache(BoardActor b) {
+		this.b = b;
+		changed = new IntIntMap();
+		entries = new IntMap<Entry>();
+		traversal = new ArrayList<InternalBoardObject>();
+		family = new ArrayList<BoardObjectActor>();
+		enabled = false;
+		frame = 0;
+		allChanged = 0;
+	}
+
+	/**
+	 * Allows or forbids caching at all. Needs to be forbidden if no OpenGL ES
+	 * 2.0 context is available.
+	 *
+	 * @param enabled
+	 */
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Marks the given object and its ancestors as changed, discarding the
+	 * caches of all families containing the object.
+	 *
+	 * @param object
+	 */
+	void invalidate(BoardObject object) {
+		while (object != null) {
+			int id = object.getId();
+			changed.put(id, frame);
+			Entry e = entries.remove(id);
+			if (e != null) {
+				e.dispose();
+			}
+			if (object instanceof InternalBoardObject) {
+				object = ((InternalBoardObject) object).getParent();
+			} else {
+				object = null;
+			}
+		}
+	}
+
+	/**
+	 * Marks all objects as changed and discards all caches.
+	 */
+	void invalidateAll() {
+		allChanged = frame;
+		changed.clear();
+		clear();
+	}
+
+	/**
+	 * Disposes all cache textures.
+	 */
+	void clear() {
+		for (Entry e : entries.values()) {
+			e.dispose();
+		}
+		entries.clear();
+	}
+
+	/**
+	 * Prepares drawing a new frame.
+	 *
+	 * @param scale
+	 *            the number of screen units a unit in the world takes up
+	 */
+	void begin(float scale) {
+		frame++;
+		rendersLeft = maxRendersPerFrame;
+		Stage stage = b.getStage();
+		if (stage != null && stage.getWidth() > 0) {
+			// caches are rendered in pixels, not in stage units
+			scale *= Gdx.graphics.getWidth() / stage.getWidth();
+		}
+		this.scale = scale;
+
+		if (frame % unusedFrames == 0) {
+			evict();
+		}
+		RenderProfiler.set(Metric.CACHED_FAMILIES, entries.size);
+	}
+
+	private void evict() {
+		IntMap.Entries<Entry> it = entries.entries();
+		while (it.hasNext()) {
+			Entry e = it.next().value;
+			if (frame - e.lastUsed >= unusedFrames) {
+				e.dispose();
+				it.remove();
+			}
+		}
+		// forget about changes long settled
+		IntIntMap.Entries changes = changed.entries();
+		while (changes.hasNext()) {
+			if (frame - changes.next().value > settleFrames) {
+				changes.remove();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the given actor belongs to a family that is unchanged for
+	 * long enough to be drawn from a cache. If so, the family's cache is drawn,
+	 * unless this already happened during the current frame. Families not yet
+	 * cached are rendered into a new cache first, at most one per frame.
+	 *
+	 * @param batch
+	 *            the batch to draw the cache with
+	 * @param actor
+	 *            the actor to check
+	 * @param parentAlpha
+	 *            the alpha of the actor's parent
+	 * @return true if the actor must not be drawn itself, false otherwise
+	 */
+	boolean drawCached(SpriteBatch batch, BoardObjectActor actor,
+			float parentAlpha) {
+		// while editing, actors are changed in too many ways to keep track of
+		if (!enabled || !b.getLayoutConfiguration().isSubtreeCachingEnabled()
+				|| b.isUserLayoutInteractionEnabled()
+				|| frame - allChanged <= settleFrames) {
+			return false;
+		}
+		InternalBoardObject object = actor.getBoardObject();
+		if (object == null || !isSettled(object)) {
+			return false;
+		}
+		ActorLayoutStatistics statistics = b.getLayout()
+				.getLayoutStatistics();
+		if (!fits(statistics, object)) {
+			return false;
+		}
+
+		// find the topmost unchanged ancestor still fitting into a texture
+		Parent parent = object.getParent();
+		while (parent != null && !(parent instanceof Board)
+				&& isSettled(parent) && fits(statistics, parent)) {
+			object = (InternalBoardObject) parent;
+			parent = object.getParent();
+		}
+
+		Entry e = entries.get(object.getId());
+		if (e != null && !e.isValid(scale)) {
+			entries.remove(object.getId());
+			e.dispose();
+			e = null;
+		}
+		if (e == null) {
+			float w = statistics.getWidth(object) * scale;
+			float h = statistics.getHeight(object) * scale;
+			if (!(w * h >= minArea) || rendersLeft == 0
+					|| entries.size >= maxCaches) {
+				return false;
+			}
+			rendersLeft--;
+			e = render(batch, object);
+			if (e == null) {
+				// try again once the family has settled
+				invalidate(object);
+				return false;
+			}
+			entries.put(object.getId(), e);
+		}
+		if (e.lastUsed != frame) {
+			e.lastUsed = frame;
+			e.draw(batch, parentAlpha);
+		}
+		return true;
+	}
+
+	private boolean isSettled(BoardObject object) {
+		int lastChange = changed.get(object.getId(), Integer.MIN_VALUE / 2);
+		return frame - lastChange > settleFrames;
+	}
+
+	private boolean fits(ActorLayoutStatistics statistics, BoardObject object) {
+		// NaN if the object is not layouted yet
+		return statistics.getWidth(object) * scale <= maxSize
+				&& statistics.getHeight(object) * scale <= maxSize;
+	}
+
+	/*
+	 * renders the actors of the given family into a new cache. Returns null if
+	 * the family is currently not in a state that can be cached
+	 */
+	private Entry render(SpriteBatch batch, InternalBoardObject root) {
+		if (!collectFamily(root)) {
+			return null;
+		}
+		// the bounds of the actors as they are, which may still differ from
+		// the sizes of the layout's statistics
+		float x1 = Float.POSITIVE_INFINITY;
+		float y1 = Float.POSITIVE_INFINITY;
+		float x2 = Float.NEGATIVE_INFINITY;
+		float y2 = Float.NEGATIVE_INFINITY;
+		for (BoardObjectActor actor : family) {
+			float x = actor.getX();
+			float y = actor.getY();
+			x1 = Math.min(x1, Math.min(x, x + actor.getWidth()));
+			x2 = Math.max(x2, Math.max(x, x + actor.getWidth()));
+			y1 = Math.min(y1, Math.min(y, y + actor.getHeight()));
+			y2 = Math.max(y2, Math.max(y, y + actor.getHeight()));
+		}
+		int pw = (int) Math.ceil((x2 - x1) * scale);
+		int ph = (int) Math.ceil((y2 - y1) * scale);
+		if (pw <= 0 || ph <= 0 || pw > maxSize || ph > maxSize) {
+			family.clear();
+			return null;
+		}
+
+		Entry e = new Entry(new FrameBuffer(Format.RGBA8888, pw, ph, false),
+				x1, y1, x2 - x1, y2 - y1, scale);
+
+		batch.end();
+		projection.set(batch.getProjectionMatrix());
+		transform.set(batch.getTransformMatrix());
+		// the BoardActor's clipping must not cut off the cache's content
+		Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+		e.buffer.begin();
+		Gdx.gl.glClearColor(0, 0, 0, 0);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		batch.setProjectionMatrix(cacheProjection.setToOrtho2D(x1, y1, x2
+				- x1, y2 - y1));
+		batch.setTransformMatrix(identity.idt());
+		// blend the colors as usual, but add up the alpha values as coverage,
+		// so the buffer ends up holding colors premultiplied with their alpha.
+		// -1 keeps the batch and the actors from replacing this blend function
+		int srcFunc = batch.getBlendSrcFunc();
+		int dstFunc = batch.getBlendDstFunc();
+		batch.setBlendFunction(-1, -1);
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl20.glBlendFuncSeparate(GL20.GL_SRC_ALPHA,
+				GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE,
+				GL20.GL_ONE_MINUS_SRC_ALPHA);
+		batch.begin();
+		for (BoardObjectActor actor : family) {
+			actor.draw(batch, 1.f);
+		}
+		batch.end();
+		e.buffer.end();
+		Gdx.gl.glBlendFunc(srcFunc, dstFunc);
+		batch.setBlendFunction(srcFunc, dstFunc);
+		// the world pane is only drawn while the BoardActor clips
+		Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+		batch.setProjectionMatrix(projection);
+		batch.setTransformMatrix(transform);
+		batch.begin();
+
+		family.clear();
+		RenderProfiler.count(Metric.CACHE_RENDERS, 1);
+		return e;
+	}
+
+	/*
+	 * collects the actors representing the given family in drawing order.
+	 * Returns false if any of them is not in a static state
+	 */
+	private boolean collectFamily(InternalBoardObject root) {
+		ActorLayout layout = b.getLayout();
+		family.clear();
+		traversal.clear();
+		traversal.add(root);
+		while (!traversal.isEmpty()) {
+			InternalBoardObject object = traversal.remove(traversal.size() - 1);
+			BoardObjectActor actor = layout.getActor(object);
+			if (actor == null || actor.getActions().size > 0
+					|| actor.getScaleX() != 1 || actor.getScaleY() != 1
+					|| actor.getRotation() != 0) {
+				traversal.clear();
+				family.clear();
+				return false;
+			}
+			if (actor.isVisible() && actor.getParent() != null) {
+				family.add(actor);
+			}
+			if (object instanceof Parent) {
+				for (InternalBoardObject child : (Parent) object) {
+					traversal.add(child);
+				}
+			}
+		}
+		return true;
+	}
+
+	private static class Entry {
+		private final FrameBuffer buffer;
+		private final float x;
+		private final float y;
+		private final float width;
+		private final float height;
+		private final float scale;
+		/*
+		 * the texture handle at the time of rendering. Changes if the context
+		 * was lost, which also loses the rendered content
+		 */
+		private final int handle;
+		private int lastUsed;
+
+		Entry(FrameBuffer buffer, float x, float y, float width, float height,
+				float scale) {
+			this.buffer = buffer;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.scale = scale;
+			handle = buffer.getColorBufferTexture().getTextureObjectHandle();
+		}
+
+		boolean isValid(float scale) {
+			float ratio = scale / this.scale;
+			int current = buffer.getColorBufferTexture()
+					.getTextureObjectHandle();
+			return ratio <= maxScaleDeviation
+					&& ratio >= 1 / maxScaleDeviation && current == handle;
+		}
+
+		void draw(SpriteBatch batch, float parentAlpha) {
+			Texture texture = buffer.getColorBufferTexture();
+			// the actors were blended onto a transparent buffer with their
+			// alpha added up separately, so the texture's colors are
+			// premultiplied with their alpha
+			batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+			float r = batch.getColor().r;
+			float g = batch.getColor().g;
+			float bl = batch.getColor().b;
+			float a = batch.getColor().a;
+			batch.setColor(parentAlpha, parentAlpha, parentAlpha, parentAlpha);
+			batch.draw(texture, x, y, width, height, 0, 0, texture.getWidth(),
+					texture.getHeight(), false, true);
+			batch.setColor(r, g, bl, a);
+			batch.setBlendFunction(GL20.GL_SRC_ALPHA,
+					GL20.GL_ONE_MINUS_SRC_ALPHA);
+		}
+
+		void dispose() {
+			buffer.dispose();
+		}
+	}
+}
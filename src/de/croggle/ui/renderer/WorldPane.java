@@ -2,27 +2,78 @@ package de.croggle.ui.renderer;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+import de.croggle.ui.renderer.RenderProfiler.Metric;
+import de.croggle.ui.renderer.layout.ActorLayout;
+import de.croggle.ui.renderer.objectactors.BoardObjectActor;
 
 /**
  * An inner "pane" to have the world displayed on Only way to have the
- * coordinate translation functions overridden at the correct place
+ * coordinate translation functions overridden at the correct place.
+ * 
+ * Only actors intersecting the visible part of the world are drawn and hit
+ * tested. They are looked up using the layout's spatial index, with actors
+ * currently running actions always taken into consideration, since those might
+ * move away from their indexed bounds. Families too small to be seen in
+ * detail are drawn as a single block (see {@link LevelOfDetail}), and
+ * families that did not change for a while are drawn from a texture (see
+ * {@link SubtreeCache}).
  */
 class WorldPane extends Group {
 	private final BoardActor b;
+	private final LevelOfDetail levelOfDetail;
+	private final SubtreeCache subtreeCache;
 
 	WorldPane(BoardActor b) {
 		this.b = b;
+		levelOfDetail = new LevelOfDetail(b);
+		subtreeCache = new SubtreeCache(b);
 	}
 
 	private Vector2 point = new Vector2();
 
+	/*
+	 * the part of the world visible through the BoardActor, in local
+	 * coordinates
+	 */
+	private final Rectangle visibleArea = new Rectangle();
+	/*
+	 * children with running actions, in drawing order. Collected during act
+	 */
+	private final Array<Actor> animated = new Array<Actor>();
+	private final Array<BoardObjectActor> candidates = new Array<BoardObjectActor>();
+
+	@Override
+	public void act(float delta) {
+		super.act(delta);
+		animated.clear();
+		SnapshotArray<Actor> children = getChildren();
+		Actor[] actors = children.begin();
+		for (int i = 0, n = children.size; i < n; i++) {
+			if (actors[i].getActions().size > 0) {
+				animated.add(actors[i]);
+				// the family's appearance is about to change
+				if (actors[i] instanceof BoardObjectActor) {
+					subtreeCache.invalidate(((BoardObjectActor) actors[i])
+							.getBoardObject());
+				}
+			}
+		}
+		children.end();
+	}
+
 	@Override
 	public void draw(SpriteBatch batch, float parentAlpha) {
+		updateVisibleArea();
+
 		float x = getX();
 		float y = getY();
 
@@ -35,6 +86,71 @@ class WorldPane extends Group {
 		setY(y);
 	}
 
+	private void updateVisibleArea() {
+		parentToLocalCoordinates(point.set(0, 0));
+		float x1 = point.x;
+		float y1 = point.y;
+		parentToLocalCoordinates(point.set(b.getWidth(), b.getHeight()));
+		float x2 = point.x;
+		float y2 = point.y;
+		visibleArea.set(Math.min(x1, x2), Math.min(y1, y2),
+				Math.abs(x2 - x1), Math.abs(y2 - y1));
+	}
+
+	@Override
+	protected void drawChildren(SpriteBatch batch, float parentAlpha) {
+		ActorLayout layout = b.getLayout();
+		if (layout == null || !isTransform()) {
+			super.drawChildren(batch, parentAlpha);
+			return;
+		}
+		parentAlpha *= getColor().a;
+
+		// static actors inside the visible area. They don't overlap, so their
+		// order does not matter
+		levelOfDetail.begin(getScaleX() * b.getScaleX());
+		subtreeCache.begin(getScaleX() * b.getScaleX());
+		candidates.clear();
+		layout.getSpatialIndex().query(visibleArea, candidates);
+		int drawn = 0;
+		for (int i = 0, n = candidates.size; i < n; i++) {
+			BoardObjectActor child = candidates.get(i);
+			if (child.isVisible() && child.getParent() == this
+					&& child.getActions().size == 0
+					&& !subtreeCache.drawCached(batch, child, parentAlpha)
+					&& !levelOfDetail.drawCollapsed(batch, child, parentAlpha)) {
+				child.draw(batch, parentAlpha);
+				drawn++;
+			}
+		}
+
+		// animated actors on top, in their original order
+		for (int i = 0, n = animated.size; i < n; i++) {
+			Actor child = animated.get(i);
+			if (child.isVisible() && child.getParent() == this) {
+				child.draw(batch, parentAlpha);
+				drawn++;
+			}
+		}
+		batch.flush();
+		RenderProfiler.count(Metric.ACTORS_DRAWN, drawn);
+		RenderProfiler.set(Metric.ACTORS_TOTAL, layout.getSpatialIndex()
+				.size());
+	}
+
+	@Override
+	protected void setStage(Stage stage) {
+		super.setStage(stage);
+		if (stage == null) {
+			// release the cache textures while not being displayed
+			subtreeCache.clear();
+		}
+	}
+
+	SubtreeCache getSubtreeCache() {
+		return subtreeCache;
+	}
+
 	@Override
 	public Vector2 localToParentCoordinates(Vector2 localCoords) {
 		return localToParentCoordinates(localCoords, getScaleX());
@@ -81,18 +197,26 @@ class WorldPane extends Group {
 		// converter methods?
 		if (touchable && getTouchable() == Touchable.disabled)
 			return null;
-		Array<Actor> children = getChildren();
-		for (int i = children.size - 1; i >= 0; i--) {
-			Actor child = children.get(i);
-			if (!child.isVisible()) {
-				continue;
-			}
-			point = child.parentToLocalCoordinates(point.set(x, y));
-			Actor hit = child.hit(point.x, point.y, touchable);
+		// animated actors are drawn last and therefore hit first
+		for (int i = animated.size - 1; i >= 0; i--) {
+			Actor hit = hitChild(animated.get(i), x, y, touchable);
 			if (hit != null) {
 				return hit;
 			}
 		}
+		ActorLayout layout = b.getLayout();
+		if (layout != null) {
+			// static actors are drawn in the order of the query, so the last
+			// one is on top
+			candidates.clear();
+			layout.getSpatialIndex().query(x, y, candidates);
+			for (int i = candidates.size - 1; i >= 0; i--) {
+				Actor hit = hitChild(candidates.get(i), x, y, touchable);
+				if (hit != null) {
+					return hit;
+				}
+			}
+		}
 		point = localToParentCoordinates(point.set(x, y));
 		if (point.x <= b.getWidth() && point.y <= b.getHeight()) {
 			return this;
@@ -100,6 +224,14 @@ class WorldPane extends Group {
 		return null;
 	}
 
+	private Actor hitChild(Actor child, float x, float y, boolean touchable) {
+		if (!child.isVisible() || child.getParent() != this) {
+			return null;
+		}
+		point = child.parentToLocalCoordinates(point.set(x, y));
+		return child.hit(point.x, point.y, touchable);
+	}
+
 	@Override
 	public Vector2 parentToLocalCoordinates(Vector2 parentCoords) {
 		return parentToLocalCoordinates(parentCoords, getScaleX());
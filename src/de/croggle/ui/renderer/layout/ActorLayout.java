@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
 import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.ReflectionPool;
@@ -12,6 +12,8 @@ import com.badlogic.gdx.utils.ReflectionPool;
 import de.croggle.game.board.Board;
 import de.croggle.game.board.InternalBoardObject;
 import de.croggle.ui.renderer.BoardActor;
+import de.croggle.ui.renderer.RenderProfiler;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 import de.croggle.ui.renderer.objectactors.BoardObjectActor;
 
 /**
@@ -20,8 +22,11 @@ import de.croggle.ui.renderer.objectactors.BoardObjectActor;
  * <ul>
  * <li>the layout itself (a collection of {@link BoardActor}s)</li>
  * <li>the {@link Board} on which the layout is based</li>
- * <li>a map to lookup the actor representing a certain
- * {@link InternalBoardObject} in estimated O(1)</li>
+ * <li>a table to lookup the actor representing a certain
+ * {@link InternalBoardObject} by its {@link InternalBoardObject#getId() id} in
+ * estimated O(1)</li>
+ * <li>a {@link ActorSpatialIndex spatial index} to lookup the actors at a
+ * certain position or inside a certain area in O(log n)</li>
  * <li>the {@link ActorLayoutConfiguration configuration} the layout builder
  * used to layout the actors</li>
  * <li>useful {@link ActorLayoutStatistics statistics} generated during the
@@ -29,10 +34,11 @@ import de.croggle.ui.renderer.objectactors.BoardObjectActor;
  * </ul>
  */
 public class ActorLayout implements Iterable<BoardObjectActor> {
-	private final Map<InternalBoardObject, BoardObjectActor> layout;
+	private final NodeTable layout;
 	private final Board b;
 	private final ActorLayoutStatistics statistics;
 	private final ActorLayoutConfiguration config;
+	private final ActorSpatialIndex index;
 
 	private final Pool<ActorDelta> deltaPool;
 
@@ -43,34 +49,48 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 	/**
 	 * 
 	 * @param layout
+	 *            the table containing the layouted actors
+	 * @param sizes
+	 *            the table containing the sizes calculated during layouting
+	 * @param b
 	 * @param config
-	 * @param statistics
 	 */
-	ActorLayout(Map<InternalBoardObject, BoardObjectActor> layout, Board b,
+	ActorLayout(NodeTable layout, NodeTable sizes, Board b,
 			ActorLayoutConfiguration config) {
 		this.layout = layout;
 		this.b = b;
 		this.config = config;
 		// TODO maybe tweak the initial capacity value (currently random)
 		deltaPool = new ReflectionPool<ActorDelta>(ActorDelta.class, 40);
-		statistics = new ActorLayoutStatistics(this);
+		statistics = new ActorLayoutStatistics(this, sizes);
+		index = new ActorSpatialIndex();
+		for (int i = 0; i < layout.size(); i++) {
+			index.add(layout.getActor(i));
+		}
 	}
 
 	/**
 	 * 
-	 * @return
+	 * @return a new collection containing all actors of this layout
 	 */
 	public Collection<BoardObjectActor> getActors() {
-		return layout.values();
+		List<BoardObjectActor> actors = new ArrayList<BoardObjectActor>(
+				layout.size());
+		for (int i = 0; i < layout.size(); i++) {
+			actors.add(layout.getActor(i));
+		}
+		return actors;
 	}
 
 	/**
 	 * 
 	 * @param object
-	 * @return
+	 * @return the actor representing the given object, or null if there is
+	 *         none
 	 */
 	public BoardObjectActor getActor(InternalBoardObject object) {
-		return layout.get(object);
+		int slot = layout.slot(object.getId());
+		return slot < 0 ? null : layout.getActor(slot);
 	}
 
 	/**
@@ -98,15 +118,30 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 		return config;
 	}
 
+	/**
+	 * Returns the spatial index over the bounds of this layout's actors.
+	 * 
+	 * @return the layout's {@link ActorSpatialIndex}
+	 */
+	public ActorSpatialIndex getSpatialIndex() {
+		return index;
+	}
+
 	public boolean removeActor(BoardObjectActor actor) {
 		if (actor == null) {
 			return false;
 		}
-		return layout.remove(actor.getBoardObject()) != null;
+		int slot = layout.slot(actor.getBoardObject().getId());
+		if (slot < 0) {
+			return false;
+		}
+		index.remove(layout.getActor(slot));
+		layout.remove(actor.getBoardObject().getId());
+		return true;
 	}
 
 	public boolean hasActor(BoardObjectActor actor) {
-		return layout.get(actor.getBoardObject()) == actor;
+		return getActor(actor.getBoardObject()) == actor;
 	}
 
 	/**
@@ -118,17 +153,47 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 	 *         {@link InternalBoardObject}
 	 */
 	public boolean addActor(BoardObjectActor actor) {
-		if (getActor(actor.getBoardObject()) == null) {
-			layout.put(actor.getBoardObject(), actor);
+		BoardObjectActor current = getActor(actor.getBoardObject());
+		if (current == null) {
+			layout.setActor(layout.add(actor.getBoardObject().getId()), actor);
+			index.add(actor);
 			return true;
 		} else {
+			if (current == actor) {
+				// the actor might have been moved before being re-added
+				index.add(actor);
+			}
 			return false;
 		}
 	}
 
 	@Override
 	public Iterator<BoardObjectActor> iterator() {
-		return layout.values().iterator();
+		return new Iterator<BoardObjectActor>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < layout.size();
+			}
+
+			@Override
+			public BoardObjectActor next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return layout.getActor(next++);
+			}
+
+			@Override
+			public void remove() {
+				if (next == 0) {
+					throw new IllegalStateException();
+				}
+				// the last actor is moved into the removed one's slot
+				removeActor(layout.getActor(--next));
+			}
+		};
 	}
 
 	/**
@@ -136,12 +201,20 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 	 * the layout after this layout's board has changed. Afterwards, it returns
 	 * the results of the calculation but leaves it to the caller to apply them.
 	 * This allows the code rendering this layout to apply animations on the
-	 * changes to be made.
+	 * changes to be made. The {@link #getSpatialIndex() spatial index} is
+	 * updated to cover both the current and the target bounds of the changed
+	 * actors.
 	 * 
 	 * @return
 	 */
 	public List<ActorDelta> getDeltasToFix() {
-		return ActorLayoutFixer.getDeltas(this, b);
+		long start = RenderProfiler.start();
+		List<ActorDelta> deltas = ActorLayoutFixer.getDeltas(this, b);
+		for (ActorDelta delta : deltas) {
+			index.update(delta);
+		}
+		RenderProfiler.stop(Metric.LAYOUT_DELTAS, start);
+		return deltas;
 	}
 
 	/**
@@ -162,7 +235,7 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 			throw new IllegalStateException(
 					"Cannot calculate height without statistics");
 		}
-		return statistics.getHeightMap().get(getBoard());
+		return statistics.getHeight(getBoard());
 	}
 
 	/**
@@ -175,6 +248,7 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 	 * @return
 	 */
 	public List<BoardObjectActor> fix() {
+		long start = RenderProfiler.start();
 		List<BoardObjectActor> added = new ArrayList<BoardObjectActor>();
 		List<ActorDelta> deltas = getDeltasToFix();
 		for (ActorDelta delta : deltas) {
@@ -202,9 +276,12 @@ public class ActorLayout implements Iterable<BoardObjectActor> {
 				} else if (delta.isyChanged()) {
 					actor.setSize(actor.getWidth(), delta.getNewHeight());
 				}
+				// shrink the indexed bounds to the now applied ones
+				index.add(actor);
 			}
 			deltaPool.free(delta);
 		}
+		RenderProfiler.stop(Metric.LAYOUT_FIX, start);
 		return added;
 	}
 
@@ -1,17 +1,11 @@
 package de.croggle.ui.renderer.layout;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import de.croggle.game.Color;
 import de.croggle.game.ColorController;
 import de.croggle.game.board.AgedAlligator;
 import de.croggle.game.board.Board;
-import de.croggle.game.board.BoardObject;
 import de.croggle.game.board.ColoredAlligator;
 import de.croggle.game.board.Egg;
-import de.croggle.game.board.InternalBoardObject;
-import de.croggle.game.board.operations.CreateHeightMap;
 import de.croggle.ui.renderer.BoardActor;
 import de.croggle.ui.renderer.objectactors.AgedAlligatorActor;
 import de.croggle.ui.renderer.objectactors.BoardObjectActor;
@@ -22,8 +16,8 @@ import de.croggle.ui.renderer.objectactors.EggActor;
 /**
  * Helper class to create and layout a {@link Board}'s representation of
  * {@link BoardActor}s. The resulting set of of {@link BoardObjectActor}s is
- * stored in a map to be able to access each BoardObjectActor individually via
- * the InternalBoardObject it represents.
+ * stored in a {@link NodeTable} to be able to access each BoardObjectActor
+ * individually via the id of the InternalBoardObject it represents.
  * 
  * WARNING: The code assumes that the given widths and heights are directed the
  * same direction as the respective TreeGrowths are set. That means, no
@@ -37,17 +31,17 @@ class ActorLayoutBuilder extends ActorLayouter {
 
 	// working variables
 	/**
-	 * The hashmap to store the result in
+	 * The table to store the result in
 	 */
-	private final Map<InternalBoardObject, BoardObjectActor> actors;
+	private final NodeTable actors;
 
 	public ActorLayoutBuilder(Board b, ActorLayoutConfiguration config) {
-		super(b, config);
-		actors = new HashMap<InternalBoardObject, BoardObjectActor>();
+		super(b, config, new NodeTable());
+		actors = new NodeTable(sizes.size());
 	}
 
 	/**
-	 * Creates a hashmap of {@link BoardObjectActor}s corresponding to elements
+	 * Creates a table of {@link BoardObjectActor}s corresponding to elements
 	 * in the given board, with the respective elements as keys. The
 	 * {@link BoardObjectActor}s are already layouted according to the given
 	 * layout options.
@@ -65,15 +59,7 @@ class ActorLayoutBuilder extends ActorLayouter {
 	public static ActorLayout build(Board b, ActorLayoutConfiguration config) {
 		ActorLayoutBuilder builder = new ActorLayoutBuilder(b, config);
 		builder.doLayout();
-		ActorLayout result = new ActorLayout(builder.actors, b, config);
-		result.getLayoutStatistics().setWidthMap(builder.widthMap);
-		// TODO as this is not really necessary for the build process, maybe
-		// implement it more efficiently as a byproduct?
-		Map<BoardObject, Float> heightMap = CreateHeightMap.create(b,
-				config.getUniformObjectHeight(),
-				config.getVerticalScaleFactor(), config.getVerticalPadding());
-		result.getLayoutStatistics().setHeightMap(heightMap);
-		return result;
+		return new ActorLayout(builder.actors, builder.sizes, b, config);
 	}
 
 	/**
@@ -99,7 +85,7 @@ class ActorLayoutBuilder extends ActorLayouter {
 			AgedAlligator alligator) {
 		AgedAlligatorActor actor = BoardObjectActorFactory
 				.instantiateAgedAlligatorActor(alligator);
-		actors.put(alligator, actor);
+		actors.setActor(actors.add(alligator.getId()), actor);
 		return actor;
 	}
 
@@ -109,7 +95,7 @@ class ActorLayoutBuilder extends ActorLayouter {
 		ColoredAlligatorActor actor = BoardObjectActorFactory
 				.instantiateColoredAlligatorActor(alligator, getConfig()
 						.isColorBlindEnabled());
-		actors.put(alligator, actor);
+		actors.setActor(actors.add(alligator.getId()), actor);
 		return actor;
 	}
 
@@ -117,7 +103,7 @@ class ActorLayoutBuilder extends ActorLayouter {
 	protected EggActor provideEggActor(Egg egg) {
 		EggActor actor = BoardObjectActorFactory.instantiateEggActor(egg,
 				getConfig().isColorBlindEnabled());
-		actors.put(egg, actor);
+		actors.setActor(actors.add(egg.getId()), actor);
 		return actor;
 	}
 }
@@ -46,6 +46,10 @@ public class ActorLayoutConfiguration {
 	private float coloredAlligatorWidth;
 	private float coloredAlligatorHeight;
 
+	private boolean levelOfDetailEnabled;
+	private float levelOfDetailThreshold;
+	private boolean subtreeCachingEnabled;
+
 	/**
 	 * 
 	 */
@@ -80,6 +84,10 @@ public class ActorLayoutConfiguration {
 				Math.max(agedAlligatorWidth, coloredAlligatorWidth));
 		uniformObjectHeight = Math.max(eggHeight,
 				Math.max(agedAlligatorHeight, coloredAlligatorHeight));
+
+		levelOfDetailEnabled = true;
+		levelOfDetailThreshold = 16;
+		subtreeCachingEnabled = true;
 	}
 
 	/**
@@ -167,6 +175,10 @@ public class ActorLayoutConfiguration {
 		uniformObjectHeight = Math.max(
 				Math.max(eggHeight, coloredAlligatorHeight),
 				agedAlligatorHeight);
+
+		levelOfDetailEnabled = true;
+		levelOfDetailThreshold = 16;
+		subtreeCachingEnabled = true;
 	}
 
 	private static void initializeAspectRatios() {
@@ -568,4 +580,73 @@ public class ActorLayoutConfiguration {
 	public void setColorBlindEnabled(boolean colorBlindEnabled) {
 		this.colorBlindEnabled = colorBlindEnabled;
 	}
+
+	/**
+	 * 
+	 * @return whether families that appear too small on the screen are drawn
+	 *         as simple blocks instead of their individual actors
+	 */
+	public boolean isLevelOfDetailEnabled() {
+		return levelOfDetailEnabled;
+	}
+
+	/**
+	 * 
+	 * @param levelOfDetailEnabled
+	 *            whether families that appear too small on the screen are
+	 *            drawn as simple blocks instead of their individual actors
+	 * @return this {@link ActorLayoutConfiguration} object, to allow for
+	 *         chaining setter calls
+	 */
+	public ActorLayoutConfiguration setLevelOfDetailEnabled(
+			boolean levelOfDetailEnabled) {
+		this.levelOfDetailEnabled = levelOfDetailEnabled;
+		return this;
+	}
+
+	/**
+	 * 
+	 * @return the on-screen width below which a family is drawn as a single
+	 *         block if level of detail is enabled
+	 */
+	public float getLevelOfDetailThreshold() {
+		return levelOfDetailThreshold;
+	}
+
+	/**
+	 * 
+	 * @param levelOfDetailThreshold
+	 *            the on-screen width (in stage units) below which a family is
+	 *            drawn as a single block if level of detail is enabled
+	 * @return this {@link ActorLayoutConfiguration} object, to allow for
+	 *         chaining setter calls
+	 */
+	public ActorLayoutConfiguration setLevelOfDetailThreshold(
+			float levelOfDetailThreshold) {
+		this.levelOfDetailThreshold = levelOfDetailThreshold;
+		return this;
+	}
+
+	/**
+	 * 
+	 * @return whether families that did not change for a while are rendered
+	 *         into textures once and drawn from there afterwards
+	 */
+	public boolean isSubtreeCachingEnabled() {
+		return subtreeCachingEnabled;
+	}
+
+	/**
+	 * 
+	 * @param subtreeCachingEnabled
+	 *            whether families that did not change for a while are rendered
+	 *            into textures once and drawn from there afterwards
+	 * @return this {@link ActorLayoutConfiguration} object, to allow for
+	 *         chaining setter calls
+	 */
+	public ActorLayoutConfiguration setSubtreeCachingEnabled(
+			boolean subtreeCachingEnabled) {
+		this.subtreeCachingEnabled = subtreeCachingEnabled;
+		return this;
+	}
 }
@@ -2,16 +2,13 @@ package de.croggle.ui.renderer.layout;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import de.croggle.game.Color;
 import de.croggle.game.board.AgedAlligator;
 import de.croggle.game.board.Board;
-import de.croggle.game.board.BoardObject;
 import de.croggle.game.board.ColoredAlligator;
 import de.croggle.game.board.Egg;
 import de.croggle.game.board.InternalBoardObject;
-import de.croggle.game.board.operations.CreateHeightMap;
 import de.croggle.ui.renderer.objectactors.AgedAlligatorActor;
 import de.croggle.ui.renderer.objectactors.BoardObjectActor;
 import de.croggle.ui.renderer.objectactors.BoardObjectActorFactory;
@@ -42,7 +39,8 @@ class ActorLayoutFixer extends ActorLayouter {
 	private InternalBoardObject lastProvidedFor;
 
 	private ActorLayoutFixer(ActorLayout l, Board b) {
-		super(b, l.getLayoutConfiguration());
+		super(b, l.getLayoutConfiguration(), l.getLayoutStatistics()
+				.getTable());
 		this.l = l;
 		aaaDummy = BoardObjectActorFactory
 				.instantiateAgedAlligatorActor(new AgedAlligator(true, true));
@@ -67,17 +65,20 @@ class ActorLayoutFixer extends ActorLayouter {
 	public static List<ActorDelta> getDeltas(ActorLayout l, Board b) {
 		ActorLayoutFixer fixer = new ActorLayoutFixer(l, b);
 		fixer.doLayout();
-		l.getLayoutStatistics().setWidthMap(fixer.widthMap);
-		// TODO as this is not really necessary for the fix process, maybe
-		// implement it more efficiently as a byproduct?
-		ActorLayoutConfiguration config = l.getLayoutConfiguration();
-		Map<BoardObject, Float> heightMap = CreateHeightMap.create(b,
-				config.getUniformObjectHeight(),
-				config.getVerticalScaleFactor(), config.getVerticalPadding());
-		l.getLayoutStatistics().setHeightMap(heightMap);
+		fixer.freeDummies();
 		return fixer.deltas;
 	}
 
+	/*
+	 * the dummies are only needed during the layout process, so recycle them
+	 * instead of creating new ones for every fix
+	 */
+	private void freeDummies() {
+		BoardObjectActorFactory.free(aaaDummy);
+		BoardObjectActorFactory.free(caaDummy);
+		BoardObjectActorFactory.free(eaDummy);
+	}
+
 	@Override
 	protected AgedAlligatorActor provideAgedAlligatorActor(
 			AgedAlligator alligator) {
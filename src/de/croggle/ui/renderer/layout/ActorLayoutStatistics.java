@@ -1,47 +1,118 @@
 package de.croggle.ui.renderer.layout;
 
-import java.util.Map;
-
 import de.croggle.game.board.BoardObject;
 import de.croggle.game.board.operations.CreateHeightMap;
 import de.croggle.game.board.operations.CreateWidthMap;
+import de.croggle.ui.renderer.RenderProfiler;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 
 /**
  * A class to cache useful statistics associated with an {@link ActorLayout}.
- * 
+ *
+ * The widths, heights and layouted positions of the board objects are kept in
+ * a {@link NodeTable}, indexed by the objects' {@link BoardObject#getId() ids}.
+ * The table only ever contains the objects of the board's most recently
+ * layouted state.
  */
 public class ActorLayoutStatistics {
-	private Map<BoardObject, Float> widthMap;
-	private Map<BoardObject, Float> heightMap;
+	private final NodeTable sizes;
 	private final ActorLayout layout;
 
-	ActorLayoutStatistics(ActorLayout l) {
+	ActorLayoutStatistics(ActorLayout l, NodeTable sizes) {
 		layout = l;
+		this.sizes = sizes;
+	}
+
+	/**
+	 * Returns whether the sizes of the given board object are known, i.e.
+	 * whether it was part of the board when the layout was last built or
+	 * fixed.
+	 *
+	 * @param o
+	 * @return true if the object's sizes are available, false otherwise
+	 */
+	public boolean hasSize(BoardObject o) {
+		return sizes.slot(o.getId()) >= 0;
+	}
+
+	/**
+	 * Returns the width the given board object and all its descendants take up
+	 * in the layout.
+	 *
+	 * @param o
+	 * @return the width of the object's subtree, or {@link Float#NaN} if it is
+	 *         not known
+	 */
+	public float getWidth(BoardObject o) {
+		int slot = sizes.slot(o.getId());
+		return slot < 0 ? Float.NaN : sizes.getWidth(slot);
 	}
 
-	public Map<BoardObject, Float> getWidthMap() {
-		return widthMap;
+	/**
+	 * Returns the height the given board object and all its descendants take
+	 * up in the layout.
+	 *
+	 * @param o
+	 * @return the height of the object's subtree, or {@link Float#NaN} if it is
+	 *         not known
+	 */
+	public float getHeight(BoardObject o) {
+		int slot = sizes.slot(o.getId());
+		return slot < 0 ? Float.NaN : sizes.getHeight(slot);
 	}
 
-	public Map<BoardObject, Float> getHeightMap() {
-		return heightMap;
+	/**
+	 * Returns the x coordinate the layout assigned to the actor of the given
+	 * board object. This is where the actor ends up once all deltas of the
+	 * last fix have been applied.
+	 *
+	 * @param o
+	 * @return the layouted x coordinate, or {@link Float#NaN} if it is not
+	 *         known
+	 */
+	public float getX(BoardObject o) {
+		int slot = sizes.slot(o.getId());
+		return slot < 0 ? Float.NaN : sizes.getX(slot);
 	}
 
-	void setWidthMap(Map<BoardObject, Float> widthMap) {
-		this.widthMap = widthMap;
+	/**
+	 * Returns the y coordinate the layout assigned to the actor of the given
+	 * board object. This is where the actor ends up once all deltas of the
+	 * last fix have been applied.
+	 *
+	 * @param o
+	 * @return the layouted y coordinate, or {@link Float#NaN} if it is not
+	 *         known
+	 */
+	public float getY(BoardObject o) {
+		int slot = sizes.slot(o.getId());
+		return slot < 0 ? Float.NaN : sizes.getY(slot);
 	}
 
-	void setHeightMap(Map<BoardObject, Float> heightMap) {
-		this.heightMap = heightMap;
+	/**
+	 *
+	 * @return the table the statistics are stored in, to be filled by the
+	 *         layouters
+	 */
+	NodeTable getTable() {
+		return sizes;
 	}
 
+	/**
+	 * Recalculates the widths and heights from the current state of the
+	 * layout's board. Layouted positions are discarded and only known again
+	 * after the next fix of the layout.
+	 */
 	public void rebuild() {
+		long start = RenderProfiler.start();
 		ActorLayoutConfiguration config = layout.getLayoutConfiguration();
-		widthMap = CreateWidthMap.create(layout.getBoard(),
+		sizes.clear();
+		CreateWidthMap.fill(layout.getBoard(), sizes.widths(),
 				config.getUniformObjectWidth(),
 				config.getVerticalScaleFactor(), config.getHorizontalPadding());
-		heightMap = CreateHeightMap.create(layout.getBoard(),
+		CreateHeightMap.fill(layout.getBoard(), sizes.heights(),
 				config.getUniformObjectHeight(),
 				config.getVerticalScaleFactor(), config.getVerticalPadding());
+		RenderProfiler.stop(Metric.SIZE_MAPS, start);
 	}
 }
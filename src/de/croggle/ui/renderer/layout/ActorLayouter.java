@@ -1,7 +1,6 @@
 package de.croggle.ui.renderer.layout;
 
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Stack;
 
 import com.badlogic.gdx.math.Vector2;
@@ -14,7 +13,10 @@ import de.croggle.game.board.Egg;
 import de.croggle.game.board.InternalBoardObject;
 import de.croggle.game.board.Parent;
 import de.croggle.game.board.operations.BoardObjectVisitor;
+import de.croggle.game.board.operations.CreateHeightMap;
 import de.croggle.game.board.operations.CreateWidthMap;
+import de.croggle.ui.renderer.RenderProfiler;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 import de.croggle.ui.renderer.objectactors.AgedAlligatorActor;
 import de.croggle.ui.renderer.objectactors.BoardObjectActor;
 import de.croggle.ui.renderer.objectactors.ColoredAlligatorActor;
@@ -104,10 +106,10 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 	private final Board b;
 
 	/**
-	 * Map to access the width of any BoardObject occurring in the Board to
-	 * build in O(1)
+	 * Table to access the width, height and layouted position of any
+	 * BoardObject occurring in the Board to build in O(1)
 	 */
-	protected final Map<BoardObject, Float> widthMap;
+	protected final NodeTable sizes;
 
 	private final Stack<ParentState> parents;
 	private final Stack<ParentState> parentReverser;
@@ -122,15 +124,36 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 	 */
 	private Vector2 currentPosition;
 
-	ActorLayouter(Board b, ActorLayoutConfiguration config) {
+	/**
+	 * 
+	 * @param b
+	 *            the board to layout
+	 * @param config
+	 *            the configuration to adjust the layout with
+	 * @param sizes
+	 *            the table to store the sizes and positions of the board's
+	 *            objects in. Any previous content is discarded
+	 */
+	ActorLayouter(Board b, ActorLayoutConfiguration config, NodeTable sizes) {
 		this.config = config;
 		this.b = b;
+		this.sizes = sizes;
 
 		parents = new Stack<ParentState>();
 		parentReverser = new Stack<ParentState>();
 
-		widthMap = CreateWidthMap.create(b, config.getUniformObjectWidth(),
+		long start = RenderProfiler.start();
+		sizes.clear();
+		CreateWidthMap.fill(b, sizes.widths(), config.getUniformObjectWidth(),
 				config.getVerticalScaleFactor(), config.getHorizontalPadding());
+		CreateHeightMap.fill(b, sizes.heights(),
+				config.getUniformObjectHeight(),
+				config.getVerticalScaleFactor(), config.getVerticalPadding());
+		RenderProfiler.stop(Metric.SIZE_MAPS, start);
+	}
+
+	private float getWidth(BoardObject o) {
+		return sizes.getWidth(sizes.slot(o.getId()));
 	}
 
 	@Override
@@ -154,6 +177,7 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 
 		a.setBounds(currentPosition.x + offsetx, y, config.getEggWidth()
 				* getScaling(), h);
+		sizes.setPosition(sizes.slot(egg.getId()), a.getX(), a.getY());
 		notifyEggLayouted(a);
 		notifyLayouted(a);
 	}
@@ -186,11 +210,11 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 			while (it.hasNext()) {
 				InternalBoardObject child = it.next();
 				if (config.getRenderDirectionX() == TreeGrowth.POS_NEG) {
-					currentPosition.x += widthMap.get(child);
+					currentPosition.x += getWidth(child);
 				}
 				child.accept(this);
 				if (config.getRenderDirectionX() == TreeGrowth.NEG_POS) {
-					currentPosition.x += widthMap.get(child);
+					currentPosition.x += getWidth(child);
 				}
 				if (it.hasNext()) {
 					currentPosition.x += config.getHorizontalPadding();
@@ -200,11 +224,11 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 			while (it.hasNext()) {
 				InternalBoardObject child = it.next();
 				if (config.getRenderDirectionX() == TreeGrowth.NEG_POS) {
-					currentPosition.x -= widthMap.get(child);
+					currentPosition.x -= getWidth(child);
 				}
 				child.accept(this);
 				if (config.getRenderDirectionX() == TreeGrowth.POS_NEG) {
-					currentPosition.x -= widthMap.get(child);
+					currentPosition.x -= getWidth(child);
 				}
 				if (it.hasNext()) {
 					currentPosition.x -= config.getHorizontalPadding();
@@ -220,7 +244,7 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 	 * @param p
 	 */
 	private void setParentActorBounds(BoardObjectActor p, Parent parent) {
-		double totalWidth = widthMap.get(parent);
+		float totalWidth = getWidth(parent);
 		float w = config.getUniformObjectWidth() * getScaling();
 		float h = config.getUniformObjectHeight() * getScaling();
 		if (p.getClass() == AgedAlligatorActor.class) {
@@ -230,7 +254,7 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 			w = config.getColoredAlligatorWidth() * getScaling();
 			h = config.getColoredAlligatorHeight() * getScaling();
 		}
-		float offset = ((float) totalWidth - w) / 2.f;
+		float offset = (totalWidth - w) / 2.f;
 		if (config.getHorizontalGrowth() == TreeGrowth.POS_NEG) {
 			offset *= -1;
 		}
@@ -244,6 +268,7 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 		}
 
 		p.setBounds(currentPosition.x + offset, y, w, h);
+		sizes.setPosition(sizes.slot(parent.getId()), p.getX(), p.getY());
 	}
 
 	private void layoutChildren(Parent p) {
@@ -264,7 +289,7 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 		float childrenWidth = 0;
 		Iterator<InternalBoardObject> it = p.iterator();
 		while (it.hasNext()) {
-			childrenWidth += widthMap.get(it.next());
+			childrenWidth += getWidth(it.next());
 			if (it.hasNext()) {
 				childrenWidth += getScaling() * config.getHorizontalPadding();
 			}
@@ -272,15 +297,15 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 
 		it = p.iterator();
 		if (config.getHorizontalGrowth() == TreeGrowth.NEG_POS) {
-			currentPosition.x += (widthMap.get(p) - childrenWidth) / 2;
+			currentPosition.x += (getWidth(p) - childrenWidth) / 2;
 			while (it.hasNext()) {
 				InternalBoardObject child = it.next();
 				if (config.getRenderDirectionX() == TreeGrowth.POS_NEG) {
-					currentPosition.x += widthMap.get(child);
+					currentPosition.x += getWidth(child);
 				}
 				child.accept(this);
 				if (config.getRenderDirectionX() == TreeGrowth.NEG_POS) {
-					currentPosition.x += widthMap.get(child);
+					currentPosition.x += getWidth(child);
 				}
 				if (it.hasNext()) {
 					currentPosition.x += getScaling()
@@ -288,15 +313,15 @@ abstract class ActorLayouter implements BoardObjectVisitor {
 				}
 			}
 		} else {
-			currentPosition.x -= (widthMap.get(p) - childrenWidth) / 2;
+			currentPosition.x -= (getWidth(p) - childrenWidth) / 2;
 			while (it.hasNext()) {
 				InternalBoardObject child = it.next();
 				if (config.getRenderDirectionX() == TreeGrowth.NEG_POS) {
-					currentPosition.x -= widthMap.get(child);
+					currentPosition.x -= getWidth(child);
 				}
 				child.accept(this);
 				if (config.getRenderDirectionX() == TreeGrowth.POS_NEG) {
-					currentPosition.x -= widthMap.get(child);
+					currentPosition.x -= getWidth(child);
 				}
 				if (it.hasNext()) {
 					currentPosition.x -= getScaling()
@@ -0,0 +1,240 @@
+package de.croggle.ui.renderer.layout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+import de.croggle.ui.renderer.objectactors.BoardObjectActor;
+
+/**
+ * A spatial index over the bounds of the {@link BoardObjectActor}s in an
+ * {@link ActorLayout}. Allows to find all actors intersecting a given area or
+ * containing a given point in O(log n + k), with k being the number of results.
+ *
+ * The bounds stored for an actor are the ones the layout assigns to it. If an
+ * actor is about to be moved by an {@link ActorDelta}, the union of its current
+ * and its target bounds is stored, so actors are found throughout the whole
+ * (animated) application of the delta. Actors moved by other means (e.g. by
+ * animations not originating from deltas) are not tracked.
+ *
+ * Internally, the entries are sorted by their left edge and arranged as an
+ * implicit binary search tree, with each node knowing the maximum right edge
+ * inside its subtree. The tree is rebuilt lazily on the first query after the
+ * index was changed.
+ */
+public class ActorSpatialIndex {
+	private static final Comparator<Entry> leftEdgeComparator = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			return Float.compare(e1.x1, e2.x1);
+		}
+	};
+
+	private final Map<BoardObjectActor, Entry> entries;
+
+	/*
+	 * the implicit search tree. Only valid if dirty is false
+	 */
+	private Entry[] sorted;
+	private float[] subtreeMaxX;
+	private boolean dirty;
+
+	ActorSpatialIndex() {
+		entries = new HashMap<BoardObjectActor, Entry>();
+		sorted = new Entry[0];
+		subtreeMaxX = new float[0];
+		dirty = false;
+	}
+
+	/**
+	 * Adds the given actor with its current bounds to the index. If the actor
+	 * is already indexed, its bounds are replaced by the current ones.
+	 *
+	 * @param actor
+	 *            the actor to add
+	 */
+	void add(BoardObjectActor actor) {
+		Entry e = entries.get(actor);
+		if (e == null) {
+			e = new Entry(actor);
+			entries.put(actor, e);
+		}
+		e.set(actor.getX(), actor.getY(), actor.getWidth(), actor.getHeight());
+		dirty = true;
+	}
+
+	/**
+	 * Removes the given actor from the index.
+	 *
+	 * @param actor
+	 *            the actor to remove
+	 * @return true if the actor was indexed, false otherwise
+	 */
+	boolean remove(BoardObjectActor actor) {
+		if (entries.remove(actor) != null) {
+			dirty = true;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Updates the bounds of the delta's actor so that it is found at both its
+	 * current and the delta's target position.
+	 *
+	 * @param delta
+	 *            the delta that is about to be applied
+	 */
+	void update(ActorDelta delta) {
+		BoardObjectActor actor = delta.getActor();
+		Entry e = entries.get(actor);
+		if (e == null) {
+			if (delta.isCreated()) {
+				// created actors are added with their layout bounds already set
+				return;
+			}
+			e = new Entry(actor);
+			entries.put(actor, e);
+		}
+		e.set(actor.getX(), actor.getY(), actor.getWidth(), actor.getHeight());
+		float x = delta.isxChanged() ? delta.getNewX() : actor.getX();
+		float y = delta.isyChanged() ? delta.getNewY() : actor.getY();
+		float w = delta.isWidthChanged() ? delta.getNewWidth() : actor
+				.getWidth();
+		float h = delta.isHeightChanged() ? delta.getNewHeight() : actor
+				.getHeight();
+		e.merge(x, y, w, h);
+		dirty = true;
+	}
+
+	/**
+	 * Discards all indexed actors.
+	 */
+	void clear() {
+		entries.clear();
+		dirty = true;
+	}
+
+	/**
+	 *
+	 * @return the number of actors in this index
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Adds all indexed actors whose bounds overlap the given area to the given
+	 * result array. The order of the results is not specified.
+	 *
+	 * @param area
+	 *            the area to search for actors, in layout coordinates
+	 * @param result
+	 *            the array to add the found actors to
+	 * @return the given result array
+	 */
+	public Array<BoardObjectActor> query(Rectangle area,
+			Array<BoardObjectActor> result) {
+		return query(area.x, area.y, area.x + area.width, area.y + area.height,
+				result);
+	}
+
+	/**
+	 * Adds all indexed actors whose bounds contain the given point to the
+	 * given result array. The order of the results is not specified.
+	 *
+	 * @param x
+	 *            the point's x coordinate, in layout coordinates
+	 * @param y
+	 *            the point's y coordinate, in layout coordinates
+	 * @param result
+	 *            the array to add the found actors to
+	 * @return the given result array
+	 */
+	public Array<BoardObjectActor> query(float x, float y,
+			Array<BoardObjectActor> result) {
+		return query(x, y, x, y, result);
+	}
+
+	private Array<BoardObjectActor> query(float x1, float y1, float x2,
+			float y2, Array<BoardObjectActor> result) {
+		if (dirty) {
+			rebuild();
+		}
+		query(0, sorted.length, x1, y1, x2, y2, result);
+		return result;
+	}
+
+	private void query(int lo, int hi, float x1, float y1, float x2, float y2,
+			Array<BoardObjectActor> result) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (subtreeMaxX[mid] < x1) {
+				// nothing in this subtree reaches into the area
+				return;
+			}
+			query(lo, mid, x1, y1, x2, y2, result);
+			Entry e = sorted[mid];
+			if (e.x1 > x2) {
+				// neither e nor anything right of it starts inside the area
+				return;
+			}
+			if (e.x2 >= x1 && e.y1 <= y2 && e.y2 >= y1) {
+				result.add(e.actor);
+			}
+			lo = mid + 1;
+		}
+	}
+
+	private void rebuild() {
+		if (sorted.length != entries.size()) {
+			sorted = new Entry[entries.size()];
+			subtreeMaxX = new float[sorted.length];
+		}
+		entries.values().toArray(sorted);
+		Arrays.sort(sorted, leftEdgeComparator);
+		buildSubtree(0, sorted.length);
+		dirty = false;
+	}
+
+	private float buildSubtree(int lo, int hi) {
+		if (lo >= hi) {
+			return Float.NEGATIVE_INFINITY;
+		}
+		int mid = (lo + hi) >>> 1;
+		float max = Math.max(sorted[mid].x2,
+				Math.max(buildSubtree(lo, mid), buildSubtree(mid + 1, hi)));
+		subtreeMaxX[mid] = max;
+		return max;
+	}
+
+	private static class Entry {
+		private final BoardObjectActor actor;
+		private float x1;
+		private float y1;
+		private float x2;
+		private float y2;
+
+		public Entry(BoardObjectActor actor) {
+			this.actor = actor;
+		}
+
+		public void set(float x, float y, float width, float height) {
+			x1 = Math.min(x, x + width);
+			x2 = Math.max(x, x + width);
+			y1 = Math.min(y, y + height);
+			y2 = Math.max(y, y + height);
+		}
+
+		public void merge(float x, float y, float width, float height) {
+			x1 = Math.min(x1, Math.min(x, x + width));
+			x2 = Math.max(x2, Math.max(x, x + width));
+			y1 = Math.min(y1, Math.min(y, y + height));
+			y2 = Math.max(y2, Math.max(y, y + height));
+		}
+	}
+}
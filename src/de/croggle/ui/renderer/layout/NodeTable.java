@@ -0,0 +1,325 @@
+package de.croggle.ui.renderer.layout;
+
+import java.util.Arrays;
+
+import de.croggle.game.board.BoardObject;
+import de.croggle.game.board.operations.BoardObjectSizes;
+import de.croggle.ui.renderer.objectactors.BoardObjectActor;
+
+/**
+ * A table storing the layout information of board objects in dense, parallel
+ * arrays, indexed by a slot per {@link BoardObject#getId() board object id}.
+ * For each id, the table holds the {@link BoardObjectActor} representing the
+ * object as well as its width, height and layouted position.
+ *
+ * Since ids are unique throughout the whole application, they grow too large
+ * to be used as array indices directly. Instead, an open addressing hash table
+ * of primitive ints maps each id to its slot, so that neither lookups nor
+ * modifications box any values. Removing an id moves the last slot into the
+ * freed one, keeping all slots in the range [0, size()).
+ */
+class NodeTable {
+	private static final int EMPTY = -1;
+	private static final int NO_SLOT = -1;
+
+	/*
+	 * the hash table, mapping keys[i] to slots[i]. Its capacity is always a
+	 * power of two and at most half of it is used
+	 */
+	private int[] keys;
+	private int[] slots;
+	private int mask;
+
+	// the columns, indexed by slot
+	private int[] ids;
+	private BoardObjectActor[] actors;
+	private float[] width;
+	private float[] height;
+	private float[] x;
+	private float[] y;
+	private int size;
+
+	private final BoardObjectSizes widthView = new BoardObjectSizes() {
+		@Override
+		public float get(BoardObject o) {
+			return width[slotOrFail(o.getId())];
+		}
+
+		@Override
+		public void put(BoardObject o, float size) {
+			width[add(o.getId())] = size;
+		}
+	};
+
+	private final BoardObjectSizes heightView = new BoardObjectSizes() {
+		@Override
+		public float get(BoardObject o) {
+			return height[slotOrFail(o.getId())];
+		}
+
+		@Override
+		public void put(BoardObject o, float size) {
+			height[add(o.getId())] = size;
+		}
+	};
+
+	NodeTable() {
+		this(16);
+	}
+
+	/**
+	 *
+	 * @param expectedSize
+	 *            the number of ids expected to be stored in the table
+	 */
+	NodeTable(int expectedSize) {
+		int capacity = 4;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocateHash(capacity);
+		int columns = Math.max(expectedSize, 4);
+		ids = new int[columns];
+		actors = new BoardObjectActor[columns];
+		width = new float[columns];
+		height = new float[columns];
+		x = new float[columns];
+		y = new float[columns];
+	}
+
+	/**
+	 *
+	 * @return the number of ids stored in this table
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Looks up the slot of the given id.
+	 *
+	 * @param id
+	 * @return the slot of the id, or -1 if the id is not stored in this table
+	 */
+	int slot(int id) {
+		int i = hash(id) & mask;
+		int key;
+		while ((key = keys[i]) != EMPTY) {
+			if (key == id) {
+				return slots[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return NO_SLOT;
+	}
+
+	/**
+	 * Returns the slot of the given id, adding the id with all columns zeroed
+	 * if it is not stored in this table yet.
+	 *
+	 * @param id
+	 * @return the slot of the id
+	 */
+	int add(int id) {
+		if (id < 0) {
+			throw new IllegalArgumentException("Ids must not be negative");
+		}
+		int i = hash(id) & mask;
+		int key;
+		while ((key = keys[i]) != EMPTY) {
+			if (key == id) {
+				return slots[i];
+			}
+			i = (i + 1) & mask;
+		}
+		if (size == ids.length) {
+			growColumns();
+		}
+		int slot = size++;
+		keys[i] = id;
+		slots[i] = slot;
+		ids[slot] = id;
+		actors[slot] = null;
+		width[slot] = 0;
+		height[slot] = 0;
+		x[slot] = 0;
+		y[slot] = 0;
+		if ((size << 1) > keys.length) {
+			rehash(keys.length << 1);
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the given id from the table. The slot of the id is taken by the
+	 * id stored in the last slot so far.
+	 *
+	 * @param id
+	 * @return the slot the id was stored in, or -1 if it was not stored
+	 */
+	int remove(int id) {
+		int i = hash(id) & mask;
+		int key;
+		while ((key = keys[i]) != EMPTY) {
+			if (key == id) {
+				break;
+			}
+			i = (i + 1) & mask;
+		}
+		if (key == EMPTY) {
+			return NO_SLOT;
+		}
+		int slot = slots[i];
+		deleteHashEntry(i);
+
+		int last = --size;
+		if (slot != last) {
+			int movedId = ids[last];
+			ids[slot] = movedId;
+			actors[slot] = actors[last];
+			width[slot] = width[last];
+			height[slot] = height[last];
+			x[slot] = x[last];
+			y[slot] = y[last];
+			slots[findHashEntry(movedId)] = slot;
+		}
+		actors[last] = null;
+		return slot;
+	}
+
+	/**
+	 * Removes all ids from this table, keeping the allocated memory.
+	 */
+	void clear() {
+		Arrays.fill(keys, EMPTY);
+		Arrays.fill(actors, 0, size, null);
+		size = 0;
+	}
+
+	int getId(int slot) {
+		return ids[slot];
+	}
+
+	BoardObjectActor getActor(int slot) {
+		return actors[slot];
+	}
+
+	void setActor(int slot, BoardObjectActor actor) {
+		actors[slot] = actor;
+	}
+
+	float getWidth(int slot) {
+		return width[slot];
+	}
+
+	float getHeight(int slot) {
+		return height[slot];
+	}
+
+	float getX(int slot) {
+		return x[slot];
+	}
+
+	float getY(int slot) {
+		return y[slot];
+	}
+
+	void setPosition(int slot, float x, float y) {
+		this.x[slot] = x;
+		this.y[slot] = y;
+	}
+
+	/**
+	 *
+	 * @return a view on the width column, e.g. to be filled by
+	 *         {@link de.croggle.game.board.operations.CreateWidthMap}
+	 */
+	BoardObjectSizes widths() {
+		return widthView;
+	}
+
+	/**
+	 *
+	 * @return a view on the height column, e.g. to be filled by
+	 *         {@link de.croggle.game.board.operations.CreateHeightMap}
+	 */
+	BoardObjectSizes heights() {
+		return heightView;
+	}
+
+	private int slotOrFail(int id) {
+		int slot = slot(id);
+		if (slot == NO_SLOT) {
+			throw new IllegalArgumentException("No entry for id " + id);
+		}
+		return slot;
+	}
+
+	private int findHashEntry(int id) {
+		int i = hash(id) & mask;
+		while (keys[i] != id) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/*
+	 * removes the entry at i and shifts back the entries following it in the
+	 * same cluster, so that no tombstones are needed
+	 */
+	private void deleteHashEntry(int i) {
+		int gap = i;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			int key = keys[j];
+			if (key == EMPTY) {
+				break;
+			}
+			int home = hash(key) & mask;
+			// move the entry into the gap if its home position is not
+			// cyclically inside (gap, j]
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = key;
+				slots[gap] = slots[j];
+				gap = j;
+			}
+		}
+		keys[gap] = EMPTY;
+	}
+
+	private void growColumns() {
+		int n = ids.length << 1;
+		ids = Arrays.copyOf(ids, n);
+		actors = Arrays.copyOf(actors, n);
+		width = Arrays.copyOf(width, n);
+		height = Arrays.copyOf(height, n);
+		x = Arrays.copyOf(x, n);
+		y = Arrays.copyOf(y, n);
+	}
+
+	private void rehash(int capacity) {
+		allocateHash(capacity);
+		for (int slot = 0; slot < size; slot++) {
+			int i = hash(ids[slot]) & mask;
+			while (keys[i] != EMPTY) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = ids[slot];
+			slots[i] = slot;
+		}
+	}
+
+	private void allocateHash(int capacity) {
+		keys = new int[capacity];
+		slots = new int[capacity];
+		mask = capacity - 1;
+		Arrays.fill(keys, EMPTY);
+	}
+
+	private static int hash(int id) {
+		// ids are handed out sequentially, so spread them over the table
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
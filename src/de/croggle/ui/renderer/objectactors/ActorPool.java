@@ -0,0 +1,52 @@
+package de.croggle.ui.renderer.objectactors;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A pool of recycled {@link BoardObjectActor}s of one concrete type. As actors
+ * always need a board object to represent, new actors are not created by the
+ * pool but by the {@link BoardObjectActorFactory}, which only asks the pool
+ * for free ones.
+ * 
+ * @param <T>
+ *            the type of actors held by the pool
+ */
+class ActorPool<T extends BoardObjectActor> {
+	/*
+	 * the maximum number of free actors kept per pool. Every colored actor
+	 * holds a mesh and a shader, so don't keep too many of them around
+	 */
+	private static final int maxFree = 256;
+
+	private final Array<T> freeActors;
+
+	ActorPool() {
+		freeActors = new Array<T>(false, 16);
+	}
+
+	/**
+	 * Returns a free actor from this pool, if there is one.
+	 * 
+	 * @return a recycled actor, or null if the pool is empty
+	 */
+	T obtainFree() {
+		return freeActors.size > 0 ? freeActors.pop() : null;
+	}
+
+	/**
+	 * Resets the given actor and keeps it for being obtained again, unless
+	 * the pool already holds the maximum number of free actors.
+	 * 
+	 * @param actor
+	 *            the actor no longer in use
+	 */
+	void free(T actor) {
+		if (actor == null) {
+			throw new IllegalArgumentException("actor cannot be null.");
+		}
+		actor.reset();
+		if (freeActors.size < maxFree) {
+			freeActors.add(actor);
+		}
+	}
+}
@@ -44,6 +44,21 @@ public class AgedAlligatorActor extends BoardObjectActor {
 		this.setHeight(foreground.getRegionHeight());
 	}
 
+	/**
+	 * Lets this actor represent the given alligator instead of its previous
+	 * one, restoring the size it had after construction. Used for recycling
+	 * actors.
+	 * 
+	 * @param alligator
+	 *            the AgedAlligator to be represented by this actor
+	 */
+	void rebind(AgedAlligator alligator) {
+		setBoardObject(alligator);
+		if (foreground != null) {
+			setSize(foreground.getRegionWidth(), foreground.getRegionHeight());
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
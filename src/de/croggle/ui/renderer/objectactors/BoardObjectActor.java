@@ -1,15 +1,21 @@
 package de.croggle.ui.renderer.objectactors;
 
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
 import de.croggle.game.board.InternalBoardObject;
 
 /**
- * An actor used for representing a board object.
+ * An actor used for representing a board object. Actors can be recycled by
+ * {@link BoardObjectActorFactory#free(BoardObjectActor) freeing} them, after
+ * which they are bound to a different board object when being instantiated
+ * the next time.
  */
-public abstract class BoardObjectActor extends Actor {
+public abstract class BoardObjectActor extends Actor implements Poolable {
 
-	private final InternalBoardObject object;
+	private InternalBoardObject object;
 
 	/**
 	 * The superconstructor for all board object actors.
@@ -24,4 +30,35 @@ public abstract class BoardObjectActor extends Actor {
 	public InternalBoardObject getBoardObject() {
 		return object;
 	}
+
+	/**
+	 * Lets this actor represent the given board object instead of its previous
+	 * one.
+	 * 
+	 * @param object
+	 *            the InternalBoardObject to be represented by this actor
+	 */
+	void setBoardObject(InternalBoardObject object) {
+		this.object = object;
+	}
+
+	/**
+	 * Resets all state of this actor that might have been changed while it was
+	 * in use, and releases the represented board object, so the actor can be
+	 * recycled.
+	 */
+	@Override
+	public void reset() {
+		remove();
+		clearActions();
+		clearListeners();
+		setPosition(0, 0);
+		setOrigin(0, 0);
+		setScale(1);
+		setRotation(0);
+		setColor(Color.WHITE);
+		setVisible(true);
+		setTouchable(Touchable.enabled);
+		object = null;
+	}
 }
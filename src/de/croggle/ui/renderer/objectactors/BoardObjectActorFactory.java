@@ -14,12 +14,22 @@ import de.croggle.game.board.operations.BoardObjectVisitor;
 /**
  * Helper class providing easy to use functionality for creating new or cloning
  * existing {@link BoardObjectActor}s. Using this class primarily helps to avoid
- * reoccurring type checks of the actors' InternalBoardObjects
+ * reoccurring type checks of the actors' InternalBoardObjects.
  * 
+ * Actors no longer in use can be {@link #free(BoardObjectActor) freed}, in
+ * which case they are recycled by the next instantiation of an actor of the
+ * same type instead of creating a new one.
  */
 public class BoardObjectActorFactory {
 	private static boolean headlessActors = false;
 
+	private static final ActorPool<EggActor> eggPool = new ActorPool<EggActor>();
+	private static final ActorPool<ColoredAlligatorActor> coloredAlligatorPool = new ActorPool<ColoredAlligatorActor>();
+	private static final ActorPool<AgedAlligatorActor> agedAlligatorPool = new ActorPool<AgedAlligatorActor>();
+	private static final ActorPool<EggActor> headlessEggPool = new ActorPool<EggActor>();
+	private static final ActorPool<ColoredAlligatorActor> headlessColoredAlligatorPool = new ActorPool<ColoredAlligatorActor>();
+	private static final ActorPool<AgedAlligatorActor> headlessAgedAlligatorPool = new ActorPool<AgedAlligatorActor>();
+
 	private BoardObjectActorFactory() {
 	}
 
@@ -88,7 +98,14 @@ public class BoardObjectActorFactory {
 
 	public static ColoredAlligatorActor instantiateColoredAlligatorActor(
 			ColoredAlligator alligator, boolean colorBlindEnabled) {
-		if (AlligatorApp.DEBUG && headlessActors) {
+		boolean headless = AlligatorApp.DEBUG && headlessActors;
+		ColoredAlligatorActor actor = (headless ? headlessColoredAlligatorPool
+				: coloredAlligatorPool).obtainFree();
+		if (actor != null) {
+			actor.rebind(alligator, colorBlindEnabled);
+			return actor;
+		}
+		if (headless) {
 			return new HeadlessColoredAlligatorActor(alligator,
 					colorBlindEnabled);
 		} else {
@@ -98,7 +115,14 @@ public class BoardObjectActorFactory {
 
 	public static AgedAlligatorActor instantiateAgedAlligatorActor(
 			AgedAlligator alligator) {
-		if (AlligatorApp.DEBUG && headlessActors) {
+		boolean headless = AlligatorApp.DEBUG && headlessActors;
+		AgedAlligatorActor actor = (headless ? headlessAgedAlligatorPool
+				: agedAlligatorPool).obtainFree();
+		if (actor != null) {
+			actor.rebind(alligator);
+			return actor;
+		}
+		if (headless) {
 			return new HeadlessAgedAlligatorActor(alligator);
 		} else {
 			return new AgedAlligatorActor(alligator);
@@ -107,13 +131,45 @@ public class BoardObjectActorFactory {
 
 	public static EggActor instantiateEggActor(Egg egg,
 			boolean colorBlindEnabled) {
-		if (AlligatorApp.DEBUG && headlessActors) {
+		boolean headless = AlligatorApp.DEBUG && headlessActors;
+		EggActor actor = (headless ? headlessEggPool : eggPool).obtainFree();
+		if (actor != null) {
+			actor.rebind(egg, colorBlindEnabled);
+			return actor;
+		}
+		if (headless) {
 			return new HeadlessEggActor(egg, colorBlindEnabled);
 		} else {
 			return new EggActor(egg, colorBlindEnabled);
 		}
 	}
 
+	/**
+	 * Hands the given actor back for being recycled. The actor is
+	 * {@link BoardObjectActor#reset() reset}, i.e. removed from its parent and
+	 * stripped of its actions, listeners and board object, and must not be
+	 * used by the caller anymore. Actors of types not created by this factory
+	 * are ignored.
+	 * 
+	 * @param actor
+	 *            the actor that is no longer needed
+	 */
+	public static void free(BoardObjectActor actor) {
+		if (actor instanceof HeadlessEggActor) {
+			headlessEggPool.free((EggActor) actor);
+		} else if (actor instanceof EggActor) {
+			eggPool.free((EggActor) actor);
+		} else if (actor instanceof HeadlessColoredAlligatorActor) {
+			headlessColoredAlligatorPool.free((ColoredAlligatorActor) actor);
+		} else if (actor instanceof ColoredAlligatorActor) {
+			coloredAlligatorPool.free((ColoredAlligatorActor) actor);
+		} else if (actor instanceof HeadlessAgedAlligatorActor) {
+			headlessAgedAlligatorPool.free((AgedAlligatorActor) actor);
+		} else if (actor instanceof AgedAlligatorActor) {
+			agedAlligatorPool.free((AgedAlligatorActor) actor);
+		}
+	}
+
 	/**
 	 * Creates a new {@link BoardObjectActor} representing and matching the
 	 * actual type of the given {@link InternalBoardObject}. It can be of type
@@ -3,7 +3,6 @@ package de.croggle.ui.renderer.objectactors;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Mesh;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.VertexAttribute;
 import com.badlogic.gdx.graphics.VertexAttributes.Usage;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -18,6 +17,8 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
 import de.croggle.backends.BackendHelper;
 import de.croggle.data.AssetManager;
 import de.croggle.game.board.ColoredBoardObject;
+import de.croggle.ui.renderer.RenderProfiler;
+import de.croggle.ui.renderer.RenderProfiler.Metric;
 
 /**
  * Parent class for all {@link BoardObjectActor}s representing
@@ -37,8 +38,8 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 	private TextureRegion mask;
 	private TextureRegion foreground;
 	private final Mesh mesh;
-	private Texture background;
-	private Texture mixin;
+	private TextureRegion background;
+	private TextureRegion mixin;
 	private final float[] vertices;
 	private final ShaderProgram shader;
 	/**
@@ -126,15 +127,41 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 	 */
 	private void validate() {
 		if (colorBlindEnabled) {
-			background = AssetManager.getInstance().getPatternTexture(
+			background = AssetManager.getInstance().getPatternRegion(
 					((ColoredBoardObject) getBoardObject()).getColor());
 		} else {
-			background = AssetManager.getInstance().getColorTexture(
-					((ColoredBoardObject) getBoardObject()).getColor());
+			background = new TextureRegion(AssetManager.getInstance()
+					.getColorTexture(
+							((ColoredBoardObject) getBoardObject()).getColor()));
 		}
 		valid = true;
 	}
 
+	/**
+	 * Lets this actor represent the given object instead of its previous one,
+	 * restoring the size it had after construction. Used for recycling actors.
+	 * 
+	 * @param object
+	 *            the object to be represented by this {@link Actor}
+	 * @param colorBlindEnabled
+	 *            whether to render patterns instead of colors
+	 */
+	void rebind(ColoredBoardObject object, boolean colorBlindEnabled) {
+		setBoardObject(object);
+		this.colorBlindEnabled = colorBlindEnabled;
+		if (foreground != null) {
+			setSize(foreground.getRegionWidth(), foreground.getRegionHeight());
+		}
+		invalidate();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		mixin = null;
+		mixinBlending = 1.f;
+	}
+
 	/**
 	 * Invalidates this actor, causing it to refresh its background texture
 	 * before it is rendered the next time.
@@ -179,6 +206,7 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 	 */
 	@Override
 	public void draw(SpriteBatch batch, float parentAlpha) {
+		long start = RenderProfiler.start();
 		if (!valid) {
 			validate();
 		}
@@ -193,18 +221,29 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 		Matrix4 combined = new Matrix4(batch.getProjectionMatrix()).mul(batch
 				.getTransformMatrix());
 		Gdx.gl.glEnable(GL20.GL_BLEND);
-		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		// blend like the batch does, which keeps the current blend function if
+		// it is set to -1, e.g. while rendering into a cache texture
+		if (batch.getBlendSrcFunc() != -1) {
+			Gdx.gl.glBlendFunc(batch.getBlendSrcFunc(),
+					batch.getBlendDstFunc());
+		}
 		Gdx.gl.glDepthMask(false);
 		shader.begin();
-		background.bind(1);
+		background.getTexture().bind(1);
 		foreground.getTexture().bind(2);
+		setRegionUniform("u_backgroundRegion", background);
+		// mask, background, foreground and possibly the mixin
+		int binds = 3;
 		if (mixinBlending < 0.99f && mixin != null) {
-			mixin.bind(3);
+			mixin.getTexture().bind(3);
+			binds++;
 			shader.setUniformi("u_blendin", 3);
 			shader.setUniformf("u_blendin_priority", mixinBlending);
+			setRegionUniform("u_blendinRegion", mixin);
 		} else {
 			shader.setUniformi("u_blendin", 1); // same as background
 			shader.setUniformf("u_blendin_priority", 1.f);
+			setRegionUniform("u_blendinRegion", background);
 		}
 		// bind to texture unit 0 last for spritebatch
 		mask.getTexture().bind(0);
@@ -218,6 +257,26 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 		shader.end();
 
 		batch.begin();
+		RenderProfiler.count(Metric.OBJECT_DRAWS, 1);
+		RenderProfiler.count(Metric.TEXTURE_BINDS, binds);
+		RenderProfiler.stop(Metric.OBJECT_DRAW, start);
+	}
+
+	/*
+	 * Background textures may be regions of an atlas (e.g. the pattern atlas),
+	 * so the shader wraps the repeating background coordinates into the
+	 * region given by offset (xy) and size (zw). The region is inset by half a
+	 * texel on each side, so linear filtering never samples the padding
+	 * between the regions at the wrapping edges
+	 */
+	private void setRegionUniform(String name, TextureRegion region) {
+		float insetU = Math.copySign(0.5f / region.getTexture().getWidth(),
+				region.getU2() - region.getU());
+		float insetV = Math.copySign(0.5f / region.getTexture().getHeight(),
+				region.getV2() - region.getV());
+		shader.setUniformf(name, region.getU() + insetU, region.getV()
+				+ insetV, region.getU2() - region.getU() - 2 * insetU,
+				region.getV2() - region.getV() - 2 * insetV);
 	}
 
 	private void calculateVertices(float parenAlpha) {
@@ -367,7 +426,7 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 
 	/**
 	 * Returns the value of how much alpha the current background texture will
-	 * have, as opposed to the set {@link #setMixin(Texture) mixin}, which will
+	 * have, as opposed to the set {@link #setMixin(TextureRegion) mixin}, which will
 	 * be drawn with one minus this value as alpha value.
 	 * 
 	 * @return the alpha value used to blend the current and the mixin texture
@@ -379,7 +438,7 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 
 	/**
 	 * Sets the value determining the alpha channel used to blend the current
-	 * background and the so-called {@link #setMixin(Texture) mixin}. The
+	 * background and the so-called {@link #setMixin(TextureRegion) mixin}. The
 	 * current background will be rendered with <code>blending</code>, and the
 	 * mixin with <code>1 - blending</code>. This will only work if there is a
 	 * previous mixin!
@@ -393,32 +452,32 @@ public abstract class ColoredBoardObjectActor extends BoardObjectActor {
 	}
 
 	/**
-	 * Returns the {@link Texture} currently used as background for this
+	 * Returns the {@link TextureRegion} currently used as background for this
 	 * {@link ColoredBoardObjectActor}
 	 * 
-	 * @return the {@link Actor}'s background texture
+	 * @return the {@link Actor}'s background texture region
 	 */
-	public Texture getBackground() {
+	public TextureRegion getBackground() {
 		return background;
 	}
 
 	/**
-	 * Returns the Texture to be mixed with the background. See
+	 * Returns the TextureRegion to be mixed with the background. See
 	 * {@link #setMixinBlending(float)} for how to control the blending
 	 * 
-	 * @return the Texture to be mixed with the background
+	 * @return the TextureRegion to be mixed with the background
 	 */
-	public Texture getMixin() {
+	public TextureRegion getMixin() {
 		return mixin;
 	}
 
 	/**
-	 * Sets the Texture to be mixed/blended with the Actor's background.
+	 * Sets the TextureRegion to be mixed/blended with the Actor's background.
 	 * 
 	 * @param mixin
-	 *            the texture to be blended with the background
+	 *            the texture region to be blended with the background
 	 */
-	public void setMixin(Texture mixin) {
+	public void setMixin(TextureRegion mixin) {
 		this.mixin = mixin;
 	}
 }
@@ -17,6 +17,7 @@ import de.croggle.game.GameController;
 import de.croggle.game.achievement.Achievement;
 import de.croggle.game.achievement.AchievementController;
 import de.croggle.game.level.Level;
+import de.croggle.game.level.LevelController;
 import de.croggle.game.level.LevelPackagesController;
 import de.croggle.ui.StyleHelper;
 import de.croggle.ui.actors.NewAchievementDialog;
@@ -146,9 +147,12 @@ public class LevelTerminatedScreen extends AbstractScreen {
 				game.showLevelOverviewScreen(packagesController
 						.getLevelController(currentPackageIndex + 1));
 			} else {
-				final Level nextLevel = packagesController.getLevelController(
-						currentPackageIndex).getLevel(currentLevelIndex + 1);
-				if (nextLevel.getUnlocked()) {
+				LevelController levelController = packagesController
+						.getLevelController(currentPackageIndex);
+				if (levelController.getLevelStub(currentLevelIndex + 1)
+						.getUnlocked()) {
+					final Level nextLevel = levelController
+							.getLevel(currentLevelIndex + 1);
 					final GameController newGameController = nextLevel
 							.createGameController(game);
 					newGameController.register(game.getStatisticController());
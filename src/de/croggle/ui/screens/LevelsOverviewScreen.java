@@ -10,6 +10,7 @@ import de.croggle.AlligatorApp;
 import de.croggle.game.GameController;
 import de.croggle.game.level.Level;
 import de.croggle.game.level.LevelController;
+import de.croggle.game.level.LevelStub;
 import de.croggle.ui.StyleHelper;
 
 /**
@@ -33,6 +34,8 @@ public class LevelsOverviewScreen extends AbstractScreen {
 	public LevelsOverviewScreen(AlligatorApp game, LevelController controller) {
 		super(game);
 		levelController = controller;
+		// the player is about to pick one of the levels
+		levelController.loadLevelsInBackground();
 
 		fillTable();
 	}
@@ -44,7 +47,7 @@ public class LevelsOverviewScreen extends AbstractScreen {
 				helper.getImageButtonStyleRound("widgets/icon-back"));
 
 		for (int i = 0; i < levelController.getPackageSize(); i++) {
-			Level level = levelController.getLevel(i);
+			LevelStub level = levelController.getLevelStub(i);
 
 			final TextButton levelButton = new TextButton(
 					Integer.toString(level.getLevelIndex() + 1),
@@ -52,8 +55,7 @@ public class LevelsOverviewScreen extends AbstractScreen {
 			if (!level.getUnlocked() && !AlligatorApp.DEBUG) {
 				levelButton.setDisabled(true);
 			} else {
-				levelButton.addListener(new StartGameListener(level
-						.getLevelIndex()));
+				levelButton.addListener(new StartGameListener(i));
 				// prevent button from being checked just by clicking
 				levelButton.addListener(new ClickListener() {
 					@Override
@@ -95,6 +97,14 @@ public class LevelsOverviewScreen extends AbstractScreen {
 			this.levelId = levelId;
 		}
 
+		@Override
+		public boolean touchDown(InputEvent event, float x, float y,
+				int pointer, int button) {
+			// get the level parsed while the button is still held
+			levelController.prioritize(levelId);
+			return super.touchDown(event, x, y, pointer, button);
+		}
+
 		@Override
 		public void clicked(InputEvent event, float x, float y) {
 			super.clicked(event, x, y);
@@ -0,0 +1,133 @@
+package de.croggle.util.convert;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import de.croggle.game.board.AgedAlligator;
+import de.croggle.game.board.Board;
+import de.croggle.game.board.BoardObject;
+import de.croggle.game.board.ColoredAlligator;
+import de.croggle.game.board.Egg;
+import de.croggle.game.board.InternalBoardObject;
+import de.croggle.game.board.Parent;
+import de.croggle.game.board.operations.BoardObjectVisitor;
+
+/**
+ * Helper class to encode a given tree of BoardObjects in a compact binary
+ * format, which can be decoded again using {@link BinaryToAlligator}.
+ *
+ * The encoding starts with the {@link #FORMAT_VERSION version} of the format,
+ * followed by the objects in pre-order. Every object starts with a header byte
+ * holding its type and flags, followed by its color id as a signed byte if it
+ * is colored, followed by its number of children as a variable length
+ * unsigned int if it is a parent. A board consists of the header byte
+ * {@link #TYPE_BOARD} and its number of families only.
+ *
+ * The number of children is written in groups of seven bits, least
+ * significant first, with the highest bit of every byte set if another one
+ * follows. Families of less than 128 children thus take up a single byte.
+ */
+public class AlligatorToBinary implements BoardObjectVisitor {
+
+	/**
+	 * The version of the encoding written. Has to be increased on every change
+	 * of the format, so that encodings of older versions can be recognized.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	static final int TYPE_MASK = 0x07;
+	static final int TYPE_BOARD = 0;
+	static final int TYPE_EGG = 1;
+	static final int TYPE_COLORED_ALLIGATOR = 2;
+	static final int TYPE_AGED_ALLIGATOR = 3;
+
+	static final int FLAG_MOVABLE = 0x08;
+	static final int FLAG_REMOVABLE = 0x10;
+	static final int FLAG_RECOLORABLE = 0x20;
+
+	private byte[] result;
+	private int length;
+
+	private AlligatorToBinary() {
+		result = new byte[64];
+		length = 0;
+	}
+
+	/**
+	 * Performs the conversion between alligator constellations and their
+	 * binary representations.
+	 *
+	 * @param b
+	 *            the BoardObject to be converted
+	 * @return the encoded constellation
+	 */
+	public static byte[] convert(BoardObject b) {
+		AlligatorToBinary converter = new AlligatorToBinary();
+		converter.writeByte(FORMAT_VERSION);
+		b.accept(converter);
+		return Arrays.copyOf(converter.result, converter.length);
+	}
+
+	@Override
+	public void visitEgg(Egg egg) {
+		writeHeader(TYPE_EGG, egg.isMovable(), egg.isRemovable(),
+				egg.isRecolorable());
+		writeByte(egg.getColor().getId());
+	}
+
+	@Override
+	public void visitColoredAlligator(ColoredAlligator alligator) {
+		writeHeader(TYPE_COLORED_ALLIGATOR, alligator.isMovable(),
+				alligator.isRemovable(), alligator.isRecolorable());
+		writeByte(alligator.getColor().getId());
+		writeChildren(alligator);
+	}
+
+	@Override
+	public void visitAgedAlligator(AgedAlligator alligator) {
+		writeHeader(TYPE_AGED_ALLIGATOR, alligator.isMovable(),
+				alligator.isRemovable(), false);
+		writeChildren(alligator);
+	}
+
+	@Override
+	public void visitBoard(Board board) {
+		writeByte(TYPE_BOARD);
+		writeChildren(board);
+	}
+
+	private void writeHeader(int type, boolean movable, boolean removable,
+			boolean recolorable) {
+		int header = type;
+		if (movable) {
+			header |= FLAG_MOVABLE;
+		}
+		if (removable) {
+			header |= FLAG_REMOVABLE;
+		}
+		if (recolorable) {
+			header |= FLAG_RECOLORABLE;
+		}
+		writeByte(header);
+	}
+
+	private void writeChildren(Parent p) {
+		int count = p.getChildCount();
+		while (count >= 0x80) {
+			writeByte(count | 0x80);
+			count >>>= 7;
+		}
+		writeByte(count);
+		Iterator<InternalBoardObject> i = p.iterator();
+		while (i.hasNext()) {
+			i.next().accept(this);
+		}
+	}
+
+	private void writeByte(int b) {
+		if (length == result.length) {
+			result = Arrays.copyOf(result, length << 1);
+		}
+		result[length++] = (byte) b;
+	}
+}
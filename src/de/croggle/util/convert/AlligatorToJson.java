@@ -15,15 +15,21 @@ import de.croggle.game.board.operations.BoardObjectVisitor;
 /**
  * Helper class to format a given tree of BoardObjects as json.
  * 
+ * The json is written in a single pass over the tree, appending directly to a
+ * {@link StringBuilder} that can be provided by the caller, so that repeated
+ * conversions can reuse the same buffer.
  */
 public class AlligatorToJson implements BoardObjectVisitor {
 
 	private StringBuilder result;
 	private int depth;
+	// whether the object visited next is the last child of its parent
+	private boolean last;
 
-	private AlligatorToJson() {
-		result = new StringBuilder();
+	private AlligatorToJson(StringBuilder result) {
+		this.result = result;
 		depth = 0;
+		last = true;
 	}
 
 	/**
@@ -35,15 +41,24 @@ public class AlligatorToJson implements BoardObjectVisitor {
 	 * @return the converted json string
 	 */
 	public static String convert(BoardObject b) {
-		AlligatorToJson converter = new AlligatorToJson();
-		return converter.toJson(b);
+		StringBuilder result = new StringBuilder();
+		convert(b, result);
+		return result.toString();
 	}
 
-	private String toJson(BoardObject b) {
-		result = new StringBuilder();
-		depth = 0;
-		b.accept(this);
-		return result.toString();
+	/**
+	 * Performs the conversion between alligator constellations and their json
+	 * formatted string representations, appending the json to the given
+	 * buffer.
+	 * 
+	 * @param b
+	 *            the BoardObject to be converted
+	 * @param target
+	 *            the buffer to append the json to
+	 */
+	public static void convert(BoardObject b, StringBuilder target) {
+		AlligatorToJson converter = new AlligatorToJson(target);
+		b.accept(converter);
 	}
 
 	@Override
@@ -56,7 +71,7 @@ public class AlligatorToJson implements BoardObjectVisitor {
 		printThree("\"removable\" : ", egg.isRemovable(), ',');
 		printTwo("\"recolorable\" : ", egg.isRecolorable());
 		depth--;
-		if (egg.getParent() == null || egg.getParent().isLastChild(egg)) {
+		if (last) {
 			println('}');
 		} else {
 			indent();
@@ -66,6 +81,8 @@ public class AlligatorToJson implements BoardObjectVisitor {
 
 	@Override
 	public void visitColoredAlligator(ColoredAlligator alligator) {
+		// printing the children overwrites last
+		boolean isLast = last;
 		println('{');
 		depth++;
 		println("\"type\" : \"colored alligator\",");
@@ -77,7 +94,7 @@ public class AlligatorToJson implements BoardObjectVisitor {
 		print("\"children\" : ");
 		printChildren(alligator);
 		depth--;
-		if (alligator.getParent().isLastChild(alligator)) {
+		if (isLast) {
 			println('}');
 		} else {
 			indent();
@@ -87,6 +104,8 @@ public class AlligatorToJson implements BoardObjectVisitor {
 
 	@Override
 	public void visitAgedAlligator(AgedAlligator alligator) {
+		// printing the children overwrites last
+		boolean isLast = last;
 		println('{');
 		depth++;
 		println("\"type\" : \"aged alligator\",");
@@ -96,7 +115,7 @@ public class AlligatorToJson implements BoardObjectVisitor {
 		print("\"children\" : ");
 		printChildren(alligator);
 		depth--;
-		if (alligator.getParent().isLastChild(alligator)) {
+		if (isLast) {
 			println('}');
 		} else {
 			indent();
@@ -141,7 +160,9 @@ public class AlligatorToJson implements BoardObjectVisitor {
 			depth++;
 			Iterator<InternalBoardObject> i = p.iterator();
 			while (i.hasNext()) {
-				i.next().accept(this);
+				InternalBoardObject child = i.next();
+				last = !i.hasNext();
+				child.accept(this);
 				if (i.hasNext()) {
 					print(',');
 					newLine();
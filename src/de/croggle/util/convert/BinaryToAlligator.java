@@ -0,0 +1,176 @@
+package de.croggle.util.convert;
+
+import static de.croggle.util.convert.AlligatorToBinary.FLAG_MOVABLE;
+import static de.croggle.util.convert.AlligatorToBinary.FORMAT_VERSION;
+import static de.croggle.util.convert.AlligatorToBinary.FLAG_RECOLORABLE;
+import static de.croggle.util.convert.AlligatorToBinary.FLAG_REMOVABLE;
+import static de.croggle.util.convert.AlligatorToBinary.TYPE_AGED_ALLIGATOR;
+import static de.croggle.util.convert.AlligatorToBinary.TYPE_BOARD;
+import static de.croggle.util.convert.AlligatorToBinary.TYPE_COLORED_ALLIGATOR;
+import static de.croggle.util.convert.AlligatorToBinary.TYPE_EGG;
+import static de.croggle.util.convert.AlligatorToBinary.TYPE_MASK;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import de.croggle.game.Color;
+import de.croggle.game.board.AgedAlligator;
+import de.croggle.game.board.Board;
+import de.croggle.game.board.ColoredAlligator;
+import de.croggle.game.board.Egg;
+import de.croggle.game.board.InternalBoardObject;
+import de.croggle.game.board.Parent;
+
+/**
+ * Helper class to decode alligator constellations encoded by
+ * {@link AlligatorToBinary}.
+ *
+ * The decoding does not recurse, so arbitrarily deep constellations can be
+ * decoded without risking a stack overflow.
+ */
+public class BinaryToAlligator {
+
+	/**
+	 * Cannot instantiate this helper class.
+	 */
+	private BinaryToAlligator() {
+
+	}
+
+	/**
+	 * Decodes a {@link Board} from the given bytes. Encodings of a version
+	 * other than {@link AlligatorToBinary#FORMAT_VERSION} are rejected.
+	 *
+	 * @param bytes
+	 *            the encoded board, as returned by
+	 *            {@link AlligatorToBinary#convert(de.croggle.game.board.BoardObject)}
+	 * @return an instance of {@link Board} corresponding to the encoded
+	 *         constellation
+	 * @throws IllegalArgumentException
+	 *             if the bytes do not contain a valid encoded board
+	 */
+	public static Board convertBoard(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		Board b = convertBoard(buffer);
+		if (buffer.hasRemaining()) {
+			throw new IllegalArgumentException(
+					"Illegal board: Found trailing bytes after the board.");
+		}
+		return b;
+	}
+
+	/**
+	 * Decodes a {@link Board} starting at the given buffer's position. The
+	 * position is advanced to the first byte after the board.
+	 *
+	 * @param buffer
+	 *            the buffer to read the encoded board from
+	 * @return an instance of {@link Board} corresponding to the encoded
+	 *         constellation
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not contain a valid encoded board at its
+	 *             position
+	 */
+	public static Board convertBoard(ByteBuffer buffer) {
+		try {
+			int version = buffer.get();
+			if (version != FORMAT_VERSION) {
+				throw new IllegalArgumentException(
+						"Illegal board: Unsupported encoding version " + version
+								+ ".");
+			}
+			if ((buffer.get() & TYPE_MASK) != TYPE_BOARD) {
+				throw new IllegalArgumentException(
+						"Illegal board: Encoded object is not a board.");
+			}
+			Board b = new Board();
+			fill(b, buffer);
+			return b;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException(
+					"Illegal board: Encoded board is truncated.", e);
+		}
+	}
+
+	/*
+	 * reads the children of the given parent and all their descendants. The
+	 * parents whose children are still to be read are kept on an explicit
+	 * stack together with their number of missing children
+	 */
+	private static void fill(Parent root, ByteBuffer buffer) {
+		Parent[] parents = new Parent[16];
+		int[] missing = new int[16];
+		int top = 0;
+		parents[0] = root;
+		missing[0] = readCount(buffer);
+		while (top >= 0) {
+			if (missing[top] == 0) {
+				parents[top--] = null;
+				continue;
+			}
+			missing[top]--;
+			int header = buffer.get();
+			InternalBoardObject child = readObject(header, buffer);
+			parents[top].addChild(child);
+			if (child instanceof Parent) {
+				int children = readCount(buffer);
+				if (children > 0) {
+					if (++top == parents.length) {
+						parents = Arrays.copyOf(parents, top << 1);
+						missing = Arrays.copyOf(missing, top << 1);
+					}
+					parents[top] = (Parent) child;
+					missing[top] = children;
+				}
+			}
+		}
+	}
+
+	private static InternalBoardObject readObject(int header, ByteBuffer buffer) {
+		boolean movable = (header & FLAG_MOVABLE) != 0;
+		boolean removable = (header & FLAG_REMOVABLE) != 0;
+		boolean recolorable = (header & FLAG_RECOLORABLE) != 0;
+		switch (header & TYPE_MASK) {
+		case TYPE_EGG:
+			return new Egg(movable, removable, readColor(buffer), recolorable);
+		case TYPE_COLORED_ALLIGATOR:
+			return new ColoredAlligator(movable, removable, readColor(buffer),
+					recolorable);
+		case TYPE_AGED_ALLIGATOR:
+			return new AgedAlligator(movable, removable);
+		default:
+			throw new IllegalArgumentException(
+					"Illegal board: Unknown object type " + (header & TYPE_MASK));
+		}
+	}
+
+	private static int readCount(ByteBuffer buffer) {
+		int count = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (shift > 28) {
+				throw new IllegalArgumentException(
+						"Illegal board: Number of children is too large.");
+			}
+			b = buffer.get();
+			count |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		if (count < 0) {
+			throw new IllegalArgumentException(
+					"Illegal board: Number of children is too large.");
+		}
+		return count;
+	}
+
+	private static Color readColor(ByteBuffer buffer) {
+		int colorId = buffer.get();
+		if (colorId < 0) {
+			return Color.uncolored();
+		} else {
+			return new Color(colorId);
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package de.croggle.util.convert;
+
+/**
+ * A minimal pull parser reading json directly from a string, without building
+ * a tree of values first. The caller walks through the document by asking for
+ * the values it expects, e.g. {@link #beginObject()}, {@link #hasNext()} and
+ * {@link #nextName(String[])}.
+ *
+ * Names and string values are matched against the expected alternatives in
+ * place, so parsing allocates nothing but the objects the caller creates from
+ * the values.
+ *
+ * All syntax errors are reported as {@link IllegalArgumentException}s stating
+ * the position in the document.
+ */
+class JsonPullParser {
+	private final String json;
+	private final int length;
+	private int pos;
+	/*
+	 * whether the current object or array has not had any elements yet, i.e.
+	 * whether its next element is not preceded by a comma
+	 */
+	private boolean first;
+
+	// the bounds of the last string read, if it did not contain escapes
+	private int stringStart;
+	private int stringEnd;
+	// the last string read, if it contained escapes
+	private final StringBuilder unescaped;
+	private boolean escaped;
+
+	JsonPullParser(String json) {
+		if (json == null) {
+			throw new IllegalArgumentException("The json string is null.");
+		}
+		this.json = json;
+		length = json.length();
+		pos = 0;
+		first = true;
+		unescaped = new StringBuilder();
+	}
+
+	void beginObject() {
+		expect('{');
+		first = true;
+	}
+
+	void endObject() {
+		expect('}');
+		first = false;
+	}
+
+	void beginArray() {
+		expect('[');
+		first = true;
+	}
+
+	void endArray() {
+		expect(']');
+		first = false;
+	}
+
+	/**
+	 * Checks whether the current object or array has another element,
+	 * consuming the comma separating it from the previous one.
+	 *
+	 * @return true if there is another element, false if the object or array
+	 *         ends next
+	 */
+	boolean hasNext() {
+		char c = peek();
+		if (c == '}' || c == ']') {
+			return false;
+		}
+		if (first) {
+			first = false;
+		} else if (c == ',') {
+			pos++;
+		} else {
+			throw error("Expected ',' or the end of an object or array");
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @return true if the next value is an array
+	 */
+	boolean isArrayNext() {
+		return peek() == '[';
+	}
+
+	/**
+	 * Reads the next name of an object, including the following colon.
+	 *
+	 * @param names
+	 *            the names expected
+	 * @return the index of the name read inside the given array, or -1 if it
+	 *         is none of them
+	 */
+	int nextName(String[] names) {
+		int match = nextString(names);
+		expect(':');
+		return match;
+	}
+
+	/**
+	 * Reads the next string value.
+	 *
+	 * @param values
+	 *            the values expected
+	 * @return the index of the value read inside the given array, or -1 if it
+	 *         is none of them
+	 */
+	int nextString(String[] values) {
+		readString();
+		for (int i = 0; i < values.length; i++) {
+			if (escaped ? unescaped.toString().equals(values[i])
+					: stringEnd - stringStart == values[i].length()
+							&& json.regionMatches(stringStart, values[i], 0,
+									values[i].length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * @return the last string read, e.g. to report it as invalid
+	 */
+	String lastString() {
+		return escaped ? unescaped.toString() : json.substring(stringStart,
+				stringEnd);
+	}
+
+	boolean nextBoolean() {
+		char c = peek();
+		if (c == 't' && json.startsWith("true", pos)) {
+			pos += 4;
+			return true;
+		} else if (c == 'f' && json.startsWith("false", pos)) {
+			pos += 5;
+			return false;
+		}
+		throw error("Expected a boolean");
+	}
+
+	int nextInt() {
+		char c = peek();
+		int start = pos;
+		boolean negative = false;
+		if (c == '-') {
+			negative = true;
+			pos++;
+		}
+		int value = 0;
+		int digits = 0;
+		while (pos < length && (c = json.charAt(pos)) >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			pos++;
+			digits++;
+		}
+		if (digits == 0) {
+			pos = start;
+			throw error("Expected a number");
+		}
+		if (pos < length
+				&& ((c = json.charAt(pos)) == '.' || c == 'e' || c == 'E')) {
+			// rare enough to not bother parsing it by hand
+			while (pos < length
+					&& "+-.eE0123456789".indexOf(json.charAt(pos)) >= 0) {
+				pos++;
+			}
+			try {
+				return (int) Double.parseDouble(json.substring(start, pos));
+			} catch (NumberFormatException e) {
+				pos = start;
+				throw error("Expected a number");
+			}
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Skips the next value, including all its elements if it is an object or
+	 * array.
+	 */
+	void skipValue() {
+		char c = peek();
+		switch (c) {
+		case '{':
+			beginObject();
+			while (hasNext()) {
+				readString();
+				expect(':');
+				skipValue();
+			}
+			endObject();
+			break;
+		case '[':
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+			break;
+		case '"':
+			readString();
+			break;
+		case 't':
+		case 'f':
+			nextBoolean();
+			break;
+		case 'n':
+			if (!json.startsWith("null", pos)) {
+				throw error("Unexpected character");
+			}
+			pos += 4;
+			break;
+		default:
+			nextInt();
+		}
+	}
+
+	/**
+	 * Makes sure nothing but whitespace follows the value read last.
+	 */
+	void endDocument() {
+		skipWhitespace();
+		if (pos < length) {
+			throw error("Unexpected content after the end of the document");
+		}
+	}
+
+	/**
+	 * Creates an exception describing an error at the current position.
+	 *
+	 * @param message
+	 * @return the exception, to be thrown by the caller
+	 */
+	IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Illegal json at position " + pos
+				+ ": " + message);
+	}
+
+	private void readString() {
+		expect('"');
+		stringStart = pos;
+		escaped = false;
+		char c;
+		while (pos < length && (c = json.charAt(pos)) != '"') {
+			if (c == '\\') {
+				if (!escaped) {
+					escaped = true;
+					unescaped.setLength(0);
+					unescaped.append(json, stringStart, pos);
+				}
+				pos++;
+				unescape();
+			} else {
+				if (escaped) {
+					unescaped.append(c);
+				}
+				pos++;
+			}
+		}
+		if (pos >= length) {
+			throw error("Unterminated string");
+		}
+		stringEnd = pos;
+		pos++;
+	}
+
+	private void unescape() {
+		if (pos >= length) {
+			throw error("Unterminated string");
+		}
+		char c = json.charAt(pos++);
+		switch (c) {
+		case 'b':
+			unescaped.append('\b');
+			break;
+		case 'f':
+			unescaped.append('\f');
+			break;
+		case 'n':
+			unescaped.append('\n');
+			break;
+		case 'r':
+			unescaped.append('\r');
+			break;
+		case 't':
+			unescaped.append('\t');
+			break;
+		case 'u':
+			if (pos + 4 > length) {
+				throw error("Unterminated escape sequence");
+			}
+			try {
+				unescaped.append((char) Integer.parseInt(
+						json.substring(pos, pos + 4), 16));
+			} catch (NumberFormatException e) {
+				throw error("Invalid escape sequence");
+			}
+			pos += 4;
+			break;
+		default:
+			unescaped.append(c);
+		}
+	}
+
+	private void expect(char c) {
+		if (peek() != c) {
+			throw error("Expected '" + c + "'");
+		}
+		pos++;
+	}
+
+	private char peek() {
+		skipWhitespace();
+		if (pos >= length) {
+			throw error("Unexpected end of the document");
+		}
+		return json.charAt(pos);
+	}
+
+	private void skipWhitespace() {
+		char c;
+		while (pos < length
+				&& ((c = json.charAt(pos)) == ' ' || c == '\t' || c == '\n'
+						|| c == '\r')) {
+			pos++;
+		}
+	}
+}
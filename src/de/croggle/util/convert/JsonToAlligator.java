@@ -2,7 +2,6 @@ package de.croggle.util.convert;
 
 import java.util.Iterator;
 
-import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 
 import de.croggle.game.Color;
@@ -14,7 +13,42 @@ import de.croggle.game.board.Egg;
 import de.croggle.game.board.InternalBoardObject;
 import de.croggle.game.board.Parent;
 
+/**
+ * Helper class to create alligator constellations from their json
+ * representation.
+ *
+ * Json strings are read using a pull parser, building the board objects while
+ * reading through the string, without creating a {@link JsonValue} tree first.
+ */
 public class JsonToAlligator {
+	private static final String[] NAMES = { "type", "color", "movable",
+			"removable", "recolorable", "children", "families" };
+	private static final int NAME_TYPE = 0;
+	private static final int NAME_COLOR = 1;
+	private static final int NAME_MOVABLE = 2;
+	private static final int NAME_REMOVABLE = 3;
+	private static final int NAME_RECOLORABLE = 4;
+	private static final int NAME_CHILDREN = 5;
+	private static final int NAME_FAMILIES = 6;
+
+	private static final String[] TYPES = { "egg", "colored alligator",
+			"aged alligator" };
+	private static final int TYPE_EGG = 0;
+	private static final int TYPE_COLORED_ALLIGATOR = 1;
+	private static final int TYPE_AGED_ALLIGATOR = 2;
+
+	// bits marking which of an object's values have been read
+	private static final int SEEN_COLOR = 1;
+	private static final int SEEN_MOVABLE = 2;
+	private static final int SEEN_REMOVABLE = 4;
+	private static final int SEEN_RECOLORABLE = 8;
+	private static final int SEEN_CHILDREN = 16;
+	private static final int[] REQUIRED = {
+			SEEN_COLOR | SEEN_MOVABLE | SEEN_REMOVABLE | SEEN_RECOLORABLE,
+			SEEN_COLOR | SEEN_MOVABLE | SEEN_REMOVABLE | SEEN_RECOLORABLE,
+			SEEN_MOVABLE | SEEN_REMOVABLE };
+	private static final String[] SEEN_NAMES = { "color", "movable",
+			"removable", "recolorable", "children" };
 
 	/**
 	 * Cannot instantiate this helper class.
@@ -32,10 +66,10 @@ public class JsonToAlligator {
 	 * @return an alligator constellation based on the given json string
 	 */
 	public static BoardObject convert(String json) {
-		JsonReader reader = new JsonReader();
-		JsonValue val = reader.parse(json);
-
-		return convert(val);
+		JsonPullParser parser = new JsonPullParser(json);
+		BoardObject b = readObject(parser, true, true);
+		parser.endDocument();
+		return b;
 	}
 
 	/**
@@ -66,10 +100,10 @@ public class JsonToAlligator {
 	 */
 	public static InternalBoardObject convertInternalBoardObject(
 			String jsonString) {
-		JsonReader reader = new JsonReader();
-		JsonValue val = reader.parse(jsonString);
-
-		return convertInternalBoardObject(val);
+		JsonPullParser parser = new JsonPullParser(jsonString);
+		BoardObject b = readObject(parser, false, true);
+		parser.endDocument();
+		return (InternalBoardObject) b;
 	}
 
 	/**
@@ -98,10 +132,10 @@ public class JsonToAlligator {
 	 *         described in the given json string
 	 */
 	public static Board convertBoard(String boardJson) {
-		JsonReader reader = new JsonReader();
-		JsonValue val = reader.parse(boardJson);
-
-		return convertBoard(val);
+		JsonPullParser parser = new JsonPullParser(boardJson);
+		BoardObject b = readObject(parser, true, false);
+		parser.endDocument();
+		return (Board) b;
 	}
 
 	/**
@@ -262,4 +296,153 @@ public class JsonToAlligator {
 		fillParent(b, board, "families");
 		return b;
 	}
+	/**
+	 * Reads the next object from the given parser and builds the
+	 * corresponding board object, reading all its descendants as well.
+	 *
+	 * Children are added to their parent as soon as they are read. This
+	 * requires the parent's type and flags to precede its children, as they
+	 * do in all json written by {@link AlligatorToJson}. Otherwise, the
+	 * children are collected in a temporary board first.
+	 *
+	 * @param parser
+	 *            the parser positioned in front of the object
+	 * @param allowBoard
+	 *            whether a board is accepted, i.e. an object with families
+	 * @param allowInternal
+	 *            whether an internal board object is accepted
+	 * @return the object read
+	 */
+	private static BoardObject readObject(JsonPullParser parser,
+			boolean allowBoard, boolean allowInternal) {
+		int type = -1;
+		int seen = 0;
+		int colorId = 0;
+		boolean movable = false;
+		boolean removable = false;
+		boolean recolorable = false;
+		Parent created = null;
+		Board families = null;
+		Board orphans = null;
+
+		parser.beginObject();
+		while (parser.hasNext()) {
+			switch (parser.nextName(NAMES)) {
+			case NAME_TYPE:
+				type = parser.nextString(TYPES);
+				if (type < 0) {
+					throw new IllegalArgumentException(
+							"JsonValue json does not contain a valid type: "
+									+ parser.lastString());
+				}
+				break;
+			case NAME_COLOR:
+				colorId = parser.nextInt();
+				seen |= SEEN_COLOR;
+				break;
+			case NAME_MOVABLE:
+				movable = parser.nextBoolean();
+				seen |= SEEN_MOVABLE;
+				break;
+			case NAME_REMOVABLE:
+				removable = parser.nextBoolean();
+				seen |= SEEN_REMOVABLE;
+				break;
+			case NAME_RECOLORABLE:
+				recolorable = parser.nextBoolean();
+				seen |= SEEN_RECOLORABLE;
+				break;
+			case NAME_CHILDREN:
+				if (type == TYPE_EGG || !allowInternal) {
+					parser.skipValue();
+					break;
+				}
+				seen |= SEEN_CHILDREN;
+				if (type >= 0 && (seen & REQUIRED[type]) == REQUIRED[type]) {
+					created = createParent(type, colorId, movable, removable,
+							recolorable);
+					readChildren(parser, created);
+				} else {
+					orphans = new Board();
+					readChildren(parser, orphans);
+				}
+				break;
+			case NAME_FAMILIES:
+				if (!allowBoard) {
+					parser.skipValue();
+					break;
+				}
+				families = new Board();
+				readChildren(parser, families);
+				break;
+			default:
+				parser.skipValue();
+			}
+		}
+		parser.endObject();
+
+		if (families != null) {
+			return families;
+		} else if (!allowInternal) {
+			throw new IllegalArgumentException(
+					"Illegal board: Did not find list \"families\" in given json.");
+		}
+		if (type < 0) {
+			throw new IllegalArgumentException(
+					"Named value not found: type");
+		}
+		if (created != null) {
+			return created;
+		}
+		int required = REQUIRED[type];
+		if (type != TYPE_EGG) {
+			required |= SEEN_CHILDREN;
+		}
+		if ((seen & required) != required) {
+			for (int i = 0; i < SEEN_NAMES.length; i++) {
+				if ((required & ~seen & (1 << i)) != 0) {
+					throw new IllegalArgumentException(
+							"Named value not found: " + SEEN_NAMES[i]);
+				}
+			}
+		}
+		if (type == TYPE_EGG) {
+			return new Egg(movable, removable, toColor(colorId), recolorable);
+		}
+		Parent p = createParent(type, colorId, movable, removable, recolorable);
+		for (InternalBoardObject child : orphans) {
+			p.addChild(child);
+		}
+		return p;
+	}
+
+	private static Parent createParent(int type, int colorId, boolean movable,
+			boolean removable, boolean recolorable) {
+		if (type == TYPE_COLORED_ALLIGATOR) {
+			return new ColoredAlligator(movable, removable, toColor(colorId),
+					recolorable);
+		} else {
+			return new AgedAlligator(movable, removable);
+		}
+	}
+
+	private static void readChildren(JsonPullParser parser, Parent p) {
+		if (!parser.isArrayNext()) {
+			throw new IllegalArgumentException(
+					"Given parent does not contain a List of children");
+		}
+		parser.beginArray();
+		while (parser.hasNext()) {
+			p.addChild((InternalBoardObject) readObject(parser, false, true));
+		}
+		parser.endArray();
+	}
+
+	private static Color toColor(int colorId) {
+		if (colorId < 0) {
+			return Color.uncolored();
+		} else {
+			return new Color(colorId);
+		}
+	}
 }
@@ -1,60 +1,77 @@
 package de.croggle.util.convert;
 
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import de.croggle.game.Color;
 import de.croggle.game.ColorController;
 import de.croggle.game.ColorOverflowException;
 import de.croggle.game.board.AgedAlligator;
-import de.croggle.game.board.Alligator;
 import de.croggle.game.board.Board;
-import de.croggle.game.board.BoardObject;
 import de.croggle.game.board.ColoredAlligator;
 import de.croggle.game.board.Egg;
-import de.croggle.game.board.InternalBoardObject;
 import de.croggle.game.board.Parent;
-import de.croggle.game.board.operations.BoardObjectVisitor;
 import de.croggle.game.board.operations.RemoveLonelyAgedAlligators;
 
 /**
  * A helper class to allow for parsing lambda terms and build their alligator
  * constellations.
- * 
+ *
+ * The term is split into tokens in a single pass, after which the board is
+ * built in a second pass over the tokens. Instead of recursing, the parser
+ * keeps the families still open, i.e. braces and abstractions, on an explicit
+ * stack, so that the time needed grows linearly with the length of the term,
+ * no matter how deeply it is nested. Errors state the position in the term at
+ * which they were detected.
+ *
  * @author suluke
  */
 public class LambdaToAlligator {
 
-	private static char lambda = '\u03bb'; // λ
-	private static String abstractionPrefix = "" + lambda;
-	private static String abstractionSeparator = ".";
+	private static final char lambda = '\u03bb'; // λ
+	private static final char abstractionSeparator = '.';
+
+	private static final int TOKEN_VARIABLE = 0;
+	private static final int TOKEN_LAMBDA = 1;
+	private static final int TOKEN_SEPARATOR = 2;
+	private static final int TOKEN_OPENING_BRACE = 3;
+	private static final int TOKEN_CLOSING_BRACE = 4;
+
+	private static final int FAMILY_BOARD = 0;
+	private static final int FAMILY_BRACES = 1;
+	private static final int FAMILY_ABSTRACTION = 2;
+
+	private final String expr;
+
+	// the tokens, as parallel arrays of their types and bounds inside expr
+	private int[] types;
+	private int[] starts;
+	private int[] ends;
+	private int tokenCount;
 
-	private final String bindPrfx;
-	private final String bindPstfx;
-	private final List<UnparsedObject> unparsedDeque;
-	private final List<UnparsedObject> unparsedList;
 	private final Map<String, Color> colors;
 	private final ColorController ccntrl;
 
 	/**
-	 * Creates a new LambdaToAlligator instance, initializing internal values
-	 * for
+	 * Creates a new LambdaToAlligator instance for converting the given term,
+	 * initializing internal values for
 	 * <ul>
-	 * <li>abstraction prefix</li>
-	 * <li>abstraction separator</li>
-	 * <li>the linked list of not yet compiled (unparsed) BoardObjects</li>
+	 * <li>the list of tokens</li>
 	 * <li>the map of already assigned colors to variable names</li>
 	 * <li>the color controller for retrieving new colors</li>
 	 * </ul>
+	 *
+	 * @param expr
+	 *            the lambda term to be converted
 	 */
-	private LambdaToAlligator() {
-		bindPrfx = abstractionPrefix;
-		bindPstfx = abstractionSeparator;
-		unparsedDeque = new LinkedList<UnparsedObject>();
-		unparsedList = unparsedDeque;
+	private LambdaToAlligator(String expr) {
+		this.expr = expr;
+		int capacity = Math.max(16, expr.length() / 2);
+		types = new int[capacity];
+		starts = new int[capacity];
+		ends = new int[capacity];
+		tokenCount = 0;
 		ccntrl = new ColorController();
 		colors = new HashMap<String, Color>(30);
 	}
@@ -62,242 +79,197 @@ public class LambdaToAlligator {
 	/**
 	 * Turns a given String of a (valid) lambda calculus term into a
 	 * constellation of BoardObjects, places on the board that is returned.
-	 * 
+	 *
 	 * @param expr
 	 *            a lambda calculus term to be converted
 	 * @return a board with the given term's alligator representation
+	 * @throws IllegalArgumentException
+	 *             if the term is not valid
 	 */
 	public static Board convert(String expr) {
-		final LambdaToAlligator converter = new LambdaToAlligator();
+		if (expr == null) {
+			throw new IllegalArgumentException("The term is null");
+		}
+		final LambdaToAlligator converter = new LambdaToAlligator(expr);
 		final Board result = new Board();
-		converter.boardFromString(result, expr);
+		converter.boardFromString(result);
 		return result;
 	}
 
 	/**
-	 * Turns a given string into a board object.
-	 * 
+	 * Turns the term into a board object.
+	 *
 	 * @param b
 	 *            the board to fill with the outcome of the parsed term
-	 * @param expr
-	 *            the lambda term to parse
 	 */
-	private void boardFromString(Board b, String expr) {
-		expr = expr.replaceAll("\\s+", " ").trim();
-
-		UnparsedObject unp = new UnparsedObject(expr);
-		unparsedDeque.add(unp);
-		b.addChild(unp);
-
-		// stage one parsing
-		while (unparsedDeque.get(0).getClass() == UnparsedObject.class) {
-			parseStageOne();
-		}
-
-		java.util.Collections.sort(unparsedList);
-
-		// stage two parsing
-		while (!unparsedDeque.isEmpty()) {
-			parseStageTwo();
-		}
-
+	private void boardFromString(Board b) {
+		tokenize();
+		assignColors();
+		build(b);
 		RemoveLonelyAgedAlligators.remove(b);
 	}
 
 	/**
-	 * Parses single parts of a term until there are no untyped UnparsedObjects
-	 * left at the beginning of the List "unparsed"
+	 * Splits the term into tokens. Variable names are the longest sequences of
+	 * characters other than whitespace, braces, the lambda and the
+	 * abstraction separator.
 	 */
-	private void parseStageOne() {
-		if (unparsedDeque.isEmpty()
-				|| unparsedDeque.get(0).getClass() != UnparsedObject.class)
-			return;
-
-		UnparsedObject o = unparsedDeque.get(0);
-		String e = o.getExpr();
-		if (e.startsWith(bindPstfx)) {
-			throw new IllegalArgumentException(
-					"Binding separator \".\" too much");
-		} else if (e.startsWith(bindPrfx)) {
-			splitAbstraction(o);
-		} else if (e.startsWith("(")) {
-			splitBraces(o);
-		} else {
-			splitVariable(o);
-		}
-	}
-
-	/**
-	 * Expects the list of unparsed objects to be sorted, with first braces
-	 * coming first, followed by abstractions and variables at the end. Will
-	 * turn all mentioned UnparsedExpression types step-by-step into their
-	 * alligator counterparts.
-	 */
-	private void parseStageTwo() {
-		if (unparsedDeque.isEmpty())
-			return;
-		assert (unparsedDeque.get(0).getClass() != UnparsedObject.class);
-
-		UnparsedObject o = unparsedDeque.get(0);
-		if (o.getClass() == AbstractionBegin.class) {
-			buildAbstraction((AbstractionBegin) o);
-		} else if (o.getClass() == OpeningBrace.class) {
-			buildBraces((OpeningBrace) o);
-		} else if (o.getClass() == Variable.class) {
-			buildVariable((Variable) o);
-		} else {
-			throw new IllegalArgumentException("Token too much: " + o.getExpr());
+	private void tokenize() {
+		final int length = expr.length();
+		int i = 0;
+		while (i < length) {
+			char c = expr.charAt(i);
+			if (isWhitespace(c)) {
+				i++;
+			} else if (c == lambda) {
+				addToken(TOKEN_LAMBDA, i, ++i);
+			} else if (c == abstractionSeparator) {
+				addToken(TOKEN_SEPARATOR, i, ++i);
+			} else if (c == '(') {
+				addToken(TOKEN_OPENING_BRACE, i, ++i);
+			} else if (c == ')') {
+				addToken(TOKEN_CLOSING_BRACE, i, ++i);
+			} else {
+				int start = i;
+				while (i < length && isVariableChar(expr.charAt(i))) {
+					i++;
+				}
+				addToken(TOKEN_VARIABLE, start, i);
+			}
 		}
 	}
 
 	/**
-	 * Expects the abstraction prefix (λ) as argument and combines the following
-	 * Variable, AbstractionSeparator and (Egg|Alligator) to a colored alligator
-	 * 
-	 * @param o
-	 *            the begin of the abstraction
+	 * Assigns a color to every variable name. The names bound by abstractions
+	 * are assigned their colors first, in the order of the abstractions,
+	 * followed by the names of all other variables in the order they appear
+	 * in.
 	 */
-	private void buildAbstraction(AbstractionBegin o) {
-		Parent p = o.getParent();
-
-		InternalBoardObject nextChild;
-
-		// get the bound variable
-		Variable var;
-		nextChild = p.getChildAfter(o);
-		if (nextChild.getClass() != Variable.class) {
-			throw new IllegalArgumentException(
-					"Not a variable name bound by lambda abstraction");
-		} else {
-			var = (Variable) p.getChildAfter(o);
-		}
-
-		// get the abstraction separator
-		AbstractionSeparator sep;
-		nextChild = p.getChildAfter(var);
-		if (nextChild.getClass() != AbstractionSeparator.class) {
-			throw new IllegalArgumentException(
-					"No binding seperator ('.') found for abstraction");
-		} else {
-			sep = (AbstractionSeparator) p.getChildAfter(var);
-		}
-
-		// instantiate the alligator
-		Color c = strToColor(var.getExpr());
-		ColoredAlligator abstraction = new ColoredAlligator(true, true, c, true);
-
-		// get the bound terms
-		int pos = p.getChildPosition(sep) + 1;
-		InternalBoardObject nextBound;
-		Iterator<InternalBoardObject> it = p.iterator(pos);
-		if (!it.hasNext()) {
-			throw new IllegalArgumentException(
-					"No bound term found for abstraction");
-		}
-		while (it.hasNext()) {
-			nextBound = it.next();
-			// neither Egg (still as variable) nor parenthesis (already parsed
-			// as AgedAlligators) need to be considered here
-			if (!(nextBound instanceof Variable)
-					&& !(nextBound instanceof Alligator)
-					&& (nextBound.getClass() != AbstractionBegin.class)
-					&& (nextBound.getClass() != AbstractionSeparator.class)) {
-				throw new IllegalArgumentException("Illegal term bound: "
-						+ nextBound.getClass().getSimpleName());
-			} /*
-			 * Not needed, I guess. else if (nextBound.getClass() ==
-			 * AbstractionBegin.class) { buildAbstraction((AbstractionBegin)
-			 * nextBound); boundTerm = (ColoredAlligator) p.getNextChild(sep);
-			 * // re-get the child, which was transformed in the mean time }
-			 */else {
-				abstraction.addChild(nextBound);
+	private void assignColors() {
+		for (int i = 0; i + 1 < tokenCount; i++) {
+			if (types[i] == TOKEN_LAMBDA && types[i + 1] == TOKEN_VARIABLE) {
+				strToColor(name(i + 1));
 			}
 		}
-
-		p.replaceChild(o, abstraction);
-		unparsedDeque.remove(o); // the abstraction
-
-		p.removeChild(var);
-		unparsedDeque.remove(var); // has turned into a color
-
-		p.removeChild(sep);
-		unparsedDeque.remove(sep); // part of the abstraction
-
-		for (InternalBoardObject child : abstraction) {
-			p.removeChild(child);
+		for (int i = 0; i < tokenCount; i++) {
+			if (types[i] == TOKEN_VARIABLE
+					&& (i == 0 || types[i - 1] != TOKEN_LAMBDA)) {
+				strToColor(name(i));
+			}
 		}
-		// boundTerm is probably an alligator, or will turn into an egg later
 	}
 
 	/**
-	 * Turns the given OpeningBrace and all following BoardObjects of the same
-	 * parent up to the matching ClosingBrace into an aged alligator.
-	 * 
-	 * @param o
-	 *            the opening brace of the part to be turned into an aged
-	 *            alligator
+	 * Builds the alligator constellation from the tokens. The families that
+	 * new objects are added to are kept on a stack. An abstraction extends to
+	 * the end of the family it is part of, so abstractions are closed together
+	 * with the braces or board surrounding them.
+	 *
+	 * @param b
+	 *            the board to add the families to
 	 */
-	private void buildBraces(OpeningBrace o) {
-		Parent p = o.getParent();
-		Iterator<InternalBoardObject> i = p.iterator(p.getChildPosition(o) + 1);
-		InternalBoardObject current = null;
-		int open = 0;
-		while (!((current = i.next()).getClass() == ClosingBrace.class && open == 0)) {
-			if (current.getClass() == OpeningBrace.class) {
-				open++;
-			} else if (current.getClass() == ClosingBrace.class) {
-				open--;
+	private void build(Board b) {
+		Parent[] families = new Parent[16];
+		int[] kinds = new int[16];
+		int[] begins = new int[16];
+		int top = 0;
+		families[0] = b;
+		kinds[0] = FAMILY_BOARD;
+		begins[0] = 0;
+
+		for (int i = 0; i < tokenCount; i++) {
+			switch (types[i]) {
+			case TOKEN_VARIABLE:
+				families[top].addChild(new Egg(true, true, strToColor(name(i)),
+						true));
+				break;
+			case TOKEN_SEPARATOR:
+				throw error("Binding separator \".\" too much", i);
+			case TOKEN_LAMBDA: {
+				if (i + 1 >= tokenCount) {
+					throw error("Missing binding separator", i);
+				} else if (types[i + 1] == TOKEN_SEPARATOR) {
+					throw error("No variable bound by abstraction", i);
+				} else if (types[i + 1] != TOKEN_VARIABLE) {
+					throw error(
+							"Not a variable name bound by lambda abstraction",
+							i + 1);
+				} else if (i + 2 >= tokenCount) {
+					throw error("Missing binding separator", i + 1);
+				} else if (types[i + 2] != TOKEN_SEPARATOR) {
+					throw error(
+							"No binding seperator ('.') found for abstraction",
+							i + 2);
+				}
+				ColoredAlligator abstraction = new ColoredAlligator(true, true,
+						strToColor(name(i + 1)), true);
+				families[top].addChild(abstraction);
+				if (++top == families.length) {
+					families = Arrays.copyOf(families, top << 1);
+					kinds = Arrays.copyOf(kinds, top << 1);
+					begins = Arrays.copyOf(begins, top << 1);
+				}
+				families[top] = abstraction;
+				kinds[top] = FAMILY_ABSTRACTION;
+				begins[top] = i;
+				// skip the bound variable and the separator
+				i += 2;
+				break;
 			}
-
-			if (!i.hasNext()) {
-				throw new IllegalArgumentException("Brace not closed");
+			case TOKEN_OPENING_BRACE: {
+				AgedAlligator braces = new AgedAlligator(true, true);
+				families[top].addChild(braces);
+				if (++top == families.length) {
+					families = Arrays.copyOf(families, top << 1);
+					kinds = Arrays.copyOf(kinds, top << 1);
+					begins = Arrays.copyOf(begins, top << 1);
+				}
+				families[top] = braces;
+				kinds[top] = FAMILY_BRACES;
+				begins[top] = i;
+				break;
+			}
+			case TOKEN_CLOSING_BRACE:
+				top = closeAbstractions(families, kinds, begins, top);
+				if (kinds[top] != FAMILY_BRACES) {
+					throw error("Brace closed without being opened", i);
+				}
+				families[top--] = null;
+				break;
 			}
 		}
 
-		ClosingBrace close = (ClosingBrace) current;
-
-		AgedAlligator braces = new AgedAlligator(true, true);
-		i = p.iterator(p.getChildPosition(o) + 1);
-		while (i.hasNext() && !(current = i.next()).equals(close)) {
-			braces.addChild(current);
+		top = closeAbstractions(families, kinds, begins, top);
+		if (kinds[top] == FAMILY_BRACES) {
+			throw error("Brace not closed", begins[top]);
 		}
-		// dedicated loop to not confuse the iterator
-		for (InternalBoardObject bo : braces) {
-			p.removeChild(bo);
-		}
-		p.removeChild(close);
-		p.replaceChild(o, braces);
-
-		unparsedDeque.remove(o);
-		unparsedDeque.remove(close);
 	}
 
-	/**
-	 * Expects UNBOUND variables, to turn them into eggs.
-	 * 
-	 * @param o
-	 *            the (unbound!) variable to be turned into an egg
+	/*
+	 * pops all abstractions from the top of the stack, making sure they are
+	 * not empty. Returns the new top of the stack
 	 */
-	private void buildVariable(Variable o) {
-		Parent p = o.getParent();
-		Color c = strToColor(o.getExpr());
-		Egg e = new Egg(true, true, c, true);
-		p.replaceChild(o, e);
-		unparsedDeque.remove(o);
+	private int closeAbstractions(Parent[] families, int[] kinds,
+			int[] begins, int top) {
+		while (kinds[top] == FAMILY_ABSTRACTION) {
+			if (families[top].getChildCount() == 0) {
+				throw error("No bound term found for abstraction", begins[top]);
+			}
+			families[top--] = null;
+		}
+		return top;
 	}
 
 	/**
 	 * Translate a string into a color using a color controller.
-	 * 
+	 *
 	 * @param s
 	 *            the string to be translated into a color
 	 * @return a color that will from now on be associated with the given string
 	 */
 	private Color strToColor(String s) {
-		Color c;
-		if (colors.containsKey(s)) {
-			c = colors.get(s);
-		} else {
+		Color c = colors.get(s);
+		if (c == null) {
 			try {
 				c = ccntrl.requestColor(colors.values().toArray(
 						new Color[colors.size()]));
@@ -310,378 +282,39 @@ public class LambdaToAlligator {
 		return c;
 	}
 
-	/**
-	 * Extracts the first occurrence of a lambda abstraction (starting at the
-	 * beginning of the unparsed term) and replaces it with the abstraction
-	 * begin, the bound variable string, the abstraction separator and the rest.
-	 * 
-	 * @param o
-	 *            the UnparsedExpression with a lambda abstraction at the
-	 *            beginning
-	 */
-	private void splitAbstraction(UnparsedObject o) {
-		String var;
-		String rest;
-		String e = o.getExpr();
-		assert (e.startsWith(bindPrfx));
-
-		int separatorIndex = e.indexOf(bindPstfx, bindPrfx.length());
-		if (separatorIndex < 0) {
-			throw new IllegalArgumentException("Missing binding separator");
-		} else if (separatorIndex == 1) {
-			throw new IllegalArgumentException(
-					"No variable bound by abstraction");
-		}
-
-		AbstractionBegin ab = new AbstractionBegin();
-		AbstractionSeparator as = new AbstractionSeparator();
-		var = e.substring(bindPrfx.length(), separatorIndex);
-		rest = e.substring(separatorIndex + bindPstfx.length());
-
-		UnparsedObject varObj = new UnparsedObject(var);
-
-		Parent p = o.getParent();
-		int pos = p.getChildPosition(o);
-		if (!rest.trim().equals("")) {
-			UnparsedObject restObj = new UnparsedObject(rest);
-			p.insertChild(restObj, pos + 1);
-			unparsedDeque.add(0, restObj);
-		}
-
-		p.replaceChild(o, as);
-		unparsedDeque.add(as);
-		unparsedDeque.remove(o);
-
-		p.insertChild(varObj, pos);
-		unparsedDeque.add(0, varObj);
-
-		p.insertChild(ab, pos);
-		unparsedDeque.add(ab);
-
-	}
-
-	/**
-	 * Extracts the first occurrence of a set of braces (starting at the
-	 * beginning of the uparsed term) from the given UnparsedObject and replaces
-	 * it with starting braces, the brace body, a closing brace and the
-	 * remaining unparsed term.
-	 * 
-	 * @param o
-	 *            the UnparsedObject to be replaced
-	 */
-	private void splitBraces(UnparsedObject o) {
-		String body;
-		String rest;
-		String e = o.getExpr();
-		assert (e.charAt(0) == '(');
-		int open = 0;
-		int i;
-		for (i = 1; !(e.charAt(i) == ')' && open == 0); i++) {
-			if (e.charAt(i) == '(') {
-				open++;
-			} else if (e.charAt(i) == ')') {
-				open--;
-			}
-			if (i == e.length() - 1) {
-				throw new IllegalArgumentException("Brace not closed");
-			}
-		}
-
-		body = e.substring(1, i);
-		rest = e.substring(i + 1);
-		Parent p = o.getParent();
-		int pos = p.getChildPosition(o);
-
-		OpeningBrace ob = new OpeningBrace();
-		ClosingBrace cb = new ClosingBrace();
-
-		if (!rest.trim().equals("")) {
-			UnparsedObject restObj = new UnparsedObject(rest);
-			p.insertChild(restObj, pos + 1);
-			unparsedDeque.add(0, restObj);
-		}
-
-		p.replaceChild(o, cb);
-		unparsedDeque.add(cb);
-		unparsedDeque.remove(o);
-
-		if (!body.trim().equals("")) {
-			UnparsedObject bodyObj = new UnparsedObject(body);
-			p.insertChild(bodyObj, pos);
-			unparsedDeque.add(0, bodyObj);
-		}
-
-		p.insertChild(ob, pos);
-		unparsedDeque.add(ob);
-
-	}
-
-	/**
-	 * Extracts the first occurring variable (starting at the beginning of the
-	 * unparsed term) from the given UnparsedObject and replaces it with it and
-	 * the remaining unparsed term.
-	 * 
-	 * @param o
-	 *            the UnparsedObject to be replaced with a variable and the
-	 *            remaining unparsed term
-	 */
-	private void splitVariable(UnparsedObject o) {
-		Parent p = o.getParent();
-		String e = o.getExpr();
-		final int elen = e.length();
-		int i = 0;
-		final char prfxId = bindPrfx.charAt(0);
-		final char pstfxId = bindPstfx.charAt(0);
-		loop: for (; i < elen; i++) {
-			switch (e.charAt(i)) {
-			case '(':
-			case ')':
-			case ' ': {
-				break loop;
-			}
-			default: {
-				if (e.charAt(i) == prfxId) {
-					if (e.substring(i, i + bindPrfx.length()).equals(bindPrfx)) {
-						break loop;
-					}
-				} else if (e.charAt(i) == pstfxId) {
-					if (e.substring(i, i + bindPstfx.length())
-							.equals(bindPstfx)) {
-						break loop;
-					}
-				}
-			}
-				break;
-			}
-		}
-		final int end = i;
-
-		String var = e.substring(0, end);
-		Variable varObj = new Variable(var);
-
-		String rest = e.substring(end);
-		if (!rest.trim().equals("")) {
-			UnparsedObject restObj = new UnparsedObject(rest);
-			unparsedDeque.add(0, restObj);
-			p.insertChild(restObj, p.getChildPosition(o) + 1);
-		}
-
-		p.replaceChild(o, varObj);
-		unparsedDeque.remove(o);
-		unparsedDeque.add(varObj);
-	}
-
-	/**
-	 * Base class of all unparsed BoardObjects. Represents a typeless unparsed
-	 * part of a lambda term.
-	 * 
-	 */
-	private class UnparsedObject implements InternalBoardObject,
-			Comparable<UnparsedObject> {
-		private Parent parent;
-		private String expr;
-
-		public UnparsedObject() {
-		}
-
-		public UnparsedObject(String expr) {
-			this.expr = expr.trim();
-			assert (!this.expr.equals(""));
-		}
-
-		public UnparsedObject(UnparsedObject o) {
-			parent = o.parent;
-			expr = o.expr;
-		}
-
-		/**
-		 * Get the unparsed part of the term as string this object represents.
-		 * 
-		 * @return the unparsed expression string
-		 */
-		public String getExpr() {
-			return expr;
-		}
-
-		public void setExpr(String expr) {
-			this.expr = expr.trim();
-			assert (!this.expr.equals(""));
-		}
-
-		@Override
-		public Parent getParent() {
-			return parent;
-		}
-
-		@Override
-		public void setParent(Parent parent) {
-			this.parent = parent;
-		}
-
-		@Override
-		public boolean isMovable() {
-			return true;
-		}
-
-		@Override
-		public boolean isRemovable() {
-			return true;
-		}
-
-		@Override
-		public InternalBoardObject copy() {
-			return new UnparsedObject(this);
-		}
-
-		@Override
-		public void accept(BoardObjectVisitor visitor) {
-			throw new UnsupportedOperationException("Not supported yet.");
-		}
-
-		@Override
-		public boolean match(BoardObject b) {
-			throw new UnsupportedOperationException("Not supported yet.");
-		}
-
-		@Override
-		public boolean matchWithRecoloring(BoardObject other,
-				Map<Color, Color> recoloring) {
-			throw new UnsupportedOperationException("Not supported yet.");
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == UnparsedObject.class) {
-				return 0;
-			} else {
-				return -1;
-			}
-		}
-	}
-
-	/**
-	 * A class representing the begin of a lambda abstraction.
-	 * 
-	 */
-	private class AbstractionBegin extends UnparsedObject {
-		public AbstractionBegin() {
-			super(bindPrfx);
-		}
-
-		@Override
-		public void setExpr(String expr) {
-			assert (false);
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == UnparsedObject.class
-					|| arg0.getClass() == OpeningBrace.class
-					|| arg0.getClass() == ClosingBrace.class) {
-				return 1;
-			} else if (arg0.getClass() == AbstractionBegin.class) {
-				return 0;
-			} else {
-				return -1;
-			}
-		}
+	private void addToken(int type, int start, int end) {
+		if (tokenCount == types.length) {
+			int capacity = tokenCount << 1;
+			types = Arrays.copyOf(types, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		types[tokenCount] = type;
+		starts[tokenCount] = start;
+		ends[tokenCount] = end;
+		tokenCount++;
 	}
 
-	/**
-	 * Class representing the separation of the bound variable from the bound
-	 * term in a lambda abstraction
-	 * 
-	 */
-	private class AbstractionSeparator extends UnparsedObject {
-		public AbstractionSeparator() {
-			super(bindPstfx);
-		}
-
-		@Override
-		public void setExpr(String expr) {
-			assert (false);
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == AbstractionSeparator.class) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
+	private String name(int token) {
+		return expr.substring(starts[token], ends[token]);
 	}
 
-	/**
-	 * A class representing an opening brace in a lambda term.
-	 * 
-	 */
-	private class OpeningBrace extends UnparsedObject {
-		public OpeningBrace() {
-			super("(");
-		}
-
-		@Override
-		public void setExpr(String expr) {
-			assert (false);
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == UnparsedObject.class) {
-				return 1;
-			} else if (arg0.getClass() == OpeningBrace.class) {
-				return 0;
-			} else {
-				return -1;
-			}
-		}
+	private IllegalArgumentException error(String message, int token) {
+		int position = token < tokenCount ? starts[token] : expr.length();
+		return new IllegalArgumentException(message + " at position "
+				+ position);
 	}
 
-	/**
-	 * Class representing a closing brace in a lambda term.
-	 * 
-	 */
-	private class ClosingBrace extends UnparsedObject {
-		public ClosingBrace() {
-			super(")");
-		}
-
-		@Override
-		public void setExpr(String expr) {
-			assert (false);
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == UnparsedObject.class
-					|| arg0.getClass() == OpeningBrace.class) {
-				return 1;
-			} else if (arg0.getClass() == ClosingBrace.class) {
-				return 0;
-			} else {
-				return -1;
-			}
-		}
+	private static boolean isVariableChar(char c) {
+		return !isWhitespace(c) && c != lambda && c != abstractionSeparator
+				&& c != '(' && c != ')';
 	}
 
-	/**
-	 * Class representing all variable(-names) that can occur in a lambda term,
-	 * i.e. bound and unbound variables.
-	 * 
+	/*
+	 * the characters matched by \s in regular expressions
 	 */
-	private class Variable extends UnparsedObject {
-		public Variable(String name) {
-			this.setExpr(name);
-		}
-
-		@Override
-		public int compareTo(UnparsedObject arg0) {
-			if (arg0.getClass() == Variable.class) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f'
+				|| c == '\u000B';
 	}
 }